@@ -0,0 +1,311 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.commons.osgi;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import aQute.bnd.annotation.ConsumerType;
+import aQute.bnd.annotation.ProviderType;
+
+/**
+ * Thread-safe, size-bounded cache evicting the least recently used entries.
+ * <p>
+ * Lookups, additions and removals do not lock: each entry records a logical
+ * access time which is updated on every hit. Once the cache exceeds its
+ * maximum size the least recently used entries are evicted in a batch by the
+ * thread adding an entry, while other threads continue without waiting.
+ * <p>
+ * Optionally the values are only kept as {@link SoftReference}s, such that
+ * they can be garbage collected if memory is needed. A lookup of a collected
+ * value is a miss.
+ * <p>
+ * The cache counts hits, misses, evictions and invalidations, e.g. for
+ * exposing them in a web console plugin or an MBean.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ * @since 2.5
+ */
+@ProviderType
+public final class ConcurrentLRUCache<K, V> {
+
+    /** The percentage of entries to evict once the cache is full. */
+    private static final int EVICTION_PERCENTAGE = 10;
+
+    private static final class Entry<V> {
+
+        /** The value or a soft reference to it. */
+        private final Object value;
+
+        private volatile long lastAccess;
+
+        private Entry(final Object value, final long lastAccess) {
+            this.value = value;
+            this.lastAccess = lastAccess;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get() {
+            if (value instanceof SoftReference) {
+                return ((SoftReference<V>) value).get();
+            }
+            return (V) value;
+        }
+    }
+
+    private final ConcurrentMap<K, Entry<V>> entries;
+
+    private final int maxSize;
+
+    private final boolean softValues;
+
+    /** Logical clock for the least recently used order. */
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates a cache keeping its values strongly.
+     *
+     * @param maxSize the maximum number of entries; if {@code maxSize < 1} the cache will not keep any entries
+     */
+    public ConcurrentLRUCache(final int maxSize) {
+        this(maxSize, false);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum number of entries; if {@code maxSize < 1} the cache will not keep any entries
+     * @param softValues whether the values are only kept as {@link SoftReference}s
+     */
+    public ConcurrentLRUCache(final int maxSize, final boolean softValues) {
+        this.maxSize = Math.max(0, maxSize);
+        this.softValues = softValues;
+        this.entries = new ConcurrentHashMap<K, Entry<V>>(Math.min(this.maxSize, 1024));
+    }
+
+    /**
+     * Retrieves the value stored for the {@code key}.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if there is none or it has been garbage collected
+     */
+    public V get(final K key) {
+        final Entry<V> entry = entries.get(key);
+        final V value = entry != null ? entry.get() : null;
+        if (value == null) {
+            if (entry != null) {
+                // the value has been garbage collected
+                entries.remove(key, entry);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        hits.incrementAndGet();
+        return value;
+    }
+
+    /**
+     * Stores the {@code value} for the {@code key}, replacing a previously stored value.
+     *
+     * @param key the key
+     * @param value the value
+     * @return {@code true} if entries had to be evicted to make room for the value
+     */
+    public boolean put(final K key, final V value) {
+        if (maxSize == 0) {
+            return false;
+        }
+        final Object stored = softValues ? new SoftReference<V>(value) : value;
+        entries.put(key, new Entry<V>(stored, clock.incrementAndGet()));
+        if (entries.size() > maxSize) {
+            return evict();
+        }
+        return false;
+    }
+
+    /**
+     * Removes the value stored for the {@code key}.
+     *
+     * @param key the key
+     * @return {@code true} if a value was stored for the key, {@code false} otherwise
+     */
+    public boolean remove(final K key) {
+        final boolean removed = entries.remove(key) != null;
+        if (removed) {
+            invalidations.incrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all entries accepted by the {@code filter}.
+     *
+     * @param filter the filter
+     * @return the keys of the removed entries
+     */
+    public Set<K> removeAll(final Filter<? super K, ? super V> filter) {
+        final Set<K> removed = new HashSet<K>();
+        final Iterator<Map.Entry<K, Entry<V>>> iter = entries.entrySet().iterator();
+        while (iter.hasNext()) {
+            final Map.Entry<K, Entry<V>> entry = iter.next();
+            final V value = entry.getValue().get();
+            if (value == null || filter.accept(entry.getKey(), value)) {
+                iter.remove();
+                if (value != null) {
+                    removed.add(entry.getKey());
+                }
+            }
+        }
+        invalidations.addAndGet(removed.size());
+        return removed;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        final int size = entries.size();
+        entries.clear();
+        invalidations.addAndGet(size);
+    }
+
+    /**
+     * @return a snapshot of the keys of the cache
+     */
+    public Set<K> keySet() {
+        return new HashSet<K>(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries removed because the cache was full
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of entries removed explicitly or by clearing the cache
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return the ratio of lookups which returned a value, {@code 0} if there were no lookups
+     */
+    public double getHitRatio() {
+        final long h = hits.get();
+        final long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Evicts the least recently used entries. Only one thread evicts at a time,
+     * other threads simply continue.
+     */
+    private boolean evict() {
+        if (!evictionLock.tryLock()) {
+            return false;
+        }
+        try {
+            final int size = entries.size();
+            if (size <= maxSize) {
+                return false;
+            }
+            final int count = size - maxSize + Math.max(1, maxSize * EVICTION_PERCENTAGE / 100);
+            final long[] accessTimes = new long[size];
+            int index = 0;
+            for (final Entry<V> entry : entries.values()) {
+                if (index == accessTimes.length) {
+                    break;
+                }
+                accessTimes[index++] = entry.lastAccess;
+            }
+            if (index == 0) {
+                return false;
+            }
+            Arrays.sort(accessTimes, 0, index);
+            final long threshold = accessTimes[Math.min(count, index) - 1];
+
+            final Iterator<Entry<V>> iter = entries.values().iterator();
+            while (iter.hasNext()) {
+                if (iter.next().lastAccess <= threshold) {
+                    iter.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Selects the entries to remove with {@link ConcurrentLRUCache#removeAll(Filter)}.
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     */
+    @ConsumerType
+    public interface Filter<K, V> {
+
+        /**
+         * @param key the key of the entry
+         * @param value the value of the entry
+         * @return {@code true} if the entry should be removed
+         */
+        boolean accept(K key, V value);
+    }
+}
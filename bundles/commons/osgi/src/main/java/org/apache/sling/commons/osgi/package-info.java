@@ -16,5 +16,5 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-@org.osgi.annotation.versioning.Version("2.4")
+@org.osgi.annotation.versioning.Version("2.5")
 package org.apache.sling.commons.osgi;
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.commons.osgi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class ConcurrentLRUCacheTest {
+
+    @Test
+    public void testGetPut() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10);
+        assertNull(cache.get("/apps/a.jsp"));
+        cache.put("/apps/a.jsp", "a");
+        assertEquals("a", cache.get("/apps/a.jsp"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testDisabled() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(0);
+        cache.put("/apps/a.jsp", "a");
+        assertEquals(0, cache.size());
+        assertNull(cache.get("/apps/a.jsp"));
+    }
+
+    @Test
+    public void testEviction() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("/apps/" + i + ".jsp", String.valueOf(i));
+        }
+        // access the first entry so that it is the most recently used one
+        assertEquals("0", cache.get("/apps/0.jsp"));
+        cache.put("/apps/10.jsp", "10");
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals("0", cache.get("/apps/0.jsp"));
+        assertEquals("10", cache.get("/apps/10.jsp"));
+        assertNull(cache.get("/apps/1.jsp"));
+    }
+
+    @Test
+    public void testRemove() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10);
+        cache.put("/apps/a.jsp", "a");
+        assertTrue(cache.remove("/apps/a.jsp"));
+        assertFalse(cache.remove("/apps/a.jsp"));
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    public void testRemoveAll() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10);
+        cache.put("/apps/a/a.jsp", "a");
+        cache.put("/apps/a/b/b.jsp", "b");
+        cache.put("/apps/ab/c.jsp", "c");
+        assertEquals(new HashSet<String>(Arrays.asList("/apps/a/a.jsp", "/apps/a/b/b.jsp")), cache.removeAll(new ConcurrentLRUCache.Filter<String, String>() {
+            @Override
+            public boolean accept(String key, String value) {
+                return key.startsWith("/apps/a/");
+            }
+        }));
+        assertEquals(new HashSet<String>(Arrays.asList("/apps/ab/c.jsp")), cache.keySet());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    public void testEvictionIsReported() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(2);
+        assertFalse(cache.put("/apps/a.jsp", "a"));
+        assertFalse(cache.put("/apps/b.jsp", "b"));
+        assertTrue(cache.put("/apps/c.jsp", "c"));
+        assertTrue(cache.size() <= 2);
+    }
+
+    @Test
+    public void testSoftValues() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10, true);
+        String value = new String("a");
+        cache.put("/apps/a.jsp", value);
+        assertSame(value, cache.get("/apps/a.jsp"));
+    }
+
+    @Test
+    public void testClear() {
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(10);
+        cache.put("/apps/a.jsp", "a");
+        cache.put("/apps/b.jsp", "b");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getInvalidations());
+    }
+}
@@ -32,6 +32,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Cookie;
@@ -354,6 +355,19 @@ public class SlingHttpServletRequestImpl extends HttpServletRequestWrapper imple
         return (Collection<Part>) this.getParameterSupport().getParts();
     }
 
+    /**
+     * Starts asynchronous processing with the Sling request and response,
+     * such that {@link AsyncContext#getRequest()} and
+     * {@link AsyncContext#getResponse()} may be used to include resources
+     * once the request continues on another thread.
+     *
+     * @see javax.servlet.ServletRequestWrapper#startAsync()
+     */
+    @Override
+    public AsyncContext startAsync() {
+        return startAsync(this, getRequestData().getSlingResponse());
+    }
+
     /**
      * A <code>UserPrincipal</code> ...
      */
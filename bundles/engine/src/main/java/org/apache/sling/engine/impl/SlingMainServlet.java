@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.GenericServlet;
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
@@ -53,6 +54,7 @@ import org.apache.sling.commons.mime.MimeTypeService;
 import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.engine.SlingRequestProcessor;
 import org.apache.sling.engine.impl.filter.ServletFilterManager;
+import org.apache.sling.engine.impl.helper.AsyncCompletionListener;
 import org.apache.sling.engine.impl.helper.ClientAbortException;
 import org.apache.sling.engine.impl.helper.RequestListenerManager;
 import org.apache.sling.engine.impl.helper.SlingServletContext;
@@ -127,6 +129,12 @@ public class SlingMainServlet extends GenericServlet {
      */
     private static final String SLING_ROOT = "/";
 
+    /**
+     * The name of the request attribute holding the listener which destroys
+     * the request once an asynchronous request has completed.
+     */
+    static final String ATTR_ASYNC_COMPLETION = SlingMainServlet.class.getName() + ".asyncCompletion";
+
     /**
      * The name of the servlet context for Sling
      */
@@ -193,12 +201,19 @@ public class SlingMainServlet extends GenericServlet {
         if (req instanceof HttpServletRequest
             && res instanceof HttpServletResponse) {
 
-            HttpServletRequest request = (HttpServletRequest) req;
+            final HttpServletRequest request = (HttpServletRequest) req;
 
             // set the thread name according to the request
             String threadName = setThreadName(request);
 
-            requestListenerManager.sendEvent( request, SlingRequestEvent.EventType.EVENT_INIT );
+            // an asynchronous dispatch continues a request which has
+            // already been initialized by the initial dispatch
+            final RequestCompletionListener asyncCompletion = request.getDispatcherType() == DispatcherType.ASYNC
+                    ? (RequestCompletionListener) request.getAttribute(ATTR_ASYNC_COMPLETION)
+                    : null;
+            if (asyncCompletion == null) {
+                requestListenerManager.sendEvent( request, SlingRequestEvent.EventType.EVENT_INIT );
+            }
 
             ResourceResolver resolver = null;
             try {
@@ -214,6 +229,15 @@ public class SlingMainServlet extends GenericServlet {
                 resolver = (resolverObject instanceof ResourceResolver)
                         ? (ResourceResolver) resolverObject
                         : null;
+                if (asyncCompletion != null) {
+                    // continue with the resource resolver of the initial dispatch,
+                    // a resolver created again for the asynchronous dispatch is not used
+                    if (resolver != null && resolver != asyncCompletion.resolver) {
+                        resolver.close();
+                    }
+                    resolver = asyncCompletion.resolver;
+                    request.setAttribute(AuthenticationSupport.REQUEST_ATTRIBUTE_RESOLVER, resolver);
+                }
 
                 // real request handling for HTTP requests
                 requestProcessor.doProcessRequest(request, (HttpServletResponse) res,
@@ -233,15 +257,20 @@ public class SlingMainServlet extends GenericServlet {
 
             } finally {
 
-
-                // close the resource resolver (not relying on servlet request
-                // listener to do this for now; see SLING-1270)
-                if (resolver != null) {
-                    resolver.close();
+                if (request.isAsyncStarted()) {
+                    // the request continues on another thread: keep the
+                    // resource resolver open until the request completes
+                    if (asyncCompletion == null) {
+                        final AsyncCompletionListener listener = new RequestCompletionListener(request, resolver);
+                        request.setAttribute(ATTR_ASYNC_COMPLETION, listener);
+                        listener.register(request);
+                    }
+                } else if (asyncCompletion != null) {
+                    asyncCompletion.complete();
+                } else {
+                    destroyRequest(request, resolver);
                 }
 
-                requestListenerManager.sendEvent( request, SlingRequestEvent.EventType.EVENT_DESTROY );
-
                 // reset the thread name
                 if (threadName != null) {
                     Thread.currentThread().setName(threadName);
@@ -256,6 +285,43 @@ public class SlingMainServlet extends GenericServlet {
 
     // ---------- Internal helper ----------------------------------------------
 
+    /**
+     * Closes the resource resolver of the request and notifies the request
+     * listeners once the request has been handled.
+     */
+    private void destroyRequest(final HttpServletRequest request, final ResourceResolver resolver) {
+        // close the resource resolver (not relying on servlet request
+        // listener to do this for now; see SLING-1270)
+        if (resolver != null) {
+            resolver.close();
+        }
+
+        requestListenerManager.sendEvent( request, SlingRequestEvent.EventType.EVENT_DESTROY );
+    }
+
+    /**
+     * Destroys a request which has been put into asynchronous mode once it
+     * has completed, which happens on a thread of the servlet container or
+     * of the application after {@link #service(ServletRequest, ServletResponse)}
+     * has returned.
+     */
+    private final class RequestCompletionListener extends AsyncCompletionListener {
+
+        private final HttpServletRequest request;
+
+        private final ResourceResolver resolver;
+
+        RequestCompletionListener(final HttpServletRequest request, final ResourceResolver resolver) {
+            this.request = request;
+            this.resolver = resolver;
+        }
+
+        @Override
+        protected void onRequestComplete() {
+            destroyRequest(this.request, this.resolver);
+        }
+    }
+
     /**
      * Sets the {@link #productInfo} field from the providing bundle's version
      * and the {@link #PRODUCT_NAME}.
@@ -406,6 +472,7 @@ public class SlingMainServlet extends GenericServlet {
         servletConfig.put(HttpWhiteboardConstants.HTTP_WHITEBOARD_CONTEXT_SELECT,
                 "(" + HttpWhiteboardConstants.HTTP_WHITEBOARD_CONTEXT_NAME + "=" + SERVLET_CONTEXT_NAME + ")");
         servletConfig.put(HttpWhiteboardConstants.HTTP_WHITEBOARD_SERVLET_PATTERN, SLING_ROOT);
+        servletConfig.put(HttpWhiteboardConstants.HTTP_WHITEBOARD_SERVLET_ASYNC_SUPPORTED, "true");
         servletConfig.put(Constants.SERVICE_DESCRIPTION, "Apache Sling Engine Main Servlet");
         servletConfig.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
         this.servletRegistration = bundleContext.registerService(Servlet.class, this, servletConfig);
@@ -27,6 +27,7 @@ import java.io.PrintWriter;
 import java.io.Writer;
 import java.security.AccessControlException;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
@@ -53,6 +54,7 @@ import org.apache.sling.engine.impl.filter.RequestSlingFilterChain;
 import org.apache.sling.engine.impl.filter.ServletFilterManager;
 import org.apache.sling.engine.impl.filter.ServletFilterManager.FilterChainType;
 import org.apache.sling.engine.impl.filter.SlingComponentFilterChain;
+import org.apache.sling.engine.impl.helper.AsyncCompletionListener;
 import org.apache.sling.engine.impl.parameters.ParameterSupport;
 import org.apache.sling.engine.impl.request.ContentData;
 import org.apache.sling.engine.impl.request.RequestData;
@@ -66,6 +68,13 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
     /** default log */
     private final Logger log = LoggerFactory.getLogger(SlingRequestProcessorImpl.class);
 
+    /**
+     * The name of the request attribute holding the {@link AsyncRequest} of
+     * a request which has been put into asynchronous mode. An asynchronous
+     * dispatch to the same URI continues the request with its request data.
+     */
+    static final String ATTR_ASYNC_REQUEST_DATA = SlingRequestProcessorImpl.class.getName() + ".asyncRequestData";
+
     // used fields ....
 
     private final DefaultErrorHandler errorHandler = new DefaultErrorHandler();
@@ -117,14 +126,31 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
             final HttpServletResponse servletResponse,
             final ResourceResolver resourceResolver) throws IOException {
 
+        // an asynchronous dispatch to the original URI continues the request
+        // started by the initial dispatch: the resource and servlet have been
+        // resolved and the request filters have been applied already. A
+        // dispatch to another path is processed as a new request.
+        RequestData asyncRequestData = null;
+        if (servletRequest.getDispatcherType() == DispatcherType.ASYNC) {
+            final AsyncRequest asyncRequest = (AsyncRequest) servletRequest.getAttribute(ATTR_ASYNC_REQUEST_DATA);
+            if (asyncRequest != null && asyncRequest.isDispatchedTo(servletRequest)) {
+                asyncRequestData = asyncRequest.requestData;
+            } else {
+                servletRequest.removeAttribute(ATTR_ASYNC_REQUEST_DATA);
+            }
+        }
+
         // setting the Sling request and response
-        final RequestData requestData = new RequestData(this, servletRequest,
-            servletResponse);
+        final RequestData requestData = asyncRequestData != null
+                ? asyncRequestData
+                : new RequestData(this, servletRequest, servletResponse);
         final SlingHttpServletRequest request = requestData.getSlingRequest();
         final SlingHttpServletResponse response = requestData.getSlingResponse();
 
         // record the request for the web console display
-        RequestHistoryConsolePlugin.recordRequest(request);
+        if (asyncRequestData == null) {
+            RequestHistoryConsolePlugin.recordRequest(request);
+        }
 
         try {
             final ServletResolver sr = this.servletResolver;
@@ -136,6 +162,12 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
                 throw new UnavailableException("ServletResolver");
             }
 
+            if (asyncRequestData != null) {
+                request.getRequestProgressTracker().log("Continuing request after asynchronous dispatch");
+                processComponent(request, response, FilterChainType.COMPONENT);
+                return;
+            }
+
             // initialize the request data - resolve resource and servlet
             Resource resource = requestData.initResource(resourceResolver);
             requestData.initServlet(resource, sr);
@@ -226,9 +258,34 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
             handleError(t, request, response);
 
         } finally {
-            if (mbean != null) {
-                mbean.addRequestData(requestData);
+            if (servletRequest.isAsyncStarted()) {
+                servletRequest.setAttribute(ATTR_ASYNC_REQUEST_DATA, new AsyncRequest(requestData,
+                        servletRequest.getRequestURI(), servletRequest.getQueryString()));
             }
+            recordRequestData(servletRequest, requestData);
+        }
+    }
+
+    /**
+     * Adds the request data to the statistics once the request has been
+     * processed. Asynchronous requests are recorded when they complete, an
+     * asynchronous dispatch is part of the request it continues.
+     */
+    private void recordRequestData(final HttpServletRequest servletRequest, final RequestData requestData) {
+        final RequestProcessorMBeanImpl localBean = this.mbean;
+        if (localBean == null || servletRequest.getDispatcherType() == DispatcherType.ASYNC) {
+            return;
+        }
+        if (servletRequest.isAsyncStarted()) {
+            new AsyncCompletionListener() {
+
+                @Override
+                protected void onRequestComplete() {
+                    localBean.addRequestData(requestData);
+                }
+            }.register(servletRequest);
+        } else {
+            localBean.addRequestData(requestData);
         }
     }
 
@@ -434,4 +491,33 @@ public class SlingRequestProcessorImpl implements SlingRequestProcessor {
             super.flushBuffer();
         }
     }
+
+    /**
+     * The request data of a request in asynchronous mode together with the
+     * URI it has been resolved for. The servlet container changes the URI
+     * of the request for a dispatch to another path.
+     */
+    static final class AsyncRequest {
+
+        final RequestData requestData;
+
+        private final String requestURI;
+
+        private final String queryString;
+
+        AsyncRequest(final RequestData requestData, final String requestURI, final String queryString) {
+            this.requestData = requestData;
+            this.requestURI = requestURI;
+            this.queryString = queryString;
+        }
+
+        boolean isDispatchedTo(final HttpServletRequest servletRequest) {
+            return equals(this.requestURI, servletRequest.getRequestURI())
+                    && equals(this.queryString, servletRequest.getQueryString());
+        }
+
+        private static boolean equals(final String a, final String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
 }
@@ -33,6 +33,7 @@ import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.request.RequestPathInfo;
 import org.apache.sling.api.request.RequestProgressTracker;
 import org.apache.sling.engine.EngineConstants;
+import org.apache.sling.engine.impl.helper.AsyncCompletionListener;
 import org.apache.sling.engine.impl.request.SlingRequestProgressTracker;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
@@ -87,6 +88,12 @@ public class RequestProgressTrackerLogFilter implements Filter {
         boolean compactLogFormat() default false;
     }
 
+    /**
+     * Request attribute set by the resource resolver if it caches resource
+     * lookups, the value renders the cache statistics.
+     */
+    static final String RESOURCE_LOOKUP_CACHE_ATTRIBUTE = "org.apache.sling.resourceresolver.lookup.cache";
+
     private final Logger log = LoggerFactory.getLogger(RequestProgressTrackerLogFilter.class);
 
     private int requestCounter;
@@ -108,15 +115,35 @@ public class RequestProgressTrackerLogFilter implements Filter {
 
         if (request instanceof SlingHttpServletRequest) {
             final SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
-            final RequestProgressTracker rpt = slingRequest.getRequestProgressTracker();
-            rpt.done();
-
-            if (log.isDebugEnabled() && allowDuration(rpt) && allowExtension(extractExtension(slingRequest))) {
-                if (configuration.compactLogFormat()) {
-                    logCompactFormat(rpt);
-                } else {
-                    logDefaultFormat(rpt);
-                }
+            if (request.isAsyncStarted()) {
+                // the tracker is done once the asynchronous request completes
+                new AsyncCompletionListener() {
+
+                    @Override
+                    protected void onRequestComplete() {
+                        logTracker(slingRequest);
+                    }
+                }.register(request);
+            } else {
+                logTracker(slingRequest);
+            }
+        }
+    }
+
+    private void logTracker(final SlingHttpServletRequest slingRequest) {
+        final RequestProgressTracker rpt = slingRequest.getRequestProgressTracker();
+        // the resource resolver is closed after the tracker has been dumped
+        final Object lookupCache = slingRequest.getAttribute(RESOURCE_LOOKUP_CACHE_ATTRIBUTE);
+        if (lookupCache != null) {
+            rpt.log(lookupCache.toString());
+        }
+        rpt.done();
+
+        if (log.isDebugEnabled() && allowDuration(rpt) && allowExtension(extractExtension(slingRequest))) {
+            if (configuration.compactLogFormat()) {
+                logCompactFormat(rpt);
+            } else {
+                logDefaultFormat(rpt);
             }
         }
     }
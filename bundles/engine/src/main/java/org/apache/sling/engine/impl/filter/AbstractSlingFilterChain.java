@@ -81,6 +81,9 @@ public abstract class AbstractSlingFilterChain implements FilterChain {
             times[filterIdx] = System.currentTimeMillis() - start;
             if (filterIdx == 0) {
                 consolidateFilterTimings(slingRequest);
+                if (slingRequest.isAsyncStarted()) {
+                    trackAsyncStarted(slingRequest);
+                }
             }
         }
     }
@@ -101,6 +104,15 @@ public abstract class AbstractSlingFilterChain implements FilterChain {
         filter.track();
     }
 
+    private void trackAsyncStarted(ServletRequest request) {
+        RequestData data = RequestData.getRequestData(request);
+        if (data != null) {
+            // filters and servlets return before an asynchronous request
+            // completes, the timings only cover the initial dispatch
+            data.getRequestProgressTracker().log("Asynchronous processing started");
+        }
+    }
+
     private void consolidateFilterTimings(ServletRequest request) {
         if (filters != null) {
             RequestData data = RequestData.getRequestData(request);
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.helper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletRequest;
+
+/**
+ * The <code>AsyncCompletionListener</code> runs {@link #onRequestComplete()}
+ * exactly once when an asynchronous request has completed.
+ * <p>
+ * The servlet container drops all listeners whenever the asynchronous
+ * cycle is restarted, so the listener registers itself again with the
+ * new <code>AsyncContext</code>. Timeouts and errors are not handled
+ * explicitly as the container completes the request after notifying
+ * the listeners.
+ */
+public abstract class AsyncCompletionListener implements AsyncListener {
+
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    /**
+     * Registers this listener with the current asynchronous cycle of the
+     * request.
+     * @param request The request on which asynchronous processing has been
+     *            started
+     */
+    public void register(final ServletRequest request) {
+        request.getAsyncContext().addListener(this);
+    }
+
+    /**
+     * Calls {@link #onRequestComplete()} unless it has already been called.
+     * This may also be called directly if the request completes outside of
+     * an asynchronous cycle, e.g. after an asynchronous dispatch.
+     */
+    public void complete() {
+        if (this.completed.compareAndSet(false, true)) {
+            this.onRequestComplete();
+        }
+    }
+
+    /**
+     * Called once the request has completed.
+     */
+    protected abstract void onRequestComplete();
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+        this.complete();
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+        event.getAsyncContext().addListener(this);
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+        // the container completes the request after the timeout
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+        // the container completes the request after the error
+    }
+}
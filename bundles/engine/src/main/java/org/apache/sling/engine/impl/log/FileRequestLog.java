@@ -19,21 +19,19 @@
 package org.apache.sling.engine.impl.log;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.sling.engine.RequestLog;
+import org.apache.sling.engine.impl.log.FileRequestLogWriter.OverflowPolicy;
 
 /**
  * The <code>FileRequestLog</code> class is an implementation of the
  * {@link RequestLog} interface writing the log messages to an plain file. This
  * class supports sharing the files for different log formatters, in that an
- * internal map of log files is kept and access to the <code>PrintWriter</code>s
- * to write to the file is synchronized.
+ * internal map of log files is kept and all messages for a file are written
+ * by the same {@link FileRequestLogWriter}.
  * <p>
  * This class has a defined lifecycle to ensure correct operation: To ensure no
  * log files are kept open, the {@link RequestLoggerFilter} object calls
@@ -46,39 +44,41 @@ import org.apache.sling.engine.RequestLog;
  * last user has closed the log, (3) optimize the first strategy by keeping the
  * files open for some time.
  * <p>
- * Note: Currently, the <code>PrintWriter</code> used to log the message is
- * flushed after each log message written. Future development should probably
- * implement better buffering in conjunction with the temporary open/close
- * cycles of the files.
+ * Note: The messages are handed over to the writer of the file, which writes
+ * them asynchronously in batches. The buffering settings of a file are taken
+ * from the first instance opening the file.
  */
 class FileRequestLog implements RequestLog {
 
-    // The map of shared open files (actually PrintWriter instances)
-    private static Map<String, PrintWriter> logFiles = new HashMap<String, PrintWriter>();
+    // The map of shared open files
+    private static Map<String, FileRequestLogWriter> logFiles = new HashMap<String, FileRequestLogWriter>();
 
-    // Dispose class by closing all open PrintWeiter instances
+    // Dispose class by writing pending messages and closing all open files
     static void dispose() {
-        for (final Writer w : logFiles.values()) {
-            try {
+        synchronized (logFiles) {
+            for (final FileRequestLogWriter w : logFiles.values()) {
                 w.close();
-            } catch (IOException ioe) {
-                // don't care
             }
+            logFiles.clear();
         }
-        logFiles.clear();
     }
 
-    // The PrintWriter used by this instance to write the messages
-    private PrintWriter output;
+    // The writer used by this instance to write the messages
+    private volatile FileRequestLogWriter output;
 
     FileRequestLog(File logFile) throws IOException {
+        this(logFile, FileRequestLogWriter.DEFAULT_FLUSH_SIZE, FileRequestLogWriter.DEFAULT_FLUSH_INTERVAL,
+            FileRequestLogWriter.DEFAULT_QUEUE_SIZE, OverflowPolicy.BLOCK);
+    }
+
+    FileRequestLog(File logFile, int flushSize, long flushInterval, int queueSize, OverflowPolicy overflowPolicy)
+            throws IOException {
         synchronized (logFiles) {
             final String fileName = logFile.getAbsolutePath();
             this.output = logFiles.get(fileName);
             if (this.output == null) {
                 logFile.getParentFile().mkdirs();
-                FileWriter fw = new FileWriter(logFile, true);
-                this.output = new PrintWriter(fw);
+                this.output = new FileRequestLogWriter(logFile, flushSize, flushInterval, queueSize, overflowPolicy);
                 logFiles.put(fileName, this.output);
             }
         }
@@ -91,12 +91,9 @@ class FileRequestLog implements RequestLog {
         // use a local copy of the reference to not encounter NPE when this
         // log happens to be closed asynchronously while at the same time not
         // requiring synchronization
-        PrintWriter writer = this.output;
+        FileRequestLogWriter writer = this.output;
         if (writer != null) {
-            synchronized (writer) {
-                writer.println(message);
-                writer.flush();
-            }
+            writer.write(message);
         }
     }
 
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>FileRequestLogWriter</code> writes the messages of all
+ * {@link FileRequestLog} instances sharing a log file.
+ * <p>
+ * Request threads just append their messages to a queue, a single writer
+ * thread per file encodes the messages into a direct buffer and writes the
+ * buffer to the file channel. The buffer is written if it is full, if the
+ * queued messages exceed the flush size or if the flush interval has elapsed.
+ * If the writer can't keep up and the queue is full, the overflow policy
+ * defines whether request threads wait or whether the messages are dropped.
+ */
+class FileRequestLogWriter implements Runnable {
+
+    /**
+     * What to do with a message if the queue is full.
+     */
+    enum OverflowPolicy {
+        /** Wait until the writer has caught up. */
+        BLOCK,
+        /** Drop the message. */
+        DROP
+    }
+
+    /** Default size of the write buffer in bytes */
+    static final int DEFAULT_FLUSH_SIZE = 8192;
+
+    /** Default maximum time in milliseconds before queued messages are written */
+    static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    /** Default maximum number of queued messages */
+    static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /** Time to wait for the writer to catch up when blocking */
+    private static final long BLOCK_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final CharsetEncoder encoder;
+
+    private final int flushSize;
+
+    private final long flushInterval;
+
+    private final int queueSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Queue<String> queue = new ConcurrentLinkedQueue<String>();
+
+    /** Number of queued messages */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** Number of characters queued since the writer was last woken up */
+    private final AtomicInteger pendingChars = new AtomicInteger();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Number of dropped messages already logged, only used by the writer thread */
+    private long droppedReported;
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    FileRequestLogWriter(final File file, final int flushSize, final long flushInterval, final int queueSize,
+            final OverflowPolicy overflowPolicy) throws IOException {
+        this.file = file;
+        this.flushSize = Math.max(flushSize, 256);
+        this.flushInterval = TimeUnit.MILLISECONDS.toNanos(Math.max(flushInterval, 1));
+        this.queueSize = Math.max(queueSize, 1);
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = ByteBuffer.allocateDirect(this.flushSize);
+        this.encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.channel = new FileOutputStream(file, true).getChannel();
+
+        this.thread = new Thread(this, "Apache Sling Request Log Writer " + file.getName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queue a message for writing.
+     */
+    void write(final String message) {
+        if (!this.running) {
+            return;
+        }
+        if (this.queued.get() >= this.queueSize) {
+            if (this.overflowPolicy == OverflowPolicy.DROP) {
+                this.dropped.incrementAndGet();
+                return;
+            }
+            while (this.running && this.queued.get() >= this.queueSize) {
+                LockSupport.unpark(this.thread);
+                LockSupport.parkNanos(this, BLOCK_WAIT);
+            }
+        }
+        this.queue.offer(message);
+        this.queued.incrementAndGet();
+        if (this.pendingChars.addAndGet(message.length() + LINE_SEPARATOR.length()) >= this.flushSize) {
+            this.pendingChars.set(0);
+            LockSupport.unpark(this.thread);
+        }
+    }
+
+    /**
+     * Write the queued messages, stop the writer thread and close the file.
+     */
+    void close() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+        try {
+            this.thread.join(TimeUnit.NANOSECONDS.toMillis(this.flushInterval) + 5000);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.running) {
+                LockSupport.parkNanos(this, this.flushInterval);
+                this.writeQueued();
+            }
+            this.writeQueued();
+        } finally {
+            try {
+                this.channel.close();
+            } catch (final IOException ioe) {
+                // don't care
+            }
+        }
+    }
+
+    private void writeQueued() {
+        try {
+            String message;
+            while ((message = this.queue.poll()) != null) {
+                this.queued.decrementAndGet();
+                this.encode(message);
+                this.encode(LINE_SEPARATOR);
+            }
+            this.writeBuffer();
+        } catch (final IOException ioe) {
+            this.buffer.clear();
+            log.error("Failed to write to request log " + this.file, ioe);
+        }
+
+        final long droppedCount = this.dropped.get();
+        if (droppedCount > this.droppedReported) {
+            log.warn("Dropped {} messages for request log {}, the queue is full",
+                droppedCount - this.droppedReported, this.file);
+            this.droppedReported = droppedCount;
+        }
+    }
+
+    private void encode(final String value) throws IOException {
+        final CharBuffer chars = CharBuffer.wrap(value);
+        this.encoder.reset();
+        CoderResult result;
+        do {
+            result = this.encoder.encode(chars, this.buffer, true);
+            if (result.isOverflow()) {
+                this.writeBuffer();
+            }
+        } while (result.isOverflow());
+        while (this.encoder.flush(this.buffer).isOverflow()) {
+            this.writeBuffer();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
@@ -68,6 +68,20 @@ public class RequestLogger {
     @Property(boolValue = true)
     public static final String PROP_ACCESS_LOG_ENABLED = "access.log.enabled";
 
+    @Property(intValue = FileRequestLogWriter.DEFAULT_FLUSH_SIZE)
+    public static final String PROP_FILE_FLUSH_SIZE = "file.log.flushsize";
+
+    @Property(longValue = FileRequestLogWriter.DEFAULT_FLUSH_INTERVAL)
+    public static final String PROP_FILE_FLUSH_INTERVAL = "file.log.flushinterval";
+
+    @Property(intValue = FileRequestLogWriter.DEFAULT_QUEUE_SIZE)
+    public static final String PROP_FILE_QUEUE_SIZE = "file.log.queuesize";
+
+    @Property(value = "BLOCK", options = {
+        @PropertyOption(name = "BLOCK", value = "Block"), @PropertyOption(name = "DROP", value = "Drop")
+    })
+    public static final String PROP_FILE_OVERFLOW = "file.log.overflow";
+
     /**
      * The log format string for the request log entry message (value is "%t
      * [%R] -> %m %U%q %H").
@@ -104,8 +118,8 @@ public class RequestLogger {
         final boolean requestLogEnabled = PropertiesUtil.toBoolean(props.get(PROP_REQUEST_LOG_ENABLED), false);
         if (requestLogName != null && requestLogEnabled) {
             final int requestLogType = PropertiesUtil.toInteger(props.get(PROP_REQUEST_LOG_OUTPUT_TYPE), 0);
-            createRequestLoggerService(services, bundleContext, true, REQUEST_LOG_ENTRY_FORMAT, requestLogName, requestLogType);
-            createRequestLoggerService(services, bundleContext, false, REQUEST_LOG_EXIT_FORMAT, requestLogName, requestLogType);
+            createRequestLoggerService(services, bundleContext, true, REQUEST_LOG_ENTRY_FORMAT, requestLogName, requestLogType, props);
+            createRequestLoggerService(services, bundleContext, false, REQUEST_LOG_EXIT_FORMAT, requestLogName, requestLogType, props);
         }
 
         // prepare the access logger if a name is configured and the
@@ -114,7 +128,7 @@ public class RequestLogger {
         final boolean accessLogEnabled = PropertiesUtil.toBoolean(props.get(PROP_ACCESS_LOG_ENABLED), false);
         if (accessLogName != null && accessLogEnabled) {
             final int accessLogType = PropertiesUtil.toInteger(props.get(PROP_ACCESS_LOG_OUTPUT_TYPE), 0);
-            createRequestLoggerService(services, bundleContext, false, ACCESS_LOG_FORMAT, accessLogName, accessLogType);
+            createRequestLoggerService(services, bundleContext, false, ACCESS_LOG_FORMAT, accessLogName, accessLogType, props);
         }
     }
 
@@ -127,15 +141,26 @@ public class RequestLogger {
         services.clear();
     }
 
-    private static void createRequestLoggerService(Map<ServiceRegistration, RequestLoggerService> services, BundleContext bundleContext, boolean onEntry, Object format, String output, Object outputType) {
+    private static void createRequestLoggerService(Map<ServiceRegistration, RequestLoggerService> services, BundleContext bundleContext, boolean onEntry, Object format, String output, Object outputType, Map<String, Object> props) {
         final Hashtable<String, Object> config = new Hashtable<String, Object>();
         config.put(RequestLoggerService.PARAM_ON_ENTRY, onEntry ? Boolean.TRUE : Boolean.FALSE);
         config.put(RequestLoggerService.PARAM_FORMAT, format);
         config.put(RequestLoggerService.PARAM_OUTPUT, output);
         config.put(RequestLoggerService.PARAM_OUTPUT_TYPE, outputType);
+        copyProperty(props, PROP_FILE_FLUSH_SIZE, config, RequestLoggerService.PARAM_FLUSH_SIZE);
+        copyProperty(props, PROP_FILE_FLUSH_INTERVAL, config, RequestLoggerService.PARAM_FLUSH_INTERVAL);
+        copyProperty(props, PROP_FILE_QUEUE_SIZE, config, RequestLoggerService.PARAM_QUEUE_SIZE);
+        copyProperty(props, PROP_FILE_OVERFLOW, config, RequestLoggerService.PARAM_OVERFLOW);
 
         final RequestLoggerService service = new RequestLoggerService(bundleContext, config);
         final ServiceRegistration reg = bundleContext.registerService(service.getClass().getName(), service, config);
         services.put(reg, service);
     }
+
+    private static void copyProperty(Map<String, Object> props, String name, Hashtable<String, Object> config, String param) {
+        final Object value = props.get(name);
+        if (value != null) {
+            config.put(param, value);
+        }
+    }
 }
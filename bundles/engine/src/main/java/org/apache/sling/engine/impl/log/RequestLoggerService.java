@@ -32,6 +32,7 @@ import org.apache.felix.scr.annotations.PropertyOption;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.engine.RequestLog;
+import org.apache.sling.engine.impl.log.FileRequestLogWriter.OverflowPolicy;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -66,6 +67,20 @@ public class RequestLoggerService {
     @Property(boolValue = false)
     public static final String PARAM_ON_ENTRY = "request.log.service.onentry";
 
+    @Property(intValue = FileRequestLogWriter.DEFAULT_FLUSH_SIZE)
+    public static final String PARAM_FLUSH_SIZE = "request.log.service.flushsize";
+
+    @Property(longValue = FileRequestLogWriter.DEFAULT_FLUSH_INTERVAL)
+    public static final String PARAM_FLUSH_INTERVAL = "request.log.service.flushinterval";
+
+    @Property(intValue = FileRequestLogWriter.DEFAULT_QUEUE_SIZE)
+    public static final String PARAM_QUEUE_SIZE = "request.log.service.queuesize";
+
+    @Property(value = "BLOCK", options = {
+        @PropertyOption(name = "BLOCK", value = "Block"), @PropertyOption(name = "DROP", value = "Drop")
+    })
+    public static final String PARAM_OVERFLOW = "request.log.service.overflow";
+
     private static final int OUTPUT_TYPE_LOGGER = 0;
 
     private static final int OUTPUT_TYPE_FILE = 1;
@@ -103,7 +118,7 @@ public class RequestLoggerService {
         final String output = PropertiesUtil.toString(configuration.get(PARAM_OUTPUT), null);
         if (output != null) {
             final int outputType = PropertiesUtil.toInteger(configuration.get(PARAM_OUTPUT_TYPE), OUTPUT_TYPE_LOGGER);
-            this.log = this.getLog(bundleContext, output, outputType);
+            this.log = this.getLog(bundleContext, output, outputType, configuration);
         }
     }
 
@@ -127,7 +142,8 @@ public class RequestLoggerService {
         return this.onEntry;
     }
 
-    private RequestLog getLog(BundleContext bundleContext, String output, int outputType) {
+    private RequestLog getLog(BundleContext bundleContext, String output, int outputType,
+            Map<String, Object> configuration) {
         switch (outputType) {
             case OUTPUT_TYPE_FILE:
                 // file logging
@@ -142,7 +158,14 @@ public class RequestLoggerService {
                         file = file.getAbsoluteFile();
                     }
 
-                    return new FileRequestLog(file);
+                    return new FileRequestLog(file,
+                        PropertiesUtil.toInteger(configuration.get(PARAM_FLUSH_SIZE),
+                            FileRequestLogWriter.DEFAULT_FLUSH_SIZE),
+                        PropertiesUtil.toLong(configuration.get(PARAM_FLUSH_INTERVAL),
+                            FileRequestLogWriter.DEFAULT_FLUSH_INTERVAL),
+                        PropertiesUtil.toInteger(configuration.get(PARAM_QUEUE_SIZE),
+                            FileRequestLogWriter.DEFAULT_QUEUE_SIZE),
+                        getOverflowPolicy(configuration));
                 } catch (IOException ioe) {
                     // TODO: log
                 }
@@ -163,4 +186,16 @@ public class RequestLoggerService {
         // fallback in case of issue or so...
         return null;
     }
+
+    private static OverflowPolicy getOverflowPolicy(Map<String, Object> configuration) {
+        final String policy = PropertiesUtil.toString(configuration.get(PARAM_OVERFLOW), null);
+        if (policy != null) {
+            try {
+                return OverflowPolicy.valueOf(policy.trim().toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                // fall back to the default
+            }
+        }
+        return OverflowPolicy.BLOCK;
+    }
 }
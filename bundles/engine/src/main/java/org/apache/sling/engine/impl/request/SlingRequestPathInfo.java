@@ -64,18 +64,23 @@ public class SlingRequestPathInfo implements RequestPathInfo {
             pathToParse = "";
         }
 
-        // separate selectors/ext from the suffix
-        int firstSlash = pathToParse.indexOf('/');
-        String pathToSplit;
-        if (firstSlash < 0) {
-            pathToSplit = pathToParse;
-            suffix = null;
-        } else {
-            pathToSplit = pathToParse.substring(0, firstSlash);
-            suffix = pathToParse.substring(firstSlash);
+        // find the end of the selectors/ext and the last dot in a single
+        // pass, all parts are cut directly from the path to parse
+        final int length = pathToParse.length();
+        int firstSlash = 0;
+        int lastDot = -1;
+        while (firstSlash < length) {
+            final char c = pathToParse.charAt(firstSlash);
+            if (c == '/') {
+                break;
+            } else if (c == '.') {
+                lastDot = firstSlash;
+            }
+            firstSlash++;
         }
 
-        int lastDot = pathToSplit.lastIndexOf('.');
+        // separate selectors/ext from the suffix
+        suffix = (firstSlash < length) ? pathToParse.substring(firstSlash) : null;
 
         if (lastDot <= 1) {
 
@@ -86,15 +91,15 @@ public class SlingRequestPathInfo implements RequestPathInfo {
         } else {
 
             // no selectors if splitting would give an empty array
-            String tmpSel = pathToSplit.substring(1, lastDot);
-            selectors = tmpSel.split("\\.");
+            String tmpSel = pathToParse.substring(1, lastDot);
+            selectors = splitSelectors(tmpSel);
             selectorString = (selectors.length > 0) ? tmpSel : null;
 
         }
 
         // extension only if lastDot is not trailing
-        extension = (lastDot + 1 < pathToSplit.length())
-                ? pathToSplit.substring(lastDot + 1)
+        extension = (lastDot + 1 < firstSlash)
+                ? pathToParse.substring(lastDot + 1, firstSlash)
                 : null;
     }
 
@@ -104,12 +109,53 @@ public class SlingRequestPathInfo implements RequestPathInfo {
         this.resourcePath = resourcePath;
         this.selectorString = selectorString;
         this.selectors = (selectorString != null)
-                ? selectorString.split("\\.")
+                ? splitSelectors(selectorString)
                 : NO_SELECTORS;
         this.extension = extension;
         this.suffix = suffix;
     }
 
+    /**
+     * Splits the selector string at the dots. The result is the same as
+     * that of <code>selectorString.split("\\.")</code>, that is trailing
+     * empty selectors are dropped, but no regular expression and no
+     * intermediate list is involved and a single selector is not copied.
+     */
+    private static String[] splitSelectors(final String selectorString) {
+        int end = selectorString.length();
+        if (end == 0) {
+            return new String[] { selectorString };
+        }
+        while (end > 0 && selectorString.charAt(end - 1) == '.') {
+            end--;
+        }
+        if (end == 0) {
+            return NO_SELECTORS;
+        }
+
+        int count = 1;
+        for (int i = 0; i < end; i++) {
+            if (selectorString.charAt(i) == '.') {
+                count++;
+            }
+        }
+        if (count == 1) {
+            return new String[] { selectorString.substring(0, end) };
+        }
+
+        final String[] result = new String[count];
+        int start = 0;
+        int n = 0;
+        for (int i = 0; i < end; i++) {
+            if (selectorString.charAt(i) == '.') {
+                result[n++] = selectorString.substring(start, i);
+                start = i + 1;
+            }
+        }
+        result[n] = selectorString.substring(start, end);
+        return result;
+    }
+
     public SlingRequestPathInfo merge(RequestPathInfo baseInfo) {
         if (getExtension() == null) {
             return new SlingRequestPathInfo(getResource(), getResourcePath(), baseInfo.getSelectorString(),
@@ -20,7 +20,9 @@ package org.apache.sling.engine.impl;
 
 import java.security.Principal;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.engine.impl.request.RequestData;
 import org.jmock.Expectations;
@@ -117,4 +119,31 @@ public class SlingHttpServletRequestImplTest {
         slingHttpServletRequestImpl = new SlingHttpServletRequestImpl(requestData, servletRequest);
         Assert.assertEquals(principal, slingHttpServletRequestImpl.getUserPrincipal());
     }
+
+    @Test
+    public void startAsync_test() {
+        final HttpServletRequest servletRequest = context.mock(HttpServletRequest.class);
+        final RequestData requestData = context.mock(RequestData.class, "requestData");
+        final SlingHttpServletResponse slingResponse = context.mock(SlingHttpServletResponse.class);
+        final AsyncContext asyncContext = context.mock(AsyncContext.class);
+
+        context.checking(new Expectations() {{
+            one(servletRequest).getServletPath();
+            will(returnValue("/path"));
+            allowing(servletRequest).getPathInfo();
+            will(returnValue("/path"));
+            allowing(requestData).getSlingResponse();
+            will(returnValue(slingResponse));
+        }});
+
+        slingHttpServletRequestImpl = new SlingHttpServletRequestImpl(requestData, servletRequest);
+
+        // the async context must carry the Sling request and response
+        context.checking(new Expectations() {{
+            one(servletRequest).startAsync(slingHttpServletRequestImpl, slingResponse);
+            will(returnValue(asyncContext));
+        }});
+
+        Assert.assertSame(asyncContext, slingHttpServletRequestImpl.startAsync());
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl;
+
+import java.lang.reflect.Field;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.request.SlingRequestEvent;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.auth.core.AuthenticationSupport;
+import org.apache.sling.engine.impl.helper.AsyncCompletionListener;
+import org.apache.sling.engine.impl.helper.RequestListenerManager;
+import org.hamcrest.Description;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JMock.class)
+public class SlingMainServletTest {
+
+    private final Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+
+    private SlingMainServlet servlet;
+
+    private SlingRequestProcessorImpl requestProcessor;
+
+    private RequestListenerManager requestListenerManager;
+
+    private HttpServletResponse response;
+
+    private ResourceResolver resolver;
+
+    private AsyncContext asyncContext;
+
+    /** The listener registered by the initial dispatch. */
+    private AsyncListener asyncListener;
+
+    @Before
+    public void setup() throws Exception {
+        servlet = new SlingMainServlet();
+        requestProcessor = context.mock(SlingRequestProcessorImpl.class);
+        requestListenerManager = context.mock(RequestListenerManager.class);
+        setField("requestProcessor", requestProcessor);
+        setField("requestListenerManager", requestListenerManager);
+        response = context.mock(HttpServletResponse.class);
+        resolver = context.mock(ResourceResolver.class, "resolver");
+    }
+
+    private void setField(final String name, final Object value) throws Exception {
+        final Field field = SlingMainServlet.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(servlet, value);
+    }
+
+    private HttpServletRequest request(final String name, final DispatcherType dispatcherType,
+            final ResourceResolver requestResolver, final boolean asyncStarted) {
+        final HttpServletRequest request = context.mock(HttpServletRequest.class, name);
+        context.checking(new Expectations() {{
+            allowing(request).getRemoteAddr(); will(returnValue("127.0.0.1"));
+            allowing(request).getMethod(); will(returnValue("GET"));
+            allowing(request).getRequestURI(); will(returnValue("/content/async.html"));
+            allowing(request).getProtocol(); will(returnValue("HTTP/1.1"));
+            allowing(request).getDispatcherType(); will(returnValue(dispatcherType));
+            allowing(request).getAttribute(AuthenticationSupport.REQUEST_ATTRIBUTE_RESOLVER);
+            will(returnValue(requestResolver));
+            allowing(request).isAsyncStarted(); will(returnValue(asyncStarted));
+        }});
+        return request;
+    }
+
+    /**
+     * Runs the initial dispatch of a request which is put into asynchronous mode.
+     */
+    private HttpServletRequest startAsync() throws Exception {
+        final HttpServletRequest request = request("request", DispatcherType.REQUEST, resolver, true);
+        asyncContext = context.mock(AsyncContext.class);
+        context.checking(new Expectations() {{
+            oneOf(requestListenerManager).sendEvent(request, SlingRequestEvent.EventType.EVENT_INIT);
+            oneOf(requestProcessor).doProcessRequest(request, response, resolver);
+            oneOf(request).setAttribute(with(SlingMainServlet.ATTR_ASYNC_COMPLETION), with(any(AsyncCompletionListener.class)));
+            allowing(request).getAsyncContext(); will(returnValue(asyncContext));
+            oneOf(asyncContext).addListener(with(any(AsyncListener.class))); will(new Action() {
+
+                @Override
+                public Object invoke(final Invocation invocation) {
+                    asyncListener = (AsyncListener) invocation.getParameter(0);
+                    return null;
+                }
+
+                @Override
+                public void describeTo(final Description description) {
+                    description.appendText("captures the listener");
+                }
+            });
+        }});
+
+        // the resolver is not closed and the request is not destroyed yet
+        servlet.service(request, response);
+        return request;
+    }
+
+    @Test
+    public void testAsyncRequestKeepsResolverOpen() throws Exception {
+        final HttpServletRequest request = startAsync();
+        context.assertIsSatisfied();
+
+        context.checking(new Expectations() {{
+            oneOf(resolver).close();
+            oneOf(requestListenerManager).sendEvent(request, SlingRequestEvent.EventType.EVENT_DESTROY);
+        }});
+        asyncListener.onComplete(new AsyncEvent(asyncContext, null, null));
+        // completing again has no effect
+        asyncListener.onComplete(new AsyncEvent(asyncContext, null, null));
+    }
+
+    @Test
+    public void testAsyncDispatchContinuesRequest() throws Exception {
+        final HttpServletRequest request = startAsync();
+
+        // authentication created another resolver for the asynchronous dispatch
+        final ResourceResolver dispatchResolver = context.mock(ResourceResolver.class, "dispatchResolver");
+        final HttpServletRequest dispatch = request("dispatch", DispatcherType.ASYNC, dispatchResolver, false);
+        context.checking(new Expectations() {{
+            allowing(dispatch).getAttribute(SlingMainServlet.ATTR_ASYNC_COMPLETION);
+            will(returnValue(asyncListener));
+            oneOf(dispatchResolver).close();
+            oneOf(dispatch).setAttribute(AuthenticationSupport.REQUEST_ATTRIBUTE_RESOLVER, resolver);
+            // no init event, the request continues with the initial resolver
+            never(requestListenerManager).sendEvent(dispatch, SlingRequestEvent.EventType.EVENT_INIT);
+            oneOf(requestProcessor).doProcessRequest(dispatch, response, resolver);
+            // the request completes when the dispatch returns
+            oneOf(resolver).close();
+            oneOf(requestListenerManager).sendEvent(request, SlingRequestEvent.EventType.EVENT_DESTROY);
+        }});
+        servlet.service(dispatch, response);
+
+        // the container notifies the listener as well
+        asyncListener.onComplete(new AsyncEvent(asyncContext, null, null));
+    }
+
+    @Test
+    public void testAsyncDispatchStartingAsyncAgain() throws Exception {
+        startAsync();
+
+        final HttpServletRequest dispatch = request("dispatch", DispatcherType.ASYNC, resolver, true);
+        context.checking(new Expectations() {{
+            allowing(dispatch).getAttribute(SlingMainServlet.ATTR_ASYNC_COMPLETION);
+            will(returnValue(asyncListener));
+            oneOf(dispatch).setAttribute(AuthenticationSupport.REQUEST_ATTRIBUTE_RESOLVER, resolver);
+            oneOf(requestProcessor).doProcessRequest(dispatch, response, resolver);
+            // still open, the listener has been registered by the initial dispatch
+            never(resolver).close();
+        }});
+        servlet.service(dispatch, response);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.request.RequestProgressTracker;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.servlets.ServletResolver;
+import org.apache.sling.engine.impl.SlingRequestProcessorImpl.AsyncRequest;
+import org.apache.sling.engine.impl.filter.ServletFilterManager;
+import org.apache.sling.engine.impl.filter.ServletFilterManager.FilterChainType;
+import org.apache.sling.engine.impl.request.RequestData;
+import org.apache.sling.engine.impl.request.SlingRequestProgressTracker;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JMock.class)
+public class SlingRequestProcessorImplTest {
+
+    private final Mockery context = new JUnit4Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+
+    private final HttpServletRequest servletRequest = context.mock(HttpServletRequest.class);
+
+    private final HttpServletResponse servletResponse = context.mock(HttpServletResponse.class);
+
+    private final ResourceResolver resolver = context.mock(ResourceResolver.class);
+
+    private final ServletResolver servletResolver = context.mock(ServletResolver.class);
+
+    private final ServletFilterManager filterManager = context.mock(ServletFilterManager.class);
+
+    private final Servlet servlet = context.mock(Servlet.class);
+
+    private final SlingRequestProcessorImpl processor = new SlingRequestProcessorImpl();
+
+    /**
+     * Creates the request data of the initial dispatch of a request which
+     * has been put into asynchronous mode.
+     */
+    private AsyncRequest createAsyncRequest(final HttpServletRequest initialRequest, final String path) {
+        context.checking(new Expectations() {{
+            allowing(initialRequest).getServletPath(); will(returnValue(""));
+            allowing(initialRequest).getPathInfo(); will(returnValue(path));
+            allowing(initialRequest).getAttribute(RequestProgressTracker.class.getName());
+            will(returnValue(new SlingRequestProgressTracker()));
+        }});
+        final RequestData requestData = new RequestData(processor, initialRequest, servletResponse);
+        requestData.setContent(context.mock(Resource.class), context.mock(RequestPathInfo.class)).setServlet(servlet);
+        return new AsyncRequest(requestData, path, null);
+    }
+
+    private void dispatchTo(final String path, final AsyncRequest asyncRequest) {
+        processor.setServletResolver(servletResolver);
+        processor.setFilterManager(filterManager);
+        context.checking(new Expectations() {{
+            allowing(servletRequest).getDispatcherType(); will(returnValue(DispatcherType.ASYNC));
+            allowing(servletRequest).getServletPath(); will(returnValue(""));
+            allowing(servletRequest).getPathInfo(); will(returnValue(path));
+            allowing(servletRequest).getRequestURI(); will(returnValue(path));
+            allowing(servletRequest).getRequestURL(); will(returnValue(new StringBuffer("http://localhost" + path)));
+            allowing(servletRequest).getQueryString(); will(returnValue(null));
+            allowing(servletRequest).getAttribute(SlingRequestProcessorImpl.ATTR_ASYNC_REQUEST_DATA);
+            will(returnValue(asyncRequest));
+            allowing(servletRequest).getAttribute(with(any(String.class))); will(returnValue(null));
+            allowing(servletRequest).setAttribute(with(any(String.class)), with(anything()));
+            allowing(servletRequest).removeAttribute(with(any(String.class)));
+            allowing(servletRequest).isAsyncStarted(); will(returnValue(false));
+            allowing(servletRequest).getMethod(); will(returnValue("GET"));
+            allowing(servletResponse).getStatus(); will(returnValue(200));
+            allowing(servlet).getServletConfig(); will(returnValue(null));
+            allowing(servlet).getServletInfo(); will(returnValue("async"));
+        }});
+    }
+
+    @Test
+    public void testAsyncDispatchContinuesRequest() throws Exception {
+        final AsyncRequest asyncRequest = createAsyncRequest(servletRequest, "/content/async");
+        final RequestData requestData = asyncRequest.requestData;
+        dispatchTo("/content/async", asyncRequest);
+
+        context.checking(new Expectations() {{
+            // neither the resource nor the servlet are resolved again
+            never(resolver).resolve(with(any(HttpServletRequest.class)), with(any(String.class)));
+            never(servletResolver).resolveServlet(with(any(SlingHttpServletRequest.class)));
+            // only the component filters are applied
+            never(filterManager).getFilters(FilterChainType.REQUEST);
+            oneOf(filterManager).getFilters(FilterChainType.COMPONENT); will(returnValue(null));
+            oneOf(servlet).service(requestData.getSlingRequest(), requestData.getSlingResponse());
+        }});
+
+        processor.doProcessRequest(servletRequest, servletResponse, resolver);
+    }
+
+    @Test
+    public void testAsyncDispatchToOtherPath() throws Exception {
+        final AsyncRequest asyncRequest = createAsyncRequest(context.mock(HttpServletRequest.class, "initialRequest"),
+                "/content/async");
+        dispatchTo("/content/other", asyncRequest);
+
+        final Resource resource = context.mock(Resource.class, "other");
+        final ResourceMetadata metadata = new ResourceMetadata();
+        metadata.setResolutionPath("/content/other");
+        final Servlet otherServlet = context.mock(Servlet.class, "otherServlet");
+        context.checking(new Expectations() {{
+            allowing(resource).getPath(); will(returnValue("/content/other"));
+            allowing(resource).getResourceType(); will(returnValue("other"));
+            allowing(resource).getResourceMetadata(); will(returnValue(metadata));
+            allowing(otherServlet).getServletConfig(); will(returnValue(null));
+            allowing(otherServlet).getServletInfo(); will(returnValue("other"));
+
+            // the dispatch target is resolved as a new request
+            oneOf(resolver).resolve(with(any(HttpServletRequest.class)), with("/content/other")); will(returnValue(resource));
+            oneOf(servletResolver).resolveServlet(with(any(SlingHttpServletRequest.class))); will(returnValue(otherServlet));
+            oneOf(filterManager).getFilters(FilterChainType.REQUEST); will(returnValue(null));
+            oneOf(filterManager).getFilters(FilterChainType.COMPONENT); will(returnValue(null));
+            oneOf(otherServlet).service(with(any(SlingHttpServletRequest.class)), with(any(SlingHttpServletResponse.class)));
+            never(servlet).service(with(any(SlingHttpServletRequest.class)), with(any(SlingHttpServletResponse.class)));
+        }});
+
+        processor.doProcessRequest(servletRequest, servletResponse, resolver);
+    }
+}
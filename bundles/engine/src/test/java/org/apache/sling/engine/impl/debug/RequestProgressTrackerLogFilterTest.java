@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.debug;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestProgressTracker;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.Sequence;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JMock.class)
+public class RequestProgressTrackerLogFilterTest {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    private void doFilter(final Object lookupCache, final boolean logged) throws Exception {
+        final SlingHttpServletRequest request = context.mock(SlingHttpServletRequest.class);
+        final ServletResponse response = context.mock(ServletResponse.class);
+        final FilterChain chain = context.mock(FilterChain.class);
+        final RequestProgressTracker tracker = context.mock(RequestProgressTracker.class);
+        final Sequence sequence = context.sequence("tracker");
+        context.checking(new Expectations() {{
+            oneOf(chain).doFilter(request, response);
+            allowing(request).isAsyncStarted(); will(returnValue(false));
+            allowing(request).getRequestProgressTracker(); will(returnValue(tracker));
+            allowing(request).getAttribute(RequestProgressTrackerLogFilter.RESOURCE_LOOKUP_CACHE_ATTRIBUTE);
+            will(returnValue(lookupCache));
+            if (logged) {
+                oneOf(tracker).log(String.valueOf(lookupCache)); inSequence(sequence);
+            }
+            oneOf(tracker).done(); inSequence(sequence);
+        }});
+
+        new RequestProgressTrackerLogFilter().doFilter(request, response, chain);
+    }
+
+    @Test
+    public void testLookupCacheStatisticsLoggedBeforeDone() throws Exception {
+        doFilter("Resource lookup cache: 3 hits, 2 misses, 0 invalidations", true);
+    }
+
+    @Test
+    public void testWithoutLookupCache() throws Exception {
+        doFilter(null, false);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.helper;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JMock.class)
+public class AsyncCompletionListenerTest {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    private int completions;
+
+    private final AsyncCompletionListener listener = new AsyncCompletionListener() {
+
+        @Override
+        protected void onRequestComplete() {
+            completions++;
+        }
+    };
+
+    @Test
+    public void testCompleteOnce() throws Exception {
+        final AsyncContext asyncContext = context.mock(AsyncContext.class);
+        final AsyncEvent event = new AsyncEvent(asyncContext, null, null);
+
+        listener.onTimeout(event);
+        listener.onError(event);
+        assertEquals(0, completions);
+
+        listener.onComplete(event);
+        listener.complete();
+        listener.onComplete(event);
+        assertEquals(1, completions);
+    }
+
+    @Test
+    public void testRegisterAgainOnStartAsync() throws Exception {
+        final AsyncContext asyncContext = context.mock(AsyncContext.class);
+
+        context.checking(new Expectations() {{
+            one(asyncContext).addListener(listener);
+        }});
+
+        listener.onStartAsync(new AsyncEvent(asyncContext, null, null));
+        assertEquals(0, completions);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.engine.impl.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.sling.engine.impl.log.FileRequestLogWriter.OverflowPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileRequestLogWriterTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("request", ".log");
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    private List<String> readLines() throws IOException {
+        return Files.readAllLines(file.toPath(), Charset.defaultCharset());
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        // small buffer to force writes while encoding
+        final FileRequestLogWriter writer = new FileRequestLogWriter(file, 256, 10, 100, OverflowPolicy.BLOCK);
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        writer.write("thread " + id + " line " + i);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread t : threads) {
+            t.join();
+        }
+        writer.close();
+
+        final List<String> lines = readLines();
+        assertEquals(2000, lines.size());
+        assertEquals(2000, new HashSet<String>(lines).size());
+        assertTrue(lines.contains("thread 3 line 499"));
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOnOverflow() throws Exception {
+        // long flush interval and large buffer, the writer does not drain the queue
+        final FileRequestLogWriter writer = new FileRequestLogWriter(file, 65536, 60000, 2, OverflowPolicy.DROP);
+        for (int i = 0; i < 5; i++) {
+            writer.write("line " + i);
+        }
+        writer.close();
+
+        final List<String> lines = readLines();
+        assertEquals(5, lines.size() + writer.getDroppedCount());
+        assertTrue(writer.getDroppedCount() > 0);
+        assertEquals("line 0", lines.get(0));
+    }
+
+    @Test
+    public void testSharedFile() throws Exception {
+        final FileRequestLog log1 = new FileRequestLog(file);
+        final FileRequestLog log2 = new FileRequestLog(file);
+        log1.write("first");
+        log2.write("second");
+        log2.close();
+        log2.write("ignored");
+        FileRequestLog.dispose();
+
+        final Set<String> lines = new HashSet<String>(readLines());
+        assertEquals(2, lines.size());
+        assertTrue(lines.contains("first"));
+        assertTrue(lines.contains("second"));
+    }
+}
@@ -180,6 +180,20 @@ public class SlingRequestPathInfoTest extends TestCase {
         assertEquals("/some/suffix", p.getSuffix());
     }
 
+    public void testSelectorsSplitEmptySelectors() {
+        RequestPathInfo p = new SlingRequestPathInfo(new MockResource(
+            "/some/path", "..print..a4...html"));
+        assertEquals("/some/path", p.getResourcePath());
+        assertEquals(".print..a4..", p.getSelectorString());
+        assertEquals(4, p.getSelectors().length);
+        assertEquals("", p.getSelectors()[0]);
+        assertEquals("print", p.getSelectors()[1]);
+        assertEquals("", p.getSelectors()[2]);
+        assertEquals("a4", p.getSelectors()[3]);
+        assertEquals("html", p.getExtension());
+        assertNull("Suffix is null", p.getSuffix());
+    }
+
     public void testPartialResolutionB() {
         RequestPathInfo p = new SlingRequestPathInfo(new MockResource(
             "/some/path", ".print.a4.html/some/suffix"));
@@ -26,11 +26,14 @@ import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Properties;
@@ -98,16 +101,32 @@ public class AdapterManagerImpl implements AdapterManager {
     private final Map<String, AdapterFactoryDescriptorMap> descriptors = new HashMap<String, AdapterFactoryDescriptorMap>();
 
     /**
-     * Matrix of {@link AdapterFactoryDescriptor} instances primarily indexed by the fully
+     * The (empty) factory chain used for pairs of adaptable and target class
+     * for which no adapter factory is registered.
+     */
+    private static final AdapterFactoryDescriptor[] NO_FACTORIES = new AdapterFactoryDescriptor[0];
+
+    /**
+     * Matrix of {@link AdapterFactoryDescriptor} chains primarily indexed by the fully
      * qualified name of the class to be adapted and secondarily indexed by the
-     * fully qualified name of the class to adapt to (the target class).
+     * fully qualified name of the class to adapt to (the target class). The
+     * chains are ordered in the sequence in which the factories are tried,
+     * pairs without any factory map to an empty chain.
      * <p>
      * This cache is built on demand by calling the
-     * {@link #getAdapterFactories(Class)} method. It is cleared
-     * whenever an adapter factory is registered on unregistered.
+     * {@link #getAdapterFactories(Class, Class)} method. Registering or
+     * unregistering an adapter factory only removes the chains for the
+     * target classes of that factory from the entries of adaptable classes
+     * inheriting from one of the adaptable classes of that factory.
      */
-    private final ConcurrentMap<String, Map<String, List<AdapterFactoryDescriptor>>> factoryCache
-    = new ConcurrentHashMap<String, Map<String, List<AdapterFactoryDescriptor>>>();
+    private final ConcurrentMap<String, AdaptableEntry> factoryCache = new ConcurrentHashMap<String, AdaptableEntry>();
+
+    /**
+     * Counter incremented whenever the registered adapter factories change.
+     * It is used to detect factory chains which have been built while
+     * the factories were changing and which must not be kept in the cache.
+     */
+    private final AtomicInteger factoryGeneration = new AtomicInteger();
 
     /**
      * The service tracker for the event admin
@@ -129,27 +148,22 @@ public class AdapterManagerImpl implements AdapterManager {
     public <AdapterType> AdapterType getAdapter(final Object adaptable,
             final Class<AdapterType> type) {
 
-        // get the adapter factories for the type of adaptable object
-        final Map<String, List<AdapterFactoryDescriptor>> factories = getAdapterFactories(adaptable.getClass());
+        // get the adapter factories for the type of adaptable object and the target type
+        final AdapterFactoryDescriptor[] descList = getAdapterFactories(adaptable.getClass(), type);
 
-        // get the factory for the target type
-        final List<AdapterFactoryDescriptor> descList = factories.get(type.getName());
+        for (final AdapterFactoryDescriptor desc : descList) {
+            final AdapterFactory factory = desc.getFactory();
 
-        if (descList != null && descList.size() > 0) {
-            for (AdapterFactoryDescriptor desc : descList) {
-                final AdapterFactory factory = desc == null ? null : desc.getFactory();
+            // have the factory adapt the adaptable if the factory exists
+            if (factory != null) {
+                log.debug("Trying adapter factory {} to map {} to {}",
+                        new Object [] { factory, adaptable, type });
 
-                // have the factory adapt the adaptable if the factory exists
-                if (factory != null) {
-                    log.debug("Trying adapter factory {} to map {} to {}",
+                AdapterType adaptedObject = factory.getAdapter(adaptable, type);
+                if (adaptedObject != null) {
+                    log.debug("Using adapter factory {} to map {} to {}",
                             new Object [] { factory, adaptable, type });
-
-                    AdapterType adaptedObject = factory.getAdapter(adaptable, type);
-                    if (adaptedObject != null) {
-                        log.debug("Using adapter factory {} to map {} to {}",
-                                new Object [] { factory, adaptable, type });
-                        return adaptedObject;
-                    }
+                    return adaptedObject;
                 }
             }
         }
@@ -236,7 +250,7 @@ public class AdapterManagerImpl implements AdapterManager {
      * <strong><em>THIS METHOD IS FOR UNIT TESTING ONLY. IT MAY BE REMOVED OR
      * MODIFIED WITHOUT NOTICE.</em></strong>
      */
-    Map<String, Map<String, List<AdapterFactoryDescriptor>>> getFactoryCache() {
+    Map<String, AdaptableEntry> getFactoryCache() {
         return factoryCache;
     }
 
@@ -283,8 +297,8 @@ public class AdapterManagerImpl implements AdapterManager {
             }
         }
 
-        // clear the factory cache to force rebuild on next access
-        this.factoryCache.clear();
+        // remove the affected factory chains to force rebuild on next access
+        this.invalidateFactoryCache(adaptables, adapters);
 
         // register adaption
         final Dictionary<String, Object> props = new Hashtable<String, Object>();
@@ -373,7 +387,7 @@ public class AdapterManagerImpl implements AdapterManager {
         // only remove cache if some adapter factories have actually been
         // removed
         if (factoriesModified) {
-            this.factoryCache.clear();
+            this.invalidateFactoryCache(adaptables, adapters);
         }
 
         // unregister adaption
@@ -398,112 +412,129 @@ public class AdapterManagerImpl implements AdapterManager {
     }
 
     /**
-     * Returns the map of adapter factories index by adapter (target) class name
-     * for the given adaptable <code>clazz</code>. If no adapter exists for
-     * the <code>clazz</code> and empty map is returned.
+     * Removes the cached factory chains for the given <code>adapters</code>
+     * from the entries of all adaptable classes which are or inherit from
+     * one of the given <code>adaptables</code>.
+     *
+     * @param adaptables The adaptable class names of the changed factory.
+     * @param adapters The adapter (target) class names of the changed factory.
+     */
+    private void invalidateFactoryCache(final String[] adaptables, final String[] adapters) {
+        this.factoryGeneration.incrementAndGet();
+        for (final AdaptableEntry entry : this.factoryCache.values()) {
+            for (final String adaptable : adaptables) {
+                if (entry.types.contains(adaptable)) {
+                    for (final String adapter : adapters) {
+                        entry.chains.remove(adapter);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the adapter factories to adapt the given adaptable
+     * <code>clazz</code> to the given <code>type</code> in the order in
+     * which they are to be tried. If no adapter exists for the pair an empty
+     * array is returned.
      *
-     * @param clazz The adaptable <code>Class</code> for which to return the
-     *            adapter factory map by target class name.
-     * @return The map of adapter factories by target class name. The map may be
-     *         empty if there is no adapter factory for the adaptable
-     *         <code>clazz</code>.
+     * @param clazz The adaptable <code>Class</code>.
+     * @param type The adapter (target) <code>Class</code>.
+     * @return The adapter factories, which may be empty but never
+     *         <code>null</code>.
      */
-    private Map<String, List<AdapterFactoryDescriptor>> getAdapterFactories(final Class<?> clazz) {
+    private AdapterFactoryDescriptor[] getAdapterFactories(final Class<?> clazz, final Class<?> type) {
         final String className = clazz.getName();
-        Map<String, List<AdapterFactoryDescriptor>> entry = this.factoryCache.get(className);
+        AdaptableEntry entry = this.factoryCache.get(className);
         if (entry == null) {
             // create entry
-            entry = createAdapterFactoryMap(clazz);
-            this.factoryCache.put(className, entry);
+            final AdaptableEntry newEntry = new AdaptableEntry(clazz);
+            entry = this.factoryCache.putIfAbsent(className, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
         }
 
-        return entry;
+        final String typeName = type.getName();
+        AdapterFactoryDescriptor[] chain = entry.chains.get(typeName);
+        if (chain == null) {
+            final int generation = this.factoryGeneration.get();
+            chain = createAdapterFactoryChain(entry.types, typeName);
+            entry.chains.put(typeName, chain);
+
+            // don't keep the chain if the factories changed while building it
+            if (generation != this.factoryGeneration.get()) {
+                entry.chains.remove(typeName, chain);
+            }
+        }
+
+        return chain;
     }
 
     /**
-     * Creates a new target adapter factory map for the given <code>clazz</code>.
+     * Creates the adapter factory chain for the given <code>type</code>.
      * First all factories defined to support the adaptable class by
-     * registration are taken. Next all factories for the implemented interfaces
-     * and finally all base class factories are copied.
+     * registration are taken, each in the order of their service ranking.
+     * Next all factories for the implemented interfaces and finally all
+     * base class factories are appended.
      *
-     * @param clazz The adaptable <code>Class</code> for which to build the
-     *            adapter factory map by target class name.
-     * @return The map of adapter factories by target class name. The map may be
-     *         empty if there is no adapter factory for the adaptable
-     *         <code>clazz</code>.
+     * @param types The names of the adaptable class and all its super types
+     *            as returned by {@link AdaptableEntry#types}.
+     * @param typeName The name of the adapter (target) class.
+     * @return The adapter factories, which may be empty.
      */
-    private Map<String, List<AdapterFactoryDescriptor>> createAdapterFactoryMap(final Class<?> clazz) {
-        final Map<String, List<AdapterFactoryDescriptor>> afm = new HashMap<String, List<AdapterFactoryDescriptor>>();
-
-        // AdapterFactories for this class
-        AdapterFactoryDescriptorMap afdMap = null;
-        synchronized ( this.descriptors ) {
-            afdMap = this.descriptors.get(clazz.getName());
-        }
-        if (afdMap != null) {
-            final List<AdapterFactoryDescriptor> afdSet;
-            synchronized ( afdMap ) {
-                afdSet = new ArrayList<AdapterFactoryDescriptor>(afdMap.values());
+    private AdapterFactoryDescriptor[] createAdapterFactoryChain(final Set<String> types, final String typeName) {
+        final List<AdapterFactoryDescriptor> chain = new ArrayList<AdapterFactoryDescriptor>();
+        for (final String adaptable : types) {
+            AdapterFactoryDescriptorMap afdMap = null;
+            synchronized ( this.descriptors ) {
+                afdMap = this.descriptors.get(adaptable);
             }
-            for (final AdapterFactoryDescriptor afd : afdSet) {
-                final String[] adapters = afd.getAdapters();
-                for (final String adapter : adapters) {
-                    // to handle service ranking, we add to the end of the list or create a new list
-                    List<AdapterFactoryDescriptor> factoryDescriptors = afm.get(adapter);
-                    if (factoryDescriptors == null) {
-                        factoryDescriptors = new ArrayList<AdapterFactoryDescriptor>();
-                        afm.put(adapter, factoryDescriptors);
+            if (afdMap != null) {
+                synchronized ( afdMap ) {
+                    for (final AdapterFactoryDescriptor afd : afdMap.values()) {
+                        if (Arrays.asList(afd.getAdapters()).contains(typeName) && !chain.contains(afd)) {
+                            chain.add(afd);
+                        }
                     }
-                    factoryDescriptors.add(afd);
                 }
             }
         }
-
-        // AdapterFactories for the interfaces
-        final Class<?>[] interfaces = clazz.getInterfaces();
-        for (final Class<?> iFace : interfaces) {
-            copyAdapterFactories(afm, iFace);
-        }
-
-        // AdapterFactories for the super class
-        final Class<?> superClazz = clazz.getSuperclass();
-        if (superClazz != null) {
-            copyAdapterFactories(afm, superClazz);
-        }
-
-        return afm;
+        return chain.isEmpty() ? NO_FACTORIES : chain.toArray(new AdapterFactoryDescriptor[chain.size()]);
     }
 
     /**
-     * Copies all adapter factories for the given <code>clazz</code> from the
-     * <code>cache</code> to the <code>dest</code> map except for those
-     * factories whose target class already exists in the <code>dest</code>
-     * map.
-     *
-     * @param dest The map of target class name to adapter factory into which
-     *            additional factories are copied. Existing factories are not
-     *            replaced.
-     * @param clazz The adaptable class whose adapter factories are considered
-     *            for adding into <code>dest</code>.
+     * The <code>AdaptableEntry</code> is the entry of the factory cache for
+     * a single adaptable class.
      */
-    private void copyAdapterFactories(final Map<String, List<AdapterFactoryDescriptor>> dest,
-            final Class<?> clazz) {
-
-        // get the adapter factories for the adaptable clazz
-        final Map<String, List<AdapterFactoryDescriptor>> scMap = getAdapterFactories(clazz);
-
-        // for each target class copy the entry to dest and put it in the list or create the list
-        for (Map.Entry<String, List<AdapterFactoryDescriptor>> entry : scMap.entrySet()) {
-
-            List<AdapterFactoryDescriptor> factoryDescriptors = dest.get(entry.getKey());
+    static final class AdaptableEntry {
+
+        /**
+         * The names of the adaptable class, its interfaces and its base
+         * classes in the order in which their adapter factories are used.
+         */
+        final Set<String> types = new LinkedHashSet<String>();
+
+        /**
+         * The adapter factory chains indexed by the adapter (target) class
+         * name.
+         */
+        final ConcurrentMap<String, AdapterFactoryDescriptor[]> chains = new ConcurrentHashMap<String, AdapterFactoryDescriptor[]>();
+
+        AdaptableEntry(final Class<?> clazz) {
+            addTypes(clazz);
+        }
 
-            if (factoryDescriptors == null) {
-                factoryDescriptors = new ArrayList<AdapterFactoryDescriptor>();
-                dest.put(entry.getKey(), factoryDescriptors);
+        private void addTypes(final Class<?> clazz) {
+            this.types.add(clazz.getName());
+            for (final Class<?> iFace : clazz.getInterfaces()) {
+                addTypes(iFace);
             }
-            for (AdapterFactoryDescriptor descriptor : entry.getValue()) {
-                factoryDescriptors.add(descriptor);
+            final Class<?> superClazz = clazz.getSuperclass();
+            if (superClazz != null) {
+                addTypes(superClazz);
             }
         }
     }
-}
\ No newline at end of file
+}
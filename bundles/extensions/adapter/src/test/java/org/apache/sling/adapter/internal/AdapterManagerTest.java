@@ -46,6 +46,7 @@ import junitx.util.PrivateAccessor;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(JMock.class)
@@ -335,6 +336,33 @@ public class AdapterManagerTest {
         assertTrue(adapter instanceof TestAdapter);
     }
 
+    @org.junit.Test public void testFactoryCacheInvalidation() throws Exception {
+        am.activate(this.createComponentContext());
+
+        TestSlingAdaptable data = new TestSlingAdaptable();
+        assertNull("Expect no adapter", am.getAdapter(data, ITestAdapter.class));
+
+        // the failed adaption is cached as an empty chain
+        final AdapterManagerImpl.AdaptableEntry entry = am.getFactoryCache().get(TestSlingAdaptable.class.getName());
+        assertNotNull(entry);
+        final AdapterFactoryDescriptor[] chain = entry.chains.get(ITestAdapter.class.getName());
+        assertNotNull(chain);
+        assertEquals(0, chain.length);
+
+        // a factory for a sub class does not affect the cached chain
+        final ServiceReference ref2 = createServiceReference2();
+        am.bindAdapterFactory(ref2);
+        assertSame(chain, entry.chains.get(ITestAdapter.class.getName()));
+        assertNull("Expect no adapter", am.getAdapter(data, TestAdapter.class));
+
+        // a factory for the class removes the cached chain
+        final ServiceReference ref = createServiceReference();
+        am.bindAdapterFactory(ref);
+        assertNull(entry.chains.get(ITestAdapter.class.getName()));
+        assertNotNull("Expect adapter", am.getAdapter(data, ITestAdapter.class));
+        assertEquals(1, entry.chains.get(ITestAdapter.class.getName()).length);
+    }
+
     @org.junit.Test public void testAdaptMultipleAdapterFactories() throws Exception {
         final ServiceReference firstAdaptable = new ServiceReferenceImpl(1, new String[]{AdapterObject.class.getName()},  new String[]{ ParentInterface.class.getName(), FirstImplementation.class.getName()});
         final ServiceReference secondAdaptable = new ServiceReferenceImpl(2, new String[]{ AdapterObject.class.getName() }, new String[]{ParentInterface.class.getName(), SecondImplementation.class.getName()});
@@ -42,6 +42,17 @@ public class JobBuilderImpl implements JobBuilder {
         this.topic = topic;
     }
 
+    String getTopic() {
+        return this.topic;
+    }
+
+    Map<String, Object> getProperties() {
+        return this.properties;
+    }
+
+    JobManagerImpl getJobManager() {
+        return this.jobManager;
+    }
 
     @Override
     public JobBuilder properties(final Map<String, Object> props) {
@@ -21,6 +21,7 @@ package org.apache.sling.event.impl.jobs;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -127,6 +128,39 @@ public class JobManagerImpl
 
     private volatile ServiceRegistration<ResourceChangeListener> changeListenerReg;
 
+    /** Lock for grouping new jobs into a single commit. */
+    private final Object groupCommitLock = new Object();
+
+    /** The jobs waiting for the next group commit - guarded by {@link #groupCommitLock}. */
+    private List<JobRequest> groupCommitRequests = new ArrayList<JobRequest>();
+
+    /** Whether a thread is persisting jobs of a group commit - guarded by {@link #groupCommitLock}. */
+    private boolean groupCommitActive;
+
+    /**
+     * A new job to be persisted.
+     */
+    private static final class JobRequest {
+
+        final String topic;
+
+        final Map<String, Object> properties;
+
+        final QueueInfo info;
+
+        /** The persisted job or <code>null</code>. */
+        JobImpl job;
+
+        /** Whether a group commit has processed this request. */
+        boolean done;
+
+        JobRequest(final String topic, final Map<String, Object> properties, final QueueInfo info) {
+            this.topic = topic;
+            this.properties = properties;
+            this.info = info;
+        }
+    }
+
     /**
      * Activate this component.
      * @param props Configuration properties
@@ -554,6 +588,28 @@ public class JobManagerImpl
     private Job addJobInternal(final String jobTopic,
             final Map<String, Object> jobProperties,
             final List<String> errors) {
+        final JobRequest request = this.createJobRequest(jobTopic, jobProperties);
+
+        if ( this.configuration.isGroupCommit() ) {
+            this.persistJobGrouped(request);
+        } else {
+            this.persistJob(request);
+        }
+        if ( request.job == null && errors != null ) {
+            errors.add("Unable to persist new job.");
+        }
+
+        return request.job;
+    }
+
+    /**
+     * Create the request to persist a job and detect the target instance.
+     * @param jobTopic The required job topic
+     * @param jobProperties The optional job properties
+     * @return The request
+     */
+    private JobRequest createJobRequest(final String jobTopic,
+            final Map<String, Object> jobProperties) {
         final QueueInfo info = this.configuration.getQueueConfigurationManager().getQueueInfo(jobTopic);
 
         final TopologyCapabilities caps = this.configuration.getTopologyCapabilities();
@@ -566,31 +622,125 @@ public class JobManagerImpl
                 logger.debug("Persisting job {} into queue {}", Utility.toString(jobTopic, jobProperties), info.queueName);
             }
         }
+        return new JobRequest(jobTopic, jobProperties, info);
+    }
+
+    /**
+     * Persist a single job with its own resource resolver.
+     * On success, the job is set on the request.
+     * @param request The request
+     */
+    private void persistJob(final JobRequest request) {
         final ResourceResolver resolver = this.configuration.createResourceResolver();
         try {
-            final JobImpl job = this.writeJob(resolver,
-                    jobTopic,
-                    jobProperties,
-                    info);
-            if ( info.targetId != null ) {
-                this.configuration.getAuditLogger().debug("ASSIGN OK {} : {}",
-                        info.targetId, job.getId());
-            } else {
-                this.configuration.getAuditLogger().debug("UNASSIGN OK : {}",
-                        job.getId());
-            }
-            return job;
+            request.job = this.writeJob(resolver,
+                    request.topic,
+                    request.properties,
+                    request.info,
+                    true);
+            this.logAssignment(request);
         } catch (final PersistenceException re ) {
             // something went wrong, so let's log it
-            this.logger.error("Exception during persisting new job '" + Utility.toString(jobTopic, jobProperties) + "'", re);
+            this.logger.error("Exception during persisting new job '" + Utility.toString(request.topic, request.properties) + "'", re);
         } finally {
             resolver.close();
         }
-        if ( errors != null ) {
-            errors.add("Unable to persist new job.");
+    }
+
+    /**
+     * Persist several jobs with a single commit.
+     * If the commit fails, each job is persisted on its own.
+     * The notifications for the new jobs are sent once the
+     * jobs are committed.
+     * @param requests The requests
+     */
+    private void persistJobs(final List<JobRequest> requests) {
+        if ( requests.size() == 1 ) {
+            this.persistJob(requests.get(0));
+            return;
         }
+        final ResourceResolver resolver = this.configuration.createResourceResolver();
+        try {
+            for(final JobRequest request : requests) {
+                request.job = this.writeJob(resolver,
+                        request.topic,
+                        request.properties,
+                        request.info,
+                        false);
+            }
+            resolver.commit();
+            for(final JobRequest request : requests) {
+                this.logAssignment(request);
+            }
+            return;
+        } catch (final PersistenceException pe) {
+            this.logger.warn("Unable to persist " + requests.size() + " new jobs with a single commit, persisting them one by one.", pe);
+            resolver.revert();
+            for(final JobRequest request : requests) {
+                request.job = null;
+            }
+        } finally {
+            resolver.close();
+        }
+        for(final JobRequest request : requests) {
+            this.persistJob(request);
+        }
+    }
 
-        return null;
+    /**
+     * Persist a job together with other jobs which are added concurrently.
+     * If no jobs are being persisted, the calling thread persists its job
+     * together with all jobs added in the meantime right away. Otherwise
+     * the job is collected until the running commit has finished. Then one of
+     * the waiting threads persists all collected jobs with a single commit.
+     * @param request The request
+     */
+    private void persistJobGrouped(final JobRequest request) {
+        boolean interrupted = false;
+        final List<JobRequest> requests;
+        synchronized ( this.groupCommitLock ) {
+            this.groupCommitRequests.add(request);
+            while ( this.groupCommitActive && !request.done ) {
+                try {
+                    this.groupCommitLock.wait();
+                } catch ( final InterruptedException ie ) {
+                    interrupted = true;
+                }
+            }
+            if ( request.done ) {
+                requests = null;
+            } else {
+                requests = this.groupCommitRequests;
+                this.groupCommitRequests = new ArrayList<JobRequest>();
+                this.groupCommitActive = true;
+            }
+        }
+        if ( requests != null ) {
+            try {
+                this.persistJobs(requests);
+            } finally {
+                synchronized ( this.groupCommitLock ) {
+                    for(final JobRequest r : requests) {
+                        r.done = true;
+                    }
+                    this.groupCommitActive = false;
+                    this.groupCommitLock.notifyAll();
+                }
+            }
+        }
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void logAssignment(final JobRequest request) {
+        if ( request.info.targetId != null ) {
+            this.configuration.getAuditLogger().debug("ASSIGN OK {} : {}",
+                    request.info.targetId, request.job.getId());
+        } else {
+            this.configuration.getAuditLogger().debug("UNASSIGN OK : {}",
+                    request.job.getId());
+        }
     }
 
     /**
@@ -598,12 +748,14 @@ public class JobManagerImpl
      * @param resolver The resolver resolver
      * @param event The event
      * @param info The queue information (queue name etc.)
+     * @param autoCommit Whether the job is committed
      * @throws PersistenceException
      */
     private JobImpl writeJob(final ResourceResolver resolver,
             final String jobTopic,
             final Map<String, Object> jobProperties,
-            final QueueInfo info)
+            final QueueInfo info,
+            final boolean autoCommit)
     throws PersistenceException {
         final String jobId = this.configuration.getUniqueId(jobTopic);
         final String path = this.configuration.getUniquePath(info.targetId, jobTopic, jobId, jobProperties);
@@ -640,9 +792,15 @@ public class JobManagerImpl
         if ( logger.isDebugEnabled() ) {
             logger.debug("Storing new job {} at {}", Utility.toString(jobTopic, properties), path);
         }
-        ResourceHelper.getOrCreateResource(resolver,
-                path,
-                properties);
+        if ( autoCommit ) {
+            ResourceHelper.getOrCreateResource(resolver,
+                    path,
+                    properties);
+        } else {
+            ResourceHelper.getOrCreateResourceWithoutCommit(resolver,
+                    path,
+                    properties);
+        }
 
         // update property types - priority, add path and create job
         properties.put(JobImpl.PROPERTY_RESOURCE_PATH, path);
@@ -708,6 +866,64 @@ public class JobManagerImpl
     public Job addJob(final String topic,
             final Map<String, Object> properties,
             final List<String> errors) {
+        if ( !this.checkJob(topic, properties, errors) ) {
+            return null;
+        }
+        final List<String> errorList = new ArrayList<String>();
+        Job result = this.addJobInternal(topic, properties, errorList);
+        if ( errors != null ) {
+            errors.addAll(errorList);
+        }
+        this.logAdd(topic, properties, result, errorList);
+
+        return result;
+    }
+
+    /**
+     * @see org.apache.sling.event.jobs.JobManager#addJobs(java.util.Collection)
+     */
+    @Override
+    public List<Job> addJobs(final Collection<JobBuilder> builders) {
+        for(final JobBuilder builder : builders) {
+            if ( !(builder instanceof JobBuilderImpl) || ((JobBuilderImpl)builder).getJobManager() != this ) {
+                throw new IllegalArgumentException("Job builder has not been created by this job manager: " + builder);
+            }
+        }
+        final JobRequest[] requests = new JobRequest[builders.size()];
+        final List<JobRequest> validRequests = new ArrayList<JobRequest>(builders.size());
+        int index = 0;
+        for(final JobBuilder builder : builders) {
+            final JobBuilderImpl impl = (JobBuilderImpl)builder;
+            if ( this.checkJob(impl.getTopic(), impl.getProperties(), null) ) {
+                requests[index] = this.createJobRequest(impl.getTopic(), impl.getProperties());
+                validRequests.add(requests[index]);
+            }
+            index++;
+        }
+        if ( !validRequests.isEmpty() ) {
+            this.persistJobs(validRequests);
+        }
+
+        final List<Job> result = new ArrayList<Job>(requests.length);
+        for(final JobRequest request : requests) {
+            if ( request == null ) {
+                result.add(null);
+            } else {
+                this.logAdd(request.topic, request.properties, request.job,
+                        Collections.singletonList("Unable to persist new job."));
+                result.add(request.job);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check the topic and properties of a new job.
+     * @return <code>true</code> if the job is valid.
+     */
+    private boolean checkJob(final String topic,
+            final Map<String, Object> properties,
+            final List<String> errors) {
         final String errorMessage = Utility.checkJob(topic, properties);
         if ( errorMessage != null ) {
             logger.warn("{}", errorMessage);
@@ -718,13 +934,15 @@ public class JobManagerImpl
                     new Object[] {topic,
                                   properties,
                                   errorMessage});
-            return null;
-        }
-        final List<String> errorList = new ArrayList<String>();
-        Job result = this.addJobInternal(topic, properties, errorList);
-        if ( errors != null ) {
-            errors.addAll(errorList);
+            return false;
         }
+        return true;
+    }
+
+    private void logAdd(final String topic,
+            final Map<String, Object> properties,
+            final Job result,
+            final List<String> errorList) {
         if ( result == null ) {
             this.configuration.getAuditLogger().debug("ADD FAILED topic={}, properties={} : {}",
                     new Object[] {topic,
@@ -736,8 +954,6 @@ public class JobManagerImpl
                                   properties,
                                   result.getId()});
         }
-
-        return result;
     }
 
     /**
@@ -80,6 +80,12 @@ import org.slf4j.LoggerFactory;
               label="Startup Delay",
               description="Specify amount in seconds that job manager waits on startup before starting with job handling. "
                         + "This can be used to allow enough time to restart a cluster before jobs are eventually reassigned."),
+    @Property(name=JobManagerConfiguration.PROPERTY_GROUP_COMMIT,
+              boolValue=JobManagerConfiguration.DEFAULT_GROUP_COMMIT,
+              label="Group Commit",
+              description="If enabled, new jobs which are added while jobs are being persisted are collected "
+                        + "and persisted together with a single commit. This increases the throughput when many jobs "
+                        + "are added at the same time. A job is never delayed if no other job is being persisted."),
     @Property(name=JobManagerConfiguration.PROPERTY_REPOSITORY_PATH,
               value=JobManagerConfiguration.DEFAULT_REPOSITORY_PATH, propertyPrivate=true),
     @Property(name=JobManagerConfiguration.PROPERTY_SCHEDULED_JOBS_PATH,
@@ -134,6 +140,12 @@ public class JobManagerConfiguration {
     /** Default value for deprecation warnings. */
     public static final boolean DEFAULT_LOG_DEPRECATION_WARNINGS = true;
 
+    /** Configuration property for grouping new jobs into a single commit. */
+    public static final String PROPERTY_GROUP_COMMIT = "job.group.commit";
+
+    /** Default value for grouping new jobs - grouping is disabled. */
+    public static final boolean DEFAULT_GROUP_COMMIT = false;
+
     /** The jobs base path with a slash. */
     private String jobsBasePathWithSlash;
 
@@ -161,6 +173,8 @@ public class JobManagerConfiguration {
 
     private volatile boolean disabledDistribution;
 
+    private volatile boolean groupCommit;
+
     private String storedCancelledJobsPath;
 
     private String storedSuccessfulJobsPath;
@@ -261,6 +275,7 @@ public class JobManagerConfiguration {
         // (as 'startup delay runnable' is already scheduled in activate)
         this.startupDelay = PropertiesUtil.toLong(props.get(PROPERTY_STARTUP_DELAY), DEFAULT_STARTUP_DELAY);
         Utility.LOG_DEPRECATION_WARNINGS = PropertiesUtil.toBoolean(props.get(PROPERTY_LOG_DEPRECATION_WARNINGS), DEFAULT_LOG_DEPRECATION_WARNINGS);
+        this.groupCommit = PropertiesUtil.toBoolean(props.get(PROPERTY_GROUP_COMMIT), DEFAULT_GROUP_COMMIT);
     }
 
     /**
@@ -422,6 +437,14 @@ public class JobManagerConfiguration {
         return this.disabledDistribution;
     }
 
+    /**
+     * Whether new jobs are grouped into a single commit.
+     * @return {@code true} if grouping is enabled.
+     */
+    public boolean isGroupCommit() {
+        return this.groupCommit;
+    }
+
     public String getStoredCancelledJobsPath() {
         return this.storedCancelledJobsPath;
     }
@@ -17,20 +17,30 @@
  */
 package org.apache.sling.event.impl.jobs.jmx;
 
+import org.apache.sling.event.impl.jobs.queues.JobQueueImpl;
+import org.apache.sling.event.impl.jobs.queues.QueueJobCache;
 import org.apache.sling.event.jobs.Queue;
 import org.apache.sling.event.jobs.Statistics;
 
 /**
  * An MBean that provides statistics from
  */
-public class QueueMBeanImpl extends AbstractJobStatistics {
+public class QueueMBeanImpl extends AbstractJobStatistics implements QueueStatisticsMBean {
 
     private final String name;
 
     private final Statistics statistics;
 
+    private final QueueJobCache cache;
+
     public QueueMBeanImpl(Queue queue) {
+        super(QueueStatisticsMBean.class);
         this.name = queue.getName();
+        if (queue instanceof JobQueueImpl) {
+            this.cache = ((JobQueueImpl) queue).getCache();
+        } else {
+            this.cache = null;
+        }
         if (queue instanceof Statistics) {
             this.statistics = (Statistics) queue;
         } else {
@@ -47,4 +57,26 @@ public class QueueMBeanImpl extends AbstractJobStatistics {
     public String getName() {
         return name;
     }
+
+    @Override
+    public long getPrefetchHits() {
+        return cache == null ? 0 : cache.getPrefetchHits();
+    }
+
+    @Override
+    public long getPrefetchMisses() {
+        return cache == null ? 0 : cache.getPrefetchMisses();
+    }
+
+    @Override
+    public double getPrefetchHitRatio() {
+        final long hits = getPrefetchHits();
+        final long total = hits + getPrefetchMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public long getPrefetchRefills() {
+        return cache == null ? 0 : cache.getPrefetchRefills();
+    }
 }
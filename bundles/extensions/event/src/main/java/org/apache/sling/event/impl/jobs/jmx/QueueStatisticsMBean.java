@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.apache.sling.event.impl.jobs.jmx;
+
+import org.apache.sling.event.jobs.jmx.StatisticsMBean;
+
+/**
+ * The statistics of a queue including the statistics of its job cache.
+ */
+public interface QueueStatisticsMBean extends StatisticsMBean {
+
+    /**
+     * @return the number of jobs taken from the cache without waiting for a load.
+     */
+    long getPrefetchHits();
+
+    /**
+     * @return the number of jobs which were only available after a load.
+     */
+    long getPrefetchMisses();
+
+    /**
+     * @return the ratio of prefetch hits to all jobs taken from the cache.
+     */
+    double getPrefetchHitRatio();
+
+    /**
+     * @return the number of background loads of the cache.
+     */
+    long getPrefetchRefills();
+}
@@ -128,7 +128,8 @@ public class JobQueueImpl
                         final InternalQueueConfiguration config,
                         final QueueServices services,
                         final Set<String> topics) {
-        final QueueJobCache cache = new QueueJobCache(services.configuration, name, services.statisticsManager, config.getType(), topics);
+        final QueueJobCache cache = new QueueJobCache(services.configuration, name, services.statisticsManager, config.getType(), topics,
+                services.refillThreadPool);
         if ( cache.isEmpty() ) {
             return null;
         }
@@ -187,6 +188,13 @@ public class JobQueueImpl
         return this.services.statisticsManager.getQueueStatistics(this.queueName);
     }
 
+    /**
+     * Get the job cache of this queue.
+     */
+    public QueueJobCache getCache() {
+        return this.cache;
+    }
+
     /**
      * Start the job queue.
      * This method might be called concurrently, therefore we use a guard
@@ -382,6 +390,7 @@ public class JobQueueImpl
         this.running = false;
         this.logger.debug("Shutting down job queue {}", queueName);
         this.resume();
+        this.cache.close();
 
         synchronized ( this.processingJobsLists ) {
             this.processingJobsLists.clear();
@@ -20,16 +20,23 @@ package org.apache.sling.event.impl.jobs.queues;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.commons.threads.ThreadPool;
 import org.apache.sling.event.impl.jobs.JobConsumerManager;
 import org.apache.sling.event.impl.jobs.JobHandler;
 import org.apache.sling.event.impl.jobs.JobImpl;
@@ -48,26 +55,46 @@ import org.slf4j.LoggerFactory;
 /**
  * The queue job cache caches jobs per queue based on the topics the queue is actively
  * processing.
+ * <p>
+ * Jobs are kept in a buffer per topic. Taking a job from a buffer does not lock.
+ * Once a buffer runs low and the topic might contain more jobs, the buffer is
+ * refilled in the background. The number of jobs loaded for a topic adapts to
+ * the number of jobs taken from the buffer since the last load.
  */
 public class QueueJobCache {
 
     /** Logger. */
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    /** The minimum of pre loaded jobs for a topic. */
+    private static final int MIN_PRELOAD_LIMIT = 10;
+
     /** The maximum of pre loaded jobs for a topic. */
-    private final int maxPreloadLimit = 10;
+    private static final int MAX_PRELOAD_LIMIT = 500;
 
     /** The job manager configuration. */
     private final JobManagerConfiguration configuration;
 
+    /** The queue name. */
+    private final String queueName;
+
+    /** The statistics manager. */
+    private final StatisticsManager statisticsManager;
+
+    /** The thread pool for refilling buffers or {@code null}. */
+    private final ThreadPool threadPool;
+
     /** The set of topics handled by this queue. */
     private final Set<String> topics;
 
     /** The set of new topics to scan. */
-    private final Set<String> topicsWithNewJobs = new HashSet<String>();
+    private final Set<String> topicsWithNewJobs = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
-    /** The cache of current objects. */
-    private final List<JobImpl> cache = new ArrayList<JobImpl>();
+    /** The buffers per topic. */
+    private final ConcurrentMap<String, TopicBuffer> buffers = new ConcurrentHashMap<String, TopicBuffer>();
+
+    /** Rescheduled jobs of an ordered queue, these are processed first. */
+    private final ConcurrentLinkedDeque<JobImpl> rescheduled = new ConcurrentLinkedDeque<JobImpl>();
 
     /** The queue type. */
     private final QueueConfiguration.Type queueType;
@@ -75,6 +102,76 @@ public class QueueJobCache {
     /** Block the cache - for ordered queues only. */
     private final AtomicBoolean queueIsBlocked = new AtomicBoolean(false);
 
+    /** Whether the queue has been closed. */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /** The next topic for round robin queues. */
+    private final AtomicInteger nextTopic = new AtomicInteger();
+
+    /** Jobs taken from a buffer without waiting for a load. */
+    private final AtomicLong prefetchHits = new AtomicLong();
+
+    /** Jobs which were only available after a load. */
+    private final AtomicLong prefetchMisses = new AtomicLong();
+
+    /** Number of background loads. */
+    private final AtomicLong prefetchRefills = new AtomicLong();
+
+    /**
+     * The jobs of a topic.
+     */
+    private static final class TopicBuffer {
+
+        final String topic;
+
+        final ConcurrentLinkedDeque<JobImpl> jobs = new ConcurrentLinkedDeque<JobImpl>();
+
+        final AtomicInteger size = new AtomicInteger();
+
+        /** Only one load per topic at a time. */
+        final ReentrantLock loadLock = new ReentrantLock();
+
+        /** Ids of the jobs in the buffer or taken but not started yet. */
+        final Set<String> pendingIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        /**
+         * Ids of started jobs with the load sequence number at the time they were
+         * started. A load ignores these, as it might have read the job before it
+         * was marked as started.
+         */
+        final ConcurrentMap<String, Long> startedIds = new ConcurrentHashMap<String, Long>();
+
+        final AtomicLong loadSequence = new AtomicLong();
+
+        /** Jobs taken since the last load. */
+        final AtomicInteger taken = new AtomicInteger();
+
+        volatile int preloadLimit = MIN_PRELOAD_LIMIT;
+
+        TopicBuffer(final String topic) {
+            this.topic = topic;
+        }
+
+        JobImpl poll() {
+            final JobImpl job = this.jobs.pollFirst();
+            if ( job != null ) {
+                this.size.decrementAndGet();
+                this.taken.incrementAndGet();
+            }
+            return job;
+        }
+
+        void add(final JobImpl job) {
+            this.jobs.addLast(job);
+            this.size.incrementAndGet();
+        }
+
+        void started(final JobImpl job) {
+            this.startedIds.put(job.getId(), this.loadSequence.get());
+            this.pendingIds.remove(job.getId());
+        }
+    }
+
     /**
      * Create a new queue job cache
      * @param configuration Current job manager configuration
@@ -82,16 +179,21 @@ public class QueueJobCache {
      * @param statisticsManager The statistics manager
      * @param queueType The queue type
      * @param topics The topics handled by this queue.
+     * @param threadPool The thread pool used for refilling the cache or {@code null}
      */
     public QueueJobCache(final JobManagerConfiguration configuration,
             final String queueName,
             final StatisticsManager statisticsManager,
             final QueueConfiguration.Type queueType,
-            final Set<String> topics) {
+            final Set<String> topics,
+            final ThreadPool threadPool) {
         this.configuration = configuration;
+        this.queueName = queueName;
+        this.statisticsManager = statisticsManager;
+        this.threadPool = threadPool;
         this.queueType = queueType;
         this.topics = new ConcurrentSkipListSet<String>(topics);
-        this.fillCache(queueName, statisticsManager);
+        this.fillCache();
     }
 
     /**
@@ -107,34 +209,50 @@ public class QueueJobCache {
      * @return {@code true} if there is any job outstanding.
      */
     public boolean isEmpty() {
-        boolean result = true;
-        synchronized ( this.cache ) {
-            result = this.cache.isEmpty();
+        if ( !this.rescheduled.isEmpty() ) {
+            return false;
         }
-        if ( result ) {
-            synchronized ( this.topicsWithNewJobs ) {
-                result = this.topicsWithNewJobs.isEmpty();
+        for(final TopicBuffer buffer : this.buffers.values()) {
+            if ( !buffer.jobs.isEmpty() ) {
+                return false;
             }
         }
-        return result;
+        return this.topicsWithNewJobs.isEmpty();
     }
 
     public void setIsBlocked(final boolean value) {
         this.queueIsBlocked.set(value);
     }
 
+    /**
+     * Stop refilling the cache.
+     */
+    public void close() {
+        this.closed.set(true);
+    }
+
     /**
      * Fill the cache.
      * No need to sync as this is called from the constructor.
      */
-    private void fillCache(final String queueName, final StatisticsManager statisticsManager) {
-        final Set<String> checkingTopics = new HashSet<String>();
-        checkingTopics.addAll(this.topics);
-        if ( !checkingTopics.isEmpty() ) {
-            this.loadJobs(queueName, checkingTopics, statisticsManager);
+    private void fillCache() {
+        for(final String topic : this.topics) {
+            this.loadJobs(getBuffer(topic), false);
         }
     }
 
+    private TopicBuffer getBuffer(final String topic) {
+        TopicBuffer buffer = this.buffers.get(topic);
+        if ( buffer == null ) {
+            final TopicBuffer newBuffer = new TopicBuffer(topic);
+            buffer = this.buffers.putIfAbsent(topic, newBuffer);
+            if ( buffer == null ) {
+                buffer = newBuffer;
+            }
+        }
+        return buffer;
+    }
+
     /**
      * Get the next job.
      * This method is potentially called concurrently, and
@@ -153,122 +271,210 @@ public class QueueJobCache {
         JobHandler handler = null;
 
         if ( !this.queueIsBlocked.get() ) {
-            synchronized ( this.cache ) {
-                boolean retry;
-                do {
-                    retry = false;
-                    if ( this.cache.isEmpty() ) {
-                        final Set<String> checkingTopics = new HashSet<String>();
-                        synchronized ( this.topicsWithNewJobs ) {
-                            checkingTopics.addAll(this.topicsWithNewJobs);
-                            this.topicsWithNewJobs.clear();
-                        }
-                        if ( doFull ) {
-                            checkingTopics.addAll(this.topics);
-                        }
-                        if ( !checkingTopics.isEmpty() ) {
-                            this.loadJobs(queue.getName(), checkingTopics, statisticsManager);
+            boolean retry;
+            do {
+                retry = false;
+                JobImpl job = this.takeJob();
+                if ( job != null ) {
+                    this.prefetchHits.incrementAndGet();
+                } else {
+                    final Set<String> checkingTopics = new HashSet<String>();
+                    final Iterator<String> iter = this.topicsWithNewJobs.iterator();
+                    while ( iter.hasNext() ) {
+                        checkingTopics.add(iter.next());
+                        iter.remove();
+                    }
+                    // wait for loads which are currently running
+                    for(final TopicBuffer buffer : this.buffers.values()) {
+                        if ( buffer.loadLock.isLocked() ) {
+                            checkingTopics.add(buffer.topic);
                         }
                     }
+                    if ( doFull ) {
+                        checkingTopics.addAll(this.topics);
+                    }
+                    for(final String topic : checkingTopics) {
+                        this.loadJobs(getBuffer(topic), true);
+                    }
+                    job = this.takeJob();
+                    if ( job != null ) {
+                        this.prefetchMisses.incrementAndGet();
+                    }
+                }
 
-                    if ( !this.cache.isEmpty() ) {
-                        final JobImpl job = this.cache.remove(0);
-                        final JobExecutor consumer = jobConsumerManager.getExecutor(job.getTopic());
-
-                        handler = new JobHandler(job, consumer, this.configuration);
-                        if ( consumer != null ) {
-                            if ( !handler.startProcessing(queue) ) {
-                                statisticsManager.jobDequeued(queue.getName(), handler.getJob().getTopic());
-                                if ( logger.isDebugEnabled() ) {
-                                    logger.debug("Discarding removed job {}", Utility.toString(job));
-                                }
-                                handler = null;
-                                retry = true;
-                            }
-                        } else {
-                            statisticsManager.jobDequeued(queue.getName(), handler.getJob().getTopic());
-                            // no consumer on this instance, assign to another instance
-                            handler.reassign();
+                if ( job != null ) {
+                    final TopicBuffer buffer = getBuffer(job.getTopic());
+                    final JobExecutor consumer = jobConsumerManager.getExecutor(job.getTopic());
 
+                    handler = new JobHandler(job, consumer, this.configuration);
+                    if ( consumer != null ) {
+                        if ( !handler.startProcessing(queue) ) {
+                            statisticsManager.jobDequeued(queue.getName(), handler.getJob().getTopic());
+                            if ( logger.isDebugEnabled() ) {
+                                logger.debug("Discarding removed job {}", Utility.toString(job));
+                            }
                             handler = null;
                             retry = true;
                         }
+                    } else {
+                        statisticsManager.jobDequeued(queue.getName(), handler.getJob().getTopic());
+                        // no consumer on this instance, assign to another instance
+                        handler.reassign();
 
+                        handler = null;
+                        retry = true;
                     }
-                } while ( handler == null && retry);
-            }
+                    buffer.started(job);
+                    this.refillIfRequired(buffer);
+                }
+            } while ( handler == null && retry);
         }
         return handler;
     }
 
     /**
-     * Load the next N x numberOf(topics) jobs
-     * @param checkingTopics The set of topics to check.
+     * Take the next job from the buffers.
+     * @return The job or {@code null}
      */
-    private void loadJobs( final String queueName, final Set<String> checkingTopics,
-            final StatisticsManager statisticsManager) {
-        logger.debug("Starting jobs loading from {}...", checkingTopics);
-
-        final Map<String, List<JobImpl>> topicCache = new HashMap<String, List<JobImpl>>();
-
-        final ResourceResolver resolver = this.configuration.createResourceResolver();
-        try {
-            final Resource baseResource = resolver.getResource(this.configuration.getLocalJobsPath());
-            // sanity check - should never be null
-            if ( baseResource != null ) {
-                for(final String topic : checkingTopics) {
-
-                    final Resource topicResource = baseResource.getChild(topic.replace('/', '.'));
-                    if ( topicResource != null ) {
-                        topicCache.put(topic, loadJobs(queueName, topic, topicResource, statisticsManager));
+    private JobImpl takeJob() {
+        final JobImpl job = this.rescheduled.pollFirst();
+        if ( job != null ) {
+            return job;
+        }
+        final List<TopicBuffer> candidates = new ArrayList<TopicBuffer>();
+        for(final String topic : this.topics) {
+            final TopicBuffer buffer = this.buffers.get(topic);
+            if ( buffer != null && !buffer.jobs.isEmpty() ) {
+                candidates.add(buffer);
+            }
+        }
+        if ( this.queueType == Type.ORDERED
+             || this.queueType == Type.UNORDERED ) {
+            // oldest job first
+            while ( !candidates.isEmpty() ) {
+                TopicBuffer oldest = null;
+                JobImpl oldestJob = null;
+                final Iterator<TopicBuffer> iter = candidates.iterator();
+                while ( iter.hasNext() ) {
+                    final TopicBuffer buffer = iter.next();
+                    final JobImpl first = buffer.jobs.peekFirst();
+                    if ( first == null ) {
+                        iter.remove();
+                    } else if ( oldestJob == null || first.compareTo(oldestJob) < 0 ) {
+                        oldest = buffer;
+                        oldestJob = first;
+                    }
+                }
+                if ( oldest != null ) {
+                    final JobImpl result = oldest.poll();
+                    if ( result != null ) {
+                        return result;
                     }
                 }
             }
-        } finally {
-            resolver.close();
+        } else {
+            // topic round robin
+            final int count = candidates.size();
+            final int start = count == 0 ? 0 : (this.nextTopic.getAndIncrement() & Integer.MAX_VALUE) % count;
+            for(int i = 0; i < count; i++) {
+                final JobImpl result = candidates.get((start + i) % count).poll();
+                if ( result != null ) {
+                    return result;
+                }
+            }
         }
-        orderTopics(topicCache);
+        return null;
+    }
 
-        logger.debug("Finished jobs loading {}", this.cache.size());
+    /**
+     * Refill the buffer in the background if it runs low and the topic
+     * might contain more jobs.
+     */
+    private void refillIfRequired(final TopicBuffer buffer) {
+        if ( this.threadPool == null || this.closed.get() ) {
+            return;
+        }
+        if ( buffer.size.get() <= buffer.preloadLimit / 2
+             && this.topicsWithNewJobs.remove(buffer.topic) ) {
+            try {
+                this.threadPool.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        if ( !closed.get() ) {
+                            prefetchRefills.incrementAndGet();
+                            loadJobs(buffer, false);
+                        }
+                    }
+                });
+            } catch ( final RuntimeException re ) {
+                // thread pool is not available, load on demand
+                this.topicsWithNewJobs.add(buffer.topic);
+                logger.debug("Unable to refill cache for topic " + buffer.topic, re);
+            }
+        }
     }
 
     /**
-     * Order the topics based on the queue type and put them in the cache.
-     * @param topicCache The topic based cache
+     * Load the next jobs of the topic into its buffer.
+     * @param buffer The buffer
+     * @param onDemand Whether the jobs are loaded because the buffers were empty
      */
-    private void orderTopics(final Map<String, List<JobImpl>> topicCache) {
-        if ( this.queueType == Type.ORDERED
-             || this.queueType == Type.UNORDERED) {
-            for(final List<JobImpl> list : topicCache.values()) {
-                this.cache.addAll(list);
+    private void loadJobs(final TopicBuffer buffer, final boolean onDemand) {
+        buffer.loadLock.lock();
+        try {
+            if ( onDemand && !buffer.jobs.isEmpty() ) {
+                // a concurrent load already provided jobs
+                return;
             }
-            Collections.sort(this.cache);
-        } else {
-            // topic round robin
-            boolean done = true;
-            do {
-                done = true;
-                for(final Map.Entry<String, List<JobImpl>> entry : topicCache.entrySet()) {
-                    if ( !entry.getValue().isEmpty() ) {
-                        this.cache.add(entry.getValue().remove(0));
-                        if ( !entry.getValue().isEmpty() ) {
-                            done = false;
+            final int taken = buffer.taken.getAndSet(0);
+            int limit = Math.max(MIN_PRELOAD_LIMIT, taken * 2);
+            if ( onDemand ) {
+                // consumers were faster than the refill
+                limit = Math.max(limit, buffer.preloadLimit * 2);
+            }
+            buffer.preloadLimit = Math.min(MAX_PRELOAD_LIMIT, limit);
+
+            final long sequence = buffer.loadSequence.incrementAndGet();
+            final ResourceResolver resolver = this.configuration.createResourceResolver();
+            try {
+                final Resource baseResource = resolver.getResource(this.configuration.getLocalJobsPath());
+                // sanity check - should never be null
+                if ( baseResource != null ) {
+                    final Resource topicResource = baseResource.getChild(buffer.topic.replace('/', '.'));
+                    if ( topicResource != null ) {
+                        final int count = Math.max(1, buffer.preloadLimit - buffer.size.get());
+                        for(final JobImpl job : loadJobs(buffer, topicResource, count)) {
+                            buffer.add(job);
                         }
                     }
                 }
-            } while ( !done ) ;
+            } finally {
+                resolver.close();
+            }
+            // started jobs older than this load are not returned by any later load
+            final Iterator<Map.Entry<String, Long>> iter = buffer.startedIds.entrySet().iterator();
+            while ( iter.hasNext() ) {
+                if ( iter.next().getValue() < sequence ) {
+                    iter.remove();
+                }
+            }
+        } finally {
+            buffer.loadLock.unlock();
         }
     }
 
     /**
-     * Load the next N x numberOf(topics) jobs.
-     * @param topic The topic
+     * Load the next N jobs.
+     * @param buffer The buffer of the topic
      * @param topicResource The parent resource of the jobs
-     * @return The cache which will be filled with the jobs.
+     * @param maxJobs The maximum number of jobs to load
+     * @return The list of loaded jobs
      */
-    private List<JobImpl> loadJobs(final String queueName, final String topic,
+    private List<JobImpl> loadJobs(final TopicBuffer buffer,
             final Resource topicResource,
-            final StatisticsManager statisticsManager) {
+            final int maxJobs) {
+        final String topic = buffer.topic;
         logger.debug("Loading jobs from topic {}", topic);
         final List<JobImpl> list = new ArrayList<JobImpl>();
 
@@ -279,10 +485,12 @@ public class QueueJobCache {
             @Override
             public boolean handle(final JobImpl job) {
                 if ( job.getProcessingStarted() == null && !job.hasReadErrors() ) {
-                    list.add(job);
-                    statisticsManager.jobQueued(queueName, topic);
-                    if ( list.size() == maxPreloadLimit ) {
-                        scanTopic.set(true);
+                    if ( !buffer.startedIds.containsKey(job.getId()) && buffer.pendingIds.add(job.getId()) ) {
+                        list.add(job);
+                        statisticsManager.jobQueued(queueName, topic);
+                        if ( list.size() == maxJobs ) {
+                            scanTopic.set(true);
+                        }
                     }
                 } else if ( job.getProcessingStarted() != null ) {
                     logger.debug("Ignoring job {} - processing already started.", job);
@@ -297,13 +505,11 @@ public class QueueJobCache {
                         handler.finished(JobState.ERROR, true, null);
                     }
                 }
-                return list.size() < maxPreloadLimit;
+                return list.size() < maxJobs;
             }
         });
         if ( scanTopic.get() ) {
-            synchronized ( this.topicsWithNewJobs ) {
-                this.topicsWithNewJobs.add(topic);
-            }
+            this.topicsWithNewJobs.add(topic);
         }
         logger.debug("Caching {} jobs for topic {}", list.size(), topic);
 
@@ -316,9 +522,7 @@ public class QueueJobCache {
      */
     public void handleNewTopics(final Set<String> topics) {
         logger.debug("Update cache to handle new event for topics {}", topics);
-        synchronized ( this.topicsWithNewJobs ) {
-            this.topicsWithNewJobs.addAll(topics);
-        }
+        this.topicsWithNewJobs.addAll(topics);
         this.topics.addAll(topics);
     }
 
@@ -330,15 +534,42 @@ public class QueueJobCache {
      * @param statisticsManager The statistics manager
      */
     public void reschedule(final String queueName, final JobHandler handler, final StatisticsManager statisticsManager) {
-        synchronized ( this.cache ) {
-            if ( handler.reschedule() ) {
-                if ( this.queueType == Type.ORDERED ) {
-                    this.cache.add(0, handler.getJob());
-                } else {
-                    this.cache.add(handler.getJob());
-                }
-                statisticsManager.jobQueued(queueName, handler.getJob().getTopic());
+        final JobImpl job = handler.getJob();
+        final TopicBuffer buffer = getBuffer(job.getTopic());
+        // make sure a concurrent load does not pick up the job as well
+        if ( !buffer.pendingIds.add(job.getId()) ) {
+            return;
+        }
+        if ( handler.reschedule() ) {
+            if ( this.queueType == Type.ORDERED ) {
+                this.rescheduled.addFirst(job);
+            } else {
+                buffer.add(job);
             }
+            statisticsManager.jobQueued(queueName, job.getTopic());
+        } else {
+            buffer.pendingIds.remove(job.getId());
         }
     }
+
+    /**
+     * The number of jobs which were taken from the cache without loading.
+     */
+    public long getPrefetchHits() {
+        return this.prefetchHits.get();
+    }
+
+    /**
+     * The number of jobs which were only available after loading.
+     */
+    public long getPrefetchMisses() {
+        return this.prefetchMisses.get();
+    }
+
+    /**
+     * The number of background loads.
+     */
+    public long getPrefetchRefills() {
+        return this.prefetchRefills.get();
+    }
 }
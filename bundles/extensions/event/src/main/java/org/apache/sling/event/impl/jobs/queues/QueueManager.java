@@ -39,7 +39,9 @@ import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.commons.scheduler.Scheduler;
+import org.apache.sling.commons.threads.ModifiableThreadPoolConfig;
 import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolConfig.ThreadPriority;
 import org.apache.sling.commons.threads.ThreadPoolManager;
 import org.apache.sling.event.impl.EventingThreadPool;
 import org.apache.sling.event.impl.jobs.JobConsumerManager;
@@ -111,6 +113,9 @@ public class QueueManager
     @Reference
     private StatisticsManager statisticsManager;
 
+    /** The number of threads refilling the job caches of the queues. */
+    private static final int REFILL_THREAD_POOL_SIZE = 2;
+
     /** Lock object for the queues map - we don't want to sync directly on the concurrent map. */
     private final Object queuesLock = new Object();
 
@@ -141,9 +146,26 @@ public class QueueManager
         queueServices.threadPoolManager = this.threadPoolManager;
         queueServices.statisticsManager = statisticsManager;
         queueServices.eventingThreadPool = this.threadPool;
+        queueServices.refillThreadPool = this.createRefillThreadPool();
         this.configuration.addListener(this);
     }
 
+    /**
+     * Create the thread pool for refilling the job caches.
+     * Loading jobs might be slow, therefore this is not done by
+     * the threads processing the jobs.
+     */
+    private ThreadPool createRefillThreadPool() {
+        final ModifiableThreadPoolConfig config = new ModifiableThreadPoolConfig();
+        config.setMinPoolSize(REFILL_THREAD_POOL_SIZE);
+        config.setMaxPoolSize(REFILL_THREAD_POOL_SIZE);
+        config.setQueueSize(-1); // unlimited
+        config.setShutdownGraceful(false);
+        config.setPriority(ThreadPriority.NORM);
+        config.setDaemon(true);
+        return this.threadPoolManager.create(config, "Apache Sling Job Queue Refill Thread Pool");
+    }
+
     /**
      * Deactivate this component.
      */
@@ -160,6 +182,7 @@ public class QueueManager
             ((QueuesMBeanImpl)queuesMBean).sendEvent(new QueueStatusEvent(null, jbq));
         }
         this.queues.clear();
+        this.threadPoolManager.release(this.queueServices.refillThreadPool);
         this.queueServices = null;
         logger.info("Apache Sling Queue Manager stopped on instance {}", Environment.APPLICATION_ID);
     }
@@ -19,6 +19,7 @@
 package org.apache.sling.event.jobs;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.osgi.annotation.versioning.ProviderType;
@@ -201,6 +202,24 @@ public interface JobManager {
      */
     JobBuilder createJob(final String topic);
 
+    /**
+     * Add several jobs at once.
+     *
+     * The jobs are created from the builders returned by {@link #createJob(String)}.
+     * All jobs are persisted together which is considerably faster than adding each
+     * job on its own. Like with {@link #addJob(String, Map)} the jobs are only
+     * processed once they are persisted.
+     *
+     * The returned jobs are in the same order as the builders. If a job could not
+     * be created, the list contains <code>null</code> at its position.
+     *
+     * @param builders The job builders.
+     * @return A list of the new jobs.
+     * @throws IllegalArgumentException If a builder has not been created by this job manager.
+     * @since 2.1.0
+     */
+    List<Job> addJobs(Collection<JobBuilder> builders);
+
     /**
      * Return all available job schedules.
      * @return A collection of scheduled job infos
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.event.impl.jobs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.event.impl.TestUtil;
+import org.apache.sling.event.impl.jobs.config.InternalQueueConfiguration;
+import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
+import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager;
+import org.apache.sling.event.impl.jobs.config.QueueConfigurationManager.QueueInfo;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobBuilder;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobManagerImplTest {
+
+    private static final String JOBS_PATH = JobManagerConfiguration.DEFAULT_REPOSITORY_PATH + "/unassigned";
+
+    private static final String TOPIC = "sling/test/add";
+
+    @Rule
+    public final SlingContext ctx = new SlingContext();
+
+    @Mock
+    private JobManagerConfiguration configuration;
+
+    @Mock
+    private QueueConfigurationManager queueConfigurationManager;
+
+    @Mock
+    private InternalQueueConfiguration queueConfiguration;
+
+    /** All resolvers created for persisting jobs. */
+    private final List<ResourceResolver> resolvers = Collections.synchronizedList(new ArrayList<ResourceResolver>());
+
+    /** Number of commits failing, starting with the first. */
+    private final AtomicInteger failingCommits = new AtomicInteger();
+
+    /** If set, the first commit waits for this latch. */
+    private volatile CountDownLatch commitLatch;
+
+    private JobManagerImpl jobManager;
+
+    @Before
+    public void setUp() {
+        final ResourceResolverFactory factory = ctx.getService(ResourceResolverFactory.class);
+        Mockito.when(configuration.getAuditLogger()).thenReturn(LoggerFactory.getLogger(this.getClass()));
+        Mockito.when(configuration.getQueueConfigurationManager()).thenReturn(queueConfigurationManager);
+        Mockito.when(queueConfigurationManager.getQueueInfo(Matchers.anyString())).thenAnswer(new Answer<QueueInfo>() {
+
+            @Override
+            public QueueInfo answer(final InvocationOnMock invocation) {
+                final QueueInfo info = new QueueInfo();
+                info.queueConfiguration = queueConfiguration;
+                info.queueName = "test";
+                return info;
+            }
+        });
+        Mockito.when(queueConfiguration.getName()).thenReturn("test");
+        Mockito.when(queueConfiguration.getMaxRetries()).thenReturn(10);
+        final AtomicInteger counter = new AtomicInteger();
+        Mockito.when(configuration.getUniqueId(TOPIC)).thenAnswer(new Answer<String>() {
+
+            @Override
+            public String answer(final InvocationOnMock invocation) {
+                return "2016/1/1/10/30/test_" + counter.incrementAndGet();
+            }
+        });
+        Mockito.when(configuration.getUniquePath(Matchers.anyString(), Matchers.eq(TOPIC), Matchers.anyString(),
+                Matchers.anyMapOf(String.class, Object.class))).thenAnswer(new Answer<String>() {
+
+            @Override
+            public String answer(final InvocationOnMock invocation) {
+                final String jobId = (String) invocation.getArguments()[2];
+                return JOBS_PATH + '/' + TOPIC.replace('/', '.') + '/' + jobId;
+            }
+        });
+        Mockito.when(configuration.createResourceResolver()).thenAnswer(new Answer<ResourceResolver>() {
+
+            @Override
+            public ResourceResolver answer(final InvocationOnMock invocation) throws LoginException, PersistenceException {
+                final ResourceResolver resolver = Mockito.spy(factory.getAdministrativeResourceResolver(null));
+                Mockito.doAnswer(new Answer<Void>() {
+
+                    @Override
+                    public Void answer(final InvocationOnMock invocation) throws Throwable {
+                        final CountDownLatch latch = commitLatch;
+                        if ( latch != null ) {
+                            commitLatch = null;
+                            latch.await(10, TimeUnit.SECONDS);
+                        }
+                        if ( failingCommits.getAndDecrement() > 0 ) {
+                            throw new PersistenceException("Commit failed");
+                        }
+                        invocation.callRealMethod();
+                        return null;
+                    }
+                }).when(resolver).commit();
+                resolvers.add(resolver);
+                return resolver;
+            }
+        });
+
+        jobManager = new JobManagerImpl();
+        TestUtil.setFieldValue(jobManager, "configuration", configuration);
+    }
+
+    private void assertPersisted(final Job job) throws LoginException {
+        assertNotNull(job);
+        final ResourceResolver resolver = ctx.getService(ResourceResolverFactory.class).getAdministrativeResourceResolver(null);
+        try {
+            assertNotNull(resolver.getResource(((JobImpl)job).getResourcePath()));
+        } finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testAddJobsWithSingleCommit() throws Exception {
+        final List<JobBuilder> builders = new ArrayList<JobBuilder>();
+        for(int i = 0; i < 5; i++) {
+            builders.add(jobManager.createJob(TOPIC).properties(Collections.<String, Object>singletonMap("index", i)));
+        }
+        final List<Job> jobs = jobManager.addJobs(builders);
+
+        assertEquals(5, jobs.size());
+        for(int i = 0; i < 5; i++) {
+            assertPersisted(jobs.get(i));
+            assertEquals(i, jobs.get(i).getProperty("index"));
+        }
+        assertEquals(1, resolvers.size());
+        Mockito.verify(resolvers.get(0)).commit();
+    }
+
+    @Test
+    public void testAddJobsWithInvalidJob() throws Exception {
+        final List<Job> jobs = jobManager.addJobs(Arrays.asList(
+                jobManager.createJob(TOPIC),
+                jobManager.createJob("invalid topic"),
+                jobManager.createJob(TOPIC).properties(Collections.<String, Object>singletonMap("value", new Object())),
+                jobManager.createJob(TOPIC)));
+
+        assertEquals(4, jobs.size());
+        assertPersisted(jobs.get(0));
+        assertNull(jobs.get(1));
+        assertNull(jobs.get(2));
+        assertPersisted(jobs.get(3));
+        assertEquals(1, resolvers.size());
+        Mockito.verify(resolvers.get(0)).commit();
+    }
+
+    @Test
+    public void testAddJobsFallsBackToSingleCommits() throws Exception {
+        failingCommits.set(1);
+        final List<Job> jobs = jobManager.addJobs(Arrays.asList(
+                jobManager.createJob(TOPIC),
+                jobManager.createJob(TOPIC),
+                jobManager.createJob(TOPIC)));
+
+        assertEquals(3, jobs.size());
+        for(final Job job : jobs) {
+            assertPersisted(job);
+        }
+        // one resolver for the failed batch, one per job afterwards
+        assertEquals(4, resolvers.size());
+    }
+
+    @Test
+    public void testAddJobsWithForeignBuilder() {
+        final JobManagerImpl other = new JobManagerImpl();
+        try {
+            jobManager.addJobs(Collections.singletonList(other.createJob(TOPIC)));
+            fail("Builder of another job manager must be rejected");
+        } catch ( final IllegalArgumentException iae ) {
+            // expected
+        }
+        assertEquals(0, resolvers.size());
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        Mockito.when(configuration.isGroupCommit()).thenReturn(true);
+
+        // a single job is persisted right away
+        assertPersisted(jobManager.addJob(TOPIC, null));
+        assertEquals(1, resolvers.size());
+
+        // jobs added while a commit is running are persisted together
+        resolvers.clear();
+        final CountDownLatch latch = new CountDownLatch(1);
+        commitLatch = latch;
+        final List<Job> jobs = Collections.synchronizedList(new ArrayList<Job>());
+        final List<Thread> threads = new ArrayList<Thread>();
+        for(int i = 0; i < 4; i++) {
+            final Thread t = new Thread() {
+
+                @Override
+                public void run() {
+                    jobs.add(jobManager.addJob(TOPIC, null));
+                }
+            };
+            threads.add(t);
+            t.start();
+            if ( i == 0 ) {
+                while ( commitLatch != null ) {
+                    Thread.sleep(5);
+                }
+            }
+        }
+        // wait until the other jobs are collected
+        final Object lock = TestUtil.getFieldValue(jobManager, "groupCommitLock");
+        for(int i = 0; i < 1000; i++) {
+            synchronized ( lock ) {
+                if ( ((List<?>)TestUtil.getFieldValue(jobManager, "groupCommitRequests")).size() == 3 ) {
+                    break;
+                }
+            }
+            Thread.sleep(5);
+        }
+        latch.countDown();
+        for(final Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(4, jobs.size());
+        for(final Job job : jobs) {
+            assertPersisted(job);
+        }
+        // one resolver for the first job, one for the group
+        assertEquals(2, resolvers.size());
+        Mockito.verify(resolvers.get(1)).commit();
+    }
+}
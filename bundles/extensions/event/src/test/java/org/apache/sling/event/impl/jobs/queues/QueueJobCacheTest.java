@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.event.impl.jobs.queues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolConfig;
+import org.apache.sling.event.impl.jobs.JobConsumerManager;
+import org.apache.sling.event.impl.jobs.JobHandler;
+import org.apache.sling.event.impl.jobs.config.JobManagerConfiguration;
+import org.apache.sling.event.impl.jobs.stats.StatisticsManager;
+import org.apache.sling.event.impl.support.ResourceHelper;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.Queue;
+import org.apache.sling.event.jobs.QueueConfiguration;
+import org.apache.sling.event.jobs.consumer.JobExecutor;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Maps;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueueJobCacheTest {
+
+    private static final String JOBS_PATH = JobManagerConfiguration.DEFAULT_REPOSITORY_PATH + "/assigned/instance";
+
+    private static final String TOPIC = "sling/test/cache";
+
+    private static final String QUEUE_NAME = "test-queue";
+
+    @Rule
+    public final SlingContext ctx = new SlingContext();
+
+    @Mock
+    private JobManagerConfiguration configuration;
+
+    @Mock
+    private StatisticsManager statisticsManager;
+
+    @Mock
+    private JobConsumerManager jobConsumerManager;
+
+    @Mock
+    private JobExecutor executor;
+
+    @Mock
+    private Queue queue;
+
+    @Mock
+    private QueueConfiguration queueConfiguration;
+
+    /** Runnables passed to the thread pool, these are run by the tests. */
+    private final List<Runnable> refills = Collections.synchronizedList(new ArrayList<Runnable>());
+
+    private final ThreadPool threadPool = new ThreadPool() {
+
+        @Override
+        public void execute(final Runnable runnable) {
+            refills.add(runnable);
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public ThreadPoolConfig getConfiguration() {
+            return null;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        final ResourceResolverFactory factory = ctx.getService(ResourceResolverFactory.class);
+        Mockito.when(configuration.getLocalJobsPath()).thenReturn(JOBS_PATH);
+        Mockito.when(configuration.getMainLogger()).thenReturn(LoggerFactory.getLogger(this.getClass()));
+        Mockito.when(configuration.createResourceResolver()).thenAnswer(new Answer<ResourceResolver>() {
+
+            @Override
+            public ResourceResolver answer(final InvocationOnMock invocation) throws LoginException {
+                return factory.getAdministrativeResourceResolver(null);
+            }
+        });
+        Mockito.when(jobConsumerManager.getExecutor(TOPIC)).thenReturn(executor);
+        Mockito.when(queue.getName()).thenReturn(QUEUE_NAME);
+        Mockito.when(queue.getConfiguration()).thenReturn(queueConfiguration);
+        Mockito.when(queueConfiguration.getMaxRetries()).thenReturn(10);
+    }
+
+    private void createJobs(final int count) throws PersistenceException {
+        // one job per minute, the traversal reads all jobs of a minute
+        for(int i = 0; i < count; i++) {
+            final Calendar created = Calendar.getInstance();
+            created.set(2016, 0, 1, 10, i);
+            final String jobId = "2016/1/1/10/" + i + "/instance_" + i;
+            final Map<String, Object> props = Maps.newHashMap();
+            props.put(ResourceHelper.PROPERTY_JOB_TOPIC, TOPIC);
+            props.put(ResourceHelper.PROPERTY_JOB_ID, jobId);
+            props.put(Job.PROPERTY_JOB_CREATED, created);
+            props.put(Job.PROPERTY_JOB_RETRIES, 10);
+            props.put(Job.PROPERTY_JOB_RETRY_COUNT, 0);
+            ctx.create().resource(JOBS_PATH + '/' + TOPIC.replace('/', '.') + "/2016/1/1/10/" + i + "/job_" + i, props);
+        }
+        ctx.resourceResolver().commit();
+    }
+
+    private QueueJobCache createCache() {
+        return new QueueJobCache(configuration, QUEUE_NAME, statisticsManager,
+                QueueConfiguration.Type.ORDERED, Collections.singleton(TOPIC), threadPool);
+    }
+
+    private JobHandler next(final QueueJobCache cache) {
+        return cache.getNextJob(jobConsumerManager, statisticsManager, queue, false);
+    }
+
+    private void runRefills() {
+        final List<Runnable> runnables;
+        synchronized ( refills ) {
+            runnables = new ArrayList<Runnable>(refills);
+            refills.clear();
+        }
+        for(final Runnable r : runnables) {
+            r.run();
+        }
+    }
+
+    @Test
+    public void testRefill() throws Exception {
+        createJobs(30);
+        final QueueJobCache cache = createCache();
+        assertFalse(cache.isEmpty());
+
+        final Set<String> ids = new HashSet<String>();
+        // the initial load reads ten jobs, the refill is triggered at half of it
+        for(int i = 0; i < 5; i++) {
+            assertTrue(ids.add(next(cache).getJob().getId()));
+        }
+        assertEquals(1, refills.size());
+        runRefills();
+        assertEquals(1, cache.getPrefetchRefills());
+
+        JobHandler handler;
+        while ( (handler = next(cache)) != null ) {
+            assertTrue(ids.add(handler.getJob().getId()));
+            runRefills();
+        }
+        assertEquals(30, ids.size());
+        assertTrue(cache.getPrefetchHits() > 0);
+        assertEquals(30, cache.getPrefetchHits() + cache.getPrefetchMisses());
+    }
+
+    @Test
+    public void testBlocked() throws Exception {
+        createJobs(3);
+        final QueueJobCache cache = createCache();
+
+        cache.setIsBlocked(true);
+        assertNull(next(cache));
+        assertNull(cache.getNextJob(jobConsumerManager, statisticsManager, queue, true));
+        assertFalse(cache.isEmpty());
+
+        cache.setIsBlocked(false);
+        assertNotNull(next(cache));
+    }
+
+    @Test
+    public void testCloseBeforeRefillRuns() throws Exception {
+        createJobs(30);
+        final QueueJobCache cache = createCache();
+        final Set<String> ids = new HashSet<String>();
+        for(int i = 0; i < 5; i++) {
+            ids.add(next(cache).getJob().getId());
+        }
+        assertEquals(1, refills.size());
+        Mockito.verify(statisticsManager, Mockito.times(10)).jobQueued(QUEUE_NAME, TOPIC);
+
+        // the queue is stopped while the refill is waiting for a thread
+        cache.close();
+        runRefills();
+        assertEquals(0, cache.getPrefetchRefills());
+        Mockito.verify(statisticsManager, Mockito.times(10)).jobQueued(QUEUE_NAME, TOPIC);
+
+        // no further refills once closed
+        JobHandler handler;
+        while ( (handler = next(cache)) != null ) {
+            assertTrue(ids.add(handler.getJob().getId()));
+        }
+        assertEquals(10, ids.size());
+        assertTrue(refills.isEmpty());
+
+        // a restarted queue only gets the jobs which have not been started
+        final QueueJobCache restarted = createCache();
+        while ( (handler = next(restarted)) != null ) {
+            assertTrue(ids.add(handler.getJob().getId()));
+            runRefills();
+        }
+        assertEquals(30, ids.size());
+        assertTrue(restarted.isEmpty());
+    }
+
+    @Test
+    public void testRefillConcurrentToOnDemandLoad() throws Exception {
+        createJobs(40);
+        final QueueJobCache cache = createCache();
+        final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+        for(int i = 0; i < 5; i++) {
+            ids.add(next(cache).getJob().getId());
+        }
+        assertEquals(1, refills.size());
+        final Runnable refill = refills.remove(0);
+
+        final Thread refillThread = new Thread(refill);
+        refillThread.start();
+        final List<String> duplicates = new ArrayList<String>();
+        JobHandler handler;
+        while ( (handler = cache.getNextJob(jobConsumerManager, statisticsManager, queue, true)) != null ) {
+            if ( !ids.add(handler.getJob().getId()) ) {
+                duplicates.add(handler.getJob().getId());
+            }
+            runRefills();
+        }
+        refillThread.join();
+        while ( (handler = cache.getNextJob(jobConsumerManager, statisticsManager, queue, true)) != null ) {
+            if ( !ids.add(handler.getJob().getId()) ) {
+                duplicates.add(handler.getJob().getId());
+            }
+        }
+
+        assertEquals(Collections.emptyList(), duplicates);
+        assertEquals(40, ids.size());
+    }
+}
@@ -21,8 +21,10 @@ package org.apache.sling.i18n.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -65,23 +67,45 @@ public class JcrResourceBundle extends ResourceBundle {
 
     static final String QUERY_LANGUAGE_ROOTS = "//element(*,mix:language)[@jcr:language]";
 
-    private final Map<String, Object> resources;
+    /**
+     * The merged messages of all dictionaries. The map is never modified,
+     * updates replace it with a new map.
+     */
+    private volatile Map<String, Object> resources;
+
+    /**
+     * The messages of each dictionary, by language root path, in the order
+     * of loading. Guarded by this bundle.
+     */
+    private final Map<String, Dictionary> dictionaries = new LinkedHashMap<String, Dictionary>();
 
     private final Locale locale;
 
     private final String baseName;
 
+    private final String[] searchPath;
+
+    /** Pool of keys and messages shared with the bundles of other locales */
+    private final StringPool sharedStrings;
+
     private final Set<String> languageRoots = new HashSet<String>();
 
     JcrResourceBundle(Locale locale, String baseName,
             ResourceResolver resourceResolver) {
+        this(locale, baseName, resourceResolver, new StringPool());
+    }
+
+    JcrResourceBundle(Locale locale, String baseName,
+            ResourceResolver resourceResolver, StringPool sharedStrings) {
         this.locale = locale;
         this.baseName = baseName;
+        this.sharedStrings = sharedStrings;
 
         log.info("Finding all dictionaries for '{}' (basename: {}) ...", locale, baseName == null ? "<none>" : baseName);
 
         long start = System.currentTimeMillis();
         resourceResolver.refresh();
+        this.searchPath = resourceResolver.getSearchPath();
         Set<String> roots = loadPotentialLanguageRoots(resourceResolver, locale, baseName);
         this.resources = loadFully(resourceResolver, roots, this.languageRoots);
 
@@ -137,6 +161,37 @@ public class JcrResourceBundle extends ResourceBundle {
         return new ResourceBundleEnumeration(resources.keySet(), parentKeys);
     }
 
+    /**
+     * Reloads the given dictionaries of this bundle and merges the result
+     * with the other, unchanged dictionaries. Callers of this bundle see
+     * either the old or the new messages but never a partial update.
+     *
+     * @param resolver The storage access
+     * @param roots The paths of the dictionaries to reload
+     * @return {@code false} if one of the paths is not a dictionary of this
+     *      bundle (anymore); the bundle must be reloaded fully in this case.
+     */
+    synchronized boolean reloadDictionaries(final ResourceResolver resolver, final Collection<String> roots) {
+        resolver.refresh();
+        final Map<String, Dictionary> updates = new HashMap<String, Dictionary>();
+        for (final String root : roots) {
+            if (!this.dictionaries.containsKey(root)) {
+                return false;
+            }
+            final Resource dictionaryResource = resolver.getResource(root);
+            if (dictionaryResource == null) {
+                log.debug("Dictionary {} has been removed", root);
+                return false;
+            }
+            updates.put(root, loadDictionary(dictionaryResource));
+        }
+        this.dictionaries.putAll(updates);
+        this.resources = merge();
+        log.info("Reloaded dictionaries {} for '{}' (basename: {})",
+            new Object[] {roots, locale, baseName == null ? "<none>" : baseName});
+        return true;
+    }
+
     @Override
     protected Object handleGetObject(String key) {
         if (log.isDebugEnabled()) {
@@ -165,10 +220,39 @@ public class JcrResourceBundle extends ResourceBundle {
      * @throws NullPointerException if either of the parameters is {@code null}.
      */
     private Map<String, Object> loadFully(final ResourceResolver resolver, Set<String> roots, Set<String> languageRoots) {
+        for (final String root: roots) {
+
+            Resource dictionaryResource = resolver.getResource(root);
+            if (dictionaryResource == null) {
+                log.warn("Dictionary root found by search not accessible: {}", root);
+                continue;
+            }
+
+            this.dictionaries.put(root, loadDictionary(dictionaryResource));
+
+            languageRoots.add(root);
+        }
+        return merge();
+    }
 
-        final String[] searchPath = resolver.getSearchPath();
+    private Dictionary loadDictionary(final Resource dictionaryResource) {
+        // linked hash map to keep order (not functionally important, but helpful for dictionary debugging)
+        final Map<String, Object> dictionary = new LinkedHashMap<String, Object>();
 
-        // for each search path entry, have a list of maps (dictionaries)
+        // check type of dictionary
+        if (dictionaryResource.getName().endsWith(".json")) {
+            loadJsonDictionary(dictionaryResource, dictionary);
+        } else {
+            loadSlingMessageDictionary(dictionaryResource, dictionary);
+        }
+        return new Dictionary(dictionary, this.sharedStrings);
+    }
+
+    /**
+     * Merges the dictionaries into a single map of messages.
+     */
+    private Map<String, Object> merge() {
+        // for each search path entry, have a list of dictionaries
         // plus other = "outside the search path" at the end
 
         //   [0] /apps2  -> [dict1, dict2, dict3 ...]
@@ -176,63 +260,47 @@ public class JcrResourceBundle extends ResourceBundle {
         //   [2] /libs   -> [dict6, ...]
         //   [3] (other) -> [dict7, dict8 ...]
 
-        List<List<Map<String, Object>>> dictionariesBySearchPath = new ArrayList<List<Map<String, Object>>>(searchPath.length + 1);
+        List<List<Dictionary>> dictionariesBySearchPath = new ArrayList<List<Dictionary>>(searchPath.length + 1);
+        int size = 0;
         for (int i = 0; i < searchPath.length + 1; i++) {
-            dictionariesBySearchPath.add(new ArrayList<Map<String, Object>>());
+            dictionariesBySearchPath.add(new ArrayList<Dictionary>());
         }
 
-        for (final String root: roots) {
-
-            Resource dictionaryResource = resolver.getResource(root);
-            if (dictionaryResource == null) {
-                log.warn("Dictionary root found by search not accessible: {}", root);
-                continue;
-            }
-
-            // linked hash map to keep order (not functionally important, but helpful for dictionary debugging)
-            Map<String, Object> dictionary = new LinkedHashMap<String, Object>();
-
+        for (final Map.Entry<String, Dictionary> entry : this.dictionaries.entrySet()) {
             // find where in the search path this dict belongs
             // otherwise put it in the outside-the-search-path bucket (last list)
-            List<Map<String, Object>> targetList = dictionariesBySearchPath.get(searchPath.length);
+            final String root = entry.getKey();
+            List<Dictionary> targetList = dictionariesBySearchPath.get(searchPath.length);
             for (int i = 0; i < searchPath.length; i++) {
                 if (root.startsWith(searchPath[i])) {
                     targetList = dictionariesBySearchPath.get(i);
                     break;
                 }
             }
-            targetList.add(dictionary);
-
-            // check type of dictionary
-            if (dictionaryResource.getName().endsWith(".json")) {
-                loadJsonDictionary(dictionaryResource, dictionary);
-            } else {
-                loadSlingMessageDictionary(dictionaryResource, dictionary);
-            }
-
-            languageRoots.add(root);
+            targetList.add(entry.getValue());
+            size += entry.getValue().keys.length;
         }
 
         // linked hash map to keep order (not functionally important, but helpful for dictionary debugging)
-        final Map<String, Object> result = new LinkedHashMap<String, Object>();
+        final Map<String, Object> result = new LinkedHashMap<String, Object>(size * 4 / 3 + 1);
 
         // first, add everything that's not under a search path (e.g. /content)
         // below, same strings inside a search path dictionary would overlay them since
         // they are added later to result = overwrite
-        for (Map<String, Object> dict : dictionariesBySearchPath.get(searchPath.length)) {
-            result.putAll(dict);
+        for (Dictionary dict : dictionariesBySearchPath.get(searchPath.length)) {
+            dict.putInto(result);
         }
 
         // then, in order of the search path, add all the individual dictionaries into
         // a single result, so that e.g. strings in /apps overlay the ones in /libs
         for (int i = searchPath.length - 1; i >= 0; i--) {
 
-            for (Map<String, Object> dict : dictionariesBySearchPath.get(i)) {
-                result.putAll(dict);
+            for (Dictionary dict : dictionariesBySearchPath.get(i)) {
+                dict.putInto(result);
             }
         }
 
-        return result;
+        return Collections.unmodifiableMap(result);
     }
 
     private void loadJsonDictionary(Resource resource, final Map<String, Object> targetDictionary) {
@@ -350,6 +418,36 @@ public class JcrResourceBundle extends ResourceBundle {
         return locale.toString().replace('_', '-');
     }
 
+    /**
+     * The messages of a single dictionary, kept as two arrays instead of a
+     * map to save memory. Keys and messages are taken from the shared pool,
+     * so the same strings are not kept once per locale or dictionary. The
+     * pool drops strings once no dictionary references them anymore.
+     */
+    private static final class Dictionary {
+
+        final String[] keys;
+
+        final String[] values;
+
+        Dictionary(final Map<String, Object> messages, final StringPool sharedStrings) {
+            this.keys = new String[messages.size()];
+            this.values = new String[messages.size()];
+            int i = 0;
+            for (final Map.Entry<String, Object> entry : messages.entrySet()) {
+                this.keys[i] = sharedStrings.share(entry.getKey());
+                this.values[i] = sharedStrings.share(String.valueOf(entry.getValue()));
+                i++;
+            }
+        }
+
+        void putInto(final Map<String, Object> target) {
+            for (int i = 0; i < this.keys.length; i++) {
+                target.put(this.keys[i], this.values[i]);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "JcrResourceBundle [locale=" + locale + ", baseName=" + baseName + ", languageRoots=" + languageRoots
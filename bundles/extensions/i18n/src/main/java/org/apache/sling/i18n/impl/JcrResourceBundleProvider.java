@@ -124,6 +124,16 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider, Resour
 
     private final ConcurrentHashMap<Key, Semaphore> loadingGuards = new ConcurrentHashMap<Key, Semaphore>();
 
+    /**
+     * Dictionaries to update by bundle, guarded by the map itself.
+     */
+    private final Map<Key, Set<String>> pendingDictionaryUpdates = new HashMap<Key, Set<String>>();
+
+    /**
+     * Keys and messages shared by the resource bundles of all locales.
+     */
+    private final StringPool sharedStrings = new StringPool();
+
     /**
      * paths from which JCR resource bundles have been loaded
      */
@@ -197,28 +207,32 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider, Resour
                         "handleEvent: Detected change of cached language root '{}', removing all cached ResourceBundles",
                         change.getPath());
                 scheduleReloadBundles(true);
-            } else {
-                // if it is only a change below a root path, only messages of one resource bundle can be affected!
-                for (final String root : languageRootPaths) {
-                    if (change.getPath().startsWith(root)) {
-                        // figure out which JcrResourceBundle from the cached ones is affected
-                        for (JcrResourceBundle bundle : resourceBundleCache.values()) {
-                            if (bundle.getLanguageRootPaths().contains(root)) {
-                                // reload it
-                                log.debug("handleEvent: Resource changes below '{}', reloading ResourceBundle '{}'",
-                                        root, bundle);
-                                scheduleReloadBundle(bundle);
-                                return;
-                            }
+                return;
+            }
+
+            // if it is only a change below a root path, only messages of the dictionary at that root are affected
+            boolean updateScheduled = false;
+            for (final String root : languageRootPaths) {
+                if (change.getPath().startsWith(root.concat("/"))) {
+                    // figure out which JcrResourceBundles from the cached ones are affected
+                    for (JcrResourceBundle bundle : resourceBundleCache.values()) {
+                        if (bundle.getLanguageRootPaths().contains(root)) {
+                            log.debug("handleEvent: Resource changes below '{}', updating ResourceBundle '{}'",
+                                    root, bundle);
+                            scheduleUpdateDictionary(bundle, root);
+                            updateScheduled = true;
                         }
+                    }
+                    if (!updateScheduled) {
                         log.debug("handleEvent: No cached resource bundle found with root '{}'", root);
-                        break;
                     }
+                    break;
                 }
-                // may be a completely new dictionary
-                if (isDictionaryResource(change)) {
-                    scheduleReloadBundles(true);
-                }
+            }
+            // may be a completely new dictionary
+            if (!updateScheduled && isDictionaryResource(change)) {
+                scheduleReloadBundles(true);
+                return;
             }
         }
     }
@@ -277,6 +291,9 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider, Resour
             }
         }
         scheduledJobNames.clear();
+        synchronized (pendingDictionaryUpdates) {
+            pendingDictionaryUpdates.clear();
+        }
         // defer this job
         final ScheduleOptions options;
         if (withDelay) {
@@ -295,25 +312,60 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider, Resour
         }, options);
     }
 
-    private void scheduleReloadBundle(JcrResourceBundle bundle) {
-        String baseName = bundle.getBaseName();
-        Locale locale = bundle.getLocale();
-        final Key key = new Key(baseName, locale);
+    /**
+     * Schedules reloading a single dictionary of a bundle. Changes of further
+     * dictionaries of the same bundle until the update is run are collected
+     * and applied in one go.
+     */
+    private void scheduleUpdateDictionary(final JcrResourceBundle bundle, final String root) {
+        final Key key = new Key(bundle.getBaseName(), bundle.getLocale());
+        synchronized (pendingDictionaryUpdates) {
+            Set<String> roots = pendingDictionaryUpdates.get(key);
+            if (roots != null) {
+                // already scheduled
+                roots.add(root);
+                return;
+            }
+            roots = new HashSet<String>();
+            roots.add(root);
+            pendingDictionaryUpdates.put(key, roots);
+        }
 
         // defer this job
         ScheduleOptions options = scheduler.AT(new Date(System.currentTimeMillis() + invalidationDelay));
-        final String jobName = "JcrResourceBundleProvider: reload bundle with key " + key.toString();
+        final String jobName = "JcrResourceBundleProvider: update bundle with key " + key.toString();
         scheduledJobNames.add(jobName);
         options.name(jobName);
         scheduler.schedule(new Runnable() {
             @Override
             public void run() {
-                reloadBundle(key);
+                final Set<String> roots;
+                synchronized (pendingDictionaryUpdates) {
+                    roots = pendingDictionaryUpdates.remove(key);
+                }
+                if (roots != null) {
+                    updateDictionaries(key, roots);
+                }
                 scheduledJobNames.remove(jobName);
             }
         }, options);
     }
 
+    /**
+     * Reloads the given dictionaries of the cached bundle in place. The bundle
+     * stays registered and bundles using it as their parent are not affected.
+     * If the dictionaries of the bundle have changed structurally, the bundle
+     * is reloaded completely.
+     */
+    void updateDictionaries(final Key key, final Set<String> roots) {
+        final JcrResourceBundle bundle = resourceBundleCache.get(key);
+        if (bundle == null) {
+            log.debug("Resource bundle for {} is not cached anymore, not updating dictionaries {}", key, roots);
+        } else if (!bundle.reloadDictionaries(resourceResolver, roots)) {
+            reloadBundle(key);
+        }
+    }
+
     void reloadBundle(final Key key) {
         // remove bundle from cache
         resourceBundleCache.remove(key);
@@ -463,7 +515,7 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider, Resour
      *             is not available to access the resources.
      */
     private JcrResourceBundle createResourceBundle(String baseName, Locale locale) {
-        final JcrResourceBundle bundle = new JcrResourceBundle(locale, baseName, resourceResolver);
+        final JcrResourceBundle bundle = new JcrResourceBundle(locale, baseName, resourceResolver, sharedStrings);
 
         // set parent resource bundle
         Locale parentLocale = getParentLocale(locale);
@@ -525,6 +577,7 @@ public class JcrResourceBundleProvider implements ResourceBundleProvider, Resour
     private void clearCache() {
         resourceBundleCache.clear();
         languageRootPaths.clear();
+        sharedStrings.clear();
 
         synchronized (this) {
             for (ServiceRegistration<ResourceBundle> serviceReg : bundleServiceRegistrations.values()) {
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.i18n.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The <code>StringPool</code> shares equal keys and messages between the
+ * dictionaries of all resource bundles.
+ * <p>
+ * The pool only keeps weak references to its strings: a string which is no
+ * longer used by any dictionary, e.g. because the message has been changed
+ * or removed, is dropped from the pool by the garbage collector.
+ */
+class StringPool {
+
+    private final Map<String, WeakReference<String>> strings = new WeakHashMap<String, WeakReference<String>>();
+
+    /**
+     * Returns the pooled string equal to the given value, adding the value
+     * to the pool if there is none.
+     */
+    synchronized String share(final String value) {
+        final WeakReference<String> ref = this.strings.get(value);
+        final String shared = (ref == null) ? null : ref.get();
+        if (shared != null) {
+            return shared;
+        }
+        this.strings.put(value, new WeakReference<String>(value));
+        return value;
+    }
+
+    /**
+     * Returns whether a string equal to the given value is pooled.
+     */
+    synchronized boolean contains(final String value) {
+        final WeakReference<String> ref = this.strings.get(value);
+        return ref != null && ref.get() != null;
+    }
+
+    synchronized int size() {
+        return this.strings.size();
+    }
+
+    synchronized void clear() {
+        this.strings.clear();
+    }
+}
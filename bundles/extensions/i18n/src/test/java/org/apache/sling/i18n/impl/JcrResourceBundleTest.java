@@ -20,6 +20,7 @@ package org.apache.sling.i18n.impl;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -516,6 +517,96 @@ public class JcrResourceBundleTest extends RepositoryTestBase {
         assertEquals(MESSAGES_DE.size(), counter);
     }
 
+    public void test_reloadDictionaries() throws Exception {
+        JcrResourceBundle bundle = new JcrResourceBundle(new Locale("de"), null, resolver);
+
+        // change one message and add another one to the dictionary
+        getSession().getNode("/libs/i18n/de/plate").setProperty("sling:message", "Untertasse");
+        new Message("", "knife", "Messer", true).add(getSession().getNode("/libs/i18n/de"));
+        getSession().save();
+
+        assertTrue(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/de")));
+        assertEquals("Untertasse", bundle.getString("plate"));
+        assertEquals("Messer", bundle.getString("knife"));
+        assertEquals(MESSAGES_DE.get("fork").message, bundle.getString("fork"));
+
+        // unknown or removed dictionaries require a full reload
+        assertFalse(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/en")));
+        getSession().getNode("/libs/i18n/de").remove();
+        getSession().save();
+        assertFalse(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/de")));
+        assertEquals("Messer", bundle.getString("knife"));
+    }
+
+    public void test_reloadDictionaries_editedMessage() throws Exception {
+        final StringPool pool = new StringPool();
+        JcrResourceBundle bundle = new JcrResourceBundle(new Locale("de"), null, resolver, pool);
+
+        getSession().getNode("/libs/i18n/de/plate").setProperty("sling:message", new String("Untertasse"));
+        getSession().save();
+        assertTrue(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/de")));
+        assertTrue(pool.contains("Untertasse"));
+
+        getSession().getNode("/libs/i18n/de/plate").setProperty("sling:message", new String("Schale"));
+        getSession().save();
+        assertTrue(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/de")));
+        assertEquals("Schale", bundle.getString("plate"));
+
+        // the previous message is not kept by the pool
+        assertDropped(pool, "Untertasse");
+        assertTrue(pool.contains("plate"));
+    }
+
+    public void test_reloadDictionaries_removedMessage() throws Exception {
+        new Message("", new String("knife"), new String("Messer"), true).add(getSession().getNode("/libs/i18n/de"));
+        getSession().save();
+        final StringPool pool = new StringPool();
+        JcrResourceBundle bundle = new JcrResourceBundle(new Locale("de"), null, resolver, pool);
+        assertEquals("Messer", bundle.getString("knife"));
+
+        getSession().getNode("/libs/i18n/de/knife").remove();
+        getSession().save();
+        assertTrue(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/de")));
+        assertFalse(bundle.keySet().contains("knife"));
+        assertEquals(MESSAGES_DE.get("plate").message, bundle.getString("plate"));
+
+        assertDropped(pool, "knife");
+        assertDropped(pool, "Messer");
+    }
+
+    public void test_reloadDictionaries_deletedDictionary() throws Exception {
+        final Node dictionary = getSession().getNode("/libs/i18n").addNode("de_more", "nt:folder");
+        dictionary.addMixin("mix:language");
+        dictionary.setProperty("jcr:language", "de");
+        new Message("", new String("knife"), new String("Messer"), true).add(dictionary);
+        getSession().save();
+        final StringPool pool = new StringPool();
+        JcrResourceBundle bundle = new JcrResourceBundle(new Locale("de"), null, resolver, pool);
+        assertEquals("Messer", bundle.getString("knife"));
+
+        dictionary.remove();
+        getSession().save();
+        assertFalse(bundle.reloadDictionaries(resolver, Collections.singleton("/libs/i18n/de_more")));
+
+        // the provider replaces the bundle with a fully reloaded one
+        bundle = new JcrResourceBundle(new Locale("de"), null, resolver, pool);
+        assertFalse(bundle.keySet().contains("knife"));
+        assertDropped(pool, "knife");
+        assertDropped(pool, "Messer");
+        assertTrue(pool.contains(MESSAGES_DE.get("plate").message));
+    }
+
+    /**
+     * Asserts that the pool drops the value once it has been garbage collected.
+     */
+    private static void assertDropped(final StringPool pool, final String value) throws InterruptedException {
+        for (int i = 0; i < 100 && pool.contains(value); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertFalse("Pool still contains " + value, pool.contains(value));
+    }
+
     public void test_bundle_parenting() {
         // set parent of resource bundle, test if passed through
         JcrResourceBundle bundle = new JcrResourceBundle(new Locale("de"), null, resolver);
@@ -66,4 +66,12 @@ public @interface Model {
      */
     public String[] resourceType() default {};
 
+    /**
+     * @return true if the model instances should be cached per adaptable. The cached instance is returned
+     *  for subsequent adaptations of the same adaptable instance to the same type. The cache holds both the
+     *  adaptables and the model instances weakly, so it keeps neither of them alive. Only enable this for models
+     *  which do not change their state after construction. Default is false.
+     */
+    public boolean cache() default false;
+
 }
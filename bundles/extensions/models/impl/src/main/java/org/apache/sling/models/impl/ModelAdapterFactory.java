@@ -37,10 +37,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
-import javax.annotation.PostConstruct;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang.StringUtils;
@@ -191,6 +191,13 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
     // Use threadlocal to count recursive invocations and break recursing if a max. limit is reached (to avoid cyclic dependencies)
     private ThreadLocal<ThreadInvocationCounter> invocationCountThreadLocal;
 
+    // instances of models with Model#cache enabled, held weakly per adaptable
+    private final ModelCache modelCache = new ModelCache();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     public <AdapterType> AdapterType getAdapter(Object adaptable, Class<AdapterType> type) {
         Result<AdapterType> result = internalCreateModel(adaptable, type);
         if (!result.wasSuccessful()) {
@@ -302,6 +309,14 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
                 String msg = String.format("Adaptables (%s) are not acceptable for the model class: %s", StringUtils.join(declaredAdaptable), modelClass.getType());
                 return new Result<ModelType>(new InvalidAdaptableException(msg)); 
             } else {
+                if (modelAnnotation.cache()) {
+                    ModelType cachedModel = getCachedModel(adaptable, requestedType);
+                    if (cachedModel != null) {
+                        cacheHits.incrementAndGet();
+                        return new Result<ModelType>(cachedModel);
+                    }
+                    cacheMisses.incrementAndGet();
+                }
                 RuntimeException t = validateModel(adaptable, modelClass.getType(), modelAnnotation);
                 if (t != null) {
                     return new Result<ModelType>(t);
@@ -322,6 +337,9 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
                         return new Result<ModelType>(new ModelClassException(msg, e));
                     }
                 }
+                if (modelAnnotation.cache() && result.wasSuccessful()) {
+                    putCachedModel(adaptable, requestedType, result.getValue());
+                }
             }
             return result;
         } finally {
@@ -329,6 +347,15 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private <ModelType> ModelType getCachedModel(Object adaptable, Class<ModelType> requestedType) {
+        return (ModelType) modelCache.get(adaptable, requestedType);
+    }
+
+    private void putCachedModel(Object adaptable, Class<?> requestedType, Object model) {
+        modelCache.put(adaptable, requestedType, model);
+    }
+
     private <ModelType> RuntimeException validateModel(Object adaptable, Class<ModelType> modelType, Model modelAnnotation) {
         if (modelAnnotation.validation() != ValidationStrategy.DISABLED) {
             if (modelValidation == null) {
@@ -518,13 +545,13 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
             throws InstantiationException, InvocationTargetException, IllegalAccessException {
         DisposalCallbackRegistryImpl registry = new DisposalCallbackRegistryImpl();
 
-        ModelClassConstructor<ModelType> constructorToUse = getBestMatchingConstructor(adaptable, modelClass);
+        ModelClassConstructor<ModelType> constructorToUse = modelClass.getBestMatchingConstructor(adaptable.getClass());
         if (constructorToUse == null) {
             return new Result<ModelType>(new ModelClassException("Unable to find a useable constructor for model " + modelClass.getType()));
         }
 
         final ModelType object;
-        if (constructorToUse.getConstructor().getParameterTypes().length == 0) {
+        if (constructorToUse.getParameterTypes().length == 0) {
             // no parameters for constructor injection? instantiate it right away
             object = constructorToUse.getConstructor().newInstance();
         } else {
@@ -568,7 +595,7 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
             return new Result<ModelType>(missingElements);
         }
         try {
-            invokePostConstruct(object);
+            invokePostConstruct(object, modelClass);
         } catch (InvocationTargetException e) {
             return new Result<ModelType>(new PostConstructException("Post-construct method has thrown an exception for model " + modelClass.getType(), e.getCause()));
         } catch (IllegalAccessException e) {
@@ -577,38 +604,6 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         return new Result<ModelType>(object);
     }
 
-    /**
-     * Gets best matching constructor for constructor injection - or default constructor if none is found.
-     * @param adaptable Adaptable instance
-     * @param type Model type
-     * @return Constructor or null if none found
-     */
-    @SuppressWarnings("unchecked")
-    private <ModelType> ModelClassConstructor<ModelType> getBestMatchingConstructor(Object adaptable, ModelClass<ModelType> type) {
-        ModelClassConstructor<ModelType>[] constructors = type.getConstructors();
-
-        for (ModelClassConstructor<ModelType> constructor : constructors) {
-            // first try to find the constructor with most parameters and @Inject annotation
-            if (constructor.hasInjectAnnotation()) {
-                return constructor;
-            }
-            // compatibility mode for sling models implementation <= 1.0.6:
-            // support constructor without @Inject if it has exactly one parameter matching the adaptable class
-            final Class<?>[] paramTypes = constructor.getConstructor().getParameterTypes();
-            if (paramTypes.length == 1) {
-                Class<?> paramType = constructor.getConstructor().getParameterTypes()[0];
-                if (paramType.isInstance(adaptable)) {
-                    return constructor;
-                }
-            }
-            // if no constructor for injection found use public constructor without any params
-            if (constructor.getConstructor().getParameterTypes().length == 0) {
-                return constructor;
-            }
-        }
-        return null;
-    }
-
     private <ModelType> Result<ModelType> newInstanceWithConstructorInjection(final ModelClassConstructor<ModelType> constructor, final Object adaptable,
             final ModelClass<ModelType> modelClass, final DisposalCallbackRegistry registry)
             throws InstantiationException, InvocationTargetException, IllegalAccessException {
@@ -722,43 +717,9 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         return element.getName();
     }
 
-    private boolean addMethodIfNotOverriden(List<Method> methods, Method newMethod) {
-        for (Method method : methods) {
-            if (method.getName().equals(newMethod.getName())) {
-                if (Arrays.equals(method.getParameterTypes(),newMethod.getParameterTypes())) {
-                    return false;
-                }
-            }
-        }
-        methods.add(newMethod);
-        return true;
-    }
-
-    private void invokePostConstruct(Object object) throws InvocationTargetException, IllegalAccessException {
-        Class<?> clazz = object.getClass();
-        List<Method> postConstructMethods = new ArrayList<Method>();
-        while (clazz != null) {
-            Method[] methods = clazz.getDeclaredMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(PostConstruct.class)) {
-                    addMethodIfNotOverriden(postConstructMethods, method);
-                }
-            }
-            clazz = clazz.getSuperclass();
-        }
-        Collections.reverse(postConstructMethods);
-        for (Method method : postConstructMethods) {
-            boolean accessible = method.isAccessible();
-            try {
-                if (!accessible) {
-                    method.setAccessible(true);
-                }
-                method.invoke(object);
-            } finally {
-                if (!accessible) {
-                    method.setAccessible(false);
-                }
-            }
+    private void invokePostConstruct(Object object, ModelClass<?> modelClass) throws InvocationTargetException, IllegalAccessException {
+        for (Method method : modelClass.getPostConstructMethods()) {
+            method.invoke(object);
         }
     }
 
@@ -766,18 +727,10 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         Field field = injectableField.getField();
         Result<Object> result = adaptIfNecessary(value, field.getType(), field.getGenericType());
         if (result.wasSuccessful()) {
-            boolean accessible = field.isAccessible();
             try {
-                if (!accessible) {
-                    field.setAccessible(true);
-                }
                 field.set(createdObject, result.getValue());
             } catch (Exception e) {
                 return new ModelClassException("Could not inject field due to reflection issues", e);
-            } finally {
-                if (!accessible) {
-                    field.setAccessible(false);
-                }
             }
             return null;
         } else {
@@ -1049,6 +1002,14 @@ public class ModelAdapterFactory implements AdapterFactory, Runnable, ModelFacto
         return adapterImplementations.getImplementationPickers();
     }
 
+    long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
     @Override
     public boolean isModelAvailableForRequest(@Nonnull SlingHttpServletRequest request) {
         return adapterImplementations.getModelClassForRequest(request) != null;
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.models.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the model instances of models with Model#cache enabled.
+ * <p>
+ * The instances are kept per adaptable instance, the adaptables are compared
+ * by identity. Both the adaptables and the models are held weakly: models
+ * usually reference their adaptable, so a strongly held model would keep its
+ * adaptable and the cache entry alive forever. An entry is dropped once its
+ * adaptable has been garbage collected.
+ */
+class ModelCache {
+
+    private final ConcurrentMap<AdaptableReference, ConcurrentMap<Class<?>, WeakReference<Object>>> models =
+            new ConcurrentHashMap<AdaptableReference, ConcurrentMap<Class<?>, WeakReference<Object>>>();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+    /**
+     * Returns the cached model of the given type for the adaptable or {@code null}.
+     */
+    Object get(Object adaptable, Class<?> type) {
+        expungeStaleEntries();
+        ConcurrentMap<Class<?>, WeakReference<Object>> adaptableModels = models.get(new AdaptableReference(adaptable, null));
+        if (adaptableModels == null) {
+            return null;
+        }
+        WeakReference<Object> model = adaptableModels.get(type);
+        return model == null ? null : model.get();
+    }
+
+    void put(Object adaptable, Class<?> type, Object model) {
+        expungeStaleEntries();
+        AdaptableReference key = new AdaptableReference(adaptable, queue);
+        ConcurrentMap<Class<?>, WeakReference<Object>> adaptableModels = models.get(key);
+        if (adaptableModels == null) {
+            adaptableModels = new ConcurrentHashMap<Class<?>, WeakReference<Object>>();
+            ConcurrentMap<Class<?>, WeakReference<Object>> existing = models.putIfAbsent(key, adaptableModels);
+            if (existing != null) {
+                adaptableModels = existing;
+            }
+        }
+        adaptableModels.put(type, new WeakReference<Object>(model));
+    }
+
+    /**
+     * @return the number of adaptables with cached models
+     */
+    int size() {
+        expungeStaleEntries();
+        return models.size();
+    }
+
+    private void expungeStaleEntries() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            models.remove(reference);
+        }
+    }
+
+    /**
+     * Weak reference to an adaptable, compared by the identity of the adaptable.
+     */
+    private static final class AdaptableReference extends WeakReference<Object> {
+
+        private final int hashCode;
+
+        AdaptableReference(Object adaptable, ReferenceQueue<Object> queue) {
+            super(adaptable, queue);
+            this.hashCode = System.identityHashCode(adaptable);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof AdaptableReference)) {
+                return false;
+            }
+            Object adaptable = get();
+            return adaptable != null && adaptable == ((AdaptableReference) obj).get();
+        }
+    }
+}
@@ -85,6 +85,14 @@ public class ModelConfigurationPrinter {
                 printWriter.println();
             }
         }
+        printWriter.println();
+
+        // model cache
+        printWriter.println("Sling Models Cache:");
+        printWriter.printf("Hits: %d", modelAdapterFactory.getCacheHits());
+        printWriter.println();
+        printWriter.printf("Misses: %d", modelAdapterFactory.getCacheMisses());
+        printWriter.println();
     }
 
 }
\ No newline at end of file
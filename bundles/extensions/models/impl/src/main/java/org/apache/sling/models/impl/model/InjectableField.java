@@ -31,6 +31,8 @@ public class InjectableField extends AbstractInjectableElement {
     public InjectableField(Field field, StaticInjectAnnotationProcessorFactory[] processorFactories, DefaultInjectionStrategy defaultInjectionStrategy) {
         super(field, ReflectionUtil.mapPrimitiveClasses(field.getGenericType()), field.getName(), processorFactories, defaultInjectionStrategy);
         this.field = field;
+        // the field instance is private to this class, make it accessible once instead of on every injection
+        this.field.setAccessible(true);
     }
     
     public Field getField() {
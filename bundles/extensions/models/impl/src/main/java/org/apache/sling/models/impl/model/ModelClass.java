@@ -21,9 +21,13 @@ package org.apache.sling.models.impl.model;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
 import org.apache.sling.models.annotations.DefaultInjectionStrategy;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.impl.ReflectionUtil;
@@ -34,7 +38,9 @@ public class ModelClass<ModelType> {
     private final Class<ModelType> type;
     private final Model modelAnnotation;
     final DefaultInjectionStrategy defaultInjectionStrategy;
+    private final Method[] postConstructMethods;
     private volatile ModelClassConstructor[] constructors;
+    private volatile ModelClassConstructor[] candidateConstructors;
     private volatile InjectableField[] injectableFields;
     private volatile InjectableMethod[] injectableMethods;
 
@@ -46,6 +52,7 @@ public class ModelClass<ModelType> {
         } else {
             defaultInjectionStrategy = modelAnnotation.defaultInjectionStrategy();
         }
+        this.postConstructMethods = getPostConstructMethods(type);
         updateProcessorFactories(processorFactories);
     }
     
@@ -55,6 +62,7 @@ public class ModelClass<ModelType> {
      */
     public void updateProcessorFactories(StaticInjectAnnotationProcessorFactory[] processorFactories) {
         this.constructors = getConstructors(type, processorFactories, defaultInjectionStrategy);
+        this.candidateConstructors = getCandidateConstructors(this.constructors);
         this.injectableFields = getInjectableFields(type, processorFactories, defaultInjectionStrategy);
         this.injectableMethods = getInjectableMethods(type, processorFactories, defaultInjectionStrategy);
     }
@@ -100,6 +108,86 @@ public class ModelClass<ModelType> {
         return array;
     }
 
+    private static Method[] getPostConstructMethods(Class<?> type) {
+        if (type.isInterface()) {
+            return new Method[0];
+        }
+        List<Method> postConstructMethods = new ArrayList<Method>();
+        Class<?> clazz = type;
+        while (clazz != null) {
+            Method[] methods = clazz.getDeclaredMethods();
+            for (Method method : methods) {
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    addMethodIfNotOverriden(postConstructMethods, method);
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+        Collections.reverse(postConstructMethods);
+        for (Method method : postConstructMethods) {
+            method.setAccessible(true);
+        }
+        return postConstructMethods.toArray(new Method[postConstructMethods.size()]);
+    }
+
+    private static boolean addMethodIfNotOverriden(List<Method> methods, Method newMethod) {
+        for (Method method : methods) {
+            if (method.getName().equals(newMethod.getName())) {
+                if (Arrays.equals(method.getParameterTypes(),newMethod.getParameterTypes())) {
+                    return false;
+                }
+            }
+        }
+        methods.add(newMethod);
+        return true;
+    }
+
+    /**
+     * Collects the constructors which can be used for instantiating the model, in the order they are checked:
+     * all constructors up to the first one with an @Inject annotation or without any parameters.
+     * Of the constructors before that only those with exactly one parameter are kept, these are
+     * used if the parameter matches the adaptable.
+     */
+    private static ModelClassConstructor[] getCandidateConstructors(ModelClassConstructor[] constructors) {
+        List<ModelClassConstructor> candidates = new ArrayList<ModelClassConstructor>();
+        for (ModelClassConstructor constructor : constructors) {
+            // first try to find the constructor with most parameters and @Inject annotation
+            if (constructor.hasInjectAnnotation()) {
+                candidates.add(constructor);
+                break;
+            }
+            // compatibility mode for sling models implementation <= 1.0.6:
+            // support constructor without @Inject if it has exactly one parameter matching the adaptable class
+            final int paramCount = constructor.getParameterTypes().length;
+            if (paramCount == 1) {
+                candidates.add(constructor);
+            }
+            // if no constructor for injection found use public constructor without any params
+            else if (paramCount == 0) {
+                candidates.add(constructor);
+                break;
+            }
+        }
+        return candidates.toArray(new ModelClassConstructor[candidates.size()]);
+    }
+
+    /**
+     * Gets best matching constructor for constructor injection - or default constructor if none is found.
+     * @param adaptableType Type of the adaptable
+     * @return Constructor or null if none found
+     */
+    @SuppressWarnings("unchecked")
+    public ModelClassConstructor<ModelType> getBestMatchingConstructor(Class<?> adaptableType) {
+        for (ModelClassConstructor<ModelType> constructor : this.candidateConstructors) {
+            final Class<?>[] paramTypes = constructor.getParameterTypes();
+            if (constructor.hasInjectAnnotation() || paramTypes.length == 0
+                    || paramTypes[0].isAssignableFrom(adaptableType)) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+
     public Class<ModelType> getType() {
         return this.type;
     }
@@ -124,4 +212,11 @@ public class ModelClass<ModelType> {
         return this.injectableMethods;
     }
 
+    /**
+     * @return the accessible post construct methods, super class methods first
+     */
+    public Method[] getPostConstructMethods() {
+        return this.postConstructMethods;
+    }
+
 }
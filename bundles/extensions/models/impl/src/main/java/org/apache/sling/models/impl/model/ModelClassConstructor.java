@@ -18,6 +18,7 @@
  */
 package org.apache.sling.models.impl.model;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Type;
 
@@ -31,20 +32,24 @@ public class ModelClassConstructor<ModelType> {
 
     private final Constructor<ModelType> constructor;
     private final boolean hasInjectAnnotation;
+    private final Class<?>[] parameterTypes;
     private final ConstructorParameter[] constructorParametersArray;
 
     public ModelClassConstructor(Constructor<ModelType> constructor, StaticInjectAnnotationProcessorFactory[] processorFactories, DefaultInjectionStrategy defaultInjectionStrategy) {
         this.constructor = constructor;
         this.hasInjectAnnotation = constructor.isAnnotationPresent(Inject.class);
 
-        Type[] parameterTypes = constructor.getGenericParameterTypes();
-        this.constructorParametersArray = new ConstructorParameter[parameterTypes.length];
+        // the reflection getters return copies, so get all of them only once
+        this.parameterTypes = constructor.getParameterTypes();
+        Type[] genericParameterTypes = constructor.getGenericParameterTypes();
+        Annotation[][] parameterAnnotations = constructor.getParameterAnnotations();
+        this.constructorParametersArray = new ConstructorParameter[genericParameterTypes.length];
 
-        for (int i = 0; i < parameterTypes.length; i++) {
-            Type genericType = ReflectionUtil.mapPrimitiveClasses(parameterTypes[i]);
-            boolean isPrimitive = (parameterTypes[i] != genericType);
+        for (int i = 0; i < genericParameterTypes.length; i++) {
+            Type genericType = ReflectionUtil.mapPrimitiveClasses(genericParameterTypes[i]);
+            boolean isPrimitive = (genericParameterTypes[i] != genericType);
             this.constructorParametersArray[i] = new ConstructorParameter(
-                    constructor.getParameterAnnotations()[i], constructor.getParameterTypes()[i], genericType, isPrimitive, i,
+                    parameterAnnotations[i], this.parameterTypes[i], genericType, isPrimitive, i,
                     processorFactories, defaultInjectionStrategy);
         }
     }
@@ -57,6 +62,13 @@ public class ModelClassConstructor<ModelType> {
         return hasInjectAnnotation;
     }
 
+    /**
+     * @return the parameter types of the constructor, must not be modified
+     */
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
     public ConstructorParameter[] getConstructorParameters() {
         return constructorParametersArray;
     };
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.models.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.Hashtable;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.models.testmodels.classes.CachedModel;
+import org.apache.sling.models.testmodels.classes.UncachedModel;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.ComponentContext;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingTest {
+
+    @Mock
+    private ComponentContext componentCtx;
+
+    @Mock
+    private BundleContext bundleContext;
+
+    @Mock
+    private Resource resource;
+
+    @Mock
+    private Resource otherResource;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    ModelAdapterFactory factory = new ModelAdapterFactory();
+
+    @Before
+    public void setup() {
+        when(componentCtx.getBundleContext()).thenReturn(bundleContext);
+        when(componentCtx.getProperties()).thenReturn(new Hashtable<String, Object>());
+        when(resource.getResourceMetadata()).thenReturn(new ResourceMetadata());
+        when(otherResource.getResourceMetadata()).thenReturn(new ResourceMetadata());
+        factory.activate(componentCtx);
+        // no injectors are necessary
+        factory.adapterImplementations.addClassesAsAdapterAndImplementation(CachedModel.class, UncachedModel.class);
+    }
+
+    @Test
+    public void testCachedModel() {
+        CachedModel first = factory.getAdapter(resource, CachedModel.class);
+        CachedModel second = factory.createModel(resource, CachedModel.class);
+        assertSame(first, second);
+        assertEquals(1, first.getPostConstructCalledCounter());
+        assertEquals(1, factory.getCacheHits());
+        assertEquals(1, factory.getCacheMisses());
+
+        CachedModel other = factory.getAdapter(otherResource, CachedModel.class);
+        assertNotSame(first, other);
+        assertEquals(2, factory.getCacheMisses());
+    }
+
+    @Test
+    public void testLockedMetadata() {
+        // the resource resolver locks the metadata of all resources it returns
+        ResourceMetadata metadata = new ResourceMetadata();
+        metadata.lock();
+        when(resource.getResourceMetadata()).thenReturn(metadata);
+
+        CachedModel first = factory.getAdapter(resource, CachedModel.class);
+        CachedModel second = factory.getAdapter(resource, CachedModel.class);
+        assertSame(first, second);
+        assertEquals(1, factory.getCacheHits());
+    }
+
+    @Test
+    public void testCacheDoesNotKeepAdaptable() throws InterruptedException {
+        Resource adaptable = new SyntheticResource(null, "/content/test", "test");
+        CachedModel model = factory.getAdapter(adaptable, CachedModel.class);
+        assertSame(model, factory.getAdapter(adaptable, CachedModel.class));
+
+        WeakReference<Resource> adaptableReference = new WeakReference<Resource>(adaptable);
+        WeakReference<CachedModel> modelReference = new WeakReference<CachedModel>(model);
+        adaptable = null;
+        model = null;
+        for (int i = 0; i < 100 && (adaptableReference.get() != null || modelReference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(adaptableReference.get());
+        assertNull(modelReference.get());
+    }
+
+    @Test
+    public void testCachedModelForRequest() {
+        CachedModel first = factory.getAdapter(request, CachedModel.class);
+        CachedModel second = factory.getAdapter(request, CachedModel.class);
+        assertSame(first, second);
+        assertEquals(1, factory.getCacheHits());
+    }
+
+    @Test
+    public void testUncachedModel() {
+        UncachedModel first = factory.getAdapter(resource, UncachedModel.class);
+        UncachedModel second = factory.getAdapter(resource, UncachedModel.class);
+        assertNotSame(first, second);
+        assertEquals(0, factory.getCacheHits());
+        assertEquals(0, factory.getCacheMisses());
+        assertTrue(resource.getResourceMetadata().isEmpty());
+    }
+
+    @Test
+    public void testConfigurationPrinter() {
+        factory.getAdapter(resource, CachedModel.class);
+        factory.getAdapter(resource, CachedModel.class);
+        StringWriter writer = new StringWriter();
+        new ModelConfigurationPrinter(factory).printConfiguration(new PrintWriter(writer));
+        String output = writer.toString();
+        assertTrue(output.contains("Hits: 1"));
+        assertTrue(output.contains("Misses: 1"));
+        assertFalse(output.contains("Cached Adaptables"));
+    }
+}
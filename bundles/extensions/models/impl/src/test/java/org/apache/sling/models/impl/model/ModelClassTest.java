@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.models.impl.model;
+
+import static org.junit.Assert.*;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.models.spi.injectorspecific.StaticInjectAnnotationProcessorFactory;
+import org.apache.sling.models.testmodels.classes.InvalidConstructorModel;
+import org.apache.sling.models.testmodels.classes.WithThreeConstructorsModel;
+import org.apache.sling.models.testmodels.classes.WithTwoConstructorsModel;
+import org.apache.sling.models.testmodels.classes.constructorinjection.WithThreeConstructorsOneInjectModel;
+import org.apache.sling.models.testmodels.interfaces.SimplePropertyModel;
+import org.junit.Test;
+
+public class ModelClassTest {
+
+    private static final StaticInjectAnnotationProcessorFactory[] NO_FACTORIES = new StaticInjectAnnotationProcessorFactory[0];
+
+    private static <T> ModelClass<T> modelClass(Class<T> type) {
+        return new ModelClass<T>(type, NO_FACTORIES);
+    }
+
+    private static Class<?>[] parameterTypes(ModelClassConstructor<?> constructor) {
+        assertNotNull(constructor);
+        return constructor.getConstructor().getParameterTypes();
+    }
+
+    @Test
+    public void testInjectConstructorIsPreferred() {
+        ModelClass<WithThreeConstructorsOneInjectModel> modelClass = modelClass(WithThreeConstructorsOneInjectModel.class);
+        assertArrayEquals(new Class<?>[] { String.class },
+                parameterTypes(modelClass.getBestMatchingConstructor(SlingHttpServletRequest.class)));
+        assertArrayEquals(new Class<?>[] { String.class },
+                parameterTypes(modelClass.getBestMatchingConstructor(Resource.class)));
+    }
+
+    @Test
+    public void testSingleParameterConstructorMatchingAdaptable() {
+        ModelClass<WithTwoConstructorsModel> modelClass = modelClass(WithTwoConstructorsModel.class);
+        assertArrayEquals(new Class<?>[] { SlingHttpServletRequest.class },
+                parameterTypes(modelClass.getBestMatchingConstructor(SlingHttpServletRequest.class)));
+        // implementations of the adaptable type match as well
+        assertArrayEquals(new Class<?>[] { SlingHttpServletRequest.class },
+                parameterTypes(modelClass.getBestMatchingConstructor(TestRequest.class)));
+    }
+
+    @Test
+    public void testDefaultConstructorForOtherAdaptables() {
+        assertArrayEquals(new Class<?>[0],
+                parameterTypes(modelClass(WithTwoConstructorsModel.class).getBestMatchingConstructor(Resource.class)));
+        // the constructor with two parameters is never used without @Inject
+        assertArrayEquals(new Class<?>[0],
+                parameterTypes(modelClass(WithThreeConstructorsModel.class).getBestMatchingConstructor(Resource.class)));
+    }
+
+    @Test
+    public void testNoMatchingConstructor() {
+        ModelClass<InvalidConstructorModel> modelClass = modelClass(InvalidConstructorModel.class);
+        assertNull(modelClass.getBestMatchingConstructor(SlingHttpServletRequest.class));
+        assertArrayEquals(new Class<?>[] { HttpServletResponse.class },
+                parameterTypes(modelClass.getBestMatchingConstructor(TestResponse.class)));
+        assertNull(modelClass(SimplePropertyModel.class).getBestMatchingConstructor(Resource.class));
+    }
+
+    private static abstract class TestRequest implements SlingHttpServletRequest {
+    }
+
+    private static abstract class TestResponse implements HttpServletResponse {
+    }
+
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.sling.jcr.resource.internal;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.jcr.RepositoryException;
@@ -38,10 +39,56 @@ public class HelperData {
 
     private volatile String[] namespacePrefixes;
 
+    private final boolean prefetchProperties;
+
+    /** Number of single property lookups in the repository */
+    private final AtomicLong propertyReads = new AtomicLong();
+
+    /** Number of reads of all properties of a node */
+    private final AtomicLong bulkReads = new AtomicLong();
+
+    /** Number of properties read by the bulk reads */
+    private final AtomicLong bulkReadProperties = new AtomicLong();
+
     public HelperData(final AtomicReference<DynamicClassLoaderManager> dynamicClassLoaderManagerReference,
             final PathMapper pathMapper) {
+        this(dynamicClassLoaderManagerReference, pathMapper, false);
+    }
+
+    public HelperData(final AtomicReference<DynamicClassLoaderManager> dynamicClassLoaderManagerReference,
+            final PathMapper pathMapper,
+            final boolean prefetchProperties) {
         this.dynamicClassLoaderManagerReference = dynamicClassLoaderManagerReference;
         this.pathMapper = pathMapper;
+        this.prefetchProperties = prefetchProperties;
+    }
+
+    /**
+     * Whether value maps read all properties of a node on first access.
+     */
+    public boolean isPrefetchProperties() {
+        return this.prefetchProperties;
+    }
+
+    public void recordPropertyRead() {
+        this.propertyReads.incrementAndGet();
+    }
+
+    public void recordBulkRead(final int count) {
+        this.bulkReads.incrementAndGet();
+        this.bulkReadProperties.addAndGet(count);
+    }
+
+    public long getPropertyReads() {
+        return this.propertyReads.get();
+    }
+
+    public long getBulkReads() {
+        return this.bulkReads.get();
+    }
+
+    public long getBulkReadProperties() {
+        return this.bulkReadProperties.get();
     }
 
     public String[] getNamespacePrefixes(final Session session)
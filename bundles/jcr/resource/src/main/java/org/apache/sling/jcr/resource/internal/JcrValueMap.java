@@ -54,6 +54,9 @@ public class JcrValueMap implements ValueMap {
     /** Has the node been read completely? */
     boolean fullyRead;
 
+    /** All properties, if prefetching is enabled and they have been read. */
+    private PrefetchedPropertyMap prefetched;
+
     /**
      * Create a new JCR property map based on a node.
      * @param node The underlying node.
@@ -154,6 +157,9 @@ public class JcrValueMap implements ValueMap {
      */
     @Override
     public boolean containsValue(final Object value) {
+        if ( this.helper.isPrefetchProperties() ) {
+            return prefetch().containsValue(value);
+        }
         readFully();
         return valueCache.containsValue(value);
     }
@@ -171,6 +177,9 @@ public class JcrValueMap implements ValueMap {
      */
     @Override
     public int size() {
+        if ( this.helper.isPrefetchProperties() ) {
+            return prefetch().size();
+        }
         readFully();
         return cache.size();
     }
@@ -180,6 +189,9 @@ public class JcrValueMap implements ValueMap {
      */
     @Override
     public Set<java.util.Map.Entry<String, Object>> entrySet() {
+        if ( this.helper.isPrefetchProperties() ) {
+            return Collections.unmodifiableSet(prefetch().entrySet());
+        }
         readFully();
         final Map<String, Object> sourceMap;
         if (cache.size() == valueCache.size()) {
@@ -195,6 +207,9 @@ public class JcrValueMap implements ValueMap {
      */
     @Override
     public Set<String> keySet() {
+        if ( this.helper.isPrefetchProperties() ) {
+            return Collections.unmodifiableSet(prefetch().keySet());
+        }
         readFully();
         return cache.keySet();
     }
@@ -204,6 +219,9 @@ public class JcrValueMap implements ValueMap {
      */
     @Override
     public Collection<Object> values() {
+        if ( this.helper.isPrefetchProperties() ) {
+            return Collections.unmodifiableCollection(prefetch().values());
+        }
         readFully();
         final Map<String, Object> sourceMap;
         if (cache.size() == valueCache.size()) {
@@ -232,6 +250,27 @@ public class JcrValueMap implements ValueMap {
 
     // ---------- Helpers to access the node's property ------------------------
 
+    /**
+     * Calculate the key for a property name
+     * @param name The property name
+     * @return The key
+     */
+    static String getKey(final String name) {
+        String key = null;
+        if ( name.indexOf("_x") != -1 ) {
+            // for compatibility with older versions we use the (wrong)
+            // ISO9075 path encoding
+            key = ISO9075.decode(name);
+            if ( key.equals(name) ) {
+                key = null;
+            }
+        }
+        if ( key == null ) {
+            key = Text.unescapeIllegalJcrChars(name);
+        }
+        return key;
+    }
+
     /**
      * Put a single property into the cache
      * @param prop
@@ -240,20 +279,7 @@ public class JcrValueMap implements ValueMap {
      */
     private JcrPropertyMapCacheEntry cacheProperty(final Property prop) {
         try {
-            // calculate the key
-            final String name = prop.getName();
-            String key = null;
-            if ( name.indexOf("_x") != -1 ) {
-                // for compatibility with older versions we use the (wrong)
-                // ISO9075 path encoding
-                key = ISO9075.decode(name);
-                if ( key.equals(name) ) {
-                    key = null;
-                }
-            }
-            if ( key == null ) {
-                key = Text.unescapeIllegalJcrChars(name);
-            }
+            final String key = getKey(prop.getName());
             JcrPropertyMapCacheEntry entry = cache.get(key);
             if ( entry == null ) {
                 entry = new JcrPropertyMapCacheEntry(prop);
@@ -285,6 +311,7 @@ public class JcrValueMap implements ValueMap {
             // encoding
             final String path = ISO9075.encodePath(name);
             try {
+                this.helper.recordPropertyRead();
                 if ( node.hasProperty(path) ) {
                     return new JcrPropertyMapCacheEntry(node.getProperty(path));
                 }
@@ -310,6 +337,7 @@ public class JcrValueMap implements ValueMap {
             }
             final String newPath = sb.toString();
             try {
+                this.helper.recordPropertyRead();
                 if ( node.hasProperty(newPath) ) {
                     return new JcrPropertyMapCacheEntry(node.getProperty(newPath));
                 }
@@ -320,6 +348,10 @@ public class JcrValueMap implements ValueMap {
             return null;
         }
 
+        if ( this.helper.isPrefetchProperties() ) {
+            return prefetch().getEntry(name);
+        }
+
         // check cache
         JcrPropertyMapCacheEntry cachedValued = cache.get(name);
         if ( fullyRead || cachedValued != null ) {
@@ -329,6 +361,7 @@ public class JcrValueMap implements ValueMap {
         final String key;
         try {
             key = escapeKeyName(name);
+            this.helper.recordPropertyRead();
             if (node.hasProperty(key)) {
                 final Property prop = node.getProperty(key);
                 return cacheProperty(prop);
@@ -341,9 +374,12 @@ public class JcrValueMap implements ValueMap {
             // for compatibility with older versions we use the (wrong) ISO9075 path
             // encoding
             final String oldKey = ISO9075.encodePath(name);
-            if (!oldKey.equals(key) && node.hasProperty(oldKey)) {
-                final Property prop = node.getProperty(oldKey);
-                return cacheProperty(prop);
+            if (!oldKey.equals(key)) {
+                this.helper.recordPropertyRead();
+                if (node.hasProperty(oldKey)) {
+                    final Property prop = node.getProperty(oldKey);
+                    return cacheProperty(prop);
+                }
             }
         } catch (final RepositoryException re) {
             // we ignore this
@@ -386,10 +422,13 @@ public class JcrValueMap implements ValueMap {
         if (!fullyRead) {
             try {
                 final PropertyIterator pi = node.getProperties();
+                int count = 0;
                 while (pi.hasNext()) {
                     final Property prop = pi.nextProperty();
                     this.cacheProperty(prop);
+                    count++;
                 }
+                this.helper.recordBulkRead(count);
                 fullyRead = true;
             } catch (final RepositoryException re) {
                 throw new IllegalArgumentException(re);
@@ -397,6 +436,23 @@ public class JcrValueMap implements ValueMap {
         }
     }
 
+    /**
+     * Read all properties in a single pass into the compact read-only map
+     * used if prefetching is enabled.
+     * @throws IllegalArgumentException if a repository exception occurs
+     */
+    private PrefetchedPropertyMap prefetch() {
+        if ( this.prefetched == null ) {
+            try {
+                this.prefetched = new PrefetchedPropertyMap(node);
+            } catch (final RepositoryException re) {
+                throw new IllegalArgumentException(re);
+            }
+            this.helper.recordBulkRead(this.prefetched.size());
+        }
+        return this.prefetched;
+    }
+
     // ---------- Unsupported Modification methods
 
     @Override
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.RepositoryException;
+
+import org.apache.sling.jcr.resource.internal.helper.JcrPropertyMapCacheEntry;
+
+/**
+ * Read-only map of all properties of a node, read with a single
+ * {@link Node#getProperties()} call.
+ * <p>
+ * The properties are kept in arrays in the order returned by the repository,
+ * lookups use binary search on an index sorted by key. The cache entries, and
+ * thereby the conversion of the values, are created on first access.
+ */
+final class PrefetchedPropertyMap extends AbstractMap<String, Object> {
+
+    private final String[] keys;
+
+    private final Property[] properties;
+
+    private final JcrPropertyMapCacheEntry[] entries;
+
+    /** Indexes into the arrays, sorted by key */
+    private final int[] sorted;
+
+    private Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Read all properties of the node.
+     * @param node The node
+     * @throws RepositoryException If reading the properties fails
+     */
+    PrefetchedPropertyMap(final Node node) throws RepositoryException {
+        final List<String> keyList = new ArrayList<String>();
+        final List<Property> propertyList = new ArrayList<Property>();
+        final PropertyIterator pi = node.getProperties();
+        while ( pi.hasNext() ) {
+            final Property prop = pi.nextProperty();
+            keyList.add(JcrValueMap.getKey(prop.getName()));
+            propertyList.add(prop);
+        }
+
+        final String[] allKeys = keyList.toArray(new String[keyList.size()]);
+        final Integer[] order = new Integer[allKeys.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                final int result = allKeys[o1].compareTo(allKeys[o2]);
+                return result != 0 ? result : o1.compareTo(o2);
+            }
+        });
+
+        // two property names might decode to the same key, the first one wins
+        final boolean[] skip = new boolean[allKeys.length];
+        int size = allKeys.length;
+        for(int i = 1; i < order.length; i++) {
+            if ( allKeys[order[i]].equals(allKeys[order[i - 1]]) ) {
+                skip[order[i]] = true;
+                size--;
+            }
+        }
+
+        this.keys = new String[size];
+        this.properties = new Property[size];
+        this.entries = new JcrPropertyMapCacheEntry[size];
+        final int[] position = new int[allKeys.length];
+        int pos = 0;
+        for(int i = 0; i < allKeys.length; i++) {
+            if ( !skip[i] ) {
+                this.keys[pos] = allKeys[i];
+                this.properties[pos] = propertyList.get(i);
+                position[i] = pos;
+                pos++;
+            }
+        }
+        this.sorted = new int[size];
+        pos = 0;
+        for(final Integer index : order) {
+            if ( !skip[index] ) {
+                this.sorted[pos++] = position[index];
+            }
+        }
+    }
+
+    private int indexOf(final String key) {
+        int low = 0;
+        int high = this.sorted.length - 1;
+        while ( low <= high ) {
+            final int mid = (low + high) >>> 1;
+            final int result = this.keys[this.sorted[mid]].compareTo(key);
+            if ( result < 0 ) {
+                low = mid + 1;
+            } else if ( result > 0 ) {
+                high = mid - 1;
+            } else {
+                return this.sorted[mid];
+            }
+        }
+        return -1;
+    }
+
+    private JcrPropertyMapCacheEntry getEntry(final int index) {
+        JcrPropertyMapCacheEntry entry = this.entries[index];
+        if ( entry == null ) {
+            try {
+                entry = new JcrPropertyMapCacheEntry(this.properties[index]);
+            } catch (final RepositoryException re) {
+                throw new IllegalArgumentException(re);
+            }
+            this.entries[index] = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * Get the cache entry for a key
+     * @param key The key
+     * @return The entry or {@code null}
+     * @throws IllegalArgumentException if a repository exception occurs
+     */
+    JcrPropertyMapCacheEntry getEntry(final String key) {
+        final int index = this.indexOf(key);
+        return index == -1 ? null : this.getEntry(index);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        final JcrPropertyMapCacheEntry entry = key == null ? null : this.getEntry(key.toString());
+        return entry == null ? null : entry.getPropertyValueOrNull();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key != null && this.indexOf(key.toString()) != -1;
+    }
+
+    @Override
+    public int size() {
+        return this.keys.length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if ( this.entrySet == null ) {
+            this.entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<Map.Entry<String, Object>>() {
+
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.index < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if ( !this.hasNext() ) {
+                                throw new NoSuchElementException();
+                            }
+                            final int current = this.index++;
+                            return new AbstractMap.SimpleImmutableEntry<String, Object>(keys[current],
+                                    getEntry(current).getPropertyValueOrNull());
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException("remove");
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+        return this.entrySet;
+    }
+}
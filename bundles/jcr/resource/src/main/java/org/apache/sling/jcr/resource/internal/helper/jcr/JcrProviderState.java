@@ -26,9 +26,13 @@ import javax.jcr.Session;
 import org.apache.sling.jcr.resource.internal.HelperData;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class JcrProviderState implements Closeable {
 
+    private static final Logger logger = LoggerFactory.getLogger(JcrProviderState.class);
+
     private final Session session;
 
     private final BundleContext bundleContext;
@@ -72,6 +76,11 @@ class JcrProviderState implements Closeable {
     }
 
     void logout() {
+        if (helperData != null && logger.isDebugEnabled()) {
+            logger.debug("Read {} single properties and {} properties of {} nodes in bulk for user {}",
+                    new Object[] {helperData.getPropertyReads(), helperData.getBulkReadProperties(),
+                            helperData.getBulkReads(), session.getUserID()});
+        }
         if (logout) {
             session.logout();
         }
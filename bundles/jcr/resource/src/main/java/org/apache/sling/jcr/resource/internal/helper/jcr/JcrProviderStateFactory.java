@@ -59,16 +59,20 @@ public class JcrProviderStateFactory {
     
     private final LoginAdminWhitelist loginAdminWhitelist;
 
+    private final boolean prefetchProperties;
+
     public JcrProviderStateFactory(final ServiceReference repositoryReference,
             final SlingRepository repository,
             final AtomicReference<DynamicClassLoaderManager> dynamicClassLoaderManagerReference,
             final PathMapper pathMapper,
-            final LoginAdminWhitelist loginAdminWhitelist) {
+            final LoginAdminWhitelist loginAdminWhitelist,
+            final boolean prefetchProperties) {
         this.repository = repository;
         this.repositoryReference = repositoryReference;
         this.dynamicClassLoaderManagerReference = dynamicClassLoaderManagerReference;
         this.pathMapper = pathMapper;
         this.loginAdminWhitelist = loginAdminWhitelist;
+        this.prefetchProperties = prefetchProperties;
     }
     
     /** Get the calling Bundle from auth info, fail if not provided 
@@ -165,7 +169,8 @@ public class JcrProviderStateFactory {
 
         session = handleImpersonation(session, authenticationInfo, logoutSession);
 
-        final HelperData data = new HelperData(this.dynamicClassLoaderManagerReference, this.pathMapper);
+        final HelperData data = new HelperData(this.dynamicClassLoaderManagerReference, this.pathMapper,
+                this.prefetchProperties);
         if (bc == null) {
             return new JcrProviderState(session, data, logoutSession);
         } else {
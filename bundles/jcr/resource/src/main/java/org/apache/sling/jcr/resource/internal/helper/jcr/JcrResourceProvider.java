@@ -69,9 +69,13 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@Designate(ocd = JcrResourceProvider.Config.class)
 @Component(name="org.apache.sling.jcr.resource.internal.helper.jcr.JcrResourceProviderFactory",
            service = ResourceProvider.class,
            property = {
@@ -85,6 +89,18 @@ import org.slf4j.LoggerFactory;
            })
 public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
 
+    @ObjectClassDefinition(name = "Apache Sling JCR Resource Provider",
+        description = "The resource provider for the JCR repository.")
+    public @interface Config {
+
+        @AttributeDefinition(name = "Prefetch Properties",
+                description = "If enabled, the value map of a resource reads all properties of the node in " +
+                        "a single pass on first access instead of looking up each property separately. " +
+                        "This reduces the number of round trips for remote repositories and for nodes " +
+                        "with many properties.")
+        boolean prefetch_properties() default false;
+    }
+
     /** Logger */
     private final Logger logger = LoggerFactory.getLogger(JcrResourceProvider.class);
 
@@ -124,7 +140,7 @@ public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
     private final AtomicReference<DynamicClassLoaderManager> classLoaderManagerReference = new AtomicReference<DynamicClassLoaderManager>();
 
     @Activate
-    protected void activate(final ComponentContext context) throws RepositoryException {
+    protected void activate(final ComponentContext context, final Config config) throws RepositoryException {
         SlingRepository repository = context.locateService(REPOSITORY_REFERNENCE_NAME,
                 this.repositoryReference);
         if (repository == null) {
@@ -138,7 +154,7 @@ public class JcrResourceProvider extends ResourceProvider<JcrProviderState> {
         this.repository = repository;
 
         this.stateFactory = new JcrProviderStateFactory(repositoryReference, repository,
-                classLoaderManagerReference, pathMapper, loginAdminWhitelist);
+                classLoaderManagerReference, pathMapper, loginAdminWhitelist, config.prefetch_properties());
     }
 
     @Deactivate
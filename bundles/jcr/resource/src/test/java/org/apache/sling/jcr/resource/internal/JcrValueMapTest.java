@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.jcr.resource.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.jcr.Node;
+
+import org.apache.jackrabbit.util.Text;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.commons.classloader.DynamicClassLoaderManager;
+import org.apache.sling.commons.testing.jcr.RepositoryTestBase;
+
+public class JcrValueMapTest extends RepositoryTestBase {
+
+    private String rootPath;
+
+    private Node rootNode;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        rootPath = "/test_" + System.currentTimeMillis();
+        rootNode = getSession().getRootNode().addNode(rootPath.substring(1),
+            "nt:unstructured");
+        rootNode.setProperty("string", "test");
+        rootNode.setProperty("long", 1L);
+        rootNode.setProperty("date", Calendar.getInstance());
+        rootNode.setProperty("multi", new String[] {"a", "b"});
+        rootNode.setProperty(Text.escapeIllegalJcrChars("a*b"), "escaped");
+        rootNode.setProperty("sub_x0020_key", "iso");
+        getSession().save();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (rootNode != null) {
+            rootNode.remove();
+            getSession().save();
+        }
+        super.tearDown();
+    }
+
+    private HelperData getHelperData(final boolean prefetch) {
+        return new HelperData(new AtomicReference<DynamicClassLoaderManager>(), new PathMapperImpl(), prefetch);
+    }
+
+    private List<String> keys(final ValueMap map) {
+        final List<String> keys = new ArrayList<String>();
+        for(final Map.Entry<String, Object> entry : map.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    public void testPrefetchMatchesSingleReads() throws Exception {
+        final ValueMap single = new JcrValueMap(rootNode, getHelperData(false));
+        final ValueMap prefetched = new JcrValueMap(rootNode, getHelperData(true));
+
+        assertEquals(single.size(), prefetched.size());
+        assertEquals(keys(single), keys(prefetched));
+        assertEquals(single.keySet(), prefetched.keySet());
+        for(final String key : single.keySet()) {
+            final Object expected = single.get(key);
+            if ( expected instanceof Object[] ) {
+                assertTrue(key, Arrays.equals((Object[])expected, (Object[])prefetched.get(key)));
+            } else {
+                assertEquals(key, expected, prefetched.get(key));
+            }
+        }
+        assertEquals("escaped", prefetched.get("a*b"));
+        assertEquals("iso", prefetched.get("sub key"));
+        assertEquals(Long.valueOf(1), prefetched.get("long", Long.class));
+        assertEquals("1", prefetched.get("long", String.class));
+        assertEquals(Integer.valueOf(7), prefetched.get("missing", 7));
+        assertEquals("a", prefetched.get("multi", String.class));
+        assertTrue(prefetched.containsKey("./string"));
+        assertFalse(prefetched.containsKey("missing"));
+        assertTrue(prefetched.containsValue("test"));
+        assertNotNull(prefetched.get("jcr:primaryType"));
+    }
+
+    public void testPrefetchReadsNodeOnce() throws Exception {
+        final HelperData helper = getHelperData(true);
+        final ValueMap map = new JcrValueMap(rootNode, helper);
+        assertEquals("test", map.get("string"));
+        assertNull(map.get("missing"));
+        assertEquals(1, map.get("long", Integer.class).intValue());
+        map.entrySet();
+
+        assertEquals(0, helper.getPropertyReads());
+        assertEquals(1, helper.getBulkReads());
+        assertEquals(map.size(), helper.getBulkReadProperties());
+
+        try {
+            map.keySet().remove("string");
+            fail("Prefetched map must be read-only");
+        } catch (final UnsupportedOperationException uoe) {
+            // expected
+        }
+    }
+
+    public void testSingleReadsAreCounted() throws Exception {
+        final HelperData helper = getHelperData(false);
+        final ValueMap map = new JcrValueMap(rootNode, helper);
+        assertEquals("test", map.get("string"));
+        assertEquals("test", map.get("string"));
+        assertEquals(1L, map.get("long"));
+
+        assertEquals(2, helper.getPropertyReads());
+        assertEquals(0, helper.getBulkReads());
+    }
+}
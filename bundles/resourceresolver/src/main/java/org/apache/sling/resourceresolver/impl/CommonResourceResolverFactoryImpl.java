@@ -38,10 +38,12 @@ import org.apache.sling.api.resource.path.Path;
 import org.apache.sling.resourceresolver.impl.console.ResourceResolverWebConsolePlugin;
 import org.apache.sling.resourceresolver.impl.helper.ResourceDecoratorTracker;
 import org.apache.sling.resourceresolver.impl.helper.ResourceResolverControl;
+import org.apache.sling.resourceresolver.impl.helper.ResourceTypeHierarchyIndex;
 import org.apache.sling.resourceresolver.impl.mapping.MapConfigurationProvider;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntries;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntriesHandler;
 import org.apache.sling.resourceresolver.impl.mapping.Mapping;
+import org.apache.sling.resourceresolver.impl.observation.ResourceChangeListenerDispatcher;
 import org.apache.sling.resourceresolver.impl.providers.ResourceProviderTracker;
 import org.apache.sling.spi.resource.provider.ResourceProvider;
 import org.osgi.framework.BundleContext;
@@ -58,6 +60,9 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
     /** Helper for the resource resolver. */
     private MapEntriesHandler mapEntries = MapEntriesHandler.EMPTY;
 
+    /** Factory wide cache of the resource super type hierarchy. */
+    private volatile ResourceTypeHierarchyIndex resourceTypeHierarchyIndex;
+
     /** The web console plugin. */
     private ResourceResolverWebConsolePlugin plugin;
 
@@ -264,6 +269,14 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         return mapEntries;
     }
 
+    /**
+     * Get the resource type hierarchy index.
+     * @return The index or <code>null</code> if this factory is not active
+     */
+    public ResourceTypeHierarchyIndex getResourceTypeHierarchyIndex() {
+        return resourceTypeHierarchyIndex;
+    }
+
     /** Activates this component */
     protected void activate(final BundleContext bundleContext) {
         final Logger logger = LoggerFactory.getLogger(getClass());
@@ -274,6 +287,11 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
             // available
             logger.debug("activate: unable to setup web console plugin.", ignore);
         }
+        // set up the resource type hierarchy index for the search paths
+        final ResourceTypeHierarchyIndex index = new ResourceTypeHierarchyIndex(this.getSearchPath());
+        index.register(bundleContext);
+        this.resourceTypeHierarchyIndex = index;
+
         // set up the map entries from configuration
         try {
             mapEntries = new MapEntries(this, bundleContext, this.activator.getEventAdmin());
@@ -297,6 +315,11 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
             ((MapEntries)mapEntries).dispose();
             mapEntries = MapEntries.EMPTY;
         }
+        final ResourceTypeHierarchyIndex index = this.resourceTypeHierarchyIndex;
+        if ( index != null ) {
+            this.resourceTypeHierarchyIndex = null;
+            index.dispose();
+        }
         resolverStackHolder = null;
     }
 
@@ -380,6 +403,11 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         return this.activator.hasVanityPathPrecedence();
     }
 
+    @Override
+    public boolean isMappingSnapshotEnabled() {
+        return this.activator.isMappingSnapshotEnabled();
+    }
+
     @Override
     public Path[] getObservationPaths() {
         return this.activator.getObservationPaths();
@@ -418,6 +446,14 @@ public class CommonResourceResolverFactoryImpl implements ResourceResolverFactor
         return logResourceResolverClosing;
     }
 
+    public int getLookupCacheSize() {
+        return this.activator.getLookupCacheSize();
+    }
+
+    public List<ResourceChangeListenerDispatcher> getObservationDispatchers() {
+        return this.activator.getObservationDispatchers();
+    }
+
     public ResourceProviderTracker getResourceProviderTracker() {
         return activator.getResourceProviderTracker();
     }
@@ -23,6 +23,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
@@ -37,6 +38,7 @@ import org.apache.sling.api.resource.runtime.RuntimeService;
 import org.apache.sling.resourceresolver.impl.helper.ResourceDecoratorTracker;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntries;
 import org.apache.sling.resourceresolver.impl.mapping.Mapping;
+import org.apache.sling.resourceresolver.impl.observation.ResourceChangeListenerDispatcher;
 import org.apache.sling.resourceresolver.impl.observation.ResourceChangeListenerWhiteboard;
 import org.apache.sling.resourceresolver.impl.providers.ResourceProviderTracker;
 import org.apache.sling.resourceresolver.impl.providers.ResourceProviderTracker.ChangeListener;
@@ -207,6 +209,10 @@ public class ResourceResolverFactoryActivator {
         return this.config.resource_resolver_vanity_precedence();
     }
 
+    public boolean isMappingSnapshotEnabled() {
+        return this.config.resource_resolver_mapping_snapshot();
+    }
+
     public long getMaxCachedVanityPathEntries() {
         return this.config.resource_resolver_vanitypath_maxEntries();
     }
@@ -223,6 +229,28 @@ public class ResourceResolverFactoryActivator {
         return this.config.resource_resolver_log_closing();
     }
 
+    public int getLookupCacheSize() {
+        return this.config.resource_resolver_lookup_cache_size();
+    }
+
+    private ResourceChangeListenerDispatcher.OverflowPolicy getObservationOverflowPolicy() {
+        final String value = this.config.resource_resolver_observation_queue_overflow();
+        try {
+            return ResourceChangeListenerDispatcher.OverflowPolicy.valueOf(value);
+        } catch ( final IllegalArgumentException iae ) {
+            logger.warn("Invalid observation queue overflow {}, using {}", value, ResourceChangeListenerDispatcher.OverflowPolicy.BLOCK);
+            return ResourceChangeListenerDispatcher.OverflowPolicy.BLOCK;
+        }
+    }
+
+    public List<ResourceChangeListenerDispatcher> getObservationDispatchers() {
+        final ResourceChangeListenerWhiteboard whiteboard = this.changeListenerWhiteboard;
+        if ( whiteboard == null ) {
+            return Collections.emptyList();
+        }
+        return whiteboard.getDispatchers();
+    }
+
     public Path[] getObservationPaths() {
         return this.observationPaths;
     }
@@ -347,7 +375,8 @@ public class ResourceResolverFactoryActivator {
             this.changeListenerWhiteboard = new ResourceChangeListenerWhiteboard();
             this.preconds.activate(this.bundleContext, requiredResourceProvidersLegacy, requiredResourceProviderNames, resourceProviderTracker);
             this.changeListenerWhiteboard.activate(this.bundleContext,
-                this.resourceProviderTracker, searchPath);
+                this.resourceProviderTracker, searchPath,
+                config.resource_resolver_observation_queue_size(), getObservationOverflowPolicy());
             this.resourceProviderTracker.activate(this.bundleContext,
                     this.eventAdmin,
                     new ChangeListener() {
@@ -21,6 +21,7 @@ package org.apache.sling.resourceresolver.impl;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntries;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.osgi.service.metatype.annotations.Option;
 
 @ObjectClassDefinition(name = "Apache Sling Resource Resolver Factory",
             description = "Configures the Resource Resolver for request URL and resource path rewriting.")
@@ -163,6 +164,12 @@ public @interface ResourceResolverFactoryConfig {
                      " will have precedence over existing /etc/map mapping")
     boolean resource_resolver_vanity_precedence() default false;
 
+    @AttributeDefinition(name = "Mapping Snapshot",
+        description ="This flag controls whether the alias and vanity path tables are written to a snapshot " +
+                     "in the bundle data area. On startup the tables are read from the snapshot and " +
+                     "reconciled with the repository in the background.")
+    boolean resource_resolver_mapping_snapshot() default false;
+
     @AttributeDefinition(name = "Paranoid Provider Handling",
         description = "If this flag is enabled, an unregistration of a resource provider (not factory), "
                       + "is causing the resource resolver factory to restart, potentially cleaning up "
@@ -174,5 +181,32 @@ public @interface ResourceResolverFactoryConfig {
                       "with the point where the used resolver was closed. It's advisable to not enable this feature on " +
                       "production systems.")
     boolean resource_resolver_log_closing() default false;
+
+    @AttributeDefinition(name = "Resource Lookup Cache Size",
+        description = "The maximum number of resources and lists of children each resource resolver keeps " +
+                      "from getResource, getParent and listChildren calls until it is modified, committed, " +
+                      "reverted, refreshed or closed. Lists of more than 100 children are not cached. A value of 0 " +
+                      "(the default) disables the cache. As cached " +
+                      "resources are returned to every caller, enable this only if the code using the resolver " +
+                      "does not depend on getting fresh resource objects.")
+    int resource_resolver_lookup_cache_size() default 0;
+
+    @AttributeDefinition(name = "Observation Queue Size",
+        description = "The maximum number of pending changes per resource change listener. If set, each listener " +
+                      "receives its changes on its own thread, so a slow listener does not delay other listeners " +
+                      "or the resource providers reporting the changes. Pending changes for the same path are " +
+                      "coalesced. A value of 0 (the default) delivers the changes synchronously.")
+    int resource_resolver_observation_queue_size() default 0;
+
+    @AttributeDefinition(name = "Observation Queue Overflow",
+        description = "What to do with a change if the queue of a resource change listener is full: wait until " +
+                      "the listener has caught up, drop the change and log a warning, or drop all pending changes " +
+                      "and report all paths of the listener as changed instead.",
+        options = {
+            @Option(label = "Block", value = "BLOCK"),
+            @Option(label = "Drop", value = "DROP"),
+            @Option(label = "Refresh", value = "REFRESH")
+        })
+    String resource_resolver_observation_queue_overflow() default "BLOCK";
 }
 
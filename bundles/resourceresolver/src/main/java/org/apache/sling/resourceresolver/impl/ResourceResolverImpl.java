@@ -24,8 +24,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
@@ -51,11 +53,14 @@ import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.resourceresolver.impl.helper.ChainedIterator;
 import org.apache.sling.resourceresolver.impl.helper.RedirectResource;
 import org.apache.sling.resourceresolver.impl.helper.ResourceIteratorDecorator;
+import org.apache.sling.resourceresolver.impl.helper.ResourceLookupCache;
 import org.apache.sling.resourceresolver.impl.helper.ResourcePathIterator;
 import org.apache.sling.resourceresolver.impl.helper.ResourceResolverContext;
 import org.apache.sling.resourceresolver.impl.helper.ResourceResolverControl;
+import org.apache.sling.resourceresolver.impl.helper.ResourceTypeHierarchyIndex;
 import org.apache.sling.resourceresolver.impl.helper.StarResource;
 import org.apache.sling.resourceresolver.impl.helper.URI;
 import org.apache.sling.resourceresolver.impl.helper.URIException;
@@ -104,8 +109,20 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
     /** Resource resolver context. */
     private final ResourceResolverContext context;
 
+    /** Cache of resource lookups, {@code null} if disabled. */
+    private final ResourceLookupCache lookupCache;
+
     private volatile Exception closedResolverException;
 
+    /** Reads resource super types on a miss of the resource type hierarchy index. */
+    private final ResourceTypeHierarchyIndex.Lookup resourceTypeLookup = new ResourceTypeHierarchyIndex.Lookup() {
+
+        @Override
+        public String getParentResourceType(final String resourceType) {
+            return control.getParentResourceType(factory, ResourceResolverImpl.this, resourceType);
+        }
+    };
+
     public ResourceResolverImpl(final CommonResourceResolverFactoryImpl factory, final boolean isAdmin, final Map<String, Object> authenticationInfo) throws LoginException {
         this(factory, isAdmin, authenticationInfo, factory.getResourceProviderTracker());
     }
@@ -114,6 +131,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         this.factory = factory;
         this.context = new ResourceResolverContext(this, factory.getResourceAccessSecurityTracker());
         this.control = createControl(resourceProviderTracker, authenticationInfo, isAdmin);
+        this.lookupCache = createLookupCache(factory);
         this.factory.register(this, control);
     }
 
@@ -134,9 +152,20 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         }
         this.context = new ResourceResolverContext(this, factory.getResourceAccessSecurityTracker());
         this.control = createControl(factory.getResourceProviderTracker(), authInfo, resolver.control.isAdmin());
+        this.lookupCache = createLookupCache(factory);
         this.factory.register(this, control);
     }
 
+    /**
+     * Create the resource lookup cache if enabled
+     * @param factory The factory
+     * @return The cache or {@code null}
+     */
+    private static ResourceLookupCache createLookupCache(final CommonResourceResolverFactoryImpl factory) {
+        final int size = factory.getLookupCacheSize();
+        return size > 0 ? new ResourceLookupCache(size) : null;
+    }
+
     /**
      * Create the resource resolver control
      * @param storage The provider storage
@@ -185,6 +214,9 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         if (factory.shouldLogResourceResolverClosing()) {
             closedResolverException = new Exception("Stack Trace");
         }
+        if (this.lookupCache != null) {
+            this.lookupCache.clear();
+        }
         this.factory.unregister(this, this.control);
     }
 
@@ -264,6 +296,11 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
     public Resource resolve(final HttpServletRequest request, String path) {
         checkClosed();
 
+        if (this.lookupCache != null && request != null) {
+            // the statistics are logged to the request progress tracker by the engine
+            request.setAttribute(ResourceLookupCache.REQUEST_ATTRIBUTE, this.lookupCache);
+        }
+
         final Resource rsrc = this.resolveInternal(request, path);
         return rsrc;
     }
@@ -685,10 +722,21 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
             if (path.startsWith("/")) {
                 ParsedParameters parsedPath = new ParsedParameters(path);
                 path = ResourceUtil.normalize(parsedPath.getRawPath());
+                // only lookups without parameters are cached
+                final boolean cacheable = this.lookupCache != null && path != null && parsedPath.getParametersString() == null;
+                if (cacheable) {
+                    final Resource cached = this.lookupCache.getResource(path);
+                    if (cached != null) {
+                        return cached == ResourceLookupCache.NOT_FOUND ? null : cached;
+                    }
+                }
                 result = (path != null) ? getAbsoluteResourceInternal(parent, path, parsedPath.getParameters(), false) : null;
                 if (result != null) {
                     result = this.factory.getResourceDecoratorTracker().decorate(result);
                 }
+                if (cacheable) {
+                    this.lookupCache.putResource(path, result);
+                }
             } else {
 
                 // otherwise we have to apply the search path
@@ -718,7 +766,25 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         if (parent instanceof ResourceWrapper) {
             return listChildren(((ResourceWrapper) parent).getResource());
         }
-        return new ResourceIteratorDecorator(this.factory.getResourceDecoratorTracker(), this.control.listChildren(this.context, parent));
+        if (this.lookupCache == null) {
+            return new ResourceIteratorDecorator(this.factory.getResourceDecoratorTracker(), this.control.listChildren(this.context, parent));
+        }
+
+        List<Resource> cached = this.lookupCache.getChildren(parent.getPath());
+        if (cached == null) {
+            final Iterator<Resource> children = new ResourceIteratorDecorator(this.factory.getResourceDecoratorTracker(), this.control.listChildren(this.context, parent));
+            final List<Resource> list = new ArrayList<Resource>();
+            while (children.hasNext() && list.size() < ResourceLookupCache.MAX_CHILDREN) {
+                list.add(children.next());
+            }
+            if (children.hasNext()) {
+                // large listings are neither cached nor read ahead
+                return new ChainedIterator<Resource>(Arrays.asList(list.iterator(), children).iterator());
+            }
+            cached = Collections.unmodifiableList(list);
+            this.lookupCache.putChildren(parent.getPath(), cached);
+        }
+        return cached.iterator();
     }
 
     /**
@@ -1209,6 +1275,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
             return;
         }
         // if resource is null, we get an NPE as stated in the API
+        clearLookupCache();
         this.control.delete(this.context, resource);
     }
 
@@ -1241,6 +1308,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
                 throw new IllegalArgumentException("Can't create child on a synthetic root");
             }
         }
+        clearLookupCache();
         final Resource rsrc = this.control.create(this.context, path, properties);
         rsrc.getResourceMetadata().setResolutionPath(rsrc.getPath());
         return this.factory.getResourceDecoratorTracker().decorate(rsrc);
@@ -1251,6 +1319,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
      */
     @Override
     public void revert() {
+        clearLookupCache();
         this.control.revert(this.context);
     }
 
@@ -1259,6 +1328,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
      */
     @Override
     public void commit() throws PersistenceException {
+        clearLookupCache();
         this.control.commit(this.context);
     }
 
@@ -1298,9 +1368,26 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
      */
     @Override
     public String getParentResourceType(final String resourceType) {
+        final ResourceTypeHierarchyIndex index = this.getResourceTypeHierarchyIndex();
+        if ( index != null ) {
+            return index.getParentResourceType(resourceType, this.resourceTypeLookup);
+        }
         return this.control.getParentResourceType(this.factory, this, resourceType);
     }
 
+    /**
+     * Returns the factory wide resource type hierarchy index if it can be
+     * used by this resolver. An administrative resolver with pending changes
+     * might see a different hierarchy and therefore does not use the index.
+     */
+    private ResourceTypeHierarchyIndex getResourceTypeHierarchyIndex() {
+        final ResourceTypeHierarchyIndex index = this.factory.getResourceTypeHierarchyIndex();
+        if ( index != null && this.control.isAdmin() && this.hasChanges() ) {
+            return null;
+        }
+        return index;
+    }
+
     /**
      * @see org.apache.sling.api.resource.ResourceResolver#isResourceType(org.apache.sling.api.resource.Resource, java.lang.String)
      */
@@ -1311,8 +1398,24 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
              // Check if the resource is of the given type. This method first checks the
              // resource type of the resource, then its super resource type and continues
              //  to go up the resource super type hierarchy.
+             final ResourceTypeHierarchyIndex index = this.getResourceTypeHierarchyIndex();
              if (resourceType.equals(resource.getResourceType())) {
                  result = true;
+             } else if ( index != null ) {
+                 // the resource itself might define an instance specific super type
+                 final String superType = this.getParentResourceType(resource);
+                 if ( superType != null ) {
+                     final ResourceTypeHierarchyIndex.SuperTypeChain chain = index.getSuperTypeChain(superType, this.resourceTypeLookup);
+                     for(final String type : chain.getTypes()) {
+                         if ( resourceType.equals(type) ) {
+                             result = true;
+                             break;
+                         }
+                     }
+                     if ( !result && chain.isCyclic() ) {
+                         throw new SlingException("Cyclic dependency for resourceSuperType hierarchy detected on resource " + resource.getPath(), null);
+                     }
+                 }
              } else {
                  Set<String> superTypesChecked = new HashSet<String>();
                  String superType = this.getParentResourceType(resource);
@@ -1338,6 +1441,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
      */
     @Override
     public void refresh() {
+        clearLookupCache();
         this.control.refresh(this.context);
     }
 
@@ -1350,10 +1454,17 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
             if ( !parentPath.startsWith("/") ) {
                 rsrc = context.getResourceResolver().getResource(parentPath);
             } else {
+                final Resource cached = this.lookupCache != null ? this.lookupCache.getResource(parentPath) : null;
+                if (cached != null && cached != ResourceLookupCache.NOT_FOUND) {
+                    return cached;
+                }
                 rsrc = this.control.getParent(this.context, parentPath, child);
                 if (rsrc != null ) {
                     rsrc.getResourceMetadata().setResolutionPath(rsrc.getPath());
                     rsrc = this.factory.getResourceDecoratorTracker().decorate(rsrc);
+                    if (this.lookupCache != null) {
+                        this.lookupCache.putResource(parentPath, rsrc);
+                    }
                 }
             }
         }
@@ -1362,6 +1473,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
 
     @Override
     public Resource copy(final String srcAbsPath, final String destAbsPath) throws PersistenceException {
+        clearLookupCache();
         Resource rsrc = this.control.copy(this.context, srcAbsPath, destAbsPath);
         if (rsrc != null ) {
             rsrc.getResourceMetadata().setResolutionPath(rsrc.getPath());
@@ -1372,6 +1484,7 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
 
     @Override
     public Resource move(final String srcAbsPath, final String destAbsPath) throws PersistenceException {
+        clearLookupCache();
         Resource rsrc = this.control.move(this.context, srcAbsPath, destAbsPath);
         if (rsrc != null ) {
             rsrc.getResourceMetadata().setResolutionPath(rsrc.getPath());
@@ -1379,4 +1492,14 @@ public class ResourceResolverImpl extends SlingAdaptable implements ResourceReso
         }
         return rsrc;
     }
+
+    /**
+     * Clear the resource lookup cache before the resolver is modified
+     * or refreshed.
+     */
+    private void clearLookupCache() {
+        if (this.lookupCache != null) {
+            this.lookupCache.clear();
+        }
+    }
 }
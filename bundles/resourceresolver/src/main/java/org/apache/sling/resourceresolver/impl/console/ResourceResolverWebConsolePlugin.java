@@ -48,6 +48,7 @@ import org.apache.sling.resourceresolver.impl.helper.URI;
 import org.apache.sling.resourceresolver.impl.helper.URIException;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntriesHandler;
 import org.apache.sling.resourceresolver.impl.mapping.MapEntry;
+import org.apache.sling.resourceresolver.impl.observation.ResourceChangeListenerDispatcher;
 import org.apache.sling.spi.resource.provider.ResourceProvider;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
@@ -186,6 +187,13 @@ public class ResourceResolverWebConsolePlugin extends HttpServlet {
         dumpDTOsHtml(pw);
 
         separatorHtml(pw);
+
+        final List<ResourceChangeListenerDispatcher> dispatchers = resolverFactory.getObservationDispatchers();
+        if ( !dispatchers.isEmpty() ) {
+            dumpDispatchersHtml(pw, dispatchers);
+
+            separatorHtml(pw);
+        }
         dumpMapHtml(
                 pw,
                 "Resolver Map Entries",
@@ -278,6 +286,13 @@ public class ResourceResolverWebConsolePlugin extends HttpServlet {
 
         separatorText(pw);
 
+        final List<ResourceChangeListenerDispatcher> dispatchers = resolverFactory.getObservationDispatchers();
+        if ( !dispatchers.isEmpty() ) {
+            dumpDispatchersText(pw, dispatchers);
+
+            separatorText(pw);
+        }
+
         final MapEntriesHandler mapEntries = resolverFactory.getMapEntries();
 
         dumpMapText(pw, "Resolver Map Entries", mapEntries.getResolveMaps());
@@ -555,6 +570,59 @@ public class ResourceResolverWebConsolePlugin extends HttpServlet {
         }
     }
 
+    private String getListenerName(final ResourceChangeListenerDispatcher dispatcher) {
+        final Object listener = dispatcher.getInfo().getListener();
+        return listener == null ? "<unbound>" : listener.getClass().getName();
+    }
+
+    private String getQueueStatistics(final ResourceChangeListenerDispatcher dispatcher, final String separator) {
+        return "queued=" + dispatcher.getQueueSize()
+                + separator + "lag=" + dispatcher.getLag() + "ms"
+                + separator + "maxLag=" + dispatcher.getMaxLag() + "ms"
+                + separator + "delivered=" + dispatcher.getDeliveredCount()
+                + separator + "dropped=" + dispatcher.getDroppedCount()
+                + separator + "refreshes=" + dispatcher.getRefreshCount();
+    }
+
+    private void dumpDispatchersHtml(final PrintWriter pw, final List<ResourceChangeListenerDispatcher> dispatchers) {
+
+        titleHtml(pw, "Resource Change Listener Queues", "Lists the pending changes and the delay of each resource change listener.");
+
+        pw.println("<tr class='content'>");
+        pw.println("<th class='content'>Listener</th>");
+        pw.println("<th class='content'>Paths</th>");
+        pw.println("<th class='content'>Queue</th>");
+        pw.println("</tr>");
+
+        for(final ResourceChangeListenerDispatcher dispatcher : dispatchers) {
+            pw.print("<tr class='content'>");
+            pw.print("<td class='content' style='vertical-align: top'>");
+            pw.print(ResponseUtil.escapeXml(getListenerName(dispatcher)));
+            pw.print("</td>");
+
+            pw.print("<td class='content' style='vertical-align: top'>");
+            pw.print(ResponseUtil.escapeXml(dispatcher.getInfo().getPaths().toString()));
+            pw.print("</td>");
+
+            pw.print("<td class='content' style='vertical-align: top'>");
+            pw.print(getQueueStatistics(dispatcher, "<br/>"));
+            pw.print("</td>");
+            pw.println("</tr>");
+        }
+    }
+
+    private void dumpDispatchersText(final PrintWriter pw, final List<ResourceChangeListenerDispatcher> dispatchers) {
+
+        pw.println("Resource Change Listener Queues");
+
+        final String format = "%35s %25s %15s\r\n";
+        pw.printf(format, "Listener", "Paths", "Queue");
+
+        for(final ResourceChangeListenerDispatcher dispatcher : dispatchers) {
+            pw.printf(format, getListenerName(dispatcher), dispatcher.getInfo().getPaths(), getQueueStatistics(dispatcher, ", "));
+        }
+    }
+
     private void separatorText(PrintWriter pw) {
         pw.println();
     }
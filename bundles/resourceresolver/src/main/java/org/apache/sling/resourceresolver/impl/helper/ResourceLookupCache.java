@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.helper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.apache.sling.api.resource.NonExistingResource;
+import org.apache.sling.api.resource.Resource;
+
+/**
+ * The <code>ResourceLookupCache</code> is a resource resolver wide cache of
+ * the results of resource lookups by absolute path and of the children of
+ * resources.
+ * <p>
+ * Both maps are bounded and evict the least recently used entry. Paths
+ * which do not exist are cached as well, children lists only up to
+ * {@link #MAX_CHILDREN} entries. The resource resolver clears the
+ * cache whenever it is modified, committed, reverted or refreshed.
+ * <p>
+ * The resource resolver is not thread safe, but it is sometimes shared
+ * between threads for reading. The access ordered maps are modified on
+ * every read, therefore all access is synchronized.
+ */
+public class ResourceLookupCache {
+
+    /**
+     * Returned by {@link #getResource(String)} for paths which have been
+     * looked up before but do not exist.
+     */
+    public static final Resource NOT_FOUND = new NonExistingResource(null, "/");
+
+    /**
+     * The maximum number of children of a resource which are cached.
+     * Larger listings are not cached.
+     */
+    public static final int MAX_CHILDREN = 100;
+
+    /**
+     * Name of the request attribute holding the cache of the resource
+     * resolver of a request. The engine logs its {@link #toString()}
+     * to the request progress tracker before the tracker is dumped.
+     */
+    public static final String REQUEST_ATTRIBUTE = "org.apache.sling.resourceresolver.lookup.cache";
+
+    private final Map<String, Resource> resources;
+
+    private final Map<String, List<Resource>> children;
+
+    private int hits;
+
+    private int misses;
+
+    private int invalidations;
+
+    /**
+     * Create a new cache
+     * @param maxSize The maximum number of resources and the maximum number
+     *                of children lists
+     */
+    public ResourceLookupCache(final int maxSize) {
+        this.resources = new BoundedMap<Resource>(maxSize);
+        this.children = new BoundedMap<List<Resource>>(maxSize);
+    }
+
+    /**
+     * Returns the cached resource for the path.
+     * @param path The absolute and normalized path
+     * @return The resource, {@link #NOT_FOUND} if the path does not exist or
+     *         {@code null} if the path is not cached.
+     */
+    public synchronized @CheckForNull Resource getResource(@Nonnull final String path) {
+        return count(this.resources.get(path));
+    }
+
+    /**
+     * Caches the result of a resource lookup.
+     * @param path The absolute and normalized path
+     * @param resource The resource or {@code null} if the path does not exist
+     */
+    public synchronized void putResource(@Nonnull final String path, @CheckForNull final Resource resource) {
+        this.resources.put(path, resource == null ? NOT_FOUND : resource);
+    }
+
+    /**
+     * Returns the cached children of the resource at the path.
+     * @param path The path of the parent resource
+     * @return The children or {@code null} if they are not cached
+     */
+    public synchronized @CheckForNull List<Resource> getChildren(@Nonnull final String path) {
+        return count(this.children.get(path));
+    }
+
+    /**
+     * Caches the children of the resource at the path.
+     * @param path The path of the parent resource
+     * @param list The unmodifiable list of children, lists with more than
+     *             {@link #MAX_CHILDREN} entries are not cached
+     */
+    public synchronized void putChildren(@Nonnull final String path, @Nonnull final List<Resource> list) {
+        if (list.size() <= MAX_CHILDREN) {
+            this.children.put(path, list);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        if (!this.resources.isEmpty() || !this.children.isEmpty()) {
+            this.resources.clear();
+            this.children.clear();
+            this.invalidations++;
+        }
+    }
+
+    public synchronized int getHits() {
+        return this.hits;
+    }
+
+    public synchronized int getMisses() {
+        return this.misses;
+    }
+
+    public synchronized int getInvalidations() {
+        return this.invalidations;
+    }
+
+    /**
+     * Returns the hit and miss figures, as logged to the request progress
+     * tracker.
+     */
+    @Override
+    public synchronized String toString() {
+        return "Resource lookup cache: " + this.hits + " hits, " + this.misses + " misses, "
+                + this.invalidations + " invalidations";
+    }
+
+    private <T> T count(final T value) {
+        if (value == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Map evicting the least recently used entry once the maximum size
+     * is exceeded.
+     */
+    private static final class BoundedMap<V> extends LinkedHashMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        BoundedMap(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+            return size() > this.maxSize;
+        }
+    }
+}
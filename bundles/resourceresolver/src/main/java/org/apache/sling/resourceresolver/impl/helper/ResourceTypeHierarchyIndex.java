@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.helper;
+
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The <code>ResourceTypeHierarchyIndex</code> is a factory wide cache of the
+ * resource super type hierarchy.
+ * <p>
+ * For each resource type the super type as read from the resource type
+ * resource in the search paths is cached together with the ordered chain of
+ * all super types. Only resource types which are located within the search
+ * paths are cached, as only changes to these paths are observed. An entry is
+ * removed whenever a resource at or above one of its locations changes.
+ */
+public class ResourceTypeHierarchyIndex implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    /** The maximum number of cached resource types. */
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * The super type chain of a resource type.
+     */
+    public static final class SuperTypeChain {
+
+        private final String[] types;
+
+        private final boolean cyclic;
+
+        SuperTypeChain(final String[] types, final boolean cyclic) {
+            this.types = types;
+            this.cyclic = cyclic;
+        }
+
+        /**
+         * The resource type followed by its super types, without duplicates.
+         */
+        public String[] getTypes() {
+            return types;
+        }
+
+        /**
+         * Whether the hierarchy has a cycle after the last type of the chain.
+         */
+        public boolean isCyclic() {
+            return cyclic;
+        }
+    }
+
+    /**
+     * Reads the super type of a resource type from the repository.
+     */
+    public interface Lookup {
+
+        /**
+         * Get the super type of the resource type
+         * @param resourceType The resource type
+         * @return The super type or <code>null</code>
+         */
+        String getParentResourceType(String resourceType);
+    }
+
+    private static final class Entry {
+
+        /** The super type or <code>null</code>. */
+        final String superType;
+
+        /** The locations or <code>null</code> if the entry is not cached. */
+        final String[] locations;
+
+        Entry(final String superType, final String[] locations) {
+            this.superType = superType;
+            this.locations = locations;
+        }
+    }
+
+    private final String[] searchPaths;
+
+    private final Map<String, Entry> superTypes = new ConcurrentHashMap<String, Entry>();
+
+    private final Map<String, SuperTypeChain> chains = new ConcurrentHashMap<String, SuperTypeChain>();
+
+    /** Incremented on each invalidation to detect outdated results. */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile ServiceRegistration<ResourceChangeListener> registration;
+
+    public ResourceTypeHierarchyIndex(final String[] searchPaths) {
+        this.searchPaths = searchPaths;
+    }
+
+    /**
+     * Registers this index as a resource change listener for the search paths.
+     */
+    public void register(final BundleContext bundleContext) {
+        final Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(ResourceChangeListener.PATHS, this.searchPaths);
+        props.put(ResourceChangeListener.CHANGES, new String[] {
+                ChangeType.ADDED.name(), ChangeType.REMOVED.name(), ChangeType.CHANGED.name(),
+                ChangeType.PROVIDER_ADDED.name(), ChangeType.PROVIDER_REMOVED.name()});
+        props.put(Constants.SERVICE_DESCRIPTION, "Apache Sling Resource Type Hierarchy Observation");
+        props.put(Constants.SERVICE_VENDOR, "The Apache Software Foundation");
+        this.registration = bundleContext.registerService(ResourceChangeListener.class, this, props);
+    }
+
+    /**
+     * Unregisters the listener and clears the index.
+     */
+    public void dispose() {
+        final ServiceRegistration<ResourceChangeListener> reg = this.registration;
+        if ( reg != null ) {
+            this.registration = null;
+            try {
+                reg.unregister();
+            } catch ( final IllegalStateException ise ) {
+                // ignore, already unregistered
+            }
+        }
+        this.clear();
+    }
+
+    /**
+     * Get the super type of the resource type.
+     *
+     * @param resourceType The resource type
+     * @param lookup The lookup used on a cache miss
+     * @return The super type or <code>null</code>
+     */
+    public String getParentResourceType(final String resourceType, final Lookup lookup) {
+        if ( resourceType == null ) {
+            return null;
+        }
+        return getEntry(resourceType, lookup, this.generation.get()).superType;
+    }
+
+    /**
+     * Get the cached entry for the resource type or create a new one.
+     * Entries for resource types outside the search paths are not cached
+     * and have no locations.
+     */
+    private Entry getEntry(final String resourceType, final Lookup lookup, final long expectedGeneration) {
+        Entry entry = this.superTypes.get(resourceType);
+        if ( entry == null ) {
+            final String[] locations = getLocations(resourceType);
+            entry = new Entry(lookup.getParentResourceType(resourceType), locations);
+            if ( locations != null ) {
+                put(this.superTypes, resourceType, entry, expectedGeneration);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Get the chain of the resource type and all its super types.
+     *
+     * @param resourceType The resource type to start with
+     * @param lookup The lookup used on a cache miss
+     * @return The chain
+     */
+    public SuperTypeChain getSuperTypeChain(final String resourceType, final Lookup lookup) {
+        SuperTypeChain chain = this.chains.get(resourceType);
+        if ( chain == null ) {
+            final long currentGeneration = this.generation.get();
+            final List<String> types = new ArrayList<String>();
+            final Set<String> checked = new HashSet<String>();
+            boolean cyclic = false;
+            boolean cacheable = true;
+            String current = resourceType;
+            while ( current != null ) {
+                if ( !checked.add(current) ) {
+                    cyclic = true;
+                    break;
+                }
+                types.add(current);
+                final Entry entry = getEntry(current, lookup, currentGeneration);
+                cacheable &= entry.locations != null;
+                current = entry.superType;
+            }
+            chain = new SuperTypeChain(types.toArray(new String[types.size()]), cyclic);
+            if ( cacheable ) {
+                put(this.chains, resourceType, chain, currentGeneration);
+            }
+        }
+        return chain;
+    }
+
+    private <T> void put(final Map<String, T> map, final String key, final T value, final long expectedGeneration) {
+        if ( expectedGeneration != this.generation.get() ) {
+            return;
+        }
+        if ( map.size() >= MAX_ENTRIES ) {
+            logger.debug("Resource type hierarchy index reached its limit of {} entries, clearing it.", MAX_ENTRIES);
+            map.clear();
+        }
+        map.put(key, value);
+        if ( expectedGeneration != this.generation.get() ) {
+            // an invalidation happened concurrently, the value might be stale
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Return all paths a resource type resource is searched at or
+     * <code>null</code> if one of them is outside of the search paths.
+     */
+    private String[] getLocations(final String resourceType) {
+        final String rtPath = ResourceUtil.resourceTypeToPath(resourceType);
+        if ( rtPath.startsWith("/") ) {
+            final String path = ResourceUtil.normalize(rtPath);
+            if ( path != null ) {
+                for(final String searchPath : this.searchPaths) {
+                    if ( path.startsWith(searchPath) ) {
+                        return new String[] {path};
+                    }
+                }
+            }
+            return null;
+        }
+        final String[] locations = new String[this.searchPaths.length];
+        for(int i=0; i<this.searchPaths.length; i++) {
+            locations[i] = ResourceUtil.normalize(this.searchPaths[i] + rtPath);
+            if ( locations[i] == null ) {
+                return null;
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Clear the whole index.
+     */
+    public void clear() {
+        this.generation.incrementAndGet();
+        this.superTypes.clear();
+        this.chains.clear();
+    }
+
+    /**
+     * Return the number of cached resource types.
+     */
+    public int size() {
+        return this.superTypes.size();
+    }
+
+    /**
+     * @see org.apache.sling.api.resource.observation.ResourceChangeListener#onChange(java.util.List)
+     */
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if ( changes.isEmpty() ) {
+            return;
+        }
+        // make sure no outdated values are added while we remove entries
+        this.generation.incrementAndGet();
+        boolean invalidated = false;
+        for(final ResourceChange change : changes) {
+            final String path = change.getPath();
+            if ( path == null ) {
+                continue;
+            }
+            final Iterator<Entry> iter = this.superTypes.values().iterator();
+            while ( iter.hasNext() ) {
+                if ( isAffectedBy(iter.next(), path) ) {
+                    iter.remove();
+                    invalidated = true;
+                }
+            }
+        }
+        if ( invalidated ) {
+            // chains are cheap to rebuild from the remaining entries
+            this.chains.clear();
+        }
+    }
+
+    private boolean isAffectedBy(final Entry entry, final String path) {
+        if ( "/".equals(path) ) {
+            return true;
+        }
+        for(final String location : entry.locations) {
+            if ( location.equals(path)
+                 || (location.startsWith(path) && location.charAt(path.length()) == '/') ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -55,6 +55,8 @@ public interface MapConfigurationProvider extends ResourceResolverFactory {
 
     boolean hasVanityPathPrecedence();
 
+    boolean isMappingSnapshotEnabled();
+
     public class VanityPathConfig implements Comparable<VanityPathConfig> {
         public final boolean isExclude;
         public final String prefix;
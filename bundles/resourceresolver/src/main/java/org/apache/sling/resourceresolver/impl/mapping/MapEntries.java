@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -38,12 +39,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -98,6 +99,8 @@ public class MapEntries implements
 
     private static final String VANITY_BLOOM_FILTER_NAME = "vanityBloomFilter.txt";
 
+    private static final String SNAPSHOT_NAME = "mapEntriesSnapshot.bin";
+
     private static final int VANITY_BLOOM_FILTER_MAX_ENTRIES = 10000000;
 
     /** Key for the global list. */
@@ -122,13 +125,16 @@ public class MapEntries implements
 
     private volatile ServiceRegistration<ResourceChangeListener> registration;
 
-    private Map<String, List<MapEntry>> resolveMapsMap;
+    private PrefixTrie<List<MapEntry>> resolveMapsMap;
+
+    /** The global list of the resolve maps indexed by literal prefix */
+    private volatile MapEntryPrefixIndex globalResolveMaps;
 
     private Collection<MapEntry> mapMaps;
 
-    private Map <String,List <String>> vanityTargets;
+    private PrefixTrie<List<String>> vanityTargets;
 
-    private Map<String, Map<String, String>> aliasMap;
+    private PrefixTrie<Map<String, String>> aliasMap;
 
     private final ReentrantLock initializing = new ReentrantLock();
 
@@ -136,13 +142,23 @@ public class MapEntries implements
 
     private final File vanityBloomFilterFile;
 
+    /** The snapshot file or <code>null</code> if snapshots are disabled. */
+    private final File snapshotFile;
+
     private byte[] vanityBloomFilter;
 
     private Timer timer;
 
     private boolean updateBloomFilterFile = false;
 
-    @SuppressWarnings({ "unchecked", "deprecation" })
+    /**
+     * The changes reported by observation while the tables are reconciled,
+     * <code>null</code> if no reconciliation is running. Guarded by the
+     * initialization lock.
+     */
+    private List<ResourceChange> reconcileChanges;
+
+    @SuppressWarnings("deprecation")
     public MapEntries(final MapConfigurationProvider factory, final BundleContext bundleContext, final EventAdmin eventAdmin)
         throws LoginException, IOException {
 
@@ -152,12 +168,17 @@ public class MapEntries implements
         this.factory = factory;
         this.eventAdmin = eventAdmin;
 
-        this.resolveMapsMap = Collections.singletonMap(GLOBAL_LIST_KEY, (List<MapEntry>)Collections.EMPTY_LIST);
+        this.resolveMapsMap = new PrefixTrie<List<MapEntry>>();
+        this.resolveMapsMap.put(GLOBAL_LIST_KEY, Collections.<MapEntry> emptyList());
+        this.globalResolveMaps = new MapEntryPrefixIndex();
         this.mapMaps = Collections.<MapEntry> emptyList();
-        this.vanityTargets = Collections.<String,List <String>>emptyMap();
-        this.aliasMap = Collections.<String, Map<String, String>>emptyMap();
+        this.vanityTargets = new PrefixTrie<List<String>>();
+        this.aliasMap = new PrefixTrie<Map<String, String>>();
+
+        this.snapshotFile = factory.isMappingSnapshotEnabled() ? bundleContext.getDataFile(SNAPSHOT_NAME) : null;
+        final MapEntriesSnapshot snapshot = readSnapshot();
 
-        doInit();
+        doInit(snapshot);
 
         final Dictionary<String, Object> props = new Hashtable<String, Object>();
         final String[] paths = new String[factory.getObservationPaths().length];
@@ -172,7 +193,18 @@ public class MapEntries implements
 
         this.vanityCounter = new AtomicLong(0);
         this.vanityBloomFilterFile = bundleContext.getDataFile(VANITY_BLOOM_FILTER_NAME);
-        initializeVanityPaths();
+        initializeVanityPaths(snapshot);
+
+        if (snapshot != null) {
+            startReconciliation(factory.getAdministrativeResourceResolver(authInfo));
+        } else if (this.snapshotFile != null) {
+            this.initializing.lock();
+            try {
+                writeSnapshot();
+            } finally {
+                this.initializing.unlock();
+            }
+        }
     }
 
     /**
@@ -181,6 +213,13 @@ public class MapEntries implements
      * null-ed.
      */
     protected void doInit() {
+        doInit(null);
+    }
+
+    /**
+     * Initialize using the aliases of the snapshot if available.
+     */
+    private void doInit(final MapEntriesSnapshot snapshot) {
 
         this.initializing.lock();
         try {
@@ -190,12 +229,16 @@ public class MapEntries implements
                 return;
             }
 
-            final Map<String, List<MapEntry>> newResolveMapsMap = new ConcurrentHashMap<String, List<MapEntry>>();
+            final PrefixTrie<List<MapEntry>> newResolveMapsMap = new PrefixTrie<List<MapEntry>>();
 
             //optimization made in SLING-2521
             if (this.factory.isOptimizeAliasResolutionEnabled()) {
-                final Map<String, Map<String, String>> aliasMap = this.loadAliases(resolver);
-                this.aliasMap = aliasMap;
+                if (snapshot != null && snapshot.getAliases() != null) {
+                    this.aliasMap = toPrefixTrie(snapshot.getAliases());
+                } else {
+                    final PrefixTrie<Map<String, String>> aliasMap = this.loadAliases(resolver);
+                    this.aliasMap = aliasMap;
+                }
             }
 
             this.resolveMapsMap = newResolveMapsMap;
@@ -222,6 +265,14 @@ public class MapEntries implements
      * @throws IOException
      */
     protected void initializeVanityPaths() throws IOException {
+        initializeVanityPaths(null);
+    }
+
+    /**
+     * Initialize the vanity paths using the snapshot if available. The
+     * snapshot is not used if the bloom filter needs to be created.
+     */
+    private void initializeVanityPaths(final MapEntriesSnapshot snapshot) throws IOException {
         this.initializing.lock();
         try {
             if (this.factory.isVanityPathEnabled()) {
@@ -255,9 +306,17 @@ public class MapEntries implements
                 timer = new Timer();
                 timer.schedule(new BloomFilterTask(), 60 * 1000);
 
-                final Map<String, List<String>> vanityTargets = this
-                        .loadVanityPaths(createVanityBloomFilter);
-                this.vanityTargets = vanityTargets;
+                if (snapshot != null && snapshot.getVanityEntries() != null && !createVanityBloomFilter) {
+                    for (final Map.Entry<String, List<MapEntry>> entry : snapshot.getVanityEntries().entrySet()) {
+                        this.resolveMapsMap.put(entry.getKey(), entry.getValue());
+                    }
+                    this.vanityCounter.set(snapshot.getVanityCounter());
+                    this.vanityTargets = toPrefixTrie(snapshot.getVanityTargets());
+                } else {
+                    final PrefixTrie<List<String>> vanityTargets = this
+                            .loadVanityPaths(createVanityBloomFilter);
+                    this.vanityTargets = vanityTargets;
+                }
             }
         } finally {
             this.initializing.unlock();
@@ -322,16 +381,28 @@ public class MapEntries implements
         final String actualContentPath = getActualContentPath(path);
         final String actualContentPathPrefix = actualContentPath + "/";
 
-        for (final String target : this.vanityTargets.keySet()) {
-            if (target.startsWith(actualContentPathPrefix) || target.equals(actualContentPath)) {
-                changed |= removeVanityPath(target);
-            }
+        for (final String target : this.vanityTargets.getKeysWithPrefix(actualContentPathPrefix)) {
+            changed |= removeVanityPath(target);
+        }
+        if (this.vanityTargets.containsKey(actualContentPath)) {
+            changed |= removeVanityPath(actualContentPath);
         }
         if (this.factory.isOptimizeAliasResolutionEnabled()) {
-            for (final String contentPath : this.aliasMap.keySet()) {
-                if (path.startsWith(contentPath + "/") || path.equals(contentPath)) {
-                    changed |= removeAlias(contentPath, null, resolverRefreshed);
-                } else if ( contentPath.startsWith(actualContentPathPrefix) ) {
+            // the aliases of the path and its ancestors
+            final int[] lengths = getAncestorOrSelfLengths(path);
+            final List<Map<String, String>> aliases = this.aliasMap.getPrefixValues(path, lengths);
+            final Set<String> ancestorOrSelfPaths = new HashSet<String>();
+            for (int i = 0; i < lengths.length; i++) {
+                if (aliases.get(i) != null) {
+                    ancestorOrSelfPaths.add(path.substring(0, lengths[i]));
+                }
+            }
+            for (final String contentPath : ancestorOrSelfPaths) {
+                changed |= removeAlias(contentPath, null, resolverRefreshed);
+            }
+            // the aliases below the path
+            for (final String contentPath : this.aliasMap.getKeysWithPrefix(actualContentPathPrefix)) {
+                if (!ancestorOrSelfPaths.contains(contentPath)) {
                     changed |= removeAlias(contentPath, path, resolverRefreshed);
                 }
             }
@@ -339,6 +410,33 @@ public class MapEntries implements
         return changed;
     }
 
+    /**
+     * Get the lengths of the ancestor paths and the path itself in ascending
+     * order, an ancestor path ends before a slash of the path.
+     */
+    private static int[] getAncestorOrSelfLengths(final String path) {
+        final int[] lengths = new int[path.length() + 1];
+        int count = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                lengths[count++] = i;
+            }
+        }
+        lengths[count++] = path.length();
+        return Arrays.copyOf(lengths, count);
+    }
+
+    /**
+     * Get a map loaded from the snapshot as a trie.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> PrefixTrie<T> toPrefixTrie(final Map<String, T> map) {
+        if (map instanceof PrefixTrie) {
+            return (PrefixTrie<T>) map;
+        }
+        return new PrefixTrie<T>(map);
+    }
+
     /**
      * Remove all aliases for the content path
      * @param contentPath The content path
@@ -415,6 +513,7 @@ public class MapEntries implements
         // sort global list and add to map
         Collections.sort(globalResolveMap);
         resolveMapsMap.put(GLOBAL_LIST_KEY, globalResolveMap);
+        this.globalResolveMaps = new MapEntryPrefixIndex(globalResolveMap);
         this.mapMaps = Collections.unmodifiableSet(new TreeSet<MapEntry>(newMapMaps.values()));
     }
 
@@ -424,10 +523,10 @@ public class MapEntries implements
         boolean needsUpdate = false;
         if (isAllVanityPathEntriesCached() || vanityCounter.longValue() < this.factory.getMaxCachedVanityPathEntries()) {
             // fill up the cache and the bloom filter
-            needsUpdate = loadVanityPath(resource, resolveMapsMap, vanityTargets, true, true);
+            needsUpdate = loadVanityPath(resource, resolveMapsMap, vanityTargets, vanityCounter, true, true);
         } else {
             // fill up the bloom filter
-            needsUpdate = loadVanityPath(resource, resolveMapsMap, vanityTargets, false, true);
+            needsUpdate = loadVanityPath(resource, resolveMapsMap, vanityTargets, vanityCounter, false, true);
         }
         if ( needsUpdate ) {
             updateBloomFilterFile = true;
@@ -548,6 +647,8 @@ public class MapEntries implements
         try {
             if (!initLocked) {
                 log.warn("dispose: Could not acquire initialization lock within 10 seconds; ongoing intialization may fail");
+            } else {
+                writeSnapshot();
             }
 
             // immediately set the resolver field to null to indicate
@@ -598,7 +699,7 @@ public class MapEntries implements
             key = requestPath.substring(secondIndex);
         }
 
-        return new MapEntryIterator(key, resolveMapsMap, this.factory.hasVanityPathPrecedence());
+        return new MapEntryIterator(requestPath, key, resolveMapsMap, this.factory.hasVanityPathPrecedence());
     }
 
     @Override
@@ -697,48 +798,69 @@ public class MapEntries implements
                 continue;
             }
 
-            boolean changed = false;
-            // removal of a resource is handled differently
-            if (rc.getType() == ResourceChange.ChangeType.REMOVED ) {
-
-                final Boolean result = handleConfigurationUpdate(path, hasReloadedConfig, resolverRefreshed, true);
-                if ( result != null ) {
-                    if ( result ) {
-                        changed = true;
-                    } else {
-                        changed |= removeResource(path, resolverRefreshed);
-                    }
+            final boolean changed;
+            this.initializing.lock();
+            try {
+                if (this.reconcileChanges != null) {
+                    this.reconcileChanges.add(rc);
                 }
+                changed = handleChange(rc, hasReloadedConfig, resolverRefreshed);
+            } finally {
+                this.initializing.unlock();
+            }
 
-            //session.move() is handled differently see also SLING-3713 and
-            } else if (rc.getType() == ResourceChange.ChangeType.ADDED ) {
+            if ( changed ) {
+                this.sendChangeEvent();
+            }
+        }
+    }
 
-                final Boolean result = handleConfigurationUpdate(path, hasReloadedConfig, resolverRefreshed, false);
-                if ( result != null ) {
-                    if ( result ) {
-                        changed = true;
-                    } else {
-                        changed |= addResource(path, resolverRefreshed);
-                    }
+    /**
+     * Update the tables for a single change.
+     * @return {@code true} if the tables have been changed
+     */
+    private boolean handleChange(final ResourceChange rc,
+            final AtomicBoolean hasReloadedConfig,
+            final AtomicBoolean resolverRefreshed) {
+        boolean changed = false;
+        final String path = rc.getPath();
+        // removal of a resource is handled differently
+        if (rc.getType() == ResourceChange.ChangeType.REMOVED ) {
+
+            final Boolean result = handleConfigurationUpdate(path, hasReloadedConfig, resolverRefreshed, true);
+            if ( result != null ) {
+                if ( result ) {
+                    changed = true;
+                } else {
+                    changed |= removeResource(path, resolverRefreshed);
                 }
+            }
 
-            } else if (rc.getType() == ResourceChange.ChangeType.CHANGED ) {
+        //session.move() is handled differently see also SLING-3713 and
+        } else if (rc.getType() == ResourceChange.ChangeType.ADDED ) {
 
-                final Boolean result = handleConfigurationUpdate(path, hasReloadedConfig, resolverRefreshed, false);
-                if ( result != null ) {
-                    if ( result ) {
-                        changed = true;
-                    } else {
-                        changed |= updateResource(path, resolverRefreshed);
-                    }
+            final Boolean result = handleConfigurationUpdate(path, hasReloadedConfig, resolverRefreshed, false);
+            if ( result != null ) {
+                if ( result ) {
+                    changed = true;
+                } else {
+                    changed |= addResource(path, resolverRefreshed);
                 }
-
             }
 
-            if ( changed ) {
-                this.sendChangeEvent();
+        } else if (rc.getType() == ResourceChange.ChangeType.CHANGED ) {
+
+            final Boolean result = handleConfigurationUpdate(path, hasReloadedConfig, resolverRefreshed, false);
+            if ( result != null ) {
+                if ( result ) {
+                    changed = true;
+                } else {
+                    changed |= updateResource(path, resolverRefreshed);
+                }
             }
+
         }
+        return changed;
     }
 
     // ---------- internal
@@ -762,6 +884,210 @@ public class MapEntries implements
         }
     }
 
+    /**
+     * The configuration relevant for the content of the snapshot. A snapshot
+     * is only used if it has been written with the same configuration.
+     */
+    private String getSnapshotConfiguration() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("aliases=").append(this.factory.isOptimizeAliasResolutionEnabled());
+        sb.append(";vanityPaths=").append(this.factory.isVanityPathEnabled());
+        sb.append(";maxEntries=").append(this.factory.getMaxCachedVanityPathEntries());
+        sb.append(";redirectStatus=").append(this.factory.getDefaultVanityPathRedirectStatus());
+        sb.append(";observationPaths=");
+        for (final Path path : this.factory.getObservationPaths()) {
+            sb.append(path.getPath()).append(',');
+        }
+        sb.append(";vanityPathConfig=");
+        if (this.factory.getVanityPathConfig() != null) {
+            for (final VanityPathConfig config : this.factory.getVanityPathConfig()) {
+                sb.append(config.isExclude ? '-' : '+').append(config.prefix).append(',');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Read the snapshot if enabled and valid for the current configuration.
+     */
+    private MapEntriesSnapshot readSnapshot() {
+        if (this.snapshotFile == null) {
+            return null;
+        }
+        try {
+            final MapEntriesSnapshot snapshot = MapEntriesSnapshot.read(this.snapshotFile, getSnapshotConfiguration());
+            if (snapshot == null) {
+                log.info("No valid mapping snapshot found at {}, loading mappings from the repository",
+                        this.snapshotFile.getAbsolutePath());
+            }
+            return snapshot;
+        } catch (final IOException e) {
+            log.warn("Unable to read mapping snapshot, loading mappings from the repository", e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the snapshot if enabled. The caller has to hold the
+     * initialization lock.
+     */
+    private void writeSnapshot() {
+        if (this.snapshotFile == null) {
+            return;
+        }
+        final boolean vanityPaths = this.factory.isVanityPathEnabled();
+        final Map<String, List<MapEntry>> vanityEntries;
+        if (vanityPaths) {
+            vanityEntries = new HashMap<String, List<MapEntry>>(this.resolveMapsMap);
+            vanityEntries.remove(GLOBAL_LIST_KEY);
+        } else {
+            vanityEntries = null;
+        }
+        final MapEntriesSnapshot snapshot = new MapEntriesSnapshot(
+                this.factory.isOptimizeAliasResolutionEnabled() ? this.aliasMap : null,
+                vanityEntries,
+                vanityPaths ? this.vanityTargets : null,
+                this.vanityCounter.get());
+        try {
+            snapshot.write(this.snapshotFile, getSnapshotConfiguration());
+        } catch (final IOException e) {
+            log.error("Error while saving mapping snapshot to disk", e);
+        }
+    }
+
+    /**
+     * Reload the aliases and vanity paths in the background. Until the
+     * reload is finished the tables read from the snapshot are used.
+     * @param reconcileResolver Resolver used for the reload, closed at the end
+     */
+    private void startReconciliation(final ResourceResolver reconcileResolver) {
+        final Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    reconcile(reconcileResolver);
+                } finally {
+                    reconcileResolver.close();
+                }
+            }
+        }, "Apache Sling Map Entries Reconciliation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The new tables are loaded with a separate resolver without holding the
+     * lock, so observation keeps updating the current tables in the meantime.
+     * The changes reported while loading are recorded and applied again on
+     * top of the new tables once they are swapped in, as the load might not
+     * have seen them.
+     */
+    private void reconcile(final ResourceResolver reconcileResolver) {
+        final long start = System.currentTimeMillis();
+        final MapConfigurationProvider factory = this.factory;
+        this.initializing.lock();
+        try {
+            if (this.resolver == null || factory == null) {
+                return;
+            }
+            this.reconcileChanges = new ArrayList<ResourceChange>();
+        } finally {
+            this.initializing.unlock();
+        }
+        try {
+            reconcileResolver.refresh();
+            final ReconciledTables tables = new ReconciledTables(reconcileResolver, factory);
+
+            this.initializing.lock();
+            try {
+                final List<ResourceChange> changes = this.reconcileChanges;
+                this.reconcileChanges = null;
+                if (this.resolver == null) {
+                    return;
+                }
+                tables.apply();
+                applyReconcileChanges(changes);
+                writeSnapshot();
+                log.info("Reconciled mappings from snapshot with the repository in {}ms, reapplied {} changes",
+                        System.currentTimeMillis() - start, changes.size());
+            } finally {
+                this.initializing.unlock();
+            }
+        } catch (final Exception e) {
+            log.warn("Unable to reconcile mappings from snapshot with the repository", e);
+            return;
+        } finally {
+            this.initializing.lock();
+            try {
+                this.reconcileChanges = null;
+            } finally {
+                this.initializing.unlock();
+            }
+        }
+        sendChangeEvent();
+    }
+
+    /**
+     * Apply the changes recorded during reconciliation to the new tables,
+     * called while holding the lock. The new tables might already contain
+     * a change, so each changed resource is removed and read again.
+     */
+    private void applyReconcileChanges(final List<ResourceChange> changes) {
+        final AtomicBoolean resolverRefreshed = new AtomicBoolean(false);
+        for (final ResourceChange rc : changes) {
+            final String path = rc.getPath();
+            if (this.factory.isMapConfiguration(path)) {
+                // the configuration is not part of the reconciled tables
+                continue;
+            }
+            if (rc.getType() == ResourceChange.ChangeType.REMOVED) {
+                removeResource(path, resolverRefreshed);
+            } else {
+                updateResource(path, resolverRefreshed);
+            }
+        }
+    }
+
+    /**
+     * The alias and vanity path tables loaded for reconciliation.
+     */
+    private final class ReconciledTables {
+
+        private PrefixTrie<Map<String, String>> aliases;
+
+        private PrefixTrie<List<MapEntry>> vanityEntries;
+
+        private PrefixTrie<List<String>> vanityTargets;
+
+        private final AtomicLong vanityCounter = new AtomicLong();
+
+        ReconciledTables(final ResourceResolver resolver, final MapConfigurationProvider factory) {
+            if (factory.isOptimizeAliasResolutionEnabled()) {
+                this.aliases = loadAliases(resolver);
+            }
+            if (factory.isVanityPathEnabled()) {
+                this.vanityEntries = new PrefixTrie<List<MapEntry>>();
+                this.vanityTargets = loadVanityPaths(resolver, false, this.vanityEntries, this.vanityCounter);
+            }
+        }
+
+        /**
+         * Replace the current tables, called while holding the lock.
+         */
+        void apply() {
+            if (this.aliases != null) {
+                MapEntries.this.aliasMap = this.aliases;
+            }
+            if (this.vanityEntries != null) {
+                this.vanityEntries.put(GLOBAL_LIST_KEY, MapEntries.this.resolveMapsMap.get(GLOBAL_LIST_KEY));
+                MapEntries.this.resolveMapsMap = this.vanityEntries;
+                MapEntries.this.vanityTargets = this.vanityTargets;
+                MapEntries.this.vanityCounter.set(this.vanityCounter.get());
+            }
+        }
+    }
+
     private boolean isAllVanityPathEntriesCached() {
         return this.factory.getMaxCachedVanityPathEntries() == -1;
     }
@@ -820,11 +1146,11 @@ public class MapEntries implements
                 }
                 if ( isValid ) {
                     if (this.factory.isMaxCachedVanityPathEntriesStartup() || vanityCounter.longValue() < this.factory.getMaxCachedVanityPathEntries()) {
-                        loadVanityPath(resource, resolveMapsMap, vanityTargets, true, false);
+                        loadVanityPath(resource, resolveMapsMap, vanityTargets, vanityCounter, true, false);
                         entryMap = resolveMapsMap;
                     } else {
                         final Map <String, List<String>> targetPaths = new HashMap <String, List<String>>();
-                        loadVanityPath(resource, entryMap, targetPaths, true, false);
+                        loadVanityPath(resource, entryMap, targetPaths, null, true, false);
                     }
                 }
             }
@@ -1001,8 +1327,8 @@ public class MapEntries implements
      * Load aliases Search for all nodes inheriting the sling:alias
      * property
      */
-    private Map<String, Map<String, String>> loadAliases(final ResourceResolver resolver) {
-        final Map<String, Map<String, String>> map = new ConcurrentHashMap<String, Map<String, String>>();
+    private PrefixTrie<Map<String, String>> loadAliases(final ResourceResolver resolver) {
+        final PrefixTrie<Map<String, String>> map = new PrefixTrie<Map<String, String>>();
         final String queryString = "SELECT sling:alias FROM nt:base WHERE sling:alias IS NOT NULL";
         final Iterator<Resource> i = resolver.findResources(queryString, "sql");
         while (i.hasNext()) {
@@ -1099,13 +1425,23 @@ public class MapEntries implements
      * Load vanity paths Search for all nodes inheriting the sling:VanityPath
      * mixin
      */
-    private Map <String, List<String>> loadVanityPaths(boolean createVanityBloomFilter) {
+    private PrefixTrie<List<String>> loadVanityPaths(boolean createVanityBloomFilter) {
+        return loadVanityPaths(resolver, createVanityBloomFilter, resolveMapsMap, vanityCounter);
+    }
+
+    /**
+     * Load vanity paths into the given map, counting the cached entries
+     */
+    private PrefixTrie<List<String>> loadVanityPaths(final ResourceResolver resolver,
+            final boolean createVanityBloomFilter,
+            final Map<String, List<MapEntry>> entryMap,
+            final AtomicLong counter) {
         // sling:vanityPath (lowercase) is the property name
-        final Map <String, List<String>> targetPaths = new ConcurrentHashMap <String, List<String>>();
+        final PrefixTrie<List<String>> targetPaths = new PrefixTrie<List<String>>();
         final String queryString = "SELECT sling:vanityPath, sling:redirect, sling:redirectStatus FROM nt:base WHERE sling:vanityPath IS NOT NULL";
         final Iterator<Resource> i = resolver.findResources(queryString, "sql");
 
-        while (i.hasNext() && (createVanityBloomFilter || isAllVanityPathEntriesCached() || vanityCounter.longValue() < this.factory.getMaxCachedVanityPathEntries())) {
+        while (i.hasNext() && (createVanityBloomFilter || isAllVanityPathEntriesCached() || counter.longValue() < this.factory.getMaxCachedVanityPathEntries())) {
             final Resource resource = i.next();
             boolean isValid = false;
             for(final Path sPath : this.factory.getObservationPaths()) {
@@ -1115,13 +1451,13 @@ public class MapEntries implements
                 }
             }
             if ( isValid ) {
-                if (isAllVanityPathEntriesCached() || vanityCounter.longValue() < this.factory.getMaxCachedVanityPathEntries()) {
+                if (isAllVanityPathEntriesCached() || counter.longValue() < this.factory.getMaxCachedVanityPathEntries()) {
                     // fill up the cache and the bloom filter
-                    loadVanityPath(resource, resolveMapsMap, targetPaths, true,
+                    loadVanityPath(resource, entryMap, targetPaths, counter, true,
                             createVanityBloomFilter);
                 } else {
                     // fill up the bloom filter
-                    loadVanityPath(resource, resolveMapsMap, targetPaths, false,
+                    loadVanityPath(resource, entryMap, targetPaths, counter, false,
                             createVanityBloomFilter);
                 }
             }
@@ -1135,7 +1471,8 @@ public class MapEntries implements
     /**
      * Load vanity path given a resource
      */
-    private boolean loadVanityPath(final Resource resource, final Map<String, List<MapEntry>> entryMap, final Map <String, List<String>> targetPaths, boolean addToCache, boolean newVanity) {
+    private boolean loadVanityPath(final Resource resource, final Map<String, List<MapEntry>> entryMap, final Map <String, List<String>> targetPaths,
+            final AtomicLong counter, boolean addToCache, boolean newVanity) {
 
         if (!isValidVanityPath(resource)) {
             return false;
@@ -1199,9 +1536,9 @@ public class MapEntries implements
                     if (addedEntry) {
                         // 3. keep the path to return
                         this.updateTargetPaths(targetPaths, redirect, checkPath);
-                        //increment only if the instance variable
-                        if (entryMap == resolveMapsMap) {
-                            vanityCounter.addAndGet(2);
+                        //increment only for the cached entries
+                        if (counter != null) {
+                            counter.addAndGet(2);
                         }
 
                         if (newVanity) {
@@ -1373,9 +1710,15 @@ public class MapEntries implements
 
     private final class MapEntryIterator implements Iterator<MapEntry> {
 
-        private final Map<String, List<MapEntry>> resolveMapsMap;
+        private final String key;
+
+        /** The lengths of the candidate vanity paths, longest first */
+        private final int[] lengths;
+
+        private int lengthIndex;
 
-        private String key;
+        /** The entries of the candidate vanity paths, if all are cached */
+        private final List<List<MapEntry>> cachedEntries;
 
         private MapEntry next;
 
@@ -1387,14 +1730,54 @@ public class MapEntries implements
 
         private boolean vanityPathPrecedence;
 
-        public MapEntryIterator(final String startKey, final Map<String, List<MapEntry>> resolveMapsMap, final boolean vanityPathPrecedence) {
+        public MapEntryIterator(final String requestPath, final String startKey,
+                final PrefixTrie<List<MapEntry>> resolveMapsMap, final boolean vanityPathPrecedence) {
             this.key = startKey;
-            this.resolveMapsMap = resolveMapsMap;
-            this.globalListIterator = this.resolveMapsMap.get(GLOBAL_LIST_KEY).iterator();
+            this.lengths = startKey == null ? new int[0] : getCandidateLengths(startKey);
+            if (startKey != null && MapEntries.this.isAllVanityPathEntriesCached()) {
+                // look up all candidates in a single walk of the trie
+                final int[] ascending = new int[this.lengths.length];
+                for (int i = 0; i < ascending.length; i++) {
+                    ascending[i] = this.lengths[this.lengths.length - 1 - i];
+                }
+                this.cachedEntries = resolveMapsMap.getPrefixValues(startKey, ascending);
+            } else {
+                this.cachedEntries = null;
+            }
+            this.globalListIterator = MapEntries.this.globalResolveMaps.iterator(requestPath);
             this.vanityPathPrecedence = vanityPathPrecedence;
             this.seek();
         }
 
+        /**
+         * Get the lengths of the candidate vanity paths: the key and its
+         * parents, each without selectors and extension.
+         */
+        private int[] getCandidateLengths(final String key) {
+            final int[] result = new int[key.length() + 1];
+            int count = 0;
+            int length = key.length();
+            while (true) {
+                // remove selectors and extension
+                final int lastSlashPos = key.lastIndexOf('/', length - 1);
+                final int lastDotPos = key.indexOf('.', lastSlashPos);
+                if (lastDotPos != -1 && lastDotPos < length) {
+                    length = lastDotPos;
+                }
+                result[count++] = length;
+                // recurse to the parent
+                if (length <= 1) {
+                    break;
+                }
+                final int lastSlash = key.lastIndexOf('/', length - 1);
+                if (lastSlash <= 0) {
+                    break;
+                }
+                length = lastSlash;
+            }
+            return Arrays.copyOf(result, count);
+        }
+
         /**
          * @see java.util.Iterator#hasNext()
          */
@@ -1432,34 +1815,17 @@ public class MapEntries implements
                 if (specialIterator != null && !specialIterator.hasNext()) {
                     specialIterator = null;
                 }
-                while (specialIterator == null && key != null) {
-                    // remove selectors and extension
-                    final int lastSlashPos = key.lastIndexOf('/');
-                    final int lastDotPos = key.indexOf('.', lastSlashPos);
-                    if (lastDotPos != -1) {
-                        key = key.substring(0, lastDotPos);
-                    }
-
+                while (specialIterator == null && lengthIndex < lengths.length) {
                     final List<MapEntry> special;
-                    if (MapEntries.this.isAllVanityPathEntriesCached()) {
-                        special = this.resolveMapsMap.get(key);
+                    if (this.cachedEntries != null) {
+                        special = this.cachedEntries.get(lengths.length - 1 - lengthIndex);
                     } else {
-                        special = MapEntries.this.getMapEntryList(key)
-;                    }
+                        special = MapEntries.this.getMapEntryList(key.substring(0, lengths[lengthIndex]));
+                    }
+                    lengthIndex++;
                     if (special != null) {
                         specialIterator = special.iterator();
                     }
-                    // recurse to the parent
-                    if (key.length() > 1) {
-                        final int lastSlash = key.lastIndexOf("/");
-                        if (lastSlash == 0) {
-                            key = null;
-                        } else {
-                            key = key.substring(0, lastSlash);
-                        }
-                    } else {
-                        key = null;
-                    }
                 }
                 if (this.specialIterator != null && this.specialIterator.hasNext()) {
                     this.nextSpecial = this.specialIterator.next();
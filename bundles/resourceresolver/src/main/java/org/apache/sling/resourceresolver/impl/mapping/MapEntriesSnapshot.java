@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The <code>MapEntriesSnapshot</code> is a persisted copy of the alias and
+ * vanity path tables of the {@link MapEntries}.
+ * <p>
+ * The snapshot is a versioned binary file. It records the configuration it
+ * has been created with and is only used if the current configuration is the
+ * same. The file is memory mapped for reading.
+ */
+final class MapEntriesSnapshot {
+
+    /** The file header: "SLMS". */
+    private static final int MAGIC = 0x534c4d53;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Map<String, String>> aliases;
+
+    private final Map<String, List<MapEntry>> vanityEntries;
+
+    private final Map<String, List<String>> vanityTargets;
+
+    private final long vanityCounter;
+
+    MapEntriesSnapshot(final Map<String, Map<String, String>> aliases,
+            final Map<String, List<MapEntry>> vanityEntries,
+            final Map<String, List<String>> vanityTargets,
+            final long vanityCounter) {
+        this.aliases = aliases;
+        this.vanityEntries = vanityEntries;
+        this.vanityTargets = vanityTargets;
+        this.vanityCounter = vanityCounter;
+    }
+
+    /**
+     * The alias map or <code>null</code> if aliases are not contained.
+     */
+    Map<String, Map<String, String>> getAliases() {
+        return aliases;
+    }
+
+    /**
+     * The vanity path entries by vanity path or <code>null</code> if
+     * vanity paths are not contained.
+     */
+    Map<String, List<MapEntry>> getVanityEntries() {
+        return vanityEntries;
+    }
+
+    /**
+     * The vanity paths by target path or <code>null</code> if
+     * vanity paths are not contained.
+     */
+    Map<String, List<String>> getVanityTargets() {
+        return vanityTargets;
+    }
+
+    long getVanityCounter() {
+        return vanityCounter;
+    }
+
+    /**
+     * Write the snapshot to the file. The file is replaced once the
+     * snapshot has been written completely.
+     *
+     * @param file The file
+     * @param configuration The configuration the tables have been created with
+     * @throws IOException If writing fails
+     */
+    void write(final File file, final String configuration) throws IOException {
+        final File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, configuration);
+
+            out.writeBoolean(aliases != null);
+            if (aliases != null) {
+                out.writeInt(aliases.size());
+                for (final Map.Entry<String, Map<String, String>> entry : aliases.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (final Map.Entry<String, String> alias : entry.getValue().entrySet()) {
+                        writeString(out, alias.getKey());
+                        writeString(out, alias.getValue());
+                    }
+                }
+            }
+
+            out.writeBoolean(vanityEntries != null);
+            if (vanityEntries != null) {
+                out.writeInt(vanityEntries.size());
+                for (final Map.Entry<String, List<MapEntry>> entry : vanityEntries.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (final MapEntry mapEntry : entry.getValue()) {
+                        writeString(out, mapEntry.getPattern());
+                        out.writeInt(mapEntry.getStatus());
+                        out.writeLong(mapEntry.getOrder());
+                        writeStrings(out, mapEntry.getRedirect());
+                    }
+                }
+                out.writeInt(vanityTargets.size());
+                for (final Map.Entry<String, List<String>> entry : vanityTargets.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeStrings(out, entry.getValue().toArray(new String[entry.getValue().size()]));
+                }
+                out.writeLong(vanityCounter);
+            }
+            out.writeInt(MAGIC);
+        } finally {
+            out.close();
+        }
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+                throw new IOException("Unable to replace snapshot " + file);
+            }
+        }
+    }
+
+    /**
+     * Read a snapshot.
+     *
+     * @param file The file
+     * @param configuration The current configuration
+     * @return The snapshot or <code>null</code> if the file does not exist, is
+     *         not complete or has been created with a different version or
+     *         configuration.
+     * @throws IOException If reading fails
+     */
+    static MapEntriesSnapshot read(final File file, final String configuration) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final FileChannel channel = in.getChannel();
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || !configuration.equals(readString(buffer))) {
+                return null;
+            }
+
+            Map<String, Map<String, String>> aliases = null;
+            if (buffer.get() != 0) {
+                final int size = buffer.getInt();
+                aliases = new PrefixTrie<Map<String, String>>();
+                for (int i = 0; i < size; i++) {
+                    final String parentPath = readString(buffer);
+                    final int count = buffer.getInt();
+                    final Map<String, String> parentMap = new LinkedHashMap<String, String>();
+                    for (int j = 0; j < count; j++) {
+                        parentMap.put(readString(buffer), readString(buffer));
+                    }
+                    aliases.put(parentPath, parentMap);
+                }
+            }
+
+            Map<String, List<MapEntry>> vanityEntries = null;
+            Map<String, List<String>> vanityTargets = null;
+            long vanityCounter = 0;
+            if (buffer.get() != 0) {
+                final int size = buffer.getInt();
+                vanityEntries = new LinkedHashMap<String, List<MapEntry>>(size);
+                for (int i = 0; i < size; i++) {
+                    final String key = readString(buffer);
+                    final int count = buffer.getInt();
+                    final List<MapEntry> entries = new ArrayList<MapEntry>(count);
+                    for (int j = 0; j < count; j++) {
+                        final String pattern = readString(buffer);
+                        final int status = buffer.getInt();
+                        final long order = buffer.getLong();
+                        final String[] redirect = readStrings(buffer);
+                        entries.add(new MapEntry(pattern, status, false, order, redirect));
+                    }
+                    vanityEntries.put(key, entries);
+                }
+                final int targets = buffer.getInt();
+                vanityTargets = new PrefixTrie<List<String>>();
+                for (int i = 0; i < targets; i++) {
+                    final String target = readString(buffer);
+                    final List<String> paths = new ArrayList<String>();
+                    for (final String path : readStrings(buffer)) {
+                        paths.add(path);
+                    }
+                    vanityTargets.put(target, paths);
+                }
+                vanityCounter = buffer.getLong();
+            }
+            if (buffer.getInt() != MAGIC) {
+                return null;
+            }
+            return new MapEntriesSnapshot(aliases, vanityEntries, vanityTargets, vanityCounter);
+        } catch (final BufferUnderflowException bue) {
+            // truncated file
+            return null;
+        } catch (final NegativeArraySizeException nase) {
+            // corrupt length
+            return null;
+        } catch (final IllegalArgumentException iae) {
+            // corrupt size or pattern
+            return null;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(final DataOutputStream out, final String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (final String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static String[] readStrings(final ByteBuffer buffer) {
+        final String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(buffer);
+        }
+        return values;
+    }
+}
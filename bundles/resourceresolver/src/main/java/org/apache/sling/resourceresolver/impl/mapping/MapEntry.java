@@ -302,6 +302,10 @@ public class MapEntry implements Comparable<MapEntry> {
         return status;
     }
 
+    public long getOrder() {
+        return order;
+    }
+
     // ---------- Comparable
 
     public int compareTo(final MapEntry m) {
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The <code>MapEntryPrefixIndex</code> indexes a sorted list of map entries
+ * by the literal prefix of their patterns.
+ * <p>
+ * A map entry pattern is anchored at the start of the path, so an entry can
+ * only match a path starting with the characters the pattern begins with
+ * before its first regular expression construct. Instead of trying every
+ * entry on a path, only the entries whose literal prefix is a prefix of the
+ * path are returned, in the order of the list. Entries without a literal
+ * prefix, e.g. those starting with a character class, are always returned.
+ */
+class MapEntryPrefixIndex {
+
+    private static final String META_CHARACTERS = "\\.[]{}()*+?^$|";
+
+    private static final String OPTIONAL_QUANTIFIERS = "*?{";
+
+    private final List<MapEntry> entries;
+
+    /** The indexes of the entries by literal prefix. */
+    private final PrefixTrie<BitSet> prefixes = new PrefixTrie<BitSet>();
+
+    public MapEntryPrefixIndex(final List<MapEntry> entries) {
+        this.entries = entries;
+        for (int i = 0; i < entries.size(); i++) {
+            final String prefix = getLiteralPrefix(entries.get(i).getPattern());
+            BitSet indexes = this.prefixes.get(prefix);
+            if (indexes == null) {
+                indexes = new BitSet(entries.size());
+                this.prefixes.put(prefix, indexes);
+            }
+            indexes.set(i);
+        }
+    }
+
+    public MapEntryPrefixIndex() {
+        this(Collections.<MapEntry> emptyList());
+    }
+
+    /**
+     * Returns the characters any string matched by the pattern starts with.
+     */
+    static String getLiteralPrefix(final String pattern) {
+        if (!pattern.startsWith("^") || pattern.indexOf('|') != -1) {
+            // not anchored or with alternatives
+            return "";
+        }
+        int end = 1;
+        while (end < pattern.length() && META_CHARACTERS.indexOf(pattern.charAt(end)) == -1) {
+            end++;
+        }
+        if (end < pattern.length() && end > 1 && OPTIONAL_QUANTIFIERS.indexOf(pattern.charAt(end)) != -1) {
+            // the last character might not be present
+            end--;
+        }
+        return pattern.substring(1, end);
+    }
+
+    /**
+     * Returns the entries which might match the path in the order of the list.
+     */
+    public Iterator<MapEntry> iterator(final String path) {
+        if (path == null) {
+            return Collections.<MapEntry> emptyIterator();
+        }
+        final List<BitSet> candidates = this.prefixes.getPrefixValues(path);
+        if (candidates.isEmpty()) {
+            return Collections.<MapEntry> emptyIterator();
+        }
+        final BitSet indexes;
+        if (candidates.size() == 1) {
+            indexes = candidates.get(0);
+        } else {
+            indexes = new BitSet(this.entries.size());
+            for (final BitSet candidate : candidates) {
+                indexes.or(candidate);
+            }
+        }
+        return new Iterator<MapEntry>() {
+
+            private int next = indexes.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.next != -1;
+            }
+
+            @Override
+            public MapEntry next() {
+                if (this.next == -1) {
+                    throw new NoSuchElementException();
+                }
+                final MapEntry entry = entries.get(this.next);
+                this.next = indexes.nextSetBit(this.next + 1);
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The <code>PrefixTrie</code> is a compact radix trie mapping string keys
+ * to values.
+ * <p>
+ * Nodes are immutable: an update copies the nodes on the path from the root
+ * to the changed node and publishes the new root. Lookups and iterations are
+ * therefore lock free and never see a partially applied update, while updates
+ * are serialized. Like a <code>ConcurrentHashMap</code> the trie does not
+ * accept <code>null</code> values.
+ * <p>
+ * Besides exact lookups the trie supports looking up several prefixes of a
+ * key in a single pass and finding all keys below a prefix, both in time
+ * proportional to the key length and the number of results.
+ */
+class PrefixTrie<T> extends AbstractMap<String, T> {
+
+    private static final char[] NO_CHARS = new char[0];
+
+    private static final class Node<T> {
+
+        /** The characters leading from the parent to this node. */
+        final String label;
+
+        /** The value or <code>null</code> if no key ends here. */
+        final T value;
+
+        /** The first characters of the child labels in ascending order. */
+        final char[] firstChars;
+
+        final Node<T>[] children;
+
+        Node(final String label, final T value, final char[] firstChars, final Node<T>[] children) {
+            this.label = label;
+            this.value = value;
+            this.firstChars = firstChars;
+            this.children = children;
+        }
+
+        Node<T> withLabel(final String newLabel) {
+            return new Node<T>(newLabel, value, firstChars, children);
+        }
+
+        Node<T> withValue(final T newValue) {
+            return new Node<T>(label, newValue, firstChars, children);
+        }
+
+        Node<T> withChild(final int index, final Node<T> child) {
+            final Node<T>[] newChildren = children.clone();
+            newChildren[index] = child;
+            return new Node<T>(label, value, firstChars, newChildren);
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T> withAddedChild(final int index, final Node<T> child) {
+            final char[] newFirstChars = new char[firstChars.length + 1];
+            final Node<T>[] newChildren = new Node[children.length + 1];
+            System.arraycopy(firstChars, 0, newFirstChars, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newFirstChars[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            System.arraycopy(firstChars, index, newFirstChars, index + 1, firstChars.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            return new Node<T>(label, value, newFirstChars, newChildren);
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T> withoutChild(final int index) {
+            final char[] newFirstChars = new char[firstChars.length - 1];
+            final Node<T>[] newChildren = new Node[children.length - 1];
+            System.arraycopy(firstChars, 0, newFirstChars, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(firstChars, index + 1, newFirstChars, index, firstChars.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            return new Node<T>(label, value, newFirstChars, newChildren);
+        }
+
+        Node<T> getChild(final char c) {
+            final int index = Arrays.binarySearch(firstChars, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    private volatile Node<T> root = newNode("", null);
+
+    private volatile int size;
+
+    public PrefixTrie() {
+        // empty trie
+    }
+
+    public PrefixTrie(final Map<String, ? extends T> map) {
+        this.putAll(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T> newNode(final String label, final T value) {
+        return new Node<T>(label, value, NO_CHARS, new Node[0]);
+    }
+
+    /**
+     * Returns the value for the key or <code>null</code>.
+     */
+    @Override
+    public T get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final String k = (String) key;
+        return get(k, k.length());
+    }
+
+    /**
+     * Returns the value for the first <code>length</code> characters
+     * of the key or <code>null</code>.
+     */
+    public T get(final String key, final int length) {
+        Node<T> node = this.root;
+        int pos = 0;
+        while (pos < length) {
+            node = node.getChild(key.charAt(pos));
+            if (node == null) {
+                return null;
+            }
+            final int labelLength = node.label.length();
+            if (pos + labelLength > length || !key.regionMatches(pos, node.label, 0, labelLength)) {
+                return null;
+            }
+            pos += labelLength;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the values for several prefixes of the key, walking the trie
+     * only once.
+     * @param key The key
+     * @param lengths The lengths of the prefixes in ascending order
+     * @return The values in the order of the lengths, <code>null</code> for a
+     *         prefix without value
+     */
+    public List<T> getPrefixValues(final String key, final int[] lengths) {
+        final List<T> values = new ArrayList<T>(lengths.length);
+        Node<T> node = this.root;
+        int pos = 0;
+        for (final int length : lengths) {
+            while (node != null && pos < length) {
+                final Node<T> child = node.getChild(key.charAt(pos));
+                if (child == null) {
+                    node = null;
+                    break;
+                }
+                final int end = pos + child.label.length();
+                if (end > length) {
+                    // the prefix ends within the label, no value for it
+                    break;
+                }
+                if (!key.regionMatches(pos, child.label, 0, child.label.length())) {
+                    node = null;
+                    break;
+                }
+                node = child;
+                pos = end;
+            }
+            values.add(node != null && pos == length ? node.value : null);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the values of all keys which are a prefix of the key, including
+     * the key itself, in ascending order of the key length.
+     */
+    public List<T> getPrefixValues(final String key) {
+        final List<T> values = new ArrayList<T>();
+        Node<T> node = this.root;
+        int pos = 0;
+        while (true) {
+            if (node.value != null) {
+                values.add(node.value);
+            }
+            if (pos == key.length()) {
+                return values;
+            }
+            node = node.getChild(key.charAt(pos));
+            if (node == null || !key.startsWith(node.label, pos)) {
+                return values;
+            }
+            pos += node.label.length();
+        }
+    }
+
+    /**
+     * Returns all keys starting with the prefix.
+     */
+    public List<String> getKeysWithPrefix(final String prefix) {
+        final List<String> keys = new ArrayList<String>();
+        Node<T> node = this.root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            node = node.getChild(prefix.charAt(pos));
+            if (node == null) {
+                return keys;
+            }
+            final int labelLength = node.label.length();
+            final int common = Math.min(labelLength, prefix.length() - pos);
+            if (!prefix.regionMatches(pos, node.label, 0, common)) {
+                return keys;
+            }
+            pos += labelLength;
+        }
+        // the node might extend beyond the prefix
+        collectKeys(node, new StringBuilder(prefix).append(node.label, node.label.length() - (pos - prefix.length()), node.label.length()), keys);
+        return keys;
+    }
+
+    private static <T> void collectKeys(final Node<T> node, final StringBuilder key, final List<String> keys) {
+        if (node.value != null) {
+            keys.add(key.toString());
+        }
+        for (final Node<T> child : node.children) {
+            final int length = key.length();
+            key.append(child.label);
+            collectKeys(child, key, keys);
+            key.setLength(length);
+        }
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Sets the value for the key.
+     * @param key The key
+     * @param value The value, must not be <code>null</code>
+     * @return The previous value or <code>null</code>
+     */
+    @Override
+    public synchronized T put(final String key, final T value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final List<T> previous = new ArrayList<T>(1);
+        this.root = put(this.root, key, value, previous);
+        return previous.isEmpty() ? null : previous.get(0);
+    }
+
+    private Node<T> put(final Node<T> node, final String key, final T value, final List<T> previous) {
+        if (key.isEmpty()) {
+            if (node.value == null) {
+                this.size++;
+            } else {
+                previous.add(node.value);
+            }
+            return node.withValue(value);
+        }
+        final int index = Arrays.binarySearch(node.firstChars, key.charAt(0));
+        if (index < 0) {
+            this.size++;
+            return node.withAddedChild(-index - 1, PrefixTrie.<T> newNode(key, value));
+        }
+        final Node<T> child = node.children[index];
+        final int common = commonPrefixLength(child.label, key);
+        if (common == child.label.length()) {
+            return node.withChild(index, put(child, key.substring(common), value, previous));
+        }
+        // split the child at the first differing character
+        Node<T> intermediate = PrefixTrie.<T> newNode(child.label.substring(0, common), null)
+                .withAddedChild(0, child.withLabel(child.label.substring(common)));
+        intermediate = put(intermediate, key.substring(common), value, previous);
+        return node.withChild(index, intermediate);
+    }
+
+    /**
+     * Removes the value for the key.
+     * @return The removed value or <code>null</code>
+     */
+    @Override
+    public synchronized T remove(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final List<T> previous = new ArrayList<T>(1);
+        this.root = remove(this.root, (String) key, previous);
+        return previous.isEmpty() ? null : previous.get(0);
+    }
+
+    private Node<T> remove(final Node<T> node, final String key, final List<T> previous) {
+        if (key.isEmpty()) {
+            if (node.value == null) {
+                return node;
+            }
+            this.size--;
+            previous.add(node.value);
+            return node.withValue(null);
+        }
+        final int index = Arrays.binarySearch(node.firstChars, key.charAt(0));
+        if (index < 0) {
+            return node;
+        }
+        final Node<T> child = node.children[index];
+        if (!key.startsWith(child.label)) {
+            return node;
+        }
+        final Node<T> newChild = remove(child, key.substring(child.label.length()), previous);
+        if (newChild == child) {
+            return node;
+        }
+        if (newChild.value == null) {
+            if (newChild.children.length == 0) {
+                return node.withoutChild(index);
+            }
+            if (newChild.children.length == 1) {
+                // merge with the only child to keep the trie compact
+                final Node<T> grandChild = newChild.children[0];
+                return node.withChild(index, grandChild.withLabel(newChild.label + grandChild.label));
+            }
+        }
+        return node.withChild(index, newChild);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    @Override
+    public synchronized void clear() {
+        this.root = newNode("", null);
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of keys.
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the entries in the order of their keys. The set reflects the
+     * trie at the time it is iterated, later updates are not visible to a
+     * running iteration.
+     */
+    @Override
+    public Set<Map.Entry<String, T>> entrySet() {
+        return new AbstractSet<Map.Entry<String, T>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, T>> iterator() {
+                return new EntryIterator(root);
+            }
+
+            @Override
+            public int size() {
+                return PrefixTrie.this.size;
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, T>> {
+
+        /** The nodes to visit and the keys leading to them. */
+        private final List<Node<T>> nodes = new ArrayList<Node<T>>();
+
+        private final List<String> keys = new ArrayList<String>();
+
+        private Map.Entry<String, T> next;
+
+        private String lastKey;
+
+        EntryIterator(final Node<T> root) {
+            this.nodes.add(root);
+            this.keys.add("");
+            this.seek();
+        }
+
+        private void seek() {
+            this.next = null;
+            while (this.next == null && !this.nodes.isEmpty()) {
+                final int last = this.nodes.size() - 1;
+                final Node<T> node = this.nodes.remove(last);
+                final String key = this.keys.remove(last);
+                // push the children in reverse order to visit them in order
+                for (int i = node.children.length - 1; i >= 0; i--) {
+                    this.nodes.add(node.children[i]);
+                    this.keys.add(key.concat(node.children[i].label));
+                }
+                if (node.value != null) {
+                    this.next = new SimpleImmutableEntry<String, T>(key, node.value);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Entry<String, T> next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, T> result = this.next;
+            this.lastKey = result.getKey();
+            this.seek();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) {
+                throw new IllegalStateException();
+            }
+            PrefixTrie.this.remove(this.lastKey);
+            this.lastKey = null;
+        }
+    }
+
+    private static int commonPrefixLength(final String a, final String b) {
+        final int max = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
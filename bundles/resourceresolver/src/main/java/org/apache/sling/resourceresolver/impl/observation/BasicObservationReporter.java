@@ -19,6 +19,7 @@
 package org.apache.sling.resourceresolver.impl.observation;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -48,6 +49,9 @@ public class BasicObservationReporter implements ObservationReporter {
     /** The search path. */
     private final String[] searchPath;
 
+    /** Index of the paths of the observer configurations. */
+    private final ObserverConfigurationIndex index;
+
     /**
      * Create a reporter listening for resource provider changes
      *
@@ -73,6 +77,7 @@ public class BasicObservationReporter implements ObservationReporter {
             cfg.addListener(i);
         }
         this.configs = Collections.singletonList((ObserverConfiguration)cfg);
+        this.index = new ObserverConfigurationIndex(this.configs);
     }
 
     /**
@@ -155,6 +160,7 @@ public class BasicObservationReporter implements ObservationReporter {
             }
         }
         this.configs = Collections.unmodifiableList(observerConfigs);
+        this.index = new ObserverConfigurationIndex(this.configs);
     }
 
     @Override
@@ -164,10 +170,26 @@ public class BasicObservationReporter implements ObservationReporter {
 
     @Override
     public void reportChanges(final Iterable<ResourceChange> changes, final boolean distribute) {
-        for(final ObserverConfiguration cfg : this.configs) {
-            final List<ResourceChange> filteredChanges = filterChanges(changes, cfg);
-            if (!filteredChanges.isEmpty() ) {
-                this.reportChanges(cfg, filteredChanges, distribute);
+        // route each change once to the configurations interested in its path
+        final ResourceChangeListImpl[] filteredChanges = new ResourceChangeListImpl[this.configs.size()];
+        final BitSet matching = new BitSet(this.configs.size());
+        final BitSet excluded = new BitSet(this.configs.size());
+        for(final ResourceChange c : changes) {
+            this.index.match(c.getPath(), matching, excluded);
+            for(int i = matching.nextSetBit(0); i >= 0; i = matching.nextSetBit(i + 1)) {
+                final ObserverConfiguration cfg = this.configs.get(i);
+                if ( matches(c, cfg.getChangeTypes(), cfg.includeExternal()) ) {
+                    if ( filteredChanges[i] == null ) {
+                        filteredChanges[i] = new ResourceChangeListImpl(this.searchPath);
+                    }
+                    filteredChanges[i].add(c);
+                }
+            }
+        }
+        for(int i = 0; i < filteredChanges.length; i++) {
+            if ( filteredChanges[i] != null ) {
+                filteredChanges[i].lock();
+                this.reportChanges(this.configs.get(i), filteredChanges[i], distribute);
             }
         }
     }
@@ -179,17 +201,51 @@ public class BasicObservationReporter implements ObservationReporter {
         if ( config != null && config instanceof BasicObserverConfiguration ) {
             final BasicObserverConfiguration observerConfig = (BasicObserverConfiguration)config;
 
-            ResourceChangeListenerInfo previousInfo = null;
-            List<ResourceChange> filteredChanges = null;
-            for(final ResourceChangeListenerInfo info : observerConfig.getListeners()) {
-                if ( previousInfo == null || !equals(previousInfo, info) ) {
-                    filteredChanges = filterChanges(changes, info);
-                    previousInfo = info;
+            // all listeners of a configuration share the paths, they only differ
+            // in the change types and external flag: build one list per distinct
+            // combination in a single pass over the changes
+            final List<ResourceChangeListenerInfo> listeners = observerConfig.getListeners();
+            final List<ResourceChangeListenerInfo> groups = new ArrayList<>();
+            final int[] groupOfListener = new int[listeners.size()];
+            for(int i = 0; i < listeners.size(); i++) {
+                final ResourceChangeListenerInfo info = listeners.get(i);
+                int group = 0;
+                while ( group < groups.size() && !equals(groups.get(group), info) ) {
+                    group++;
+                }
+                if ( group == groups.size() ) {
+                    groups.add(info);
                 }
-                if ( !filteredChanges.isEmpty() ) {
-                    final ResourceChangeListener listener = info.getListener();
-                    if ( listener != null ) {
-                        listener.onChange(filteredChanges);
+                groupOfListener[i] = group;
+            }
+            final ResourceChangeListImpl[] filteredChanges = new ResourceChangeListImpl[groups.size()];
+            for(int group = 0; group < groups.size(); group++) {
+                filteredChanges[group] = new ResourceChangeListImpl(this.searchPath);
+            }
+            for(final ResourceChange c : changes) {
+                for(int group = 0; group < groups.size(); group++) {
+                    final ResourceChangeListenerInfo info = groups.get(group);
+                    if ( matches(c, info.getResourceChangeTypes(), info.isExternal()) ) {
+                        filteredChanges[group].add(c);
+                    }
+                }
+            }
+            for(final ResourceChangeListImpl list : filteredChanges) {
+                list.lock();
+            }
+
+            for(int i = 0; i < listeners.size(); i++) {
+                final ResourceChangeListenerInfo info = listeners.get(i);
+                final List<ResourceChange> listenerChanges = filteredChanges[groupOfListener[i]];
+                if ( !listenerChanges.isEmpty() ) {
+                    final ResourceChangeListenerDispatcher dispatcher = info.getDispatcher();
+                    if ( dispatcher != null ) {
+                        dispatcher.dispatch(listenerChanges);
+                    } else {
+                        final ResourceChangeListener listener = info.getListener();
+                        if ( listener != null ) {
+                            listener.onChange(listenerChanges);
+                        }
                     }
                 }
             }
@@ -217,72 +273,17 @@ public class BasicObservationReporter implements ObservationReporter {
     }
 
     /**
-     * Filter the change list based on the configuration
-     * @param changes The list of changes
-     * @param config The configuration
-     * @return The filtered list.
-     */
-    private List<ResourceChange> filterChanges(final Iterable<ResourceChange> changes, final ObserverConfiguration config) {
-        final ResourceChangeListImpl filtered = new ResourceChangeListImpl(this.searchPath);
-        for (final ResourceChange c : changes) {
-            if (matches(c, config)) {
-                filtered.add(c);
-            }
-        }
-        filtered.lock();
-        return filtered;
-    }
-
-    /**
-     * Filter the change list based on the resource change listener, only type and external needs to be checkd.
-     * @param changes The list of changes
-     * @param config The resource change listener info
-     * @return The filtered list.
-     */
-    private List<ResourceChange> filterChanges(final Iterable<ResourceChange> changes, final ResourceChangeListenerInfo config) {
-        final ResourceChangeListImpl filtered = new ResourceChangeListImpl(this.searchPath);
-        for (final ResourceChange c : changes) {
-            if (matches(c, config)) {
-                filtered.add(c);
-            }
-        }
-        filtered.lock();
-        return filtered;
-    }
-
-    /**
-     * Match a change against the configuration
-     * @param change The change
-     * @param config The configuration
-     * @return {@code true} whether it matches
-     */
-    private boolean matches(final ResourceChange change, final ObserverConfiguration config) {
-        if (!config.getChangeTypes().contains(change.getType())) {
-            return false;
-        }
-        if (!config.includeExternal() && change.isExternal()) {
-            return false;
-        }
-        if (config.getPaths().matches(change.getPath()) == null ) {
-            return false;
-        }
-        if ( config.getExcludedPaths().matches(change.getPath()) != null ) {
-            return false;
-        }
-        return true;
-    }
-
-    /**
-     * Match a change against the configuration
+     * Match a change against change types and the external flag
      * @param change The change
-     * @param config The configuration
+     * @param changeTypes The accepted change types
+     * @param external Whether external changes are accepted
      * @return {@code true} whether it matches
      */
-    private boolean matches(final ResourceChange change, final ResourceChangeListenerInfo config) {
-        if (!config.getResourceChangeTypes().contains(change.getType())) {
+    private boolean matches(final ResourceChange change, final Set<ResourceChange.ChangeType> changeTypes, final boolean external) {
+        if (!changeTypes.contains(change.getType())) {
             return false;
         }
-        if (!config.isExternal() && change.isExternal()) {
+        if (!external && change.isExternal()) {
             return false;
         }
         return true;
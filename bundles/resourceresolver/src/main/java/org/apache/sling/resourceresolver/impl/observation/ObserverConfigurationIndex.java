@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.observation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.path.Path;
+import org.apache.sling.spi.resource.provider.ObserverConfiguration;
+
+/**
+ * Index of the paths and excluded paths of a list of observer configurations.
+ * <p>
+ * Plain paths are kept in a trie with one node per path segment, so the
+ * configurations interested in a change are found by walking down the
+ * path of the change once, independent of the number of configurations.
+ * Glob patterns can't be put into the trie and are matched one by one.
+ */
+public class ObserverConfigurationIndex {
+
+    private static final class Node {
+
+        Map<String, Node> children;
+
+        BitSet includes;
+
+        BitSet excludes;
+
+        Node getOrCreateChild(final String name) {
+            if ( this.children == null ) {
+                this.children = new HashMap<>();
+            }
+            Node child = this.children.get(name);
+            if ( child == null ) {
+                child = new Node();
+                this.children.put(name, child);
+            }
+            return child;
+        }
+
+        Node getChild(final String name) {
+            return this.children == null ? null : this.children.get(name);
+        }
+    }
+
+    private static final class PatternEntry {
+
+        final Path path;
+
+        final int index;
+
+        PatternEntry(final Path path, final int index) {
+            this.path = path;
+            this.index = index;
+        }
+    }
+
+    private final List<ObserverConfiguration> configs;
+
+    private final Node root = new Node();
+
+    private final List<PatternEntry> includePatterns = new ArrayList<>();
+
+    private final List<PatternEntry> excludePatterns = new ArrayList<>();
+
+    /**
+     * Create an index
+     * @param configs The configurations, the index of a configuration in this
+     *                list is used to identify it
+     */
+    public ObserverConfigurationIndex(final List<ObserverConfiguration> configs) {
+        this.configs = configs;
+        for(int i = 0; i < configs.size(); i++) {
+            final ObserverConfiguration config = configs.get(i);
+            for(final Path p : config.getPaths()) {
+                if ( p.isPattern() ) {
+                    this.includePatterns.add(new PatternEntry(p, i));
+                } else {
+                    final Node node = this.getOrCreateNode(p.getPath());
+                    if ( node.includes == null ) {
+                        node.includes = new BitSet();
+                    }
+                    node.includes.set(i);
+                }
+            }
+            for(final Path p : config.getExcludedPaths()) {
+                if ( p.isPattern() ) {
+                    this.excludePatterns.add(new PatternEntry(p, i));
+                } else {
+                    final Node node = this.getOrCreateNode(p.getPath());
+                    if ( node.excludes == null ) {
+                        node.excludes = new BitSet();
+                    }
+                    node.excludes.set(i);
+                }
+            }
+        }
+    }
+
+    private Node getOrCreateNode(final String path) {
+        Node node = this.root;
+        int start = 1;
+        while ( start < path.length() ) {
+            int end = path.indexOf('/', start);
+            if ( end == -1 ) {
+                end = path.length();
+            }
+            node = node.getOrCreateChild(path.substring(start, end));
+            start = end + 1;
+        }
+        return node;
+    }
+
+    /**
+     * Find the configurations whose paths include the path and whose excluded
+     * paths do not.
+     * @param path The path of the change
+     * @param result Cleared and then set to the indexes of the matching configurations
+     * @param excluded Scratch set for the excluded configurations
+     */
+    public void match(final String path, final BitSet result, final BitSet excluded) {
+        result.clear();
+        excluded.clear();
+        if ( !path.startsWith("/") || path.startsWith(Path.GLOB_PREFIX) ) {
+            // leave the validation and special cases to the path set
+            for(int i = 0; i < this.configs.size(); i++) {
+                final ObserverConfiguration config = this.configs.get(i);
+                if ( config.getPaths().matches(path) != null && config.getExcludedPaths().matches(path) == null ) {
+                    result.set(i);
+                }
+            }
+            return;
+        }
+
+        // walk down the trie, every node on the way is a parent of (or equal to) the path
+        Node node = this.root;
+        int start = 1;
+        while ( node != null ) {
+            if ( node.includes != null ) {
+                result.or(node.includes);
+            }
+            if ( node.excludes != null ) {
+                excluded.or(node.excludes);
+            }
+            if ( start >= path.length() ) {
+                break;
+            }
+            int end = path.indexOf('/', start);
+            if ( end == -1 ) {
+                end = path.length();
+            }
+            node = node.getChild(path.substring(start, end));
+            start = end + 1;
+        }
+
+        for(final PatternEntry entry : this.includePatterns) {
+            if ( !result.get(entry.index) && entry.path.matches(path) ) {
+                result.set(entry.index);
+            }
+        }
+        for(final PatternEntry entry : this.excludePatterns) {
+            if ( result.get(entry.index) && !excluded.get(entry.index) && entry.path.matches(path) ) {
+                excluded.set(entry.index);
+            }
+        }
+        result.andNot(excluded);
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.observation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.api.resource.path.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the changes for a single resource change listener on its own
+ * thread, decoupling the listener from the thread reporting the changes
+ * and from all other listeners.
+ * <p>
+ * Pending changes are kept in a bounded queue. A change for a path which
+ * is already pending is merged with the pending change: a removal replaces
+ * the pending change, an addition followed by a change stays an addition
+ * and a removal followed by an addition becomes a change. As the property
+ * names of the merged changes can't be combined reliably, a merged change
+ * does not provide property names. The {@link OverflowPolicy} defines what
+ * happens if the queue is full.
+ */
+public class ResourceChangeListenerDispatcher {
+
+    /**
+     * What to do with a change if the queue of a listener is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait until the listener has caught up. */
+        BLOCK,
+        /** Drop the change and log a warning. */
+        DROP,
+        /**
+         * Drop all pending changes and report a change of all paths of the listener instead,
+         * a pattern is reported as a change of the root. Listeners caching content must
+         * treat a change of a path they don't know as a change of everything below it.
+         */
+        REFRESH
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ResourceChangeListenerInfo info;
+
+    private final String[] searchPath;
+
+    private final int maxSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    /** Pending changes by coalescing key, guarded by this map. */
+    private final Map<String, ResourceChange> pending = new LinkedHashMap<>();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /** Whether a refresh of all paths is pending, guarded by {@link #pending} */
+    private boolean refresh;
+
+    /** Time the oldest pending change was queued, guarded by {@link #pending} */
+    private long oldestQueued;
+
+    private volatile long maxLag;
+
+    private volatile long delivered;
+
+    private volatile long dropped;
+
+    private volatile long refreshes;
+
+    /**
+     * Create and start a dispatcher
+     * @param info The listener info
+     * @param searchPath The search path
+     * @param maxSize The maximum number of pending changes
+     * @param overflowPolicy What to do if the maximum is reached
+     */
+    public ResourceChangeListenerDispatcher(final ResourceChangeListenerInfo info,
+            final String[] searchPath,
+            final int maxSize,
+            final OverflowPolicy overflowPolicy) {
+        this.info = info;
+        this.searchPath = searchPath;
+        this.maxSize = maxSize;
+        this.overflowPolicy = overflowPolicy;
+        this.thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                deliver();
+            }
+        }, "Apache Sling Resource Change Listener " + getListenerName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stop the delivery thread, pending changes are discarded.
+     */
+    public void stop() {
+        this.running = false;
+        synchronized ( this.pending ) {
+            this.pending.clear();
+            this.refresh = false;
+            this.pending.notifyAll();
+        }
+        this.thread.interrupt();
+    }
+
+    /**
+     * Queue the changes for delivery
+     * @param changes The changes already filtered for the listener
+     */
+    public void dispatch(final Iterable<ResourceChange> changes) {
+        synchronized ( this.pending ) {
+            for(final ResourceChange change : changes) {
+                if ( !this.running ) {
+                    return;
+                }
+                if ( this.refresh ) {
+                    // all paths are reported as changed anyway
+                    continue;
+                }
+                final String key = getKey(change);
+                final ResourceChange previous = this.pending.get(key);
+                if ( previous != null ) {
+                    this.pending.put(key, coalesce(previous, change));
+                    continue;
+                }
+                if ( this.pending.size() >= this.maxSize && !this.handleOverflow(change) ) {
+                    continue;
+                }
+                if ( this.pending.isEmpty() ) {
+                    this.oldestQueued = System.currentTimeMillis();
+                }
+                this.pending.put(key, change);
+            }
+            this.pending.notifyAll();
+        }
+    }
+
+    /**
+     * Handle a full queue, called while holding the lock.
+     * @return {@code true} if the change should be queued
+     */
+    private boolean handleOverflow(final ResourceChange change) {
+        switch ( this.overflowPolicy ) {
+            case DROP :
+                this.dropped++;
+                logger.warn("Dropping change {} for resource change listener {}, the listener is {}ms behind",
+                        change, getListenerName(), getLag());
+                return false;
+
+            case REFRESH :
+                this.dropped += this.pending.size() + 1;
+                this.refreshes++;
+                this.pending.clear();
+                this.refresh = true;
+                logger.warn("Resource change listener {} is {}ms behind, reporting all of its paths as changed",
+                        getListenerName(), getLag());
+                return false;
+
+            default :
+                while ( this.running && this.pending.size() >= this.maxSize ) {
+                    try {
+                        this.pending.wait();
+                    } catch ( final InterruptedException ie ) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                return this.running;
+        }
+    }
+
+    /**
+     * The delivery loop
+     */
+    private void deliver() {
+        while ( this.running ) {
+            final ResourceChangeListImpl changes = new ResourceChangeListImpl(this.searchPath);
+            long lag;
+            synchronized ( this.pending ) {
+                while ( this.running && this.pending.isEmpty() && !this.refresh ) {
+                    try {
+                        this.pending.wait();
+                    } catch ( final InterruptedException ie ) {
+                        // stopped
+                    }
+                }
+                if ( !this.running ) {
+                    break;
+                }
+                lag = System.currentTimeMillis() - this.oldestQueued;
+                if ( this.refresh ) {
+                    for(final Path p : this.info.getPaths()) {
+                        changes.add(new ResourceChange(ChangeType.CHANGED, p.isPattern() ? "/" : p.getPath(), false));
+                    }
+                    this.refresh = false;
+                } else {
+                    for(final ResourceChange change : this.pending.values()) {
+                        changes.add(change);
+                    }
+                }
+                this.pending.clear();
+                this.pending.notifyAll();
+            }
+            changes.lock();
+            if ( lag > this.maxLag ) {
+                this.maxLag = lag;
+            }
+
+            final ResourceChangeListener listener = this.info.getListener();
+            if ( listener != null ) {
+                try {
+                    listener.onChange(changes);
+                } catch ( final Throwable t ) {
+                    logger.error("Resource change listener " + getListenerName() + " failed to process changes", t);
+                }
+            }
+            this.delivered += changes.size();
+        }
+    }
+
+    private String getKey(final ResourceChange change) {
+        if ( change.getType().ordinal() >= ChangeType.PROVIDER_ADDED.ordinal() ) {
+            // provider changes are not coalesced with resource changes
+            return change.getType().name() + ':' + change.getPath();
+        }
+        return change.getPath();
+    }
+
+    /**
+     * Coalesce two changes for the same path.
+     * @param previous The pending change
+     * @param change The new change
+     * @return The change to report instead of both, a merged change has
+     *         no property names
+     */
+    static ResourceChange coalesce(final ResourceChange previous, final ResourceChange change) {
+        if ( change.getType() == ChangeType.REMOVED ) {
+            return change;
+        }
+        final ChangeType type;
+        if ( previous.getType() == ChangeType.ADDED && change.getType() == ChangeType.CHANGED ) {
+            type = ChangeType.ADDED;
+        } else if ( previous.getType() == ChangeType.REMOVED && change.getType() == ChangeType.ADDED ) {
+            type = ChangeType.CHANGED;
+        } else {
+            type = change.getType();
+        }
+        return new ResourceChange(type, change.getPath(), previous.isExternal() && change.isExternal());
+    }
+
+    private String getListenerName() {
+        final ResourceChangeListener listener = this.info.getListener();
+        return listener == null ? String.valueOf(this.info.getPaths()) : listener.getClass().getName();
+    }
+
+    public ResourceChangeListenerInfo getInfo() {
+        return this.info;
+    }
+
+    /**
+     * @return The number of pending changes
+     */
+    public int getQueueSize() {
+        synchronized ( this.pending ) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+     * @return The time in milliseconds the oldest pending change is waiting
+     */
+    public long getLag() {
+        synchronized ( this.pending ) {
+            return this.pending.isEmpty() && !this.refresh ? 0 : System.currentTimeMillis() - this.oldestQueued;
+        }
+    }
+
+    /**
+     * @return The maximum time in milliseconds changes had to wait for delivery
+     */
+    public long getMaxLag() {
+        return this.maxLag;
+    }
+
+    public long getDeliveredCount() {
+        return this.delivered;
+    }
+
+    public long getDroppedCount() {
+        return this.dropped;
+    }
+
+    public long getRefreshCount() {
+        return this.refreshes;
+    }
+}
@@ -61,6 +61,8 @@ public class ResourceChangeListenerInfo implements Comparable<ResourceChangeList
 
     private volatile ResourceChangeListener listener;
 
+    private volatile ResourceChangeListenerDispatcher dispatcher;
+
     public ResourceChangeListenerInfo(final ServiceReference<ResourceChangeListener> ref, final String[] searchPaths) {
         boolean configValid = true;
         final Set<String> pathsSet = new HashSet<String>();
@@ -198,6 +200,18 @@ public class ResourceChangeListenerInfo implements Comparable<ResourceChangeList
         this.external = listener instanceof ExternalResourceChangeListener;
     }
 
+    /**
+     * Return the dispatcher delivering the changes asynchronously
+     * @return The dispatcher or {@code null} if changes are delivered synchronously.
+     */
+    public ResourceChangeListenerDispatcher getDispatcher() {
+        return this.dispatcher;
+    }
+
+    public void setDispatcher(final ResourceChangeListenerDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
     private int compareSet(final Set<String> t, final Set<String> o) {
         if ( t == null && o == null ) {
             return 0;
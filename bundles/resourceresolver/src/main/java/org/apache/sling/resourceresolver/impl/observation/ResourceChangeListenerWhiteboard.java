@@ -18,6 +18,7 @@
  */
 package org.apache.sling.resourceresolver.impl.observation;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -53,10 +54,33 @@ public class ResourceChangeListenerWhiteboard implements ResourceProviderTracker
 
     private volatile String[] searchPath;
 
+    private volatile int queueSize;
+
+    private volatile ResourceChangeListenerDispatcher.OverflowPolicy overflowPolicy;
+
     public void activate(final BundleContext bundleContext,
             final ResourceProviderTracker resourceProviderTracker,
             final String[] searchPath) {
+        this.activate(bundleContext, resourceProviderTracker, searchPath, 0, ResourceChangeListenerDispatcher.OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Activate the whiteboard
+     * @param bundleContext The bundle context
+     * @param resourceProviderTracker The resource provider tracker
+     * @param searchPath The search path
+     * @param queueSize The size of the queue of each listener, if {@code 0}
+     *                  changes are delivered synchronously
+     * @param overflowPolicy What to do if the queue of a listener is full
+     */
+    public void activate(final BundleContext bundleContext,
+            final ResourceProviderTracker resourceProviderTracker,
+            final String[] searchPath,
+            final int queueSize,
+            final ResourceChangeListenerDispatcher.OverflowPolicy overflowPolicy) {
         this.searchPath = searchPath;
+        this.queueSize = queueSize;
+        this.overflowPolicy = overflowPolicy;
         this.resourceProviderTracker = resourceProviderTracker;
         this.resourceProviderTracker.setObservationReporterGenerator(this);
         this.tracker = new ServiceTracker<>(bundleContext,
@@ -68,6 +92,9 @@ public class ResourceChangeListenerWhiteboard implements ResourceProviderTracker
                 final ResourceChangeListenerInfo info = listeners.remove(reference);
                 if ( info != null ) {
                     updateProviderTracker();
+                    if ( info.getDispatcher() != null ) {
+                        info.getDispatcher().stop();
+                    }
                 }
             }
 
@@ -84,6 +111,9 @@ public class ResourceChangeListenerWhiteboard implements ResourceProviderTracker
                     final ResourceChangeListener listener = bundleContext.getService(reference);
                     if ( listener != null ) {
                         info.setListener(listener);
+                        if ( queueSize > 0 ) {
+                            info.setDispatcher(new ResourceChangeListenerDispatcher(info, searchPath, queueSize, overflowPolicy));
+                        }
                         listeners.put(reference, info);
                         updateProviderTracker();
                     }
@@ -105,6 +135,20 @@ public class ResourceChangeListenerWhiteboard implements ResourceProviderTracker
         this.resourceProviderTracker = null;
     }
 
+    /**
+     * Return the dispatchers of the listeners if changes are delivered asynchronously
+     * @return The dispatchers, empty if changes are delivered synchronously
+     */
+    public List<ResourceChangeListenerDispatcher> getDispatchers() {
+        final List<ResourceChangeListenerDispatcher> result = new ArrayList<>();
+        for(final ResourceChangeListenerInfo info : this.listeners.values()) {
+            if ( info.getDispatcher() != null ) {
+                result.add(info.getDispatcher());
+            }
+        }
+        return result;
+    }
+
     private void updateProviderTracker() {
         this.resourceProviderTracker.setObservationReporterGenerator(this);
     }
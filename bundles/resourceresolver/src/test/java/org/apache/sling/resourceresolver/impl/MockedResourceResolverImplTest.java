@@ -208,6 +208,11 @@ public class MockedResourceResolverImplTest {
                 return false;
             }
 
+            @Override
+            public boolean resource_resolver_mapping_snapshot() {
+                return false;
+            }
+
             @Override
             public String[] resource_resolver_searchpath() {
                 return new String[] {"/apps", "/libs"};
@@ -259,6 +264,21 @@ public class MockedResourceResolverImplTest {
                 return false;
             }
 
+            @Override
+            public int resource_resolver_lookup_cache_size() {
+                return 0;
+            }
+
+            @Override
+            public int resource_resolver_observation_queue_size() {
+                return 0;
+            }
+
+            @Override
+            public String resource_resolver_observation_queue_overflow() {
+                return "BLOCK";
+            }
+
             @Override
             public boolean resource_resolver_enable_vanitypath() {
                 return true;
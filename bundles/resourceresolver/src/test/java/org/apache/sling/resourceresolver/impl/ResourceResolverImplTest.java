@@ -28,6 +28,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -48,6 +49,7 @@ import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.resourceresolver.impl.helper.ResourceLookupCache;
 import org.apache.sling.resourceresolver.impl.providers.ResourceProviderHandler;
 import org.apache.sling.resourceresolver.impl.providers.ResourceProviderStorage;
 import org.apache.sling.resourceresolver.impl.providers.ResourceProviderTracker;
@@ -319,6 +321,82 @@ public class ResourceResolverImplTest {
     }
 
     @SuppressWarnings("deprecation")
+    @Test public void testLookupCache() throws Exception {
+        final int[] calls = new int[2];
+        final ResourceProvider<?> rp = new ResourceProvider<Object>() {
+
+            @Override
+            public Resource getResource(ResolveContext<Object> ctx, String path, ResourceContext rCtx, Resource parent) {
+                calls[0]++;
+                return path.startsWith("/a") ? new SyntheticResource(ctx.getResourceResolver(), path, "type") : null;
+            }
+
+            @Override
+            public Iterator<Resource> listChildren(ResolveContext<Object> ctx, Resource parent) {
+                calls[1]++;
+                final List<Resource> children = new ArrayList<Resource>();
+                final int count = parent.getPath().endsWith("/large") ? ResourceLookupCache.MAX_CHILDREN + 1 : 1;
+                for (int i = 0; i < count; i++) {
+                    children.add(new SyntheticResource(ctx.getResourceResolver(), parent.getPath() + "/b" + i, "type"));
+                }
+                return children.iterator();
+            }
+        };
+        final ResourceProviderStorage storage = new ResourceProviderStorage(asList(createRPHandler(rp, "rp2", 0, "/")));
+        final ResourceProviderTracker tracker = mock(ResourceProviderTracker.class);
+        when(tracker.getResourceProviderStorage()).thenReturn(storage);
+
+        final ResourceResolverFactoryConfig config = mock(ResourceResolverFactoryConfig.class);
+        when(config.resource_resolver_lookup_cache_size()).thenReturn(10);
+        final ResourceResolverFactoryActivator rrfa = new ResourceResolverFactoryActivator();
+        rrfa.resourceAccessSecurityTracker = new ResourceAccessSecurityTracker();
+        Whitebox.setInternalState(rrfa, "config", config);
+        final ResourceResolver rr = new ResourceResolverImpl(new CommonResourceResolverFactoryImpl(rrfa), false, null, tracker);
+
+        // resources and missing paths are looked up once
+        final Resource a = rr.getResource("/a");
+        assertNotNull(a);
+        assertTrue(a == rr.getResource("/a"));
+        assertTrue(a == rr.getResource(null, "/a/b/.."));
+        assertNull(rr.getResource("/missing"));
+        assertNull(rr.getResource("/missing"));
+        assertEquals(2, calls[0]);
+
+        // the parent of a child is taken from the cache
+        final Resource child = rr.listChildren(a).next();
+        assertEquals("/a/b0", child.getPath());
+        assertTrue(a == rr.getParent(child));
+        assertTrue(rr.hasChildren(a));
+        assertEquals(1, calls[1]);
+        assertEquals(2, calls[0]);
+
+        // refreshing clears the cache
+        rr.refresh();
+        assertNotNull(rr.getResource("/a"));
+        assertTrue(rr.hasChildren(a));
+        assertEquals(3, calls[0]);
+        assertEquals(2, calls[1]);
+
+        // large listings are returned completely but not cached
+        final Resource large = rr.getResource("/a/large");
+        for (int i = 0; i < 2; i++) {
+            final Iterator<Resource> children = rr.listChildren(large);
+            int count = 0;
+            while (children.hasNext()) {
+                assertEquals("/a/large/b" + count, children.next().getPath());
+                count++;
+            }
+            assertEquals(ResourceLookupCache.MAX_CHILDREN + 1, count);
+        }
+        assertEquals(4, calls[1]);
+
+        // the cache of the resolver of a request is available to the engine
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        rr.resolve(request, "/a");
+        verify(request).setAttribute(ResourceLookupCache.REQUEST_ATTRIBUTE, Whitebox.getInternalState(rr, "lookupCache"));
+        rr.close();
+    }
+
     @Test public void testBasicAPIAssumptions() throws Exception {
 
         // null resource is accessing /, which exists of course
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.junit.Test;
+
+public class ResourceLookupCacheTest {
+
+    private Resource resource(final String path) {
+        return new SyntheticResource(null, path, "type");
+    }
+
+    @Test
+    public void testLookups() {
+        final ResourceLookupCache cache = new ResourceLookupCache(10);
+        final Resource a = resource("/a");
+
+        assertNull(cache.getResource("/a"));
+        cache.putResource("/a", a);
+        cache.putResource("/missing", null);
+        assertSame(a, cache.getResource("/a"));
+        assertSame(ResourceLookupCache.NOT_FOUND, cache.getResource("/missing"));
+
+        assertNull(cache.getChildren("/a"));
+        cache.putChildren("/a", Collections.singletonList(resource("/a/b")));
+        assertEquals(1, cache.getChildren("/a").size());
+
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        cache.clear();
+        assertNull(cache.getResource("/a"));
+        assertNull(cache.getChildren("/a"));
+        assertEquals(1, cache.getInvalidations());
+
+        // clearing an empty cache is not counted
+        cache.clear();
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    @Test
+    public void testEviction() {
+        final ResourceLookupCache cache = new ResourceLookupCache(2);
+        cache.putResource("/a", resource("/a"));
+        cache.putResource("/b", resource("/b"));
+        // access /a so that /b is the least recently used entry
+        assertNotNull(cache.getResource("/a"));
+        cache.putResource("/c", resource("/c"));
+
+        assertNotNull(cache.getResource("/a"));
+        assertNull(cache.getResource("/b"));
+        assertNotNull(cache.getResource("/c"));
+    }
+
+    @Test
+    public void testLargeChildrenListsAreNotCached() {
+        final ResourceLookupCache cache = new ResourceLookupCache(10);
+        final List<Resource> children = new ArrayList<Resource>();
+        for (int i = 0; i < ResourceLookupCache.MAX_CHILDREN; i++) {
+            children.add(resource("/a/" + i));
+        }
+        cache.putChildren("/a", children);
+        assertEquals(ResourceLookupCache.MAX_CHILDREN, cache.getChildren("/a").size());
+
+        final List<Resource> large = new ArrayList<Resource>(children);
+        large.add(resource("/b/" + children.size()));
+        cache.putChildren("/b", large);
+        assertNull(cache.getChildren("/b"));
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final ResourceLookupCache cache = new ResourceLookupCache(16);
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        final String path = "/" + (i % 32);
+                        if (cache.getResource(path) == null) {
+                            cache.putResource(path, resource(path));
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread t : threads) {
+            t.join();
+        }
+        assertEquals(40000, cache.getHits() + cache.getMisses());
+        int cached = 0;
+        for (int i = 0; i < 32; i++) {
+            if (cache.getResource("/" + i) != null) {
+                cached++;
+            }
+        }
+        assertEquals(16, cached);
+    }
+
+    @Test
+    public void testStatistics() {
+        final ResourceLookupCache cache = new ResourceLookupCache(2);
+        cache.getResource("/a");
+        cache.putResource("/a", null);
+        cache.getResource("/a");
+        cache.clear();
+        assertEquals("Resource lookup cache: 1 hits, 1 misses, 1 invalidations", cache.toString());
+    }
+}
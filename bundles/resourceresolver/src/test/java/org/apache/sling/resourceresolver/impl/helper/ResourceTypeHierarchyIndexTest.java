@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceTypeHierarchyIndexTest {
+
+    private final Map<String, String> superTypes = new HashMap<String, String>();
+
+    private int lookups;
+
+    private final ResourceTypeHierarchyIndex.Lookup lookup = new ResourceTypeHierarchyIndex.Lookup() {
+
+        @Override
+        public String getParentResourceType(final String resourceType) {
+            lookups++;
+            return superTypes.get(resourceType);
+        }
+    };
+
+    private ResourceTypeHierarchyIndex index;
+
+    @Before public void setup() {
+        index = new ResourceTypeHierarchyIndex(new String[] {"/apps/", "/libs/"});
+        superTypes.put("a/page", "a/base");
+        superTypes.put("a/base", "b/root");
+    }
+
+    private void change(final String path) {
+        index.onChange(Collections.singletonList(new ResourceChange(ChangeType.CHANGED, path, false)));
+    }
+
+    @Test public void testCachedParentResourceType() {
+        assertEquals("a/base", index.getParentResourceType("a/page", lookup));
+        assertEquals("a/base", index.getParentResourceType("a/page", lookup));
+        assertNull(index.getParentResourceType("b/root", lookup));
+        assertNull(index.getParentResourceType("b/root", lookup));
+        assertEquals(2, lookups);
+    }
+
+    @Test public void testChain() {
+        final ResourceTypeHierarchyIndex.SuperTypeChain chain = index.getSuperTypeChain("a/page", lookup);
+        assertArrayEquals(new String[] {"a/page", "a/base", "b/root"}, chain.getTypes());
+        assertFalse(chain.isCyclic());
+        index.getSuperTypeChain("a/page", lookup);
+        assertEquals(3, lookups);
+    }
+
+    @Test public void testCyclicChain() {
+        superTypes.put("b/root", "a/page");
+        final ResourceTypeHierarchyIndex.SuperTypeChain chain = index.getSuperTypeChain("a/base", lookup);
+        assertArrayEquals(new String[] {"a/base", "b/root", "a/page"}, chain.getTypes());
+        assertTrue(chain.isCyclic());
+    }
+
+    @Test public void testInvalidation() {
+        index.getSuperTypeChain("a/page", lookup);
+        assertEquals(3, index.size());
+
+        // unrelated change
+        change("/apps/a/pages");
+        change("/apps/a/page/html.jsp");
+        assertEquals(3, index.size());
+
+        // overlay added in /apps
+        superTypes.put("a/base", "c/other");
+        change("/apps/a/base");
+        assertEquals(2, index.size());
+        assertArrayEquals(new String[] {"a/page", "a/base", "c/other"}, index.getSuperTypeChain("a/page", lookup).getTypes());
+
+        // parent of a location removed
+        change("/libs/a");
+        assertEquals(2, index.size());
+        assertEquals(5, lookups);
+    }
+
+    @Test public void testAbsoluteTypesOutsideSearchPathsAreNotCached() {
+        superTypes.put("/content/types/x", "a/page");
+        index.getSuperTypeChain("/content/types/x", lookup);
+        index.getSuperTypeChain("/content/types/x", lookup);
+        assertEquals(5, lookups);
+    }
+}
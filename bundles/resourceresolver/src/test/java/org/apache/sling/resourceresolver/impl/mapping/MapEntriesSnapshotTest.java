@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MapEntriesSnapshotTest {
+
+    private static final String CONFIG = "aliases=true;vanityPaths=true";
+
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("mapEntriesSnapshot", ".bin");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private MapEntriesSnapshot createSnapshot() {
+        final Map<String, Map<String, String>> aliases = new HashMap<String, Map<String, String>>();
+        final Map<String, String> parentMap = new LinkedHashMap<String, String>();
+        parentMap.put("alias", "child");
+        parentMap.put("other", "child");
+        aliases.put("/parent", parentMap);
+
+        final Map<String, List<MapEntry>> entries = new HashMap<String, List<MapEntry>>();
+        final List<MapEntry> list = new ArrayList<MapEntry>();
+        list.add(new MapEntry("^[^/]+/[^/]+/vanity$", -1, false, 0, "/content/page.html"));
+        list.add(new MapEntry("^[^/]+/[^/]+/vanity(\\..*)", 302, false, 5, "/content/page$1"));
+        entries.put("/vanity", list);
+
+        final Map<String, List<String>> targets = new HashMap<String, List<String>>();
+        targets.put("/content/page", new ArrayList<String>(Arrays.asList("/vanity")));
+
+        return new MapEntriesSnapshot(aliases, entries, targets, 2);
+    }
+
+    @Test public void test_write_and_read() throws Exception {
+        createSnapshot().write(file, CONFIG);
+
+        final MapEntriesSnapshot snapshot = MapEntriesSnapshot.read(file, CONFIG);
+        assertNotNull(snapshot);
+        assertEquals("child", snapshot.getAliases().get("/parent").get("alias"));
+        assertEquals(Arrays.asList("alias", "other"),
+                new ArrayList<String>(snapshot.getAliases().get("/parent").keySet()));
+
+        final List<MapEntry> list = snapshot.getVanityEntries().get("/vanity");
+        assertEquals(2, list.size());
+        assertEquals("^[^/]+/[^/]+/vanity$", list.get(0).getPattern());
+        assertEquals(-1, list.get(0).getStatus());
+        assertArrayEquals(new String[] {"/content/page.html"}, list.get(0).getRedirect());
+        assertEquals(302, list.get(1).getStatus());
+        assertEquals(5, list.get(1).getOrder());
+        assertArrayEquals(new String[] {"/content/page.html"},
+                list.get(1).replace("http/localhost.80/vanity.html"));
+
+        assertEquals(Arrays.asList("/vanity"), snapshot.getVanityTargets().get("/content/page"));
+        assertEquals(2, snapshot.getVanityCounter());
+    }
+
+    @Test public void test_without_tables() throws Exception {
+        new MapEntriesSnapshot(null, null, null, 0).write(file, CONFIG);
+
+        final MapEntriesSnapshot snapshot = MapEntriesSnapshot.read(file, CONFIG);
+        assertNotNull(snapshot);
+        assertNull(snapshot.getAliases());
+        assertNull(snapshot.getVanityEntries());
+        assertNull(snapshot.getVanityTargets());
+    }
+
+    @Test public void test_missing_file() throws Exception {
+        assertNull(MapEntriesSnapshot.read(file, CONFIG));
+    }
+
+    @Test public void test_different_configuration() throws Exception {
+        createSnapshot().write(file, CONFIG);
+        assertNull(MapEntriesSnapshot.read(file, "aliases=false;vanityPaths=true"));
+    }
+
+    @Test public void test_truncated_file() throws Exception {
+        createSnapshot().write(file, CONFIG);
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(raf.length() - 6);
+        } finally {
+            raf.close();
+        }
+        assertNull(MapEntriesSnapshot.read(file, CONFIG));
+    }
+}
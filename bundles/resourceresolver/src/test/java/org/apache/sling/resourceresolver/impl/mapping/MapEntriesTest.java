@@ -51,6 +51,7 @@ import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ResourceChange;
 import org.apache.sling.api.resource.path.Path;
 import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.apache.sling.resourceresolver.impl.ResourceResolverImpl;
@@ -1820,6 +1821,73 @@ public class MapEntriesTest {
         return new DataFuture(future);
     }
 
+    /**
+     * Reconcile with a load which sees the child with its old alias while
+     * the given change of the child is reported by observation.
+     */
+    private AtomicLong reconcileWithConcurrentChange(final ResourceChange change) throws Exception {
+        Resource parent = mock(Resource.class);
+        when(parent.getPath()).thenReturn("/parent");
+
+        final Resource result = mock(Resource.class);
+        when(result.getParent()).thenReturn(parent);
+        when(result.getPath()).thenReturn("/parent/child");
+        when(result.getName()).thenReturn("child");
+        when(result.getValueMap()).thenReturn(buildValueMap(ResourceResolverImpl.PROP_ALIAS, "alias"));
+
+        final AtomicLong aliasQueries = new AtomicLong();
+        final ResourceResolver reconcileResolver = mock(ResourceResolver.class);
+        when(reconcileResolver.findResources(anyString(), eq("sql"))).thenAnswer(new Answer<Iterator<Resource>>() {
+
+            @Override
+            public Iterator<Resource> answer(InvocationOnMock invocation) throws Throwable {
+                if (invocation.getArguments()[0].toString().contains(ResourceResolverImpl.PROP_ALIAS)) {
+                    aliasQueries.incrementAndGet();
+                    mapEntries.onChange(Collections.singletonList(change));
+                    return Collections.singleton(result).iterator();
+                }
+                return Collections.<Resource> emptySet().iterator();
+            }
+        });
+
+        final Method reconcile = MapEntries.class.getDeclaredMethod("reconcile", ResourceResolver.class);
+        reconcile.setAccessible(true);
+        reconcile.invoke(mapEntries, reconcileResolver);
+        return aliasQueries;
+    }
+
+    @Test
+    public void test_reconcile_applies_concurrent_change() throws Exception {
+        Resource parent = mock(Resource.class);
+        when(parent.getPath()).thenReturn("/parent");
+
+        final Resource changed = mock(Resource.class);
+        when(changed.getParent()).thenReturn(parent);
+        when(changed.getPath()).thenReturn("/parent/child");
+        when(changed.getName()).thenReturn("child");
+        when(changed.getValueMap()).thenReturn(buildValueMap(ResourceResolverImpl.PROP_ALIAS, "newalias"));
+        when(resourceResolver.getResource("/parent/child")).thenReturn(changed);
+
+        final AtomicLong aliasQueries = reconcileWithConcurrentChange(
+                new ResourceChange(ResourceChange.ChangeType.CHANGED, "/parent/child", false));
+
+        // loaded once, the change is applied on top of the loaded tables
+        assertEquals(1, aliasQueries.get());
+        final Map<String, String> aliasMap = mapEntries.getAliasMap("/parent");
+        assertNotNull(aliasMap);
+        assertEquals("child", aliasMap.get("newalias"));
+        assertNull(aliasMap.get("alias"));
+    }
+
+    @Test
+    public void test_reconcile_applies_concurrent_removal() throws Exception {
+        final AtomicLong aliasQueries = reconcileWithConcurrentChange(
+                new ResourceChange(ResourceChange.ChangeType.REMOVED, "/parent/child", false));
+
+        assertEquals(1, aliasQueries.get());
+        assertNull(mapEntries.getAliasMap("/parent"));
+    }
+
     // -------------------------- inner classes ------------
 
     private static class DataFuture {
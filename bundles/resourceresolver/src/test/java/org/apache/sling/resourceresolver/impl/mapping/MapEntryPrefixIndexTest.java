@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MapEntryPrefixIndexTest {
+
+    @Test public void test_literal_prefix() {
+        assertEquals("http/localhost", MapEntryPrefixIndex.getLiteralPrefix("^http/localhost.80/"));
+        assertEquals("/content/", MapEntryPrefixIndex.getLiteralPrefix("^/content/(.*)$"));
+        assertEquals("/conten", MapEntryPrefixIndex.getLiteralPrefix("^/content?/"));
+        assertEquals("/content", MapEntryPrefixIndex.getLiteralPrefix("^/content+/"));
+        assertEquals("", MapEntryPrefixIndex.getLiteralPrefix("^" + MapEntries.ANY_SCHEME_HOST + "/content$"));
+        assertEquals("", MapEntryPrefixIndex.getLiteralPrefix("^/a|^/b"));
+        assertEquals("", MapEntryPrefixIndex.getLiteralPrefix("^a*"));
+        assertEquals("", MapEntryPrefixIndex.getLiteralPrefix("/content"));
+    }
+
+    @Test public void test_candidates_in_list_order() {
+        final List<MapEntry> entries = new ArrayList<MapEntry>();
+        entries.add(new MapEntry("^http/localhost.80/content/", -1, false, 0, "/content"));
+        entries.add(new MapEntry("^http/example.com.80/", -1, false, 0, "/content"));
+        final MapEntry anyHost = new MapEntry("^" + MapEntries.ANY_SCHEME_HOST + "/content/", -1, false, 0, "/content");
+        entries.add(anyHost);
+        entries.add(new MapEntry("^http/localhost.80/", -1, false, 0, "/content"));
+        Collections.sort(entries);
+        final MapEntryPrefixIndex index = new MapEntryPrefixIndex(entries);
+
+        final String path = "http/localhost.80/content/a.html";
+        final List<MapEntry> expected = new ArrayList<MapEntry>();
+        for (final MapEntry entry : entries) {
+            if (entry.replace(path) != null) {
+                expected.add(entry);
+            }
+        }
+        assertEquals(3, expected.size());
+        assertEquals(expected, toList(index.iterator(path)));
+
+        assertEquals(Arrays.asList(anyHost), toList(index.iterator("https/other.443/content/a.html")));
+        assertEquals(0, toList(new MapEntryPrefixIndex().iterator(path)).size());
+    }
+
+    private static List<MapEntry> toList(final Iterator<MapEntry> iter) {
+        final List<MapEntry> list = new ArrayList<MapEntry>();
+        while (iter.hasNext()) {
+            list.add(iter.next());
+        }
+        return list;
+    }
+}
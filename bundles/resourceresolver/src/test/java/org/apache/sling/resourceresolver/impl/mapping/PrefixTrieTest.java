@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class PrefixTrieTest {
+
+    @Test public void test_exact_lookup() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        trie.put("/content/a", "a");
+        trie.put("/content/ab", "ab");
+        trie.put("/content", "content");
+        trie.put("/other", "other");
+
+        assertEquals("a", trie.get("/content/a"));
+        assertEquals("ab", trie.get("/content/ab"));
+        assertEquals("content", trie.get("/content"));
+        assertEquals("other", trie.get("/other"));
+        assertNull(trie.get("/content/"));
+        assertNull(trie.get("/content/abc"));
+        assertNull(trie.get("/cont"));
+        assertNull(trie.get(""));
+        assertEquals(4, trie.size());
+    }
+
+    @Test public void test_prefix_lookup() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        trie.put("/content", "content");
+        trie.put("/content/a", "a");
+
+        final String path = "/content/a/b.html";
+        assertEquals("a", trie.get(path, 10));
+        assertEquals("content", trie.get(path, 8));
+        assertNull(trie.get(path, 9));
+        assertNull(trie.get(path, 12));
+        assertNull(trie.get(path, path.length()));
+    }
+
+    @Test public void test_prefix_values() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        trie.put("/content", "content");
+        trie.put("/content/a", "a");
+        trie.put("/content/a/b", "b");
+        trie.put("/content/ab", "ab");
+
+        final String path = "/content/a/b.html";
+        assertEquals(Arrays.asList("content", null, "a", "b", null),
+                trie.getPrefixValues(path, new int[] {8, 9, 10, 12, path.length()}));
+        assertEquals(Arrays.asList(null, "b"), trie.getPrefixValues(path, new int[] {0, 12}));
+        assertEquals(Arrays.asList("content", "a", "b"), trie.getPrefixValues(path));
+        assertEquals(Arrays.asList("content", "a", "ab"), trie.getPrefixValues("/content/abc"));
+        assertEquals(Arrays.asList(null, null), trie.getPrefixValues("/other/a", new int[] {6, 8}));
+    }
+
+    @Test public void test_keys_with_prefix() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        trie.put("/content", "content");
+        trie.put("/content/a", "a");
+        trie.put("/content/a/b", "b");
+        trie.put("/content/ab", "ab");
+        trie.put("/other", "other");
+
+        assertEquals(Arrays.asList("/content/a", "/content/a/b", "/content/ab"), trie.getKeysWithPrefix("/content/"));
+        assertEquals(Arrays.asList("/content/a/b"), trie.getKeysWithPrefix("/content/a/"));
+        assertEquals(Arrays.asList("/content", "/content/a", "/content/a/b", "/content/ab"), trie.getKeysWithPrefix("/cont"));
+        assertEquals(5, trie.getKeysWithPrefix("").size());
+        assertEquals(0, trie.getKeysWithPrefix("/content/b").size());
+        assertEquals(0, trie.getKeysWithPrefix("/content/abc").size());
+    }
+
+    @Test public void test_entries_in_key_order() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        trie.put("/b", "b");
+        trie.put("/a/b", "ab");
+        trie.put("/a", "a");
+        trie.put("", "root");
+
+        final List<String> keys = new ArrayList<String>(trie.keySet());
+        assertEquals(Arrays.asList("", "/a", "/a/b", "/b"), keys);
+
+        final Iterator<String> iter = trie.keySet().iterator();
+        iter.next();
+        iter.next();
+        iter.remove();
+        assertFalse(trie.containsKey("/a"));
+        assertEquals("ab", trie.get("/a/b"));
+        assertEquals(3, trie.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void test_null_value() {
+        new PrefixTrie<String>().put("/a", null);
+    }
+
+    @Test public void test_replace_and_remove() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        assertNull(trie.put("/a/b", "1"));
+        trie.put("/a/c", "2");
+        assertEquals("1", trie.put("/a/b", "3"));
+        assertEquals("3", trie.get("/a/b"));
+        assertEquals(2, trie.size());
+
+        assertEquals("3", trie.remove("/a/b"));
+        assertNull(trie.get("/a/b"));
+        assertEquals("2", trie.get("/a/c"));
+        assertEquals(1, trie.size());
+
+        // removing unknown keys does not change anything
+        assertNull(trie.remove("/a"));
+        assertNull(trie.remove("/a/c/d"));
+        assertEquals("2", trie.get("/a/c"));
+        assertEquals(1, trie.size());
+
+        trie.clear();
+        assertNull(trie.get("/a/c"));
+        assertEquals(0, trie.size());
+    }
+
+    @Test public void test_random_operations() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>();
+        final Map<String, String> expected = new TreeMap<String, String>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            final StringBuilder sb = new StringBuilder();
+            final int segments = 1 + random.nextInt(3);
+            for (int s = 0; s < segments; s++) {
+                sb.append('/').append((char) ('a' + random.nextInt(3)));
+                if (random.nextBoolean()) {
+                    sb.append((char) ('a' + random.nextInt(3)));
+                }
+            }
+            final String key = sb.toString();
+            if (random.nextInt(3) == 0) {
+                trie.remove(key);
+                expected.remove(key);
+            } else {
+                trie.put(key, key + i);
+                expected.put(key, key + i);
+            }
+        }
+        assertEquals(expected.size(), trie.size());
+        assertEquals(expected, trie);
+        assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(trie.keySet()));
+        for (final Map.Entry<String, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), trie.get(entry.getKey()));
+            assertEquals(entry.getValue(), trie.get(entry.getKey() + "/x.html", entry.getKey().length()));
+
+            final List<String> below = new ArrayList<String>();
+            for (final String key : expected.keySet()) {
+                if (key.startsWith(entry.getKey() + "/")) {
+                    below.add(key);
+                }
+            }
+            assertEquals(below, trie.getKeysWithPrefix(entry.getKey() + "/"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.observation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.path.PathSet;
+import org.apache.sling.spi.resource.provider.ObserverConfiguration;
+import org.junit.Test;
+
+public class ObserverConfigurationIndexTest {
+
+    private final List<ObserverConfiguration> configs = new ArrayList<>();
+
+    private void add(final PathSet paths, final PathSet excludes) {
+        configs.add(new BasicObserverConfiguration(paths, EnumSet.allOf(ChangeType.class), false, excludes, null));
+    }
+
+    /**
+     * The index must find exactly the configurations found by matching the path sets.
+     */
+    private void assertIndex(final String... paths) {
+        final ObserverConfigurationIndex index = new ObserverConfigurationIndex(configs);
+        final BitSet result = new BitSet();
+        final BitSet excluded = new BitSet();
+        for(final String path : paths) {
+            final BitSet expected = new BitSet();
+            for(int i = 0; i < configs.size(); i++) {
+                if ( configs.get(i).getPaths().matches(path) != null
+                     && configs.get(i).getExcludedPaths().matches(path) == null ) {
+                    expected.set(i);
+                }
+            }
+            index.match(path, result, excluded);
+            assertEquals(path, expected, result);
+        }
+    }
+
+    @Test
+    public void testMatchPaths() {
+        add(PathSet.fromStrings("/"), PathSet.EMPTY_SET);
+        add(PathSet.fromStrings("/content"), PathSet.EMPTY_SET);
+        add(PathSet.fromStrings("/content/site/en", "/apps"), PathSet.EMPTY_SET);
+        add(PathSet.fromStrings("/contentx"), PathSet.EMPTY_SET);
+
+        assertIndex("/", "/content", "/content/site", "/content/site/en", "/content/site/en/page",
+                "/content/site/enx", "/contentx/a", "/apps/x", "/libs");
+    }
+
+    @Test
+    public void testMatchExcludes() {
+        add(PathSet.fromStrings("/"), PathSet.fromStrings("/var", "/content/site/en"));
+        add(PathSet.fromStrings("/content"), PathSet.fromStrings("/content/site"));
+        add(PathSet.fromStrings("/content/site"), PathSet.fromStrings("/content/site/de"));
+
+        assertIndex("/", "/var", "/var/audit", "/content", "/content/site", "/content/site/en/page",
+                "/content/site/de", "/content/site/fr/page");
+    }
+
+    @Test
+    public void testMatchGlobs() {
+        add(PathSet.fromStrings("glob:/apps/**/*.jsp"), PathSet.EMPTY_SET);
+        add(PathSet.fromStrings("/apps"), PathSet.fromStrings("glob:/apps/**/*.html"));
+
+        assertIndex("/apps", "/apps/a/b.jsp", "/apps/a/b.html", "/apps/a/b.txt", "/libs/a/b.jsp");
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl.observation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.resourceresolver.impl.observation.ResourceChangeListenerDispatcher.OverflowPolicy;
+import org.junit.After;
+import org.junit.Test;
+import org.osgi.framework.ServiceReference;
+
+public class ResourceChangeListenerDispatcherTest {
+
+    private static final String[] SEARCH_PATH = new String[] {"/apps/", "/libs/"};
+
+    /** Blocks the first delivery until released */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch firstDelivery = new CountDownLatch(1);
+
+    private final List<List<ResourceChange>> received = new ArrayList<>();
+
+    private ResourceChangeListenerDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if ( dispatcher != null ) {
+            dispatcher.stop();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourceChangeListenerDispatcher createDispatcher(final int maxSize, final OverflowPolicy policy) {
+        final ServiceReference<ResourceChangeListener> reference = mock(ServiceReference.class);
+        when(reference.getProperty(ResourceChangeListener.PATHS)).thenReturn(new String[] {"/content"});
+        final ResourceChangeListenerInfo info = new ResourceChangeListenerInfo(reference, SEARCH_PATH);
+        info.setListener(new ResourceChangeListener() {
+
+            @Override
+            public void onChange(final List<ResourceChange> changes) {
+                firstDelivery.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch ( final InterruptedException ie ) {
+                    Thread.currentThread().interrupt();
+                }
+                synchronized ( received ) {
+                    received.add(new ArrayList<>(changes));
+                    received.notifyAll();
+                }
+            }
+        });
+        dispatcher = new ResourceChangeListenerDispatcher(info, SEARCH_PATH, maxSize, policy);
+        return dispatcher;
+    }
+
+    private static ResourceChange change(final ChangeType type, final String path) {
+        return new ResourceChange(type, path, false);
+    }
+
+    private List<ResourceChange> awaitDelivery(final int count) throws InterruptedException {
+        final long end = System.currentTimeMillis() + 10000;
+        synchronized ( received ) {
+            while ( received.size() < count && System.currentTimeMillis() < end ) {
+                received.wait(100);
+            }
+            assertTrue(received.size() >= count);
+            return received.get(count - 1);
+        }
+    }
+
+    /** Deliver a first change and keep the listener busy with it */
+    private void blockListener() throws InterruptedException {
+        dispatcher.dispatch(Arrays.asList(change(ChangeType.CHANGED, "/content/first")));
+        assertTrue(firstDelivery.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCoalesce() {
+        final ResourceChange added = change(ChangeType.ADDED, "/content/a");
+        final ResourceChange changed = change(ChangeType.CHANGED, "/content/a");
+        final ResourceChange removed = change(ChangeType.REMOVED, "/content/a");
+
+        assertSame(removed, ResourceChangeListenerDispatcher.coalesce(added, removed));
+        assertSame(removed, ResourceChangeListenerDispatcher.coalesce(changed, removed));
+        assertMerged(ChangeType.ADDED, ResourceChangeListenerDispatcher.coalesce(added, changed));
+        assertMerged(ChangeType.CHANGED, ResourceChangeListenerDispatcher.coalesce(removed, added));
+        assertMerged(ChangeType.CHANGED, ResourceChangeListenerDispatcher.coalesce(changed, changed));
+    }
+
+    @Test
+    public void testCoalesceDropsPropertyNames() {
+        final ResourceChange first = new ResourceChange(ChangeType.CHANGED, "/content/a", true,
+                null, Collections.singleton("title"), null);
+        final ResourceChange second = new ResourceChange(ChangeType.CHANGED, "/content/a", false,
+                null, Collections.singleton("text"), null);
+
+        // the listener must not assume that only "text" has changed
+        final ResourceChange merged = ResourceChangeListenerDispatcher.coalesce(first, second);
+        assertMerged(ChangeType.CHANGED, merged);
+        assertFalse(merged.isExternal());
+        assertNotSame(first, ResourceChangeListenerDispatcher.coalesce(first, first));
+    }
+
+    private static void assertMerged(final ChangeType type, final ResourceChange change) {
+        assertEquals(type, change.getType());
+        assertEquals("/content/a", change.getPath());
+        assertNull(change.getAddedPropertyNames());
+        assertNull(change.getChangedPropertyNames());
+        assertNull(change.getRemovedPropertyNames());
+    }
+
+    @Test
+    public void testCoalescePendingChanges() throws Exception {
+        createDispatcher(10, OverflowPolicy.BLOCK);
+        blockListener();
+
+        dispatcher.dispatch(Arrays.asList(change(ChangeType.ADDED, "/content/a"),
+                change(ChangeType.CHANGED, "/content/b"),
+                change(ChangeType.CHANGED, "/content/a")));
+        dispatcher.dispatch(Arrays.asList(change(ChangeType.CHANGED, "/content/b")));
+        assertEquals(2, dispatcher.getQueueSize());
+        assertTrue(dispatcher.getLag() >= 0);
+
+        release.countDown();
+        final List<ResourceChange> changes = awaitDelivery(2);
+        assertEquals(2, changes.size());
+        assertEquals("/content/a", changes.get(0).getPath());
+        assertEquals(ChangeType.ADDED, changes.get(0).getType());
+        assertEquals("/content/b", changes.get(1).getPath());
+        assertEquals(0, dispatcher.getQueueSize());
+    }
+
+    @Test
+    public void testDropOnOverflow() throws Exception {
+        createDispatcher(2, OverflowPolicy.DROP);
+        blockListener();
+
+        dispatcher.dispatch(Arrays.asList(change(ChangeType.CHANGED, "/content/a"),
+                change(ChangeType.CHANGED, "/content/b"),
+                change(ChangeType.CHANGED, "/content/c")));
+        assertEquals(2, dispatcher.getQueueSize());
+        assertEquals(1, dispatcher.getDroppedCount());
+
+        release.countDown();
+        final List<ResourceChange> changes = awaitDelivery(2);
+        assertEquals(2, changes.size());
+        assertEquals("/content/b", changes.get(1).getPath());
+    }
+
+    @Test
+    public void testRefreshOnOverflow() throws Exception {
+        createDispatcher(2, OverflowPolicy.REFRESH);
+        blockListener();
+
+        dispatcher.dispatch(Arrays.asList(change(ChangeType.CHANGED, "/content/a"),
+                change(ChangeType.CHANGED, "/content/b"),
+                change(ChangeType.CHANGED, "/content/c"),
+                change(ChangeType.CHANGED, "/content/d")));
+        assertEquals(0, dispatcher.getQueueSize());
+        assertEquals(1, dispatcher.getRefreshCount());
+
+        release.countDown();
+        final List<ResourceChange> changes = awaitDelivery(2);
+        assertEquals(1, changes.size());
+        assertEquals("/content", changes.get(0).getPath());
+        // the content still exists, a refresh is never reported as a removal
+        assertEquals(ChangeType.CHANGED, changes.get(0).getType());
+    }
+}
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -38,6 +39,7 @@ import org.apache.felix.webconsole.AbstractWebConsolePlugin;
 import org.apache.felix.webconsole.WebConsoleConstants;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.commons.osgi.ConcurrentLRUCache;
 import org.apache.sling.scripting.api.ScriptCache;
 import org.osgi.framework.Constants;
 
@@ -85,6 +87,20 @@ public class ScriptCacheConsolePlugin extends AbstractWebConsolePlugin {
             List<String> scripts = new ArrayList<String>(scriptCacheImpl.getCachedScripts());
             StringBuilder sb = new StringBuilder();
             sb.append("<script type='text/javascript' src='").append(RESOURCES).append("/").append(SCRIPTCACHE_JS).append("'></script>");
+            ConcurrentLRUCache<?, ?> cache = scriptCacheImpl.getCache();
+            sb.append("<div id='script-cache-statistics' class='ui-widget statline'>");
+            sb.append("<p class='ui-widget-header'>Statistics</p>");
+            sb.append("<table class='nicetable ui-widget-content'>");
+            sb.append("<tr class='even ui-state-default'><td>Size</td><td>").append(cache.size()).append(" / ")
+                    .append(cache.getMaxSize()).append("</td></tr>");
+            sb.append("<tr class='odd ui-state-default'><td>Hits</td><td>").append(cache.getHits()).append("</td></tr>");
+            sb.append("<tr class='even ui-state-default'><td>Misses</td><td>").append(cache.getMisses()).append("</td></tr>");
+            sb.append("<tr class='odd ui-state-default'><td>Hit Ratio</td><td>")
+                    .append(String.format(Locale.ENGLISH, "%.2f %%", cache.getHitRatio() * 100)).append("</td></tr>");
+            sb.append("<tr class='even ui-state-default'><td>Evictions</td><td>").append(cache.getEvictions()).append("</td></tr>");
+            sb.append("<tr class='odd ui-state-default'><td>Invalidations</td><td>").append(cache.getInvalidations()).append("</td></tr>");
+            sb.append("</table>");
+            sb.append("</div>");
             sb.append("<div id='cached-scripts' class='ui-widget statline'>");
             if (scripts.size() > 0) {
                 Collections.sort(scripts);
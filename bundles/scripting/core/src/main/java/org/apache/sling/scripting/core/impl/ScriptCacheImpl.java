@@ -19,7 +19,6 @@
 
 package org.apache.sling.scripting.core.impl;
 
-import java.lang.ref.SoftReference;
 import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.HashMap;
@@ -28,10 +27,10 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.annotation.Nonnull;
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
 import javax.script.Compilable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
@@ -53,12 +52,12 @@ import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
 import org.apache.sling.api.resource.observation.ResourceChange;
 import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
 import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.commons.osgi.ConcurrentLRUCache;
 import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.commons.threads.ThreadPool;
 import org.apache.sling.commons.threads.ThreadPoolManager;
 import org.apache.sling.scripting.api.CachedScript;
 import org.apache.sling.scripting.api.ScriptCache;
-import org.apache.sling.scripting.core.impl.helper.CachingMap;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
@@ -107,8 +106,9 @@ public class ScriptCacheImpl implements ScriptCache, ResourceChangeListener, Ext
     public static final String PROP_ADDITIONAL_EXTENSIONS = "org.apache.sling.scripting.cache.additional_extensions";
 
     private BundleContext bundleContext;
-    private Map<String, SoftReference<CachedScript>> internalMap;
+    private volatile ConcurrentLRUCache<String, CachedScript> internalMap;
     private ServiceRegistration<ResourceChangeListener> resourceChangeListener;
+    private ServiceRegistration<ScriptCacheMBean> mbeanRegistration;
     private Set<String> extensions = new HashSet<>();
     private String[] additionalExtensions = new String[]{};
     private String[] searchPaths = {};
@@ -122,110 +122,81 @@ public class ScriptCacheImpl implements ScriptCache, ResourceChangeListener, Ext
     private ThreadPoolManager threadPoolManager = null;
 
     private ThreadPool threadPool;
-    private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
-    private final Lock readLock = rwl.readLock();
-    private final Lock writeLock = rwl.writeLock();
     boolean active = false;
 
     public ScriptCacheImpl() {
-        internalMap = new CachingMap<>(DEFAULT_CACHE_SIZE);
+        internalMap = new ConcurrentLRUCache<>(DEFAULT_CACHE_SIZE, true);
     }
 
     @Override
     public CachedScript getScript(String scriptPath) {
-        readLock.lock();
-        SoftReference<CachedScript> reference = null;
-        try {
-            reference = internalMap.get(scriptPath);
-        } finally {
-            readLock.unlock();
-        }
-        return reference != null ? reference.get() : null;
+        return internalMap.get(scriptPath);
     }
 
     @Override
     public void putScript(CachedScript script) {
-        writeLock.lock();
-        try {
-            for (String searchPath : searchPaths) {
-                if (script.getScriptPath().startsWith(searchPath)) {
-                    SoftReference<CachedScript> reference = new SoftReference<>(script);
-                    internalMap.put(script.getScriptPath(), reference);
-                    LOGGER.debug("Added script {} to script cache.", script.getScriptPath());
-                    break;
-                }
+        for (String searchPath : searchPaths) {
+            if (script.getScriptPath().startsWith(searchPath)) {
+                internalMap.put(script.getScriptPath(), script);
+                LOGGER.debug("Added script {} to script cache.", script.getScriptPath());
+                break;
             }
-        } finally {
-            writeLock.unlock();
         }
     }
 
     @Override
     public void clear() {
-        writeLock.lock();
-        try {
-            internalMap.clear();
-            LOGGER.debug("Cleared script cache.");
-        } finally {
-            writeLock.unlock();
-        }
+        internalMap.clear();
+        LOGGER.debug("Cleared script cache.");
     }
 
     @Override
     public boolean removeScript(String scriptPath) {
-        writeLock.lock();
-        try {
-            SoftReference<CachedScript> reference = internalMap.remove(scriptPath);
-            boolean result = reference != null;
-            if (result) {
-                LOGGER.debug("Removed script {} from script cache.", scriptPath);
-            }
-            return result;
-        } finally {
-            writeLock.unlock();
+        boolean result = internalMap.remove(scriptPath);
+        if (result) {
+            LOGGER.debug("Removed script {} from script cache.", scriptPath);
         }
+        return result;
     }
 
     @Override
-    public void onChange(@Nonnull List<ResourceChange> list) {
-        for (final ResourceChange change : list) {
-            Runnable eventTask = new Runnable() {
-                @Override
-                public void run() {
+    public void onChange(@Nonnull final List<ResourceChange> list) {
+        // process the whole batch in one task, the cache itself does not need to be locked
+        Runnable eventTask = new Runnable() {
+            @Override
+            public void run() {
+                for (final ResourceChange change : list) {
                     String path = change.getPath();
-                    writeLock.lock();
-                    try {
-                        final boolean removed = internalMap.remove(path) != null;
-                        LOGGER.debug("Detected script change for {} - removed entry from the cache.", path);
-                        if ( !removed && change.getType() == ChangeType.REMOVED ) {
-                            final String prefix = path + "/";
-                            final Set<String> removal = new HashSet<>();
-                            for(final Map.Entry<String, SoftReference<CachedScript>> entry : internalMap.entrySet()) {
-                                if ( entry.getKey().startsWith(prefix) ) {
-                                    removal.add(entry.getKey());
-                                }
-                            }
-                            for(final String key : removal) {
-                                internalMap.remove(key);
-                                LOGGER.debug("Detected removal for {} - removed entry {} from the cache.", path, key);
+                    final boolean removed = internalMap.remove(path);
+                    LOGGER.debug("Detected script change for {} - removed entry from the cache.", path);
+                    // a removed folder or a refresh after an overflow of the listener queue
+                    if ( !removed && change.getType() != ChangeType.ADDED ) {
+                        final String prefix = path.endsWith("/") ? path : path + "/";
+                        final Set<String> keys = internalMap.removeAll(new ConcurrentLRUCache.Filter<String, CachedScript>() {
+                            @Override
+                            public boolean accept(String key, CachedScript script) {
+                                return key.startsWith(prefix);
                             }
+                        });
+                        for (final String key : keys) {
+                            LOGGER.debug("Detected change of {} - removed entry {} from the cache.", path, key);
                         }
-                    } finally {
-                        writeLock.unlock();
                     }
                 }
-            };
-            threadPool.execute(eventTask);
-        }
+            }
+        };
+        threadPool.execute(eventTask);
     }
 
     protected Set<String> getCachedScripts() {
-        readLock.lock();
-        try {
-            return internalMap.keySet();
-        } finally {
-            readLock.unlock();
-        }
+        return internalMap.keySet();
+    }
+
+    /**
+     * @return the cache, used for retrieving the statistics
+     */
+    ConcurrentLRUCache<String, CachedScript> getCache() {
+        return internalMap;
     }
 
     @Activate
@@ -236,11 +207,9 @@ public class ScriptCacheImpl implements ScriptCache, ResourceChangeListener, Ext
         Dictionary properties = componentContext.getProperties();
         additionalExtensions = PropertiesUtil.toStringArray(properties.get(PROP_ADDITIONAL_EXTENSIONS));
         int newMaxCacheSize = PropertiesUtil.toInteger(properties.get(PROP_CACHE_SIZE), DEFAULT_CACHE_SIZE);
-        if (newMaxCacheSize != DEFAULT_CACHE_SIZE) {
-            // change the map only if there's a configuration change regarding the cache's max size
-            CachingMap<CachedScript> newMap = new CachingMap<>(newMaxCacheSize);
-            newMap.putAll(internalMap);
-            internalMap = newMap;
+        if (newMaxCacheSize != internalMap.getMaxSize()) {
+            // change the cache only if there's a configuration change regarding the cache's max size; it's cleared below anyway
+            internalMap = new ConcurrentLRUCache<>(newMaxCacheSize, true);
         }
         ResourceResolver resolver = null;
         try {
@@ -257,37 +226,43 @@ public class ScriptCacheImpl implements ScriptCache, ResourceChangeListener, Ext
         }
 
         configureCache();
+        registerMBean();
         active = true;
     }
 
-    @SuppressWarnings("unchecked")
-    private void configureCache() {
-        writeLock.lock();
+    private void registerMBean() {
         try {
-            if (resourceChangeListener != null) {
-                resourceChangeListener.unregister();
-                resourceChangeListener = null;
-            }
-            internalMap.clear();
-            extensions.addAll(Arrays.asList(additionalExtensions));
-            if (extensions.size() > 0) {
-                Set<String> globPatterns = new HashSet<>(extensions.size());
-                for (String extension : extensions) {
-                    globPatterns.add("glob:**/*." + extension);
-                }
-                Dictionary<String, Object> resourceChangeListenerProperties = new Hashtable<String, Object>();
-                resourceChangeListenerProperties.put(ResourceChangeListener.PATHS, globPatterns.toArray(new String[globPatterns.size()]));
-                resourceChangeListenerProperties.put(ResourceChangeListener.CHANGES,
-                        new String[]{ResourceChange.ChangeType.CHANGED.name(), ResourceChange.ChangeType.REMOVED.name()});
-                resourceChangeListener =
-                        bundleContext.registerService(
-                                ResourceChangeListener.class,
-                                this,
-                                resourceChangeListenerProperties
-                        );
+            Dictionary<String, Object> mbeanProps = new Hashtable<>();
+            mbeanProps.put("jmx.objectname", "org.apache.sling:type=scripting,service=ScriptCache");
+            mbeanRegistration = bundleContext.registerService(ScriptCacheMBean.class, new ScriptCacheMBeanImpl(), mbeanProps);
+        } catch (Throwable t) {
+            LOGGER.debug("Unable to register the script cache mbean.", t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void configureCache() {
+        if (resourceChangeListener != null) {
+            resourceChangeListener.unregister();
+            resourceChangeListener = null;
+        }
+        internalMap.clear();
+        extensions.addAll(Arrays.asList(additionalExtensions));
+        if (extensions.size() > 0) {
+            Set<String> globPatterns = new HashSet<>(extensions.size());
+            for (String extension : extensions) {
+                globPatterns.add("glob:**/*." + extension);
             }
-        } finally {
-            writeLock.unlock();
+            Dictionary<String, Object> resourceChangeListenerProperties = new Hashtable<String, Object>();
+            resourceChangeListenerProperties.put(ResourceChangeListener.PATHS, globPatterns.toArray(new String[globPatterns.size()]));
+            resourceChangeListenerProperties.put(ResourceChangeListener.CHANGES,
+                    new String[]{ResourceChange.ChangeType.CHANGED.name(), ResourceChange.ChangeType.REMOVED.name()});
+            resourceChangeListener =
+                    bundleContext.registerService(
+                            ResourceChangeListener.class,
+                            this,
+                            resourceChangeListenerProperties
+                    );
         }
     }
 
@@ -295,6 +270,10 @@ public class ScriptCacheImpl implements ScriptCache, ResourceChangeListener, Ext
     @SuppressWarnings("unused")
     protected void deactivate(ComponentContext componentContext) {
         internalMap.clear();
+        if (mbeanRegistration != null) {
+            mbeanRegistration.unregister();
+            mbeanRegistration = null;
+        }
         if (resourceChangeListener != null) {
             resourceChangeListener.unregister();
             resourceChangeListener = null;
@@ -329,4 +308,51 @@ public class ScriptCacheImpl implements ScriptCache, ResourceChangeListener, Ext
             configureCache();
         }
     }
+
+    class ScriptCacheMBeanImpl extends StandardMBean implements ScriptCacheMBean {
+
+        ScriptCacheMBeanImpl() throws NotCompliantMBeanException {
+            super(ScriptCacheMBean.class);
+        }
+
+        @Override
+        public int getCacheSize() {
+            return internalMap.size();
+        }
+
+        @Override
+        public int getMaximumCacheSize() {
+            return internalMap.getMaxSize();
+        }
+
+        @Override
+        public long getCacheHits() {
+            return internalMap.getHits();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            return internalMap.getMisses();
+        }
+
+        @Override
+        public double getCacheHitRatio() {
+            return internalMap.getHitRatio();
+        }
+
+        @Override
+        public long getCacheEvictions() {
+            return internalMap.getEvictions();
+        }
+
+        @Override
+        public long getCacheInvalidations() {
+            return internalMap.getInvalidations();
+        }
+
+        @Override
+        public void clearCache() {
+            clear();
+        }
+    }
 }
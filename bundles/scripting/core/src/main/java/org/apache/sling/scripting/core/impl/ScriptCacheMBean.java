@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+
+package org.apache.sling.scripting.core.impl;
+
+/**
+ * The management interface of the {@link ScriptCacheImpl}.
+ */
+public interface ScriptCacheMBean {
+
+    /**
+     * @return the number of scripts in the cache
+     */
+    int getCacheSize();
+
+    /**
+     * @return the maximum number of scripts in the cache
+     */
+    int getMaximumCacheSize();
+
+    /**
+     * @return the number of script lookups served from the cache
+     */
+    long getCacheHits();
+
+    /**
+     * @return the number of script lookups not found in the cache
+     */
+    long getCacheMisses();
+
+    /**
+     * @return the ratio of script lookups served from the cache
+     */
+    double getCacheHitRatio();
+
+    /**
+     * @return the number of scripts evicted because the cache was full
+     */
+    long getCacheEvictions();
+
+    /**
+     * @return the number of scripts removed because they changed or because the cache has been cleared
+     */
+    long getCacheInvalidations();
+
+    /**
+     * Empties the cache.
+     */
+    void clearCache();
+}
@@ -0,0 +1,538 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.core.impl;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+
+import org.apache.felix.scr.annotations.Activate;
+import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.ConfigurationPolicy;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Properties;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.PropertyUnbounded;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.apache.sling.commons.threads.ModifiableThreadPoolConfig;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolManager;
+import org.apache.sling.scripting.api.ScriptCache;
+import org.apache.sling.scripting.core.ScriptNameAwareReader;
+import org.apache.sling.scripting.core.impl.helper.CachedScriptImpl;
+import org.apache.sling.scripting.core.impl.helper.SlingScriptEngineManager;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@code ScriptWarmUp} compiles the scripts from the search paths ahead of their first execution, so that requests don't have to
+ * wait for the scripts to be compiled after a deployment. The scripts are compiled in parallel on a bounded thread pool, when the
+ * component is activated and after a burst of changes to the scripts has settled. Scripts of engines implementing {@link Compilable}
+ * are compiled and stored in the {@link ScriptCache}, scripts of other engines are skipped.
+ */
+@Component(
+        metatype = true,
+        policy = ConfigurationPolicy.REQUIRE,
+        label = "Apache Sling Script Warm-Up",
+        description = "Compiles the scripts from the search paths in the background, when started and after they have been changed."
+)
+@Properties({
+        @Property(
+                name = ScriptWarmUp.PROP_EXTENSIONS,
+                value = {"html"},
+                label = "Extensions",
+                description = "Scripts from the search paths with these extensions will be compiled.",
+                unbounded = PropertyUnbounded.ARRAY
+        ),
+        @Property(
+                name = ScriptWarmUp.PROP_THREADS,
+                intValue = ScriptWarmUp.DEFAULT_THREADS,
+                label = "Threads",
+                description = "The maximum number of scripts which are compiled in parallel."
+        ),
+        @Property(
+                name = ScriptWarmUp.PROP_ON_STARTUP,
+                boolValue = true,
+                label = "Warm-Up on Startup",
+                description = "If enabled, all scripts are compiled when this component is activated."
+        ),
+        @Property(
+                name = ScriptWarmUp.PROP_CHANGE_DELAY,
+                longValue = ScriptWarmUp.DEFAULT_CHANGE_DELAY,
+                label = "Change Delay",
+                description = "Scripts which have been added or changed are compiled once no further changes happened for this number " +
+                        "of milliseconds. A negative value disables compiling changed scripts."
+        )
+})
+public class ScriptWarmUp implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptWarmUp.class);
+
+    public static final String PROP_EXTENSIONS = "org.apache.sling.scripting.warmup.extensions";
+    public static final String PROP_THREADS = "org.apache.sling.scripting.warmup.threads";
+    public static final String PROP_ON_STARTUP = "org.apache.sling.scripting.warmup.startup";
+    public static final String PROP_CHANGE_DELAY = "org.apache.sling.scripting.warmup.change_delay";
+
+    public static final int DEFAULT_THREADS = 4;
+    public static final long DEFAULT_CHANGE_DELAY = 5000;
+
+    private static final String SLING_SCRIPTING_USER = "sling-scripting";
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    @Reference
+    private ResourceResolverFactory rrf = null;
+
+    @Reference
+    private ThreadPoolManager threadPoolManager = null;
+
+    @Reference
+    private SlingScriptEngineManager scriptEngineManager = null;
+
+    @Reference
+    private ScriptCache scriptCache = null;
+
+    private ThreadPool threadPool;
+    private Set<String> extensions = new HashSet<>();
+    private String[] searchPaths = new String[0];
+    private int threads = DEFAULT_THREADS;
+    private long changeDelay = DEFAULT_CHANGE_DELAY;
+    private ServiceRegistration<ResourceChangeListener> resourceChangeListener;
+    private ServiceRegistration<ScriptWarmUpMBean> mbeanRegistration;
+
+    private final Set<String> pendingChanges = new LinkedHashSet<>();
+    private final AtomicBoolean changesScheduled = new AtomicBoolean();
+    private volatile long lastChange;
+    private volatile boolean active;
+    private volatile Run lastRun;
+
+    @Activate
+    protected void activate(ComponentContext componentContext) {
+        Dictionary<?, ?> properties = componentContext.getProperties();
+        extensions = new HashSet<>();
+        for (String extension : PropertiesUtil.toStringArray(properties.get(PROP_EXTENSIONS), new String[0])) {
+            if (!extension.trim().isEmpty()) {
+                extensions.add(extension.trim());
+            }
+        }
+        threads = Math.max(1, PropertiesUtil.toInteger(properties.get(PROP_THREADS), DEFAULT_THREADS));
+        changeDelay = PropertiesUtil.toLong(properties.get(PROP_CHANGE_DELAY), DEFAULT_CHANGE_DELAY);
+        boolean onStartup = PropertiesUtil.toBoolean(properties.get(PROP_ON_STARTUP), true);
+
+        // one additional thread collects the scripts while the others compile them
+        ModifiableThreadPoolConfig config = new ModifiableThreadPoolConfig();
+        config.setMinPoolSize(threads + 1);
+        config.setMaxPoolSize(threads + 1);
+        config.setQueueSize(-1);
+        threadPool = threadPoolManager.create(config, "Script Warm-Up Thread Pool");
+        active = true;
+
+        ResourceResolver resolver = null;
+        try {
+            resolver = getResourceResolver();
+            searchPaths = resolver.getSearchPath();
+        } catch (LoginException e) {
+            LOGGER.error("Unable to retrieve a ResourceResolver for determining the search paths.", e);
+        } finally {
+            if (resolver != null) {
+                resolver.close();
+            }
+        }
+
+        BundleContext bundleContext = componentContext.getBundleContext();
+        if (changeDelay >= 0 && !extensions.isEmpty() && searchPaths.length > 0) {
+            // only listen for scripts below the search paths, scripts elsewhere are never resolved
+            Set<String> globPatterns = new HashSet<>(extensions.size() * searchPaths.length);
+            for (String searchPath : searchPaths) {
+                for (String extension : extensions) {
+                    globPatterns.add("glob:" + searchPath + "**/*." + extension);
+                }
+            }
+            Dictionary<String, Object> listenerProperties = new Hashtable<>();
+            listenerProperties.put(ResourceChangeListener.PATHS, globPatterns.toArray(new String[globPatterns.size()]));
+            listenerProperties.put(ResourceChangeListener.CHANGES,
+                    new String[]{ResourceChange.ChangeType.ADDED.name(), ResourceChange.ChangeType.CHANGED.name()});
+            resourceChangeListener = bundleContext.registerService(ResourceChangeListener.class, this, listenerProperties);
+        }
+        try {
+            Dictionary<String, Object> mbeanProps = new Hashtable<>();
+            mbeanProps.put("jmx.objectname", "org.apache.sling:type=scripting,service=ScriptWarmUp");
+            mbeanRegistration = bundleContext.registerService(ScriptWarmUpMBean.class, new ScriptWarmUpMBeanImpl(), mbeanProps);
+        } catch (Throwable t) {
+            LOGGER.debug("Unable to register the script warm-up mbean.", t);
+        }
+        if (onStartup) {
+            warmUp(null);
+        }
+    }
+
+    @Deactivate
+    protected void deactivate(ComponentContext componentContext) {
+        active = false;
+        if (resourceChangeListener != null) {
+            resourceChangeListener.unregister();
+            resourceChangeListener = null;
+        }
+        if (mbeanRegistration != null) {
+            mbeanRegistration.unregister();
+            mbeanRegistration = null;
+        }
+        synchronized (pendingChanges) {
+            pendingChanges.clear();
+            pendingChanges.notifyAll();
+        }
+        if (threadPool != null) {
+            threadPoolManager.release(threadPool);
+            threadPool = null;
+        }
+    }
+
+    @Override
+    public void onChange(@Nonnull List<ResourceChange> changes) {
+        synchronized (pendingChanges) {
+            for (ResourceChange change : changes) {
+                pendingChanges.add(change.getPath());
+            }
+            lastChange = System.currentTimeMillis();
+        }
+        final ThreadPool pool = threadPool;
+        if (pool != null && changesScheduled.compareAndSet(false, true)) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    warmUpChanges();
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until no changes happened for the configured delay and compiles the changed scripts.
+     */
+    private void warmUpChanges() {
+        Set<String> paths;
+        synchronized (pendingChanges) {
+            long wait;
+            while (active && (wait = lastChange + changeDelay - System.currentTimeMillis()) > 0) {
+                try {
+                    pendingChanges.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            // reset the flag before draining, later changes schedule a new run
+            changesScheduled.set(false);
+            paths = new LinkedHashSet<>(pendingChanges);
+            pendingChanges.clear();
+        }
+        if (active && !paths.isEmpty()) {
+            warmUp(paths);
+        }
+    }
+
+    /**
+     * Starts a warm-up run.
+     *
+     * @param paths the paths of the scripts to compile or {@code null} for compiling all scripts from the search paths
+     */
+    void warmUp(final Collection<String> paths) {
+        final ThreadPool pool = threadPool;
+        if (pool == null) {
+            return;
+        }
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                collectAndCompile(pool, paths);
+            }
+        });
+    }
+
+    private void collectAndCompile(ThreadPool pool, Collection<String> paths) {
+        long start = System.currentTimeMillis();
+        List<String> scripts = new ArrayList<>();
+        ResourceResolver resolver = null;
+        try {
+            resolver = getResourceResolver();
+            if (paths == null) {
+                for (String searchPath : searchPaths) {
+                    Resource root = resolver.getResource(searchPath);
+                    if (root != null) {
+                        collectScripts(root, scripts);
+                    }
+                }
+            } else {
+                for (String path : paths) {
+                    if (isScript(path) && isInSearchPath(path) && resolver.getResource(path) != null) {
+                        // make sure the previous version of a changed script is not used from the cache
+                        scriptCache.removeScript(path);
+                        scripts.add(path);
+                    }
+                }
+            }
+        } catch (LoginException e) {
+            LOGGER.error("Unable to retrieve a ResourceResolver for warming up the scripts.", e);
+            return;
+        } finally {
+            if (resolver != null) {
+                resolver.close();
+            }
+        }
+        if (scripts.isEmpty()) {
+            return;
+        }
+
+        Run run = new Run(start, scripts.size());
+        lastRun = run;
+        LOGGER.info("Warming up {} scripts using {} threads.", scripts.size(), threads);
+        // each task compiles a share of the scripts using its own resource resolver
+        int tasks = Math.min(threads, scripts.size());
+        run.pendingTasks.set(tasks);
+        for (int i = 0; i < tasks; i++) {
+            final List<String> share = new ArrayList<>();
+            for (int j = i; j < scripts.size(); j += tasks) {
+                share.add(scripts.get(j));
+            }
+            final Run currentRun = run;
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    compileScripts(share, currentRun);
+                }
+            });
+        }
+    }
+
+    private void collectScripts(Resource resource, List<String> scripts) {
+        if (isScript(resource.getPath())) {
+            scripts.add(resource.getPath());
+        }
+        Iterator<Resource> children = resource.listChildren();
+        while (children.hasNext()) {
+            collectScripts(children.next(), scripts);
+        }
+    }
+
+    private boolean isScript(String path) {
+        String name = ResourceUtil.getName(path);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && extensions.contains(name.substring(dot + 1));
+    }
+
+    private boolean isInSearchPath(String path) {
+        for (String searchPath : searchPaths) {
+            if (path.startsWith(searchPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compileScripts(List<String> scripts, Run run) {
+        ResourceResolver resolver = null;
+        try {
+            resolver = getResourceResolver();
+            for (String path : scripts) {
+                if (!active) {
+                    return;
+                }
+                try {
+                    Resource script = resolver.getResource(path);
+                    if (script != null && compile(script)) {
+                        run.compiled.incrementAndGet();
+                    } else {
+                        run.skipped.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    run.failed(path, e);
+                }
+            }
+        } catch (LoginException e) {
+            LOGGER.error("Unable to retrieve a ResourceResolver for warming up the scripts.", e);
+            for (String path : scripts) {
+                run.failed(path, e);
+            }
+        } finally {
+            if (resolver != null) {
+                resolver.close();
+            }
+            if (run.pendingTasks.decrementAndGet() == 0) {
+                run.end = System.currentTimeMillis();
+                LOGGER.info("Warmed up scripts in {} ms: {} compiled, {} skipped, {} failed.", new Object[] {run.end - run.start,
+                        run.compiled.get(), run.skipped.get(), run.failures.get()});
+            }
+        }
+    }
+
+    /**
+     * Compiles a script in the same way as it is compiled before its first execution.
+     *
+     * @param script the script
+     * @return {@code true} if the script was compiled, {@code false} if its engine doesn't support compilation ahead of the execution
+     * or if it was already compiled
+     */
+    private boolean compile(Resource script) throws Exception {
+        String path = script.getPath();
+        ScriptEngine engine = scriptEngineManager.getEngineByExtension(path.substring(path.lastIndexOf('.') + 1));
+        if (engine == null) {
+            return false;
+        }
+        if (engine instanceof Compilable && scriptCache.getScript(path) == null) {
+            String encoding = script.getResourceMetadata().getCharacterEncoding();
+            InputStream is = script.adaptTo(InputStream.class);
+            if (is == null) {
+                return false;
+            }
+            try (Reader reader = new ScriptNameAwareReader(new InputStreamReader(is, encoding == null ? "UTF-8" : encoding), path)) {
+                CompiledScript compiledScript = ((Compilable) engine).compile(reader);
+                scriptCache.putScript(new CachedScriptImpl(path, compiledScript));
+            }
+            LOGGER.debug("Compiled script {} and added it to the script cache.", path);
+            return true;
+        }
+        return false;
+    }
+
+    private ResourceResolver getResourceResolver() throws LoginException {
+        Map<String, Object> authenticationInfo = new HashMap<>(1);
+        authenticationInfo.put(ResourceResolverFactory.SUBSERVICE, SLING_SCRIPTING_USER);
+        return rrf.getServiceResourceResolver(authenticationInfo);
+    }
+
+    /**
+     * Status of a warm-up run.
+     */
+    static final class Run {
+
+        final long start;
+        final int total;
+        final AtomicInteger pendingTasks = new AtomicInteger();
+        final AtomicInteger compiled = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final ConcurrentMap<String, String> failedScripts = new ConcurrentHashMap<>();
+        volatile long end;
+
+        Run(long start, int total) {
+            this.start = start;
+            this.total = total;
+        }
+
+        void failed(String path, Exception e) {
+            failures.incrementAndGet();
+            if (failedScripts.size() < MAX_REPORTED_FAILURES) {
+                failedScripts.put(path, String.valueOf(e.getMessage()));
+            }
+            LOGGER.warn("Unable to compile script {}: {}", path, e.getMessage());
+            LOGGER.debug("Compilation failure of script " + path + ".", e);
+        }
+    }
+
+    class ScriptWarmUpMBeanImpl extends StandardMBean implements ScriptWarmUpMBean {
+
+        ScriptWarmUpMBeanImpl() throws NotCompliantMBeanException {
+            super(ScriptWarmUpMBean.class);
+        }
+
+        @Override
+        public boolean isRunning() {
+            Run run = lastRun;
+            return run != null && run.end == 0;
+        }
+
+        @Override
+        public int getScriptsTotal() {
+            Run run = lastRun;
+            return run != null ? run.total : 0;
+        }
+
+        @Override
+        public int getScriptsCompiled() {
+            Run run = lastRun;
+            return run != null ? run.compiled.get() : 0;
+        }
+
+        @Override
+        public int getScriptsFailed() {
+            Run run = lastRun;
+            return run != null ? run.failures.get() : 0;
+        }
+
+        @Override
+        public String[] getFailedScripts() {
+            Run run = lastRun;
+            if (run == null) {
+                return new String[0];
+            }
+            List<String> failed = new ArrayList<>(run.failedScripts.size());
+            for (Map.Entry<String, String> entry : run.failedScripts.entrySet()) {
+                failed.add(entry.getKey() + ": " + entry.getValue());
+            }
+            return failed.toArray(new String[failed.size()]);
+        }
+
+        @Override
+        public long getDuration() {
+            Run run = lastRun;
+            if (run == null) {
+                return 0;
+            }
+            return (run.end == 0 ? System.currentTimeMillis() : run.end) - run.start;
+        }
+
+        @Override
+        public void warmUp() {
+            ScriptWarmUp.this.warmUp(null);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.core.impl;
+
+/**
+ * The management interface of the {@link ScriptWarmUp}, reporting on the most recent warm-up run.
+ */
+public interface ScriptWarmUpMBean {
+
+    /**
+     * @return {@code true} if a warm-up run is in progress
+     */
+    boolean isRunning();
+
+    /**
+     * @return the number of scripts selected for compilation
+     */
+    int getScriptsTotal();
+
+    /**
+     * @return the number of scripts compiled successfully
+     */
+    int getScriptsCompiled();
+
+    /**
+     * @return the number of scripts which could not be compiled
+     */
+    int getScriptsFailed();
+
+    /**
+     * @return the paths of the scripts which could not be compiled, together with the reason
+     */
+    String[] getFailedScripts();
+
+    /**
+     * @return the duration of the run in milliseconds; for a run in progress the time elapsed since it was started
+     */
+    long getDuration();
+
+    /**
+     * Compiles all the scripts from the search paths.
+     */
+    void warmUp();
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.scripting.core.impl;
+
+import java.util.Collections;
+
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.scripting.api.CachedScript;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScriptCacheImplTest {
+
+    private ScriptCacheImpl scriptCache;
+
+    @Before
+    public void setUp() {
+        // run the tasks in the calling thread
+        ThreadPool threadPool = mock(ThreadPool.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).when(threadPool).execute(any(Runnable.class));
+
+        scriptCache = new ScriptCacheImpl();
+        Whitebox.setInternalState(scriptCache, "threadPool", threadPool);
+        Whitebox.setInternalState(scriptCache, "searchPaths", new String[] {"/apps/", "/libs/"});
+        putScript("/apps/test/page.html");
+        putScript("/apps/test/component/component.html");
+        putScript("/libs/test/list.html");
+    }
+
+    private void putScript(String path) {
+        CachedScript script = mock(CachedScript.class);
+        when(script.getScriptPath()).thenReturn(path);
+        scriptCache.putScript(script);
+    }
+
+    private void onChange(ChangeType type, String path) {
+        scriptCache.onChange(Collections.singletonList(new ResourceChange(type, path, false, null, null, null)));
+    }
+
+    @Test
+    public void testChangedScript() {
+        onChange(ChangeType.CHANGED, "/apps/test/page.html");
+        assertNull(scriptCache.getScript("/apps/test/page.html"));
+        assertNotNull(scriptCache.getScript("/apps/test/component/component.html"));
+        assertEquals(2, scriptCache.getCachedScripts().size());
+    }
+
+    @Test
+    public void testRemovedFolder() {
+        onChange(ChangeType.REMOVED, "/apps/test/component");
+        assertNull(scriptCache.getScript("/apps/test/component/component.html"));
+        assertEquals(2, scriptCache.getCachedScripts().size());
+    }
+
+    @Test
+    public void testRefresh() {
+        // a listener refresh is reported as a change of the root
+        onChange(ChangeType.CHANGED, "/");
+        assertEquals(0, scriptCache.getCachedScripts().size());
+    }
+}
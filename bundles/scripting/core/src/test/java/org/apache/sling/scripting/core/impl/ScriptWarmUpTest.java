@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.core.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.commons.threads.ThreadPool;
+import org.apache.sling.commons.threads.ThreadPoolConfig;
+import org.apache.sling.commons.threads.ThreadPoolManager;
+import org.apache.sling.scripting.api.CachedScript;
+import org.apache.sling.scripting.api.ScriptCache;
+import org.apache.sling.scripting.core.impl.helper.SlingScriptEngineManager;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.ComponentContext;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class ScriptWarmUpTest {
+
+    @Rule
+    public SlingContext context = new SlingContext();
+
+    private ScriptWarmUp warmUp;
+    private Compilable compilable;
+    private ScriptCache scriptCache;
+
+    @Before
+    public void setUp() throws Exception {
+        for (String path : new String[] {"/apps/test/page.html", "/apps/test/component/component.html", "/apps/test/style.css",
+                "/libs/test/list.html", "/content/test/page.html"}) {
+            context.load().binaryFile(new ByteArrayInputStream("<p>test</p>".getBytes("UTF-8")), path);
+        }
+        // the warm-up reads the scripts with its own resource resolvers
+        context.resourceResolver().commit();
+
+        // run the tasks in the calling thread
+        ThreadPool threadPool = mock(ThreadPool.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).when(threadPool).execute(any(Runnable.class));
+        ThreadPoolManager threadPoolManager = mock(ThreadPoolManager.class);
+        when(threadPoolManager.create(any(ThreadPoolConfig.class), anyString())).thenReturn(threadPool);
+
+        ScriptEngine engine = mock(ScriptEngine.class, withSettings().extraInterfaces(Compilable.class));
+        compilable = (Compilable) engine;
+        when(compilable.compile(any(Reader.class))).thenReturn(mock(CompiledScript.class));
+        SlingScriptEngineManager scriptEngineManager = mock(SlingScriptEngineManager.class);
+        when(scriptEngineManager.getEngineByExtension("html")).thenReturn(engine);
+        scriptCache = mock(ScriptCache.class);
+
+        warmUp = new ScriptWarmUp();
+        Whitebox.setInternalState(warmUp, "rrf", context.getService(ResourceResolverFactory.class));
+        Whitebox.setInternalState(warmUp, "threadPoolManager", threadPoolManager);
+        Whitebox.setInternalState(warmUp, "scriptEngineManager", scriptEngineManager);
+        Whitebox.setInternalState(warmUp, "scriptCache", scriptCache);
+    }
+
+    @After
+    public void tearDown() {
+        warmUp.deactivate(null);
+    }
+
+    @Test
+    public void testWarmUpOnStartup() throws Exception {
+        warmUp.activate(createComponentContext(true));
+        ArgumentCaptor<CachedScript> scripts = ArgumentCaptor.forClass(CachedScript.class);
+        verify(compilable, times(3)).compile(any(Reader.class));
+        verify(scriptCache, times(3)).putScript(scripts.capture());
+        assertEquals(Arrays.asList("/apps/test/component/component.html", "/apps/test/page.html", "/libs/test/list.html"),
+                sortedPaths(scripts));
+    }
+
+    @Test
+    public void testWarmUpChanges() throws Exception {
+        warmUp.activate(createComponentContext(false));
+        verify(compilable, never()).compile(any(Reader.class));
+
+        warmUp.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/apps/test/page.html", false,
+                null, null, null)));
+        ArgumentCaptor<CachedScript> scripts = ArgumentCaptor.forClass(CachedScript.class);
+        verify(scriptCache, atLeastOnce()).putScript(scripts.capture());
+        assertEquals(Collections.singletonList("/apps/test/page.html"), sortedPaths(scripts));
+        verify(scriptCache).removeScript("/apps/test/page.html");
+    }
+
+    @Test
+    public void testChangesOutsideSearchPath() throws Exception {
+        warmUp.activate(createComponentContext(false));
+        ServiceReference<ResourceChangeListener> reference = context.bundleContext().getServiceReference(ResourceChangeListener.class);
+        String[] globs = (String[]) reference.getProperty(ResourceChangeListener.PATHS);
+        Arrays.sort(globs);
+        assertArrayEquals(new String[] {"glob:/apps/**/*.html", "glob:/libs/**/*.html"}, globs);
+
+        warmUp.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, "/content/test/page.html", false,
+                null, null, null)));
+        verify(compilable, never()).compile(any(Reader.class));
+        verify(scriptCache, never()).removeScript(anyString());
+    }
+
+    private ComponentContext createComponentContext(boolean onStartup) {
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(ScriptWarmUp.PROP_EXTENSIONS, new String[] {"html"});
+        properties.put(ScriptWarmUp.PROP_ON_STARTUP, onStartup);
+        properties.put(ScriptWarmUp.PROP_CHANGE_DELAY, 0L);
+        ComponentContext componentContext = mock(ComponentContext.class);
+        when(componentContext.getProperties()).thenReturn(properties);
+        when(componentContext.getBundleContext()).thenReturn(context.bundleContext());
+        return componentContext;
+    }
+
+    private static List<String> sortedPaths(ArgumentCaptor<CachedScript> scripts) {
+        List<String> paths = new ArrayList<>();
+        for (CachedScript script : scripts.getAllValues()) {
+            paths.add(script.getScriptPath());
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.sightly.impl.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.sling.scripting.sightly.java.compiler.RenderUnit;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.util.tracker.BundleTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the HTL templates which have been compiled at build time and packaged into bundles. A bundle provides precompiled
+ * templates by containing a {@link #TEMPLATES_INDEX} entry, which maps the path of each template to the name of the class generated
+ * for it and to the checksum of the template's source. A precompiled template is only used if the source of the script which is
+ * about to be compiled matches the checksum, otherwise the engine falls back to compiling the script at runtime.
+ */
+@Component(
+        service = PrecompiledTemplatesRegistry.class
+)
+public class PrecompiledTemplatesRegistry {
+
+    /**
+     * The bundle entry listing the precompiled templates of a bundle.
+     */
+    public static final String TEMPLATES_INDEX = "META-INF/sling-htl/templates.properties";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrecompiledTemplatesRegistry.class);
+
+    private final ConcurrentMap<String, PrecompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    private BundleTracker<List<PrecompiledTemplate>> bundleTracker;
+
+    @Activate
+    protected void activate(BundleContext bundleContext) {
+        bundleTracker = new BundleTracker<List<PrecompiledTemplate>>(bundleContext, Bundle.ACTIVE, null) {
+            @Override
+            public List<PrecompiledTemplate> addingBundle(Bundle bundle, BundleEvent event) {
+                return register(bundle);
+            }
+
+            @Override
+            public void removedBundle(Bundle bundle, BundleEvent event, List<PrecompiledTemplate> bundleTemplates) {
+                unregister(bundleTemplates);
+            }
+        };
+        bundleTracker.open();
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (bundleTracker != null) {
+            bundleTracker.close();
+            bundleTracker = null;
+        }
+        templates.clear();
+    }
+
+    /**
+     * Checks if a precompiled template has been registered for a script.
+     *
+     * @param scriptName the path of the script
+     * @return {@code true} if a bundle provides a precompiled template for the script, {@code false} otherwise
+     */
+    public boolean hasTemplate(String scriptName) {
+        return templates.containsKey(scriptName);
+    }
+
+    /**
+     * Provides the {@link RenderUnit} precompiled for a script, if the script's source didn't change since the template was compiled.
+     *
+     * @param scriptName the path of the script
+     * @param source     the current source of the script
+     * @return the render unit or {@code null} if no matching precompiled template is available
+     */
+    public RenderUnit getRenderUnit(String scriptName, String source) {
+        PrecompiledTemplate template = templates.get(scriptName);
+        if (template == null) {
+            return null;
+        }
+        if (!template.checksum.equals(checksum(source))) {
+            LOGGER.debug("Script {} was changed after it was precompiled in bundle {}.", scriptName, template.bundle.getSymbolicName());
+            return null;
+        }
+        try {
+            Object renderUnit = template.bundle.loadClass(template.className).newInstance();
+            if (renderUnit instanceof RenderUnit) {
+                return (RenderUnit) renderUnit;
+            }
+            LOGGER.warn("Class {} from bundle {} precompiled for script {} is not a RenderUnit.", new Object[] {template.className,
+                    template.bundle.getSymbolicName(), scriptName});
+        } catch (Exception e) {
+            LOGGER.warn(String.format("Unable to load class %s from bundle %s precompiled for script %s.", template.className,
+                    template.bundle.getSymbolicName(), scriptName), e);
+        }
+        return null;
+    }
+
+    /**
+     * Calculates the checksum identifying the source of a template.
+     *
+     * @param source the source of the template
+     * @return the hex encoded SHA-256 digest of the UTF-8 encoded source
+     */
+    public static String checksum(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    List<PrecompiledTemplate> register(Bundle bundle) {
+        URL index = bundle.getEntry(TEMPLATES_INDEX);
+        if (index == null) {
+            return null;
+        }
+        Properties properties = new Properties();
+        InputStream is = null;
+        try {
+            is = index.openStream();
+            properties.load(is);
+        } catch (IOException e) {
+            LOGGER.error("Unable to read the precompiled HTL templates of bundle " + bundle.getSymbolicName() + ".", e);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        List<PrecompiledTemplate> bundleTemplates = new ArrayList<>(properties.size());
+        for (String scriptName : properties.stringPropertyNames()) {
+            String[] value = StringUtils.split(properties.getProperty(scriptName), ',');
+            if (value.length != 2) {
+                LOGGER.warn("Invalid entry {} for the precompiled HTL templates of bundle {}.", scriptName, bundle.getSymbolicName());
+                continue;
+            }
+            PrecompiledTemplate template = new PrecompiledTemplate(bundle, scriptName, value[0].trim(), value[1].trim());
+            PrecompiledTemplate previous = templates.put(scriptName, template);
+            if (previous != null) {
+                LOGGER.warn("Script {} is precompiled by bundles {} and {}; using the template from the latter.", new Object[] {scriptName,
+                        previous.bundle.getSymbolicName(), bundle.getSymbolicName()});
+            }
+            bundleTemplates.add(template);
+        }
+        LOGGER.info("Registered {} precompiled HTL templates from bundle {}.", bundleTemplates.size(), bundle.getSymbolicName());
+        return bundleTemplates;
+    }
+
+    void unregister(List<PrecompiledTemplate> bundleTemplates) {
+        for (PrecompiledTemplate template : bundleTemplates) {
+            // only remove the templates which were not replaced by another bundle in the meantime
+            templates.remove(template.scriptName, template);
+        }
+    }
+
+    static final class PrecompiledTemplate {
+
+        private final Bundle bundle;
+        private final String scriptName;
+        private final String className;
+        private final String checksum;
+
+        PrecompiledTemplate(Bundle bundle, String scriptName, String className, String checksum) {
+            this.bundle = bundle;
+            this.scriptName = scriptName;
+            this.className = className;
+            this.checksum = checksum;
+        }
+    }
+}
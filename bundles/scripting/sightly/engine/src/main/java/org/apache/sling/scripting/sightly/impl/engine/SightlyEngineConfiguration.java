@@ -55,10 +55,18 @@ public class SightlyEngineConfiguration {
         )
         boolean keepGenerated() default true;
 
+        @AttributeDefinition(
+                name = "Use Precompiled Templates",
+                description = "If enabled, HTL templates which were compiled at build time and packaged into bundles will be used " +
+                        "instead of compiling the scripts at runtime, as long as the scripts' sources didn't change."
+        )
+        boolean usePrecompiledTemplates() default false;
+
     }
 
     private String engineVersion = "0";
     private boolean keepGenerated;
+    private boolean usePrecompiledTemplates;
     private String bundleSymbolicName = "org.apache.sling.scripting.sightly";
 
     public String getEngineVersion() {
@@ -77,6 +85,10 @@ public class SightlyEngineConfiguration {
         return keepGenerated;
     }
 
+    public boolean usePrecompiledTemplates() {
+        return usePrecompiledTemplates;
+    }
+
     @Activate
     protected void activate(Configuration configuration) {
         InputStream ins = null;
@@ -104,5 +116,6 @@ public class SightlyEngineConfiguration {
             }
         }
         keepGenerated = configuration.keepGenerated();
+        usePrecompiledTemplates = configuration.usePrecompiledTemplates();
     }
 }
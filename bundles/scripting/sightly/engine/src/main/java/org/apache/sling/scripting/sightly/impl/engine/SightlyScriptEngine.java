@@ -18,6 +18,7 @@
  ******************************************************************************/
 package org.apache.sling.scripting.sightly.impl.engine;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.Set;
@@ -29,6 +30,7 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.api.scripting.SlingScriptHelper;
@@ -59,15 +61,18 @@ public class SightlyScriptEngine extends AbstractSlingScriptEngine implements Co
     private SightlyCompiler sightlyCompiler;
     private SightlyJavaCompilerService javaCompilerService;
     private final SightlyEngineConfiguration configuration;
+    private final PrecompiledTemplatesRegistry precompiledTemplatesRegistry;
 
     public SightlyScriptEngine(ScriptEngineFactory scriptEngineFactory,
                                SightlyCompiler sightlyCompiler,
                                SightlyJavaCompilerService javaCompilerService,
-                               SightlyEngineConfiguration configuration) {
+                               SightlyEngineConfiguration configuration,
+                               PrecompiledTemplatesRegistry precompiledTemplatesRegistry) {
         super(scriptEngineFactory);
         this.sightlyCompiler = sightlyCompiler;
         this.javaCompilerService = javaCompilerService;
         this.configuration = configuration;
+        this.precompiledTemplatesRegistry = precompiledTemplatesRegistry;
     }
 
     @Override
@@ -102,18 +107,29 @@ public class SightlyScriptEngine extends AbstractSlingScriptEngine implements Co
         }
     }
 
-    private SightlyCompiledScript internalCompile(final Reader script, ScriptContext scriptContext) throws ScriptException {
+    private SightlyCompiledScript internalCompile(Reader reader, ScriptContext scriptContext) throws ScriptException {
         ClassLoader old = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(((SightlyScriptEngineFactory) getFactory()).getClassLoader());
         try {
             String sName = NO_SCRIPT;
-            if (script instanceof ScriptNameAware) {
-                sName = ((ScriptNameAware) script).getScriptName();
+            if (reader instanceof ScriptNameAware) {
+                sName = ((ScriptNameAware) reader).getScriptName();
             }
             if (sName.equals(NO_SCRIPT)) {
                 sName = getScriptName(scriptContext);
             }
             final String scriptName = sName;
+            Reader scriptReader = reader;
+            if (configuration.usePrecompiledTemplates() && precompiledTemplatesRegistry.hasTemplate(scriptName)) {
+                String source = IOUtils.toString(reader);
+                RenderUnit precompiled = precompiledTemplatesRegistry.getRenderUnit(scriptName, source);
+                if (precompiled != null) {
+                    LOGGER.debug("Using the precompiled template for script {}.", scriptName);
+                    return new SightlyCompiledScript(this, precompiled);
+                }
+                scriptReader = new StringReader(source);
+            }
+            final Reader script = scriptReader;
             CompilationUnit compilationUnit = new CompilationUnit() {
                 @Override
                 public String getScriptName() {
@@ -152,6 +168,8 @@ public class SightlyScriptEngine extends AbstractSlingScriptEngine implements Co
             } else {
                 throw new SightlyException("Expected a RenderUnit.");
             }
+        } catch (IOException e) {
+            throw new ScriptException(e);
         } finally {
             Thread.currentThread().setContextClassLoader(old);
         }
@@ -66,6 +66,9 @@ public class SightlyScriptEngineFactory extends AbstractScriptEngineFactory {
     @Reference
     private SightlyJavaCompilerService sightlyJavaCompilerService;
 
+    @Reference
+    private PrecompiledTemplatesRegistry precompiledTemplatesRegistry;
+
     public final static String SHORT_NAME = "sightly";
 
     public final static String LANGUAGE_NAME = "The HTL Templating Language";
@@ -93,7 +96,8 @@ public class SightlyScriptEngineFactory extends AbstractScriptEngineFactory {
 
     @Override
     public ScriptEngine getScriptEngine() {
-        return new SightlyScriptEngine(this, sightlyCompiler, sightlyJavaCompilerService, sightlyEngineConfiguration);
+        return new SightlyScriptEngine(this, sightlyCompiler, sightlyJavaCompilerService, sightlyEngineConfiguration,
+                precompiledTemplatesRegistry);
     }
 
     protected ClassLoader getClassLoader() {
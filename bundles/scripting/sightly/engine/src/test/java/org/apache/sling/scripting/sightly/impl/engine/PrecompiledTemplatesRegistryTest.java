@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.sightly.impl.engine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Properties;
+
+import javax.script.Bindings;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.sling.scripting.sightly.java.compiler.RenderUnit;
+import org.apache.sling.scripting.sightly.render.RenderContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrecompiledTemplatesRegistryTest {
+
+    private static final String SCRIPT = "/apps/test/test.html";
+    private static final String SOURCE = "<p>${properties.jcr:title}</p>";
+
+    private File index;
+
+    @Before
+    public void setUp() throws IOException {
+        index = File.createTempFile("templates", ".properties");
+        Properties properties = new Properties();
+        properties.setProperty(SCRIPT, TestRenderUnit.class.getName() + "," + PrecompiledTemplatesRegistry.checksum(SOURCE));
+        properties.setProperty("/apps/test/invalid.html", "invalid");
+        OutputStream os = new FileOutputStream(index);
+        try {
+            properties.store(os, null);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        index.delete();
+    }
+
+    @Test
+    public void testRenderUnit() throws Exception {
+        PrecompiledTemplatesRegistry registry = new PrecompiledTemplatesRegistry();
+        List<PrecompiledTemplatesRegistry.PrecompiledTemplate> templates = registry.register(createBundle());
+        assertNotNull(templates);
+        assertEquals(1, templates.size());
+        assertTrue(registry.hasTemplate(SCRIPT));
+        assertFalse(registry.hasTemplate("/apps/test/invalid.html"));
+        assertTrue(registry.getRenderUnit(SCRIPT, SOURCE) instanceof TestRenderUnit);
+
+        registry.unregister(templates);
+        assertFalse(registry.hasTemplate(SCRIPT));
+        assertNull(registry.getRenderUnit(SCRIPT, SOURCE));
+    }
+
+    @Test
+    public void testChangedSource() throws Exception {
+        PrecompiledTemplatesRegistry registry = new PrecompiledTemplatesRegistry();
+        registry.register(createBundle());
+        assertNull(registry.getRenderUnit(SCRIPT, SOURCE + "\n"));
+    }
+
+    @Test
+    public void testBundleWithoutTemplates() {
+        PrecompiledTemplatesRegistry registry = new PrecompiledTemplatesRegistry();
+        assertNull(registry.register(mock(Bundle.class)));
+        assertFalse(registry.hasTemplate(SCRIPT));
+    }
+
+    private Bundle createBundle() throws Exception {
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getSymbolicName()).thenReturn("org.apache.sling.scripting.sightly.test");
+        when(bundle.getEntry(PrecompiledTemplatesRegistry.TEMPLATES_INDEX)).thenReturn(index.toURI().toURL());
+        doReturn(TestRenderUnit.class).when(bundle).loadClass(TestRenderUnit.class.getName());
+        return bundle;
+    }
+
+    public static class TestRenderUnit extends RenderUnit {
+
+        @Override
+        protected void render(PrintWriter out, Bindings bindings, Bindings arguments, RenderContext renderContext) {
+            out.write("test");
+        }
+    }
+}
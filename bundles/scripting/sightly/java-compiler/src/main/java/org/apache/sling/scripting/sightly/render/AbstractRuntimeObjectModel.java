@@ -30,6 +30,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.sling.scripting.sightly.Record;
@@ -61,6 +63,27 @@ public abstract class AbstractRuntimeObjectModel implements RuntimeObjectModel {
 
     public static final String TO_STRING_METHOD = "toString";
 
+    /**
+     * Marks a property for which no accessor exists in the accessor caches.
+     */
+    private static final Object NO_ACCESSOR = new Object();
+
+    /**
+     * The resolved no-arg methods and fields per class, keyed by property name. As the caches are attached to the classes
+     * they are discarded together with the class loader of the class.
+     */
+    private static final ClassValue<PropertyAccessors> PROPERTY_ACCESSORS = new ClassValue<PropertyAccessors>() {
+        @Override
+        protected PropertyAccessors computeValue(Class<?> type) {
+            return new PropertyAccessors();
+        }
+    };
+
+    private static final class PropertyAccessors {
+        private final ConcurrentMap<String, Object> methods = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Object> fields = new ConcurrentHashMap<>();
+    }
+
     @Override
     public boolean isPrimitive(Object obj) {
         return PRIMITIVE_CLASSES.contains(obj.getClass());
@@ -291,9 +314,21 @@ public abstract class AbstractRuntimeObjectModel implements RuntimeObjectModel {
             return ((Object[]) obj).length;
         }
         Class<?> cls = obj.getClass();
+        ConcurrentMap<String, Object> fields = PROPERTY_ACCESSORS.get(cls).fields;
+        Object accessor = fields.get(property);
+        if (accessor == null) {
+            try {
+                accessor = cls.getDeclaredField(property);
+            } catch (NoSuchFieldException e) {
+                accessor = NO_ACCESSOR;
+            }
+            fields.putIfAbsent(property, accessor);
+        }
+        if (accessor == NO_ACCESSOR) {
+            return null;
+        }
         try {
-            Field field = cls.getDeclaredField(property);
-            return field.get(obj);
+            return ((Field) accessor).get(obj);
         } catch (Exception e) {
             return null;
         }
@@ -301,9 +336,18 @@ public abstract class AbstractRuntimeObjectModel implements RuntimeObjectModel {
 
     protected Object getObjectNoArgMethod(Object obj, String property) {
         Class<?> cls = obj.getClass();
-        Method method = findMethod(cls, property);
-        if (method != null) {
-            method = extractMethodInheritanceChain(cls, method);
+        ConcurrentMap<String, Object> methods = PROPERTY_ACCESSORS.get(cls).methods;
+        Object accessor = methods.get(property);
+        if (accessor == null) {
+            Method method = findMethod(cls, property);
+            if (method != null) {
+                method = extractMethodInheritanceChain(cls, method);
+            }
+            accessor = method != null ? method : NO_ACCESSOR;
+            methods.putIfAbsent(property, accessor);
+        }
+        if (accessor != NO_ACCESSOR) {
+            Method method = (Method) accessor;
             try {
                 return method.invoke(obj);
             } catch (Exception e) {
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.apache.sling.scripting.sightly.render;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AbstractRuntimeObjectModelTest {
+
+    private final RuntimeObjectModel runtimeObjectModel = new AbstractRuntimeObjectModel() {
+    };
+
+    @Test
+    public void testResolveProperty() {
+        Bean bean = new Bean("one");
+        // resolve twice, the second lookup uses the cached accessors
+        for (int i = 0; i < 2; i++) {
+            assertEquals("one", runtimeObjectModel.resolveProperty(bean, "value"));
+            assertEquals(true, runtimeObjectModel.resolveProperty(bean, "valid"));
+            assertEquals("public", runtimeObjectModel.resolveProperty(bean, "publicField"));
+            assertEquals("bean", runtimeObjectModel.resolveProperty(bean, "name"));
+            assertNull(runtimeObjectModel.resolveProperty(bean, "privateField"));
+            assertNull(runtimeObjectModel.resolveProperty(bean, "missing"));
+            assertNull(runtimeObjectModel.resolveProperty(bean, "hashCode"));
+        }
+        assertEquals("two", runtimeObjectModel.resolveProperty(new Bean("two"), "value"));
+        assertEquals(2, runtimeObjectModel.resolveProperty(new Object[] {"a", "b"}, "length"));
+    }
+
+    public static class Bean {
+
+        public String publicField = "public";
+
+        private String privateField = "private";
+
+        private final String value;
+
+        public Bean(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public boolean isValid() {
+            return true;
+        }
+
+        public String name() {
+            return "bean";
+        }
+    }
+}
@@ -30,9 +30,11 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Service;
+import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.SlingConstants;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceNotFoundException;
 import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
@@ -109,6 +111,12 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
     public static final String JSON_RENDERER_MAXIMUM_RESULTS_PROPERTY = "json.maximumresults";
     
     private int jsonMaximumResults;
+
+    /** Default value for entity tag support (value is "false"). */
+    private static final boolean DEFAULT_ETAG_PROPERTY = false;
+
+    @Property(boolValue=DEFAULT_ETAG_PROPERTY)
+    private static final String ETAG_PROPERTY = "enable.etag";
     
     /** Additional aliases. */
     private String[] aliases;
@@ -127,6 +135,8 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
 
     private boolean enableXml;
 
+    private boolean enableETag;
+
     protected void activate(ComponentContext ctx) {
         Dictionary<?, ?> props = ctx.getProperties();
         this.aliases = OsgiUtil.toStringArray(props.get(ALIAS_PROPERTY));
@@ -145,6 +155,8 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
             DEFAULT_RENDERER_PROPERTY);
         this.jsonMaximumResults = OsgiUtil.toInteger(props.get(JSON_RENDERER_MAXIMUM_RESULTS_PROPERTY), 
             DEFAULT_JSON_RENDERER_MAXIMUM_RESULTS);
+        this.enableETag = OsgiUtil.toBoolean(props.get(ETAG_PROPERTY),
+            DEFAULT_ETAG_PROPERTY);
     }
 
     protected void deactivate(ComponentContext ctx) {
@@ -247,12 +259,61 @@ public class DefaultGetServlet extends SlingSafeMethodsServlet {
             return;
         }
 
+        // answer conditional requests without rendering
+        if (enableETag && !response.isCommitted()
+            && request.getAttribute(SlingConstants.ATTR_REQUEST_SERVLET) == null
+            && isResourceRendering(request, rendererServlet)) {
+            final String etag = ETagSupport.getETag(request.getResource(),
+                request.getRequestPathInfo());
+            if (etag != null) {
+                response.setHeader(ETagSupport.HEADER_ETAG, etag);
+                if (ETagSupport.isNoneMatchSatisfied(request, etag)) {
+                    request.getRequestProgressTracker().log(
+                        "Entity tag " + etag + " matches, not rendering");
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+        }
+
         request.getRequestProgressTracker().log(
             "Using " + rendererServlet.getClass().getName()
                 + " to render for extension=" + ext);
         rendererServlet.service(request, response);
     }
 
+    /**
+     * Returns <code>true</code> if the rendering only depends on the resource
+     * itself, so it can be validated with an entity tag derived from the
+     * resource metadata. These are the streamed content of a resource and the
+     * HTML, plain text and JSON renderings of its properties. Directory
+     * listings, index files, linked files, JSON renderings of child resources
+     * and the XML export of the subtree depend on other resources and are
+     * always rendered.
+     */
+    private boolean isResourceRendering(final SlingHttpServletRequest request,
+            final Servlet rendererServlet) {
+        if (rendererServlet instanceof HtmlRendererServlet
+            || rendererServlet instanceof PlainTextRendererServlet) {
+            return true;
+        }
+        if (rendererServlet instanceof JsonRendererServlet) {
+            return !((JsonRendererServlet) rendererServlet).isRecursive(request);
+        }
+        if (!(rendererServlet instanceof StreamRendererServlet)
+            || "/".equals(request.getRequestPathInfo().getSuffix())) {
+            return false;
+        }
+        final Resource resource = request.getResource();
+        if (JcrConstants.NT_LINKEDFILE.equals(resource.getResourceType())) {
+            // the content is streamed from the linked resource
+            return false;
+        }
+        // only resources with a stream have a content length, checking the
+        // metadata avoids opening the stream just to find out
+        return resource.getResourceMetadata().getContentLength() >= 0;
+    }
+
     @Override
     protected void doHead(SlingHttpServletRequest request,
                           SlingHttpServletResponse response) throws ServletException,
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.servlets.get.impl;
+
+import java.util.Enumeration;
+import java.util.StringTokenizer;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+
+/**
+ * The <code>ETagSupport</code> computes entity tags for renderings of the
+ * default GET servlet and evaluates the <code>If-None-Match</code> header.
+ * <p>
+ * The entity tag is derived from the resource metadata and the request path
+ * info only, so a conditional request can be answered without rendering the
+ * resource. It is therefore only valid for renderings which depend on the
+ * resource itself and not on its children.
+ */
+final class ETagSupport {
+
+    static final String HEADER_ETAG = "ETag";
+
+    static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private ETagSupport() {
+        // no instances
+    }
+
+    /**
+     * Returns the entity tag for rendering the resource for the request path
+     * info.
+     *
+     * @param resource The resource to render
+     * @param pathInfo The request path info selecting the rendering
+     * @return The quoted entity tag or <code>null</code> if the resource has
+     *         no modification time.
+     */
+    static String getETag(final Resource resource, final RequestPathInfo pathInfo) {
+        final ResourceMetadata meta = resource.getResourceMetadata();
+        final long modificationTime = meta.getModificationTime();
+        if (modificationTime <= 0) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder(resource.getPath());
+        sb.append('|').append(pathInfo.getSelectorString());
+        sb.append('|').append(pathInfo.getExtension());
+        sb.append('|').append(meta.getContentLength());
+        sb.append('|').append(meta.getCharacterEncoding());
+        return "\"" + Long.toHexString(modificationTime) + "-"
+            + Integer.toHexString(sb.toString().hashCode()) + "\"";
+    }
+
+    /**
+     * Returns <code>true</code> if one of the <code>If-None-Match</code>
+     * headers of the request matches the entity tag. As defined for this
+     * header, weak entity tags are compared by their opaque value.
+     *
+     * @param request The request
+     * @param etag The quoted entity tag of the current rendering
+     * @return <code>true</code> if the client already has the rendering
+     */
+    static boolean isNoneMatchSatisfied(final HttpServletRequest request, final String etag) {
+        final Enumeration<?> headers = request.getHeaders(HEADER_IF_NONE_MATCH);
+        if (headers == null) {
+            return false;
+        }
+        while (headers.hasMoreElements()) {
+            final StringTokenizer st = new StringTokenizer(headers.nextElement().toString(), ",");
+            while (st.hasMoreTokens()) {
+                String tag = st.nextToken().trim();
+                if ("*".equals(tag)) {
+                    return true;
+                }
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (etag.equals(tag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
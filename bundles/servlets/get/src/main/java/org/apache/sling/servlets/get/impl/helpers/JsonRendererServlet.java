@@ -95,9 +95,17 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
         final boolean tidy = isTidy(req);
         final boolean harray = hasSelector(req, HARRAY);
         ResourceTraversor traversor = null;
+        JsonResourceWriter streamWriter = null;
         try {
-            traversor = new ResourceTraversor(maxRecursionLevels, maximumResults, r, tidy);
-            allowedLevel = traversor.collectResources();
+            if (tidy || harray) {
+                // the rendering options require the complete JSON tree
+                traversor = new ResourceTraversor(maxRecursionLevels, maximumResults, r, tidy);
+                allowedLevel = traversor.collectResources();
+            } else {
+                // plain output is streamed, only count the resources up front
+                streamWriter = new JsonResourceWriter(maxRecursionLevels, maximumResults, r);
+                allowedLevel = streamWriter.checkLimits();
+            }
             if ( allowedLevel != -1 ) {
 			    allowDump = false;
             }
@@ -113,10 +121,10 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
                             .withArraysForChildren(harray);
                     resp.getWriter().write(renderer.prettyPrint(traversor.getJSONObject(), opt));
                 } else {
-                    // If no rendering options, use the plain toString() method, for
-                    // backwards compatibility. Output might be slightly different
-                    // with prettyPrint and no options
-                    resp.getWriter().write(traversor.getJSONObject().toString());
+                    // If no rendering options, write the same output as the plain
+                    // toString() method, for backwards compatibility. Output might
+                    // be slightly different with prettyPrint and no options
+                    streamWriter.write(resp.getWriter());
                 }
 
             } else {
@@ -169,6 +177,21 @@ public class JsonRendererServlet extends SlingSafeMethodsServlet {
         return maxRecursionLevels;
     }
 
+    /**
+     * Returns <code>true</code> if the rendering for the request includes
+     * child resources or fails because of an invalid recursion selector.
+     *
+     * @param req the request
+     * @return {@code false} if only the properties of the resource are rendered
+     */
+    public boolean isRecursive(SlingHttpServletRequest req) {
+        try {
+            return getMaxRecursionLevel(req) != 0;
+        } catch (IllegalArgumentException iae) {
+            return true;
+        }
+    }
+
     /**
      * Checks if the provided request contains a certain selector.
      * @param req the request
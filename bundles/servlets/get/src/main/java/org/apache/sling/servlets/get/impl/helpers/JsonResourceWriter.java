@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sling.servlets.get.impl.helpers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.commons.json.JSONException;
+import org.apache.sling.commons.json.JSONObject;
+import org.apache.sling.commons.json.sling.JsonObjectCreator;
+
+/**
+ * The <code>JsonResourceWriter</code> renders a resource tree in JSON
+ * directly to a <code>Writer</code> without building the complete
+ * <code>JSONObject</code> graph first, as the
+ * <code>ResourceTraversor</code> does.
+ * <p>
+ * The output is identical to the non-tidy output of the
+ * <code>ResourceTraversor</code>: properties of a resource are written
+ * first followed by its children in iteration order. A child with the
+ * same name as a property (or as an earlier sibling) replaces that entry
+ * at its original position, just like <code>JSONObject.put</code> does.
+ * <p>
+ * Limits are checked up front by {@link #checkLimits()} which walks the
+ * tree breadth-first exactly like the <code>ResourceTraversor</code> but
+ * only counts resources and stops as soon as the limit is exceeded.
+ */
+public class JsonResourceWriter {
+
+    private final int maxRecursionLevels;
+
+    private final long maxResources;
+
+    private final Resource startResource;
+
+    /**
+     * Create a writer, optionally limiting recursion and total number of resources
+     * @param levels recursion levels limit, -1 means no limit
+     * @param maxResources maximum number of resources to render, ignored if levels == 1
+     * @param resource the root resource to render
+     */
+    public JsonResourceWriter(final int levels, final long maxResources, final Resource resource) {
+        this.maxRecursionLevels = levels;
+        this.maxResources = maxResources;
+        this.startResource = resource;
+    }
+
+    /**
+     * Counts the resources which would be rendered in breadth-first order.
+     *
+     * @return -1 if the tree may be rendered completely, otherwise the
+     *         deepest level which can be rendered within the limit.
+     */
+    public int checkLimits() {
+        // SLING-2320: always allow enumeration of one's children;
+        // DOS-limitation is for deeper traversals.
+        if (maxRecursionLevels == 0 || maxRecursionLevels == 1) {
+            return -1;
+        }
+
+        long count = 0;
+        int currentLevel = 0;
+        LinkedList<Resource> currentQueue = new LinkedList<Resource>();
+        LinkedList<Resource> nextQueue = new LinkedList<Resource>();
+        currentQueue.add(startResource);
+        while (!currentQueue.isEmpty()) {
+            final Resource resource = currentQueue.removeFirst();
+            final Iterator<Resource> children = ResourceUtil.listChildren(resource);
+            while (children.hasNext()) {
+                count++;
+                if (count > maxResources) {
+                    return currentLevel;
+                }
+                final Resource child = children.next();
+                if (maxRecursionLevels == -1 || currentLevel + 1 < maxRecursionLevels) {
+                    nextQueue.addLast(child);
+                }
+            }
+            if (currentQueue.isEmpty()) {
+                currentLevel++;
+                currentQueue = nextQueue;
+                nextQueue = new LinkedList<Resource>();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the resource tree to the given writer. The output is not
+     * restricted to the nesting depth supported by the <code>JSONWriter</code>.
+     * @param out the writer to write to
+     * @throws JSONException if a property value cannot be converted
+     * @throws IOException if the output cannot be written
+     */
+    public void write(final Writer out) throws JSONException, IOException {
+        write(out, startResource, 0);
+    }
+
+    private void write(final Writer out, final Resource resource, final int currentLevel)
+    throws JSONException, IOException {
+        final JSONObject properties = JsonObjectCreator.create(resource, 0);
+
+        // collect the entries first to get the same key handling as JSONObject
+        final Map<String, Object> entries = new LinkedHashMap<String, Object>();
+        final Iterator<String> keys = properties.keys();
+        while (keys.hasNext()) {
+            final String key = keys.next();
+            entries.put(key, properties.opt(key));
+        }
+        if (maxRecursionLevels == -1 || currentLevel < maxRecursionLevels) {
+            final Iterator<Resource> children = ResourceUtil.listChildren(resource);
+            while (children.hasNext()) {
+                final Resource child = children.next();
+                entries.put(ResourceUtil.getName(child), child);
+            }
+        }
+
+        out.write('{');
+        boolean comma = false;
+        for (final Map.Entry<String, Object> entry : entries.entrySet()) {
+            if (comma) {
+                out.write(',');
+            }
+            out.write(JSONObject.quote(entry.getKey()));
+            out.write(':');
+            if (entry.getValue() instanceof Resource) {
+                write(out, (Resource) entry.getValue(), currentLevel + 1);
+            } else {
+                out.write(JSONObject.valueToString(entry.getValue()));
+            }
+            comma = true;
+        }
+        out.write('}');
+    }
+}
@@ -290,7 +290,7 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
                     response.setContentType("multipart/byteranges; boundary="
                         + mimeSeparation);
 
-                    copy(resource, out, ranges.iterator());
+                    copy(resource, stream, out, ranges.iterator());
                 }
 
             }
@@ -499,25 +499,30 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
      * Copy the contents of the specified input stream to the specified output
      * stream, and ensure that both streams are closed before returning (even in
      * the face of an exception).
+     * <p>
+     * The stream is read forward as long as the ranges are in ascending order,
+     * a new stream is only opened for a range starting before the current
+     * position.
      *
      * @param resource The resource from which to send ranges
+     * @param stream The already opened stream of the resource
      * @param ostream The output stream to write to
      * @param ranges Iterator of the ranges the client wanted to retrieve
      * @exception IOException if an input/output error occurs
      */
-    private void copy(Resource resource, ServletOutputStream ostream,
-            Iterator<Range> ranges) throws IOException {
+    private void copy(Resource resource, InputStream stream,
+            ServletOutputStream ostream, Iterator<Range> ranges) throws IOException {
 
         String contentType = resource.getResourceMetadata().getContentType();
         IOException exception = null;
 
-        while ((exception == null) && (ranges.hasNext())) {
+        InputStream istream = null;
+        long position = 0;
+        try {
+            istream = new BufferedInputStream(stream, IO_BUFFER_SIZE);
 
-            InputStream resourceInputStream = resource.adaptTo(InputStream.class);
-            InputStream istream = new BufferedInputStream(resourceInputStream,
-                IO_BUFFER_SIZE);
+            while ((exception == null) && (ranges.hasNext())) {
 
-            try {
                 Range currentRange = ranges.next();
 
                 // Writing MIME header.
@@ -532,14 +537,23 @@ public class StreamRendererServlet extends SlingSafeMethodsServlet {
 
                 // Copy content
                 try {
-                    copy(istream, ostream, currentRange);
+                    if (currentRange.start < position) {
+                        // range starts before the current position, start over
+                        closeSilently(istream);
+                        istream = new BufferedInputStream(
+                            resource.adaptTo(InputStream.class), IO_BUFFER_SIZE);
+                        position = 0;
+                    }
+                    log.debug("copy: Serving bytes: {}-{}", currentRange.start, currentRange.end + 1);
+                    staticCopyRange(istream, ostream, currentRange.start - position,
+                        currentRange.end + 1 - position);
+                    position = currentRange.end + 1;
                 } catch(IOException e) {
                     exception = e;
                 }
-            } finally {
-                closeSilently(istream);
             }
-
+        } finally {
+            closeSilently(istream);
         }
 
         ostream.println();
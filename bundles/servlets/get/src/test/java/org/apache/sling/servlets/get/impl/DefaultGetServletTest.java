@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.get.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Hashtable;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestDispatcherOptions;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.request.RequestProgressTracker;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.osgi.service.component.ComponentContext;
+
+public class DefaultGetServletTest {
+
+    private DefaultGetServlet servlet;
+
+    private SlingHttpServletRequest request;
+
+    private SlingHttpServletResponse response;
+
+    private RequestPathInfo pathInfo;
+
+    private ResourceResolver resolver;
+
+    @Before
+    public void setUp() throws Exception {
+        final Hashtable<String, Object> props = new Hashtable<String, Object>();
+        props.put("enable.etag", true);
+        final ComponentContext ctx = Mockito.mock(ComponentContext.class);
+        Mockito.when(ctx.getProperties()).thenReturn(props);
+        servlet = new DefaultGetServlet();
+        servlet.activate(ctx);
+        final ServletConfig config = Mockito.mock(ServletConfig.class);
+        Mockito.when(config.getServletContext()).thenReturn(Mockito.mock(ServletContext.class));
+        servlet.init(config);
+
+        pathInfo = Mockito.mock(RequestPathInfo.class);
+        Mockito.when(pathInfo.getSelectors()).thenReturn(new String[0]);
+        resolver = Mockito.mock(ResourceResolver.class);
+        request = Mockito.mock(SlingHttpServletRequest.class);
+        Mockito.when(request.getRequestPathInfo()).thenReturn(pathInfo);
+        Mockito.when(request.getResourceResolver()).thenReturn(resolver);
+        Mockito.when(request.getRequestProgressTracker()).thenReturn(Mockito.mock(RequestProgressTracker.class));
+        Mockito.when(request.getMethod()).thenReturn("GET");
+        Mockito.when(request.getHeaders(ETagSupport.HEADER_IF_NONE_MATCH))
+            .thenReturn(Collections.enumeration(Collections.singletonList("*")));
+        response = Mockito.mock(SlingHttpServletResponse.class);
+    }
+
+    private Resource resource(final String path, final String resourceType, final InputStream stream) {
+        final Resource resource = Mockito.mock(Resource.class);
+        final ResourceMetadata meta = new ResourceMetadata();
+        meta.setModificationTime(1000);
+        if (stream != null) {
+            meta.setContentLength(1);
+        }
+        Mockito.when(resource.getPath()).thenReturn(path);
+        Mockito.when(resource.getResourceType()).thenReturn(resourceType);
+        Mockito.when(resource.getResourceMetadata()).thenReturn(meta);
+        Mockito.when(resource.getResourceResolver()).thenReturn(resolver);
+        Mockito.when(resource.adaptTo(InputStream.class)).thenReturn(stream);
+        return resource;
+    }
+
+    private void assertNotShortCircuited() {
+        Mockito.verify(response, Mockito.never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Mockito.verify(response, Mockito.never()).setHeader(Matchers.eq(ETagSupport.HEADER_ETAG), Matchers.anyString());
+    }
+
+    @Test
+    public void testFileIsNotModified() throws Exception {
+        final Resource file = resource("/content/file.txt", "nt:file", new ByteArrayInputStream(new byte[] {1}));
+        Mockito.when(request.getResource()).thenReturn(file);
+
+        servlet.doGet(request, response);
+
+        Mockito.verify(response).setHeader(Matchers.eq(ETagSupport.HEADER_ETAG), Matchers.anyString());
+        Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Mockito.verify(response, Mockito.never()).getOutputStream();
+        Mockito.verify(file, Mockito.never()).adaptTo(InputStream.class);
+    }
+
+    @Test
+    public void testPropertiesAreNotModified() throws Exception {
+        final Resource node = resource("/content/node", "nt:unstructured", null);
+        Mockito.when(request.getResource()).thenReturn(node);
+        Mockito.when(pathInfo.getExtension()).thenReturn("json");
+        Mockito.when(pathInfo.getSelectors()).thenReturn(new String[] {"tidy"});
+
+        servlet.doGet(request, response);
+
+        Mockito.verify(response).setHeader(Matchers.eq(ETagSupport.HEADER_ETAG), Matchers.anyString());
+        Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Mockito.verify(response, Mockito.never()).getWriter();
+    }
+
+    @Test
+    public void testRecursiveJsonIsRendered() throws Exception {
+        final Resource node = resource("/content/node", "nt:unstructured", null);
+        Mockito.when(request.getResource()).thenReturn(node);
+        Mockito.when(pathInfo.getExtension()).thenReturn("json");
+        Mockito.when(pathInfo.getSelectors()).thenReturn(new String[] {"invalid"});
+
+        servlet.doGet(request, response);
+
+        assertNotShortCircuited();
+        Mockito.verify(response).sendError(Matchers.eq(HttpServletResponse.SC_BAD_REQUEST), Matchers.anyString());
+    }
+
+    @Test
+    public void testXmlIsRendered() throws Exception {
+        final Resource node = resource("/content/node", "nt:unstructured", null);
+        Mockito.when(request.getResource()).thenReturn(node);
+        Mockito.when(pathInfo.getExtension()).thenReturn("xml");
+
+        servlet.doGet(request, response);
+
+        assertNotShortCircuited();
+        Mockito.verify(response).sendError(HttpServletResponse.SC_NO_CONTENT);
+    }
+
+    @Test
+    public void testFolderIsRedirected() throws Exception {
+        final Resource folder = resource("/content/folder", "sling:Folder", null);
+        Mockito.when(request.getResource()).thenReturn(folder);
+        Mockito.when(resolver.map(request, "/content/folder")).thenReturn("/content/folder");
+
+        servlet.doGet(request, response);
+
+        assertNotShortCircuited();
+        Mockito.verify(response).sendRedirect("/content/folder/");
+    }
+
+    @Test
+    public void testIndexFileIsRendered() throws Exception {
+        final Resource folder = resource("/content/folder", "sling:Folder", null);
+        final Resource index = resource("/content/folder/index.html", "nt:file", new ByteArrayInputStream(new byte[] {1}));
+        final RequestDispatcher dispatcher = Mockito.mock(RequestDispatcher.class);
+        Mockito.when(request.getResource()).thenReturn(folder);
+        Mockito.when(pathInfo.getSuffix()).thenReturn("/");
+        Mockito.when(resolver.getResource(folder, "index.html")).thenReturn(index);
+        Mockito.when(request.getRequestDispatcher(Matchers.eq(index), Matchers.any(RequestDispatcherOptions.class)))
+            .thenReturn(dispatcher);
+
+        servlet.doGet(request, response);
+
+        assertNotShortCircuited();
+        Mockito.verify(dispatcher).include(request, response);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.get.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ETagSupportTest {
+
+    private Resource resource(final String path, final long modificationTime) {
+        final Resource resource = Mockito.mock(Resource.class);
+        final ResourceMetadata meta = new ResourceMetadata();
+        meta.setModificationTime(modificationTime);
+        Mockito.when(resource.getPath()).thenReturn(path);
+        Mockito.when(resource.getResourceMetadata()).thenReturn(meta);
+        return resource;
+    }
+
+    private RequestPathInfo pathInfo(final String selectorString, final String extension) {
+        final RequestPathInfo info = Mockito.mock(RequestPathInfo.class);
+        Mockito.when(info.getSelectorString()).thenReturn(selectorString);
+        Mockito.when(info.getExtension()).thenReturn(extension);
+        return info;
+    }
+
+    private HttpServletRequest request(final String... ifNoneMatch) {
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeaders(ETagSupport.HEADER_IF_NONE_MATCH))
+            .thenReturn(Collections.enumeration(Arrays.asList(ifNoneMatch)));
+        return request;
+    }
+
+    @Test
+    public void testGetETag() {
+        final String etag = ETagSupport.getETag(resource("/content/a", 1000), pathInfo(null, "json"));
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+
+        // stable for the same input
+        assertEquals(etag, ETagSupport.getETag(resource("/content/a", 1000), pathInfo(null, "json")));
+
+        // changes with modification time, path and rendering
+        assertFalse(etag.equals(ETagSupport.getETag(resource("/content/a", 2000), pathInfo(null, "json"))));
+        assertFalse(etag.equals(ETagSupport.getETag(resource("/content/b", 1000), pathInfo(null, "json"))));
+        assertFalse(etag.equals(ETagSupport.getETag(resource("/content/a", 1000), pathInfo("tidy", "json"))));
+        assertFalse(etag.equals(ETagSupport.getETag(resource("/content/a", 1000), pathInfo(null, "txt"))));
+
+        // no modification time, no entity tag
+        assertNull(ETagSupport.getETag(resource("/content/a", -1), pathInfo(null, "json")));
+    }
+
+    @Test
+    public void testIsNoneMatchSatisfied() {
+        final String etag = "\"3e8-1234\"";
+        assertTrue(ETagSupport.isNoneMatchSatisfied(request(etag), etag));
+        assertTrue(ETagSupport.isNoneMatchSatisfied(request("\"other\", " + etag), etag));
+        assertTrue(ETagSupport.isNoneMatchSatisfied(request("\"other\"", "W/" + etag), etag));
+        assertTrue(ETagSupport.isNoneMatchSatisfied(request("*"), etag));
+        assertFalse(ETagSupport.isNoneMatchSatisfied(request("\"other\""), etag));
+        assertFalse(ETagSupport.isNoneMatchSatisfied(request(), etag));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.get.impl.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.commons.json.sling.ResourceTraversor;
+import org.apache.sling.commons.testing.sling.MockResource;
+import org.apache.sling.commons.testing.sling.MockResourceResolver;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JsonResourceWriterTest {
+
+    private static MockResourceResolver resolver;
+
+    @BeforeClass
+    public static void setup() {
+        resolver = new MockResourceResolver();
+        resolver.addResource(new MockResource(resolver, "/tree", "root"));
+        for (int i = 0; i < 4; i++) {
+            resolver.addResource(new MockResource(resolver, "/tree/" + i, "level1"));
+            for (int j = 0; j < 4; j++) {
+                resolver.addResource(new MockResource(resolver, "/tree/" + i + "/" + j, "level2"));
+                for (int k = 0; k < 4; k++) {
+                    resolver.addResource(new MockResource(resolver, "/tree/" + i + "/" + j + "/" + k, "level3"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameOutputAsTraversor() throws Exception {
+        final Resource root = resolver.getResource("/tree");
+        for (final int levels : new int[] { -1, 0, 1, 2, 3, 4 }) {
+            for (final long max : new long[] { 0, 3, 4, 10, 20, 84, 100 }) {
+                final ResourceTraversor traversor = new ResourceTraversor(levels, max, root, false);
+                final int expectedLevel = traversor.collectResources();
+
+                final JsonResourceWriter writer = new JsonResourceWriter(levels, max, root);
+                assertEquals("levels=" + levels + ", max=" + max, expectedLevel, writer.checkLimits());
+                if (expectedLevel == -1) {
+                    final StringWriter out = new StringWriter();
+                    writer.write(out);
+                    assertEquals("levels=" + levels + ", max=" + max,
+                            traversor.getJSONObject().toString(), out.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeepTree() throws Exception {
+        final MockResourceResolver deepResolver = new MockResourceResolver();
+        final StringBuilder path = new StringBuilder("/deep");
+        deepResolver.addResource(new MockResource(deepResolver, path.toString(), "deep"));
+        for (int i = 0; i < 60; i++) {
+            path.append("/n");
+            deepResolver.addResource(new MockResource(deepResolver, path.toString(), "deep"));
+        }
+        final Resource root = deepResolver.getResource("/deep");
+        final ResourceTraversor traversor = new ResourceTraversor(-1, 100, root, false);
+        assertEquals(-1, traversor.collectResources());
+
+        final JsonResourceWriter writer = new JsonResourceWriter(-1, 100, root);
+        assertEquals(-1, writer.checkLimits());
+        final StringWriter out = new StringWriter();
+        writer.write(out);
+        assertEquals(traversor.getJSONObject().toString(), out.toString());
+    }
+}
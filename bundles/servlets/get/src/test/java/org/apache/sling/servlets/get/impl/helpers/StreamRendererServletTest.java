@@ -19,14 +19,19 @@
 package org.apache.sling.servlets.get.impl.helpers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
 import junitx.util.PrivateAccessor;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
@@ -52,6 +57,44 @@ public class StreamRendererServletTest {
         assertEquals("34", result);
     }
     
+    @Test
+    public void testCopyRanges() throws Throwable {
+        final byte[] content = "0123456789abcdefghij".getBytes("UTF-8");
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(resource.getResourceMetadata()).thenReturn(new ResourceMetadata());
+        Mockito.when(resource.adaptTo(InputStream.class)).thenReturn(new ByteArrayInputStream(content));
+
+        final StreamRendererServlet servlet = new StreamRendererServlet(true, new String[] {"/"});
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+        };
+        final List<StreamRendererServlet.Range> ranges = Arrays.asList(
+            range(servlet, 2, 4), range(servlet, 10, 11), range(servlet, 1, 1));
+        PrivateAccessor.invoke(servlet, "copy",
+            new Class[] {Resource.class, InputStream.class, ServletOutputStream.class, Iterator.class},
+            new Object[] {resource, new ByteArrayInputStream(content), out, ranges.iterator()});
+
+        final String result = output.toString("UTF-8");
+        assertTrue(result.contains("bytes 2-4/20"));
+        assertTrue(result.contains("234"));
+        assertTrue(result.contains("ab"));
+        assertTrue(result.contains("bytes 1-1/20"));
+        // ascending ranges are read from the first stream, only the last range needs a new one
+        Mockito.verify(resource, Mockito.times(1)).adaptTo(InputStream.class);
+    }
+
+    private StreamRendererServlet.Range range(StreamRendererServlet servlet, long start, long end) {
+        final StreamRendererServlet.Range range = servlet.new Range();
+        range.start = start;
+        range.end = end;
+        range.length = 20;
+        return range;
+    }
+
     private void runTests(int randomSeed) throws IOException {
         final Random random = new Random(randomSeed);
         assertCopyRange(random, StreamRendererServlet.IO_BUFFER_SIZE * 2 + 42);
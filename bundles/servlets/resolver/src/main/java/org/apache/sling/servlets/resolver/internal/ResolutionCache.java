@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.resolver.internal;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.Servlet;
+
+import org.apache.sling.commons.osgi.ConcurrentLRUCache;
+import org.apache.sling.servlets.resolver.internal.helper.AbstractResourceCollector;
+
+/**
+ * The <code>ResolutionCache</code> is a bounded cache for the servlet
+ * resolution results, evicting the least recently used entries.
+ * <p>
+ * Each entry remembers the locations which have been searched for resolving
+ * it. This allows to only invalidate those entries which might be affected
+ * by a change of a script or servlet resource.
+ */
+class ResolutionCache {
+
+    private static final class Entry {
+
+        final Servlet servlet;
+
+        final String[] locations;
+
+        Entry(final Servlet servlet, final String[] locations) {
+            this.servlet = servlet;
+            this.locations = locations;
+        }
+
+        boolean isAffectedBy(final String path) {
+            if ("/".equals(path)) {
+                return true;
+            }
+            for (final String location : locations) {
+                if (location.equals(path)
+                    || (location.startsWith(path) && location.charAt(path.length()) == '/')
+                    || (path.startsWith(location) && path.charAt(location.length()) == '/')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final ConcurrentLRUCache<AbstractResourceCollector, Entry> entries;
+
+    /** Incremented on each invalidation to detect outdated results. */
+    private final AtomicLong generation = new AtomicLong();
+
+    ResolutionCache(final int maxSize) {
+        this.entries = new ConcurrentLRUCache<AbstractResourceCollector, Entry>(maxSize);
+    }
+
+    /**
+     * Returns the current generation of the cache. This value has to be
+     * passed to {@link #put(AbstractResourceCollector, Servlet, Collection, long)}
+     * in order to not cache results which have been invalidated in the meantime.
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    Servlet get(final AbstractResourceCollector key) {
+        final Entry entry = entries.get(key);
+        return entry != null ? entry.servlet : null;
+    }
+
+    /**
+     * Adds a resolution result to the cache.
+     *
+     * @param key The resource collector used for resolution
+     * @param servlet The resolved servlet
+     * @param locations The locations searched while resolving the servlet
+     * @param expectedGeneration The generation of the cache when the resolution was started
+     * @return <code>true</code> if entries had to be evicted to make room for the new entry
+     */
+    boolean put(final AbstractResourceCollector key,
+            final Servlet servlet,
+            final Collection<String> locations,
+            final long expectedGeneration) {
+        if (expectedGeneration != generation.get()) {
+            return false;
+        }
+        final String[] paths = new String[locations.size()];
+        int i = 0;
+        for (final String location : locations) {
+            paths[i++] = location.endsWith("/") ? location.substring(0, location.length() - 1) : location;
+        }
+        final boolean evicted = entries.put(key, new Entry(servlet, paths));
+        if (expectedGeneration != generation.get()) {
+            // an invalidation happened concurrently, the result might be stale
+            entries.remove(key);
+            return false;
+        }
+        return evicted;
+    }
+
+    /**
+     * Removes all entries which searched a location at, above or below
+     * one of the given paths.
+     *
+     * @param paths The changed paths
+     * @return The number of removed entries
+     */
+    int invalidate(final Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return 0;
+        }
+        generation.incrementAndGet();
+        return entries.removeAll(new ConcurrentLRUCache.Filter<AbstractResourceCollector, Entry>() {
+            @Override
+            public boolean accept(final AbstractResourceCollector key, final Entry entry) {
+                for (final String path : paths) {
+                    if (entry.isAffectedBy(path)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }).size();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int getMaxSize() {
+        return entries.getMaxSize();
+    }
+
+    long getHits() {
+        return entries.getHits();
+    }
+
+    long getMisses() {
+        return entries.getMisses();
+    }
+
+    long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    long getInvalidations() {
+        return entries.getInvalidations();
+    }
+}
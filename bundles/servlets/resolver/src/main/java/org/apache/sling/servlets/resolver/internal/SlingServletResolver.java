@@ -38,9 +38,10 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 import javax.management.NotCompliantMBeanException;
 import javax.management.StandardMBean;
@@ -182,8 +183,11 @@ public class SlingServletResolver
     // a request. This field is set on demand by getDefaultErrorServlet()
     private Servlet fallbackErrorServlet;
 
+    /** The maximum number of changed paths for a targeted cache invalidation. */
+    private static final int MAX_INVALIDATION_PATHS = 100;
+
     /** The script resolution cache. */
-    private Map<AbstractResourceCollector, Servlet> cache;
+    private volatile ResolutionCache cache;
 
     /** The cache size. */
     private int cacheSize;
@@ -621,7 +625,8 @@ public class SlingServletResolver
     private Servlet getServletInternal(final AbstractResourceCollector locationUtil,
             final SlingHttpServletRequest request,
             final ResourceResolver resolver) {
-        final Servlet scriptServlet = (this.cache != null ? this.cache.get(locationUtil) : null);
+        final ResolutionCache localCache = this.cache;
+        final Servlet scriptServlet = (localCache != null ? localCache.get(locationUtil) : null);
         if (scriptServlet != null) {
             if ( LOGGER.isDebugEnabled() ) {
                 LOGGER.debug("Using cached servlet {}", RequestUtil.getServletName(scriptServlet));
@@ -629,7 +634,9 @@ public class SlingServletResolver
             return scriptServlet;
         }
 
-        final Collection<Resource> candidates = locationUtil.getServlets(resolver);
+        final long cacheGeneration = (localCache != null ? localCache.getGeneration() : 0);
+        final List<String> locations = (localCache != null ? new ArrayList<String>() : null);
+        final Collection<Resource> candidates = locationUtil.getServlets(resolver, locations);
 
         if (LOGGER.isDebugEnabled()) {
             if (candidates.isEmpty()) {
@@ -651,12 +658,11 @@ public class SlingServletResolver
                 final boolean isOptingServlet = candidate instanceof OptingServlet;
                 boolean servletAcceptsRequest = !isOptingServlet || (request != null && ((OptingServlet) candidate).accepts(request));
                 if (servletAcceptsRequest) {
-                    if (!hasOptingServlet && !isOptingServlet && this.cache != null) {
-                        if ( this.cache.size() < this.cacheSize ) {
-                            this.cache.put(locationUtil, candidate);
-                        } else if ( this.logCacheSizeWarning ) {
+                    if (!hasOptingServlet && !isOptingServlet && localCache != null) {
+                        final boolean evicted = localCache.put(locationUtil, candidate, locations, cacheGeneration);
+                        if ( evicted && this.logCacheSizeWarning ) {
                             this.logCacheSizeWarning = false;
-                            LOGGER.warn("Script cache has reached its limit of {}. You might want to increase the cache size for the servlet resolver.",
+                            LOGGER.warn("Script cache has reached its limit of {} and starts evicting entries. You might want to increase the cache size for the servlet resolver.",
                                     this.cacheSize);
                         }
                     }
@@ -837,7 +843,7 @@ public class SlingServletResolver
         // create cache - if a cache size is configured
         this.cacheSize = PropertiesUtil.toInteger(properties.get(PROP_CACHE_SIZE), DEFAULT_CACHE_SIZE);
         if (this.cacheSize > 5) {
-            this.cache = new ConcurrentHashMap<AbstractResourceCollector, Servlet>(cacheSize);
+            this.cache = new ResolutionCache(cacheSize);
             this.logCacheSizeWarning = true;
         } else {
             this.cacheSize = 0;
@@ -1089,8 +1095,11 @@ public class SlingServletResolver
     }
 
     private void flushCache() {
-        this.cache.clear();
-        this.logCacheSizeWarning = true;
+        final ResolutionCache localCache = this.cache;
+        if (localCache != null) {
+            localCache.clear();
+            this.logCacheSizeWarning = true;
+        }
     }
 
     /** The list of property names checked by {@link #getName(ServiceReference)} */
@@ -1385,7 +1394,8 @@ public class SlingServletResolver
 
         @Override
         public int getCacheSize() {
-            return cache != null ? cache.size() : 0;
+            final ResolutionCache localCache = cache;
+            return localCache != null ? localCache.size() : 0;
         }
 
         @Override
@@ -1398,31 +1408,60 @@ public class SlingServletResolver
             return cacheSize;
         }
 
+        @Override
+        public long getCacheHits() {
+            final ResolutionCache localCache = cache;
+            return localCache != null ? localCache.getHits() : 0;
+        }
+
+        @Override
+        public long getCacheMisses() {
+            final ResolutionCache localCache = cache;
+            return localCache != null ? localCache.getMisses() : 0;
+        }
+
+        @Override
+        public long getCacheEvictions() {
+            final ResolutionCache localCache = cache;
+            return localCache != null ? localCache.getEvictions() : 0;
+        }
+
+        @Override
+        public long getCacheInvalidations() {
+            final ResolutionCache localCache = cache;
+            return localCache != null ? localCache.getInvalidations() : 0;
+        }
+
     }
 
     @Override
 	public void onChange(List<ResourceChange> changes) {
-        if (this.cache != null) {
+        final ResolutionCache localCache = this.cache;
+        if (localCache != null) {
+            // collect all changed paths below a search path, only the
+            // cache entries which searched one of these paths are removed
+            final Set<String> paths = new LinkedHashSet<String>();
             boolean flushCache = false;
             for(ResourceChange change : changes){
-                // we may receive different events
-                final String topic = change.getType().toString();
-                // this is a resource or resource provider event
-                // if the path of the event is a sub path of a search path
-                // we flush the whole cache
                 final String path = change.getPath();
                 if ( path != null ) {
-                    int index = 0;
-                    while (!flushCache && index < searchPaths.length) {
-                        if (path.startsWith(this.searchPaths[index])) {
-                            flushCache = true;
+                    for(final String searchPath : this.searchPaths) {
+                        if (path.startsWith(searchPath)) {
+                            paths.add(path);
+                            break;
                         }
-                        index++;
+                    }
+                    if ( paths.size() > MAX_INVALIDATION_PATHS ) {
+                        flushCache = true;
+                        break;
                     }
                 }
-                if (flushCache) {
-                    flushCache();
-                }
+            }
+            if (flushCache) {
+                flushCache();
+            } else if ( !paths.isEmpty() ) {
+                final int removed = localCache.invalidate(paths);
+                LOGGER.debug("Removed {} cache entries affected by changes to {}", removed, paths);
             }
         }
     }
@@ -65,6 +65,20 @@ public abstract class AbstractResourceCollector {
     }
 
     public final Collection<Resource> getServlets(final ResourceResolver resolver) {
+        return getServlets(resolver, null);
+    }
+
+    /**
+     * Returns the ordered collection of servlet and script resources and
+     * optionally records the searched locations.
+     *
+     * @param resolver The resource resolver used to find the resources
+     * @param locationPaths If not <code>null</code> the paths of all searched
+     *            locations are added to this collection.
+     * @return The ordered collection of candidate resources
+     */
+    public final Collection<Resource> getServlets(final ResourceResolver resolver,
+            final Collection<String> locationPaths) {
 
         final SortedSet<Resource> resources = new TreeSet<Resource>();
         final Iterator<String> locations = new LocationIterator(resourceType, resourceSuperType,
@@ -81,6 +95,9 @@ public abstract class AbstractResourceCollector {
             } else {
                 path = location;
             }
+            if ( locationPaths != null ) {
+                locationPaths.add(path);
+            }
             final Resource locationRes = getResource(resolver, path);
             getWeightedResources(resources, locationRes);
         }
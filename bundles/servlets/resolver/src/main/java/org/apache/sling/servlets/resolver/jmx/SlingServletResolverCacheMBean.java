@@ -40,6 +40,35 @@ public interface SlingServletResolverCacheMBean {
      */
     int getMaximumCacheSize();
 
+    /**
+     * Get the number of servlet resolutions served from the cache
+     *
+     * @return the number of cache hits
+     */
+    long getCacheHits();
+
+    /**
+     * Get the number of servlet resolutions not found in the cache
+     *
+     * @return the number of cache misses
+     */
+    long getCacheMisses();
+
+    /**
+     * Get the number of cache entries evicted because the cache was full
+     *
+     * @return the number of evicted entries
+     */
+    long getCacheEvictions();
+
+    /**
+     * Get the number of cache entries removed because of script or servlet
+     * changes or because the cache has been flushed
+     *
+     * @return the number of invalidated entries
+     */
+    long getCacheInvalidations();
+
     /**
      * Flush the servlet resolver cache.
      */
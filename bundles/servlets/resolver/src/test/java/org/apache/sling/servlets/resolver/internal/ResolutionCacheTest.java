@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.resolver.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServlet;
+
+import org.apache.sling.servlets.resolver.internal.helper.AbstractResourceCollector;
+import org.apache.sling.servlets.resolver.internal.helper.NamedScriptResourceCollector;
+import org.junit.Test;
+
+public class ResolutionCacheTest {
+
+    private final Servlet servlet = new HttpServlet() {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private AbstractResourceCollector key(final String resourceType) {
+        return new NamedScriptResourceCollector("sling/servlet/default", resourceType, null, "html.jsp", ".jsp", null);
+    }
+
+    private void put(final ResolutionCache cache, final String resourceType) {
+        cache.put(key(resourceType), servlet,
+                Arrays.asList("/apps/" + resourceType, "/libs/" + resourceType, "/apps/sling/servlet/default/"),
+                cache.getGeneration());
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        final ResolutionCache cache = new ResolutionCache(10);
+        assertNull(cache.get(key("a/b")));
+        put(cache, "a/b");
+        assertSame(servlet, cache.get(key("a/b")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        final ResolutionCache cache = new ResolutionCache(10);
+        for (int i = 0; i < 10; i++) {
+            put(cache, "type/" + i);
+        }
+        // access all but the first entry
+        for (int i = 1; i < 10; i++) {
+            assertNotNull(cache.get(key("type/" + i)));
+        }
+        put(cache, "type/new");
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.getEvictions() > 0);
+        assertNull(cache.get(key("type/0")));
+        assertNotNull(cache.get(key("type/new")));
+        assertNotNull(cache.get(key("type/9")));
+    }
+
+    @Test
+    public void testTargetedInvalidation() {
+        final ResolutionCache cache = new ResolutionCache(10);
+        put(cache, "a/b");
+        put(cache, "a/c");
+        put(cache, "x/y");
+
+        // script below a location
+        assertEquals(1, cache.invalidate(Collections.singleton("/apps/a/b/html.jsp")));
+        assertNull(cache.get(key("a/b")));
+        assertNotNull(cache.get(key("a/c")));
+
+        // unrelated path with the same prefix
+        assertEquals(0, cache.invalidate(Collections.singleton("/apps/a/cd/html.jsp")));
+
+        // parent of a location
+        assertEquals(1, cache.invalidate(Collections.singleton("/libs/a")));
+        assertNull(cache.get(key("a/c")));
+        assertNotNull(cache.get(key("x/y")));
+
+        // default servlet location affects all entries
+        assertEquals(1, cache.invalidate(Collections.singleton("/apps/sling/servlet/default/print.jsp")));
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getInvalidations());
+    }
+
+    @Test
+    public void testNoPutAfterConcurrentInvalidation() {
+        final ResolutionCache cache = new ResolutionCache(10);
+        final long generation = cache.getGeneration();
+        cache.invalidate(Collections.singleton("/apps/a/b"));
+        assertFalse(cache.put(key("a/b"), servlet, Collections.singletonList("/apps/a/b"), generation));
+        assertNull(cache.get(key("a/b")));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.servlet.GenericServlet;
+import javax.servlet.Servlet;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.resourceresolver.impl.ResourceResolverFactoryFixture;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+
+/**
+ * The content tree used by the benchmarks.
+ * <p>
+ * Each site is a tree of pages with the configured depth and fanout.
+ * The pages use ten different resource types sharing a common super
+ * type, the first pages of each site get an alias or a vanity path.
+ * The sample paths used by the benchmarks are picked with a fixed
+ * seed so that runs are comparable.
+ */
+public class BenchmarkContent {
+
+    public static final String RESOURCE_SUPER_TYPE = "bench/base";
+
+    private static final int RESOURCE_TYPES = 10;
+
+    private static final int SAMPLES = 1024;
+
+    private static final long SEED = 4711;
+
+    private static final Servlet SCRIPT = new GenericServlet() {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void service(final ServletRequest req, final ServletResponse res) throws IOException {
+            final PrintWriter pw = res.getWriter();
+            pw.print("bench");
+            pw.flush();
+        }
+    };
+
+    private final Map<String, ResourceProvider<?>> providers = new LinkedHashMap<String, ResourceProvider<?>>();
+
+    private final List<String> pagePaths = new ArrayList<String>();
+
+    private final List<String> aliasPaths = new ArrayList<String>();
+
+    private final List<String> vanityPaths = new ArrayList<String>();
+
+    private final File dataDirectory;
+
+    /**
+     * Create the content.
+     * @param sites Number of sites below /content
+     * @param depth Depth of the page tree of each site
+     * @param fanout Number of child pages of each page
+     * @param aliasCount Number of pages with an alias per site
+     * @param vanityCount Number of pages with a vanity path per site
+     * @param providerPerSite Whether each site is served by its own provider
+     */
+    public BenchmarkContent(final int sites,
+            final int depth,
+            final int fanout,
+            final int aliasCount,
+            final int vanityCount,
+            final boolean providerPerSite) throws IOException {
+        final InMemoryResourceProvider rootProvider = new InMemoryResourceProvider("/");
+        this.providers.put("/", rootProvider);
+
+        addScripts(rootProvider);
+        rootProvider.add("/content", new HashMap<String, Object>());
+        for (int i = 0; i < sites; i++) {
+            final String sitePath = "/content/site" + i;
+            final InMemoryResourceProvider siteProvider;
+            if (providerPerSite) {
+                siteProvider = new InMemoryResourceProvider(sitePath);
+                this.providers.put(sitePath, siteProvider);
+                rootProvider.add(sitePath, new HashMap<String, Object>());
+            } else {
+                siteProvider = rootProvider;
+                siteProvider.add(sitePath, new HashMap<String, Object>());
+            }
+            final int[] counter = new int[1];
+            addPages(siteProvider, i, sitePath, 1, depth, fanout, aliasCount, vanityCount, counter);
+        }
+
+        this.dataDirectory = File.createTempFile("sling-jmh", "");
+        this.dataDirectory.delete();
+        this.dataDirectory.mkdirs();
+    }
+
+    private void addScripts(final InMemoryResourceProvider provider) {
+        final Map<String, Object> base = new HashMap<String, Object>();
+        provider.add("/apps/" + RESOURCE_SUPER_TYPE, base);
+        provider.addScript("/apps/" + RESOURCE_SUPER_TYPE + "/html.jsp", SCRIPT);
+        provider.addScript("/apps/" + RESOURCE_SUPER_TYPE + "/json.jsp", SCRIPT);
+        for (int k = 0; k < RESOURCE_TYPES; k++) {
+            final Map<String, Object> props = new HashMap<String, Object>();
+            props.put("sling:resourceSuperType", RESOURCE_SUPER_TYPE);
+            provider.add("/apps/" + getResourceType(k), props);
+            // only every other type has its own script, the others use the super type
+            if (k % 2 == 0) {
+                provider.addScript("/apps/" + getResourceType(k) + "/html.jsp", SCRIPT);
+                provider.addScript("/apps/" + getResourceType(k) + "/print.html.jsp", SCRIPT);
+            }
+        }
+    }
+
+    private void addPages(final InMemoryResourceProvider provider,
+            final int site,
+            final String parentPath,
+            final int level,
+            final int depth,
+            final int fanout,
+            final int aliasCount,
+            final int vanityCount,
+            final int[] counter) {
+        for (int i = 0; i < fanout; i++) {
+            final int n = counter[0]++;
+            final String path = parentPath + "/page" + i;
+            final Map<String, Object> props = new HashMap<String, Object>();
+            props.put(ResourceResolver.PROPERTY_RESOURCE_TYPE, getResourceType(n));
+            props.put("jcr:title", "Page " + n);
+            if (n < aliasCount) {
+                props.put(InMemoryResourceProvider.PROP_ALIAS, "alias" + n);
+                this.aliasPaths.add(parentPath + "/alias" + n);
+            }
+            if (n < vanityCount) {
+                final String vanityPath = "/vanity/" + site + "/" + n;
+                props.put(InMemoryResourceProvider.PROP_VANITY_PATH, vanityPath);
+                this.vanityPaths.add(vanityPath);
+            }
+            provider.add(path, props);
+            this.pagePaths.add(path);
+            if (level < depth) {
+                addPages(provider, site, path, level + 1, depth, fanout, aliasCount, vanityCount, counter);
+            }
+        }
+    }
+
+    public static String getResourceType(final int n) {
+        return "bench/page" + (n % RESOURCE_TYPES);
+    }
+
+    /**
+     * Create and activate the resource resolver factory serving this content.
+     */
+    public ResourceResolverFactoryFixture createFactory(final boolean vanityPaths) {
+        return new ResourceResolverFactoryFixture(this.providers, vanityPaths, new String[0], this.dataDirectory);
+    }
+
+    public void dispose() {
+        final File[] files = this.dataDirectory.listFiles();
+        if (files != null) {
+            for (final File f : files) {
+                f.delete();
+            }
+        }
+        this.dataDirectory.delete();
+    }
+
+    /**
+     * Sample paths of existing pages.
+     */
+    public String[] getPagePaths() {
+        return sample(this.pagePaths, 1);
+    }
+
+    /**
+     * Sample request paths addressing pages by their alias.
+     */
+    public String[] getAliasPaths() {
+        return sample(this.aliasPaths, 2);
+    }
+
+    /**
+     * Sample vanity paths.
+     */
+    public String[] getVanityPaths() {
+        return sample(this.vanityPaths, 3);
+    }
+
+    /**
+     * Sample paths below existing pages which do not exist.
+     */
+    public String[] getMissingPaths() {
+        final String[] paths = getPagePaths();
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = paths[i] + "/missing" + i;
+        }
+        return paths;
+    }
+
+    private static String[] sample(final List<String> paths, final int salt) {
+        if (paths.isEmpty()) {
+            return new String[] {"/content"};
+        }
+        final Random random = new Random(SEED + salt);
+        final String[] result = new String[SAMPLES];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = paths.get(random.nextInt(paths.size()));
+        }
+        return result;
+    }
+}
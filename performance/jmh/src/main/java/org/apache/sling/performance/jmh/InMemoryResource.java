@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.Map;
+
+import javax.servlet.Servlet;
+
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+
+/**
+ * A resource of the {@link InMemoryResourceProvider}.
+ * Like resources of a real provider, a new instance is created for
+ * every lookup.
+ */
+public class InMemoryResource extends AbstractResource {
+
+    private final ResourceResolver resolver;
+
+    private final String path;
+
+    private final Map<String, Object> properties;
+
+    private final Servlet servlet;
+
+    private final ResourceMetadata metadata = new ResourceMetadata();
+
+    InMemoryResource(final ResourceResolver resolver,
+            final String path,
+            final Map<String, Object> properties,
+            final Servlet servlet) {
+        this.resolver = resolver;
+        this.path = path;
+        this.properties = properties;
+        this.servlet = servlet;
+    }
+
+    @Override
+    public String getPath() {
+        return this.path;
+    }
+
+    @Override
+    public String getResourceType() {
+        final Object type = this.properties.get(ResourceResolver.PROPERTY_RESOURCE_TYPE);
+        return type != null ? type.toString() : InMemoryResourceProvider.DEFAULT_RESOURCE_TYPE;
+    }
+
+    @Override
+    public String getResourceSuperType() {
+        final Object type = this.properties.get("sling:resourceSuperType");
+        return type != null ? type.toString() : null;
+    }
+
+    @Override
+    public ResourceMetadata getResourceMetadata() {
+        return this.metadata;
+    }
+
+    @Override
+    public ResourceResolver getResourceResolver() {
+        return this.resolver;
+    }
+
+    @Override
+    public ValueMap getValueMap() {
+        return new ValueMapDecorator(this.properties);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <AdapterType> AdapterType adaptTo(final Class<AdapterType> type) {
+        if (type == ValueMap.class || type == Map.class) {
+            return (AdapterType) getValueMap();
+        }
+        if (type == Servlet.class) {
+            return (AdapterType) this.servlet;
+        }
+        return super.adaptTo(type);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ", type=" + getResourceType() + ", path=" + getPath();
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.Servlet;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.spi.resource.provider.QueryLanguageProvider;
+import org.apache.sling.spi.resource.provider.ResolveContext;
+import org.apache.sling.spi.resource.provider.ResourceContext;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+
+/**
+ * A read only resource provider keeping all resources in memory.
+ * <p>
+ * The provider supports the queries issued by the map entries to
+ * load aliases and vanity paths.
+ */
+public class InMemoryResourceProvider extends ResourceProvider<Object> {
+
+    static final String DEFAULT_RESOURCE_TYPE = "nt:unstructured";
+
+    static final String PROP_ALIAS = "sling:alias";
+
+    static final String PROP_VANITY_PATH = "sling:vanityPath";
+
+    private static final String VANITY_PATH_QUERY = "sling:vanityPath =";
+
+    private final String root;
+
+    /** The properties by path. */
+    private final Map<String, Map<String, Object>> resources = new HashMap<String, Map<String, Object>>();
+
+    /** The child paths by path. */
+    private final Map<String, List<String>> children = new HashMap<String, List<String>>();
+
+    /** The servlets by path of script resources. */
+    private final Map<String, Servlet> servlets = new HashMap<String, Servlet>();
+
+    private final List<String> aliasPaths = new ArrayList<String>();
+
+    private final List<String> vanityPaths = new ArrayList<String>();
+
+    private final Map<String, List<String>> vanityPathsByValue = new HashMap<String, List<String>>();
+
+    public InMemoryResourceProvider(final String root) {
+        this.root = root;
+        this.resources.put(root, new HashMap<String, Object>());
+    }
+
+    public String getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Add a resource. Missing ancestors are created.
+     * @param path The absolute path below the root of this provider
+     * @param properties The properties
+     */
+    public void add(final String path, final Map<String, Object> properties) {
+        if (!path.startsWith(this.root)) {
+            throw new IllegalArgumentException(path + " is not below " + this.root);
+        }
+        if (this.resources.containsKey(path)) {
+            this.resources.get(path).putAll(properties);
+        } else {
+            final String parentPath = getParentPath(path);
+            if (!this.resources.containsKey(parentPath)) {
+                add(parentPath, new HashMap<String, Object>());
+            }
+            List<String> list = this.children.get(parentPath);
+            if (list == null) {
+                list = new ArrayList<String>();
+                this.children.put(parentPath, list);
+            }
+            list.add(path);
+            this.resources.put(path, new HashMap<String, Object>(properties));
+        }
+        if (properties.containsKey(PROP_ALIAS)) {
+            this.aliasPaths.add(path);
+        }
+        final Object vanityPath = properties.get(PROP_VANITY_PATH);
+        if (vanityPath != null) {
+            this.vanityPaths.add(path);
+            List<String> list = this.vanityPathsByValue.get(vanityPath.toString());
+            if (list == null) {
+                list = new ArrayList<String>();
+                this.vanityPathsByValue.put(vanityPath.toString(), list);
+            }
+            list.add(path);
+        }
+    }
+
+    /**
+     * Add a script resource adapting to the servlet.
+     */
+    public void addScript(final String path, final Servlet servlet) {
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(ResourceResolver.PROPERTY_RESOURCE_TYPE, "nt:file");
+        add(path, properties);
+        this.servlets.put(path, servlet);
+    }
+
+    private String getParentPath(final String path) {
+        final int pos = path.lastIndexOf('/');
+        return pos == 0 ? "/" : path.substring(0, pos);
+    }
+
+    private Resource createResource(final ResolveContext<Object> ctx, final String path) {
+        final Map<String, Object> properties = this.resources.get(path);
+        if (properties == null) {
+            return null;
+        }
+        return new InMemoryResource(ctx.getResourceResolver(), path, properties, this.servlets.get(path));
+    }
+
+    @Override
+    public Resource getResource(final ResolveContext<Object> ctx,
+            final String path,
+            final ResourceContext resourceContext,
+            final Resource parent) {
+        return createResource(ctx, path);
+    }
+
+    @Override
+    public Iterator<Resource> listChildren(final ResolveContext<Object> ctx, final Resource parent) {
+        final List<String> paths = this.children.get(parent.getPath());
+        if (paths == null) {
+            return null;
+        }
+        return new ResourceIterator(ctx, paths);
+    }
+
+    @Override
+    public QueryLanguageProvider<Object> getQueryLanguageProvider() {
+        return new QueryLanguageProvider<Object>() {
+
+            @Override
+            public String[] getSupportedLanguages(final ResolveContext<Object> ctx) {
+                return new String[] {"sql"};
+            }
+
+            @Override
+            public Iterator<Resource> findResources(final ResolveContext<Object> ctx,
+                    final String query,
+                    final String language) {
+                final List<String> paths;
+                if (query.contains(PROP_ALIAS + " IS NOT NULL")) {
+                    paths = aliasPaths;
+                } else if (query.contains(PROP_VANITY_PATH + " IS NOT NULL")) {
+                    paths = vanityPaths;
+                } else if (query.contains(VANITY_PATH_QUERY)) {
+                    paths = new ArrayList<String>();
+                    int pos = query.indexOf(VANITY_PATH_QUERY);
+                    while (pos != -1) {
+                        final int start = query.indexOf('\'', pos) + 1;
+                        final int end = query.indexOf('\'', start);
+                        final List<String> matches = vanityPathsByValue.get(query.substring(start, end));
+                        if (matches != null) {
+                            paths.addAll(matches);
+                        }
+                        pos = query.indexOf(VANITY_PATH_QUERY, end);
+                    }
+                } else {
+                    paths = Collections.emptyList();
+                }
+                return new ResourceIterator(ctx, paths);
+            }
+
+            @Override
+            public Iterator<ValueMap> queryResources(final ResolveContext<Object> ctx,
+                    final String query,
+                    final String language) {
+                return Collections.<ValueMap> emptyList().iterator();
+            }
+        };
+    }
+
+    private final class ResourceIterator implements Iterator<Resource> {
+
+        private final ResolveContext<Object> ctx;
+
+        private final Iterator<String> paths;
+
+        ResourceIterator(final ResolveContext<Object> ctx, final List<String> paths) {
+            this.ctx = ctx;
+            this.paths = paths.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.paths.hasNext();
+        }
+
+        @Override
+        public Resource next() {
+            return createResource(this.ctx, this.paths.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.resourceresolver.impl.ResourceResolverFactoryFixture;
+import org.apache.sling.resourceresolver.impl.mapping.MapEntriesHandler;
+import org.apache.sling.resourceresolver.impl.mapping.MapEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the lookups in the map entries and the time it takes to
+ * load the aliases and vanity paths when the factory is activated.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapEntriesBenchmark {
+
+    @Param({"10"})
+    public int sites;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"10"})
+    public int fanout;
+
+    @Param({"100", "1000"})
+    public int aliasCount;
+
+    @Param({"100", "1000"})
+    public int vanityCount;
+
+    private BenchmarkContent content;
+
+    private ResourceResolverFactoryFixture fixture;
+
+    private MapEntriesHandler mapEntries;
+
+    private String[] pagePaths;
+
+    private String[] vanityPaths;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.content = new BenchmarkContent(sites, depth, fanout, aliasCount, vanityCount, false);
+        this.fixture = this.content.createFactory(true);
+        this.mapEntries = this.fixture.getMapEntries();
+        this.pagePaths = this.content.getPagePaths();
+        this.vanityPaths = this.content.getVanityPaths();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.fixture.dispose();
+        this.content.dispose();
+    }
+
+    private String next(final String[] paths) {
+        return paths[(this.index++) & (paths.length - 1)];
+    }
+
+    @Benchmark
+    public void resolveMapsIterator(final Blackhole blackhole) {
+        final Iterator<MapEntry> i = this.mapEntries.getResolveMapsIterator("http/localhost.80" + next(this.vanityPaths));
+        while (i.hasNext()) {
+            blackhole.consume(i.next());
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> aliasMap() {
+        final String path = next(this.pagePaths);
+        return this.mapEntries.getAliasMap(path.substring(0, path.lastIndexOf('/')));
+    }
+
+    /**
+     * Activation of the factory including loading the map entries.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public boolean startup() {
+        final ResourceResolverFactoryFixture startupFixture = this.content.createFactory(true);
+        try {
+            return startupFixture.isMapEntriesActive();
+        } finally {
+            startupFixture.dispose();
+        }
+    }
+}
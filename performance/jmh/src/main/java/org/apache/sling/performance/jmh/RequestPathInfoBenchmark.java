@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.request.RequestPathInfo;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.engine.impl.request.SlingRequestPathInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the decomposition of the request path into selectors,
+ * extension and suffix which is done for every request and every
+ * include. Run with <code>-prof gc</code> to compare the allocation
+ * per operation (<code>gc.alloc.rate.norm</code>).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestPathInfoBenchmark {
+
+    @Param({".html", ".print.a4.html", ".tidy.infinity.json/some/suffix.txt"})
+    public String pathInfo;
+
+    private Resource resource;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.resource = new InMemoryResource(null, "/content/site0/page0", new HashMap<String, Object>(), null);
+        final ResourceMetadata metadata = this.resource.getResourceMetadata();
+        metadata.setResolutionPath(this.resource.getPath());
+        metadata.setResolutionPathInfo(this.pathInfo);
+    }
+
+    @Benchmark
+    public RequestPathInfo parse() {
+        return new SlingRequestPathInfo(this.resource);
+    }
+
+    @Benchmark
+    public String[] parseSelectors() {
+        return new SlingRequestPathInfo(this.resource).getSelectors();
+    }
+}
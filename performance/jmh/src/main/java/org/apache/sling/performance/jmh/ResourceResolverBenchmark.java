@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.resourceresolver.impl.ResourceResolverFactoryFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the operations of the resource resolver which are
+ * executed for every request: resolving the request path, mapping
+ * links, looking up resources, listing children and checking
+ * resource types.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceResolverBenchmark {
+
+    /**
+     * The content and the resource resolver factory, shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Content {
+
+        @Param({"1", "10"})
+        public int sites;
+
+        @Param({"3"})
+        public int depth;
+
+        @Param({"10"})
+        public int fanout;
+
+        @Param({"100"})
+        public int aliasCount;
+
+        @Param({"100"})
+        public int vanityCount;
+
+        @Param({"false", "true"})
+        public boolean providerPerSite;
+
+        BenchmarkContent content;
+
+        ResourceResolverFactoryFixture fixture;
+
+        String[] pagePaths;
+
+        String[] aliasPaths;
+
+        String[] vanityPaths;
+
+        String[] missingPaths;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            this.content = new BenchmarkContent(sites, depth, fanout, aliasCount, vanityCount, providerPerSite);
+            this.fixture = this.content.createFactory(true);
+            this.pagePaths = this.content.getPagePaths();
+            this.aliasPaths = this.content.getAliasPaths();
+            this.vanityPaths = this.content.getVanityPaths();
+            this.missingPaths = this.content.getMissingPaths();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.fixture.dispose();
+            this.content.dispose();
+        }
+    }
+
+    /**
+     * A resource resolver per thread, like a resource resolver per request.
+     */
+    @State(Scope.Thread)
+    public static class Resolver {
+
+        ResourceResolver resolver;
+
+        int index;
+
+        @SuppressWarnings("deprecation")
+        @Setup(Level.Iteration)
+        public void setup(final Content content) throws LoginException {
+            this.resolver = content.fixture.getResourceResolverFactory().getAdministrativeResourceResolver(null);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            this.resolver.close();
+        }
+
+        String next(final String[] paths) {
+            return paths[(this.index++) & (paths.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public Resource resolveExisting(final Content content, final Resolver resolver) {
+        return resolver.resolver.resolve(resolver.next(content.pagePaths) + ".html");
+    }
+
+    @Benchmark
+    public Resource resolveAlias(final Content content, final Resolver resolver) {
+        return resolver.resolver.resolve(resolver.next(content.aliasPaths) + ".html");
+    }
+
+    @Benchmark
+    public Resource resolveVanityPath(final Content content, final Resolver resolver) {
+        return resolver.resolver.resolve(resolver.next(content.vanityPaths));
+    }
+
+    @Benchmark
+    public Resource resolveNonExisting(final Content content, final Resolver resolver) {
+        return resolver.resolver.resolve(resolver.next(content.missingPaths) + ".html");
+    }
+
+    @Benchmark
+    public String map(final Content content, final Resolver resolver) {
+        return resolver.resolver.map(resolver.next(content.pagePaths) + ".html");
+    }
+
+    @Benchmark
+    public Resource getResource(final Content content, final Resolver resolver) {
+        return resolver.resolver.getResource(resolver.next(content.pagePaths));
+    }
+
+    @Benchmark
+    public void listChildren(final Content content, final Resolver resolver, final Blackhole blackhole) {
+        final Resource parent = resolver.resolver.getResource(resolver.next(content.pagePaths));
+        final Iterator<Resource> i = resolver.resolver.listChildren(parent);
+        while (i.hasNext()) {
+            blackhole.consume(i.next());
+        }
+    }
+
+    @Benchmark
+    public boolean isResourceType(final Content content, final Resolver resolver) {
+        final Resource resource = resolver.resolver.getResource(resolver.next(content.pagePaths));
+        return resolver.resolver.isResourceType(resource, BenchmarkContent.RESOURCE_SUPER_TYPE);
+    }
+}
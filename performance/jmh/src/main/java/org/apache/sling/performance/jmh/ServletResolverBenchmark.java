@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.performance.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Servlet;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.commons.testing.sling.MockSlingHttpServletRequest;
+import org.apache.sling.resourceresolver.impl.ResourceResolverFactoryFixture;
+import org.apache.sling.servlets.resolver.internal.ServletResolverFixture;
+import org.apache.sling.servlets.resolver.internal.SlingServletResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the servlet resolution for the pages of the benchmark
+ * content, with and without the resolution cache. Half of the resource
+ * types have their own script, the others fall back to the script of
+ * the common super type.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServletResolverBenchmark {
+
+    @Param({"0", "200"})
+    public int cacheSize;
+
+    @Param({"html", "print.html", "json"})
+    public String selectorsAndExtension;
+
+    private BenchmarkContent content;
+
+    private ResourceResolverFactoryFixture fixture;
+
+    private ResourceResolver resolver;
+
+    private ServletResolverFixture servletResolverFixture;
+
+    private SlingServletResolver servletResolver;
+
+    private MockSlingHttpServletRequest[] requests;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("deprecation")
+    public void setup() throws Exception {
+        this.content = new BenchmarkContent(1, 3, 10, 0, 0, false);
+        this.fixture = this.content.createFactory(false);
+        this.resolver = this.fixture.getResourceResolverFactory().getAdministrativeResourceResolver(null);
+
+        this.servletResolverFixture = new ServletResolverFixture(this.fixture.getResourceResolverFactory(), this.cacheSize);
+        this.servletResolver = this.servletResolverFixture.getServletResolver();
+
+        final int pos = this.selectorsAndExtension.lastIndexOf('.');
+        final String selectors = pos == -1 ? null : this.selectorsAndExtension.substring(0, pos);
+        final String extension = this.selectorsAndExtension.substring(pos + 1);
+        final String[] paths = this.content.getPagePaths();
+        this.requests = new MockSlingHttpServletRequest[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            final Resource resource = this.resolver.getResource(paths[i]);
+            this.requests[i] = new MockSlingHttpServletRequest(paths[i], selectors, extension, null, null);
+            this.requests[i].setMethod("GET");
+            this.requests[i].setResource(resource);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.servletResolverFixture.dispose();
+        this.resolver.close();
+        this.fixture.dispose();
+        this.content.dispose();
+    }
+
+    @Benchmark
+    public Servlet resolveServlet() {
+        return this.servletResolver.resolveServlet(this.requests[(this.index++) & (this.requests.length - 1)]);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.resourceresolver.impl;
+
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.resourceresolver.impl.mapping.MapEntries;
+import org.apache.sling.resourceresolver.impl.mapping.MapEntriesHandler;
+import org.apache.sling.resourceresolver.impl.observation.ResourceChangeListenerWhiteboard;
+import org.apache.sling.resourceresolver.impl.providers.ResourceProviderHandler;
+import org.apache.sling.resourceresolver.impl.providers.ResourceProviderInfo;
+import org.apache.sling.resourceresolver.impl.providers.ResourceProviderStorage;
+import org.apache.sling.resourceresolver.impl.providers.ResourceProviderTracker;
+import org.apache.sling.spi.resource.provider.ResourceProvider;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Sets up the resource resolver factory outside of an OSGi framework.
+ * <p>
+ * The OSGi services are mocked, the resource resolver factory, the
+ * resource resolvers and the map entries are the real implementations.
+ * This class is in the package of the implementation as it needs to
+ * access package private fields of the activator.
+ */
+public class ResourceResolverFactoryFixture {
+
+    private final ResourceResolverFactoryActivator activator = new ResourceResolverFactoryActivator();
+
+    private final CommonResourceResolverFactoryImpl commonFactory;
+
+    private final ResourceResolverFactory factory;
+
+    /**
+     * Create and activate the factory.
+     * @param providers The resource providers by root path
+     * @param vanityPaths Whether vanity paths are enabled
+     * @param mappings The resource resolver mappings
+     * @param dataDirectory Directory for the data files of the map entries
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ResourceResolverFactoryFixture(final Map<String, ResourceProvider<?>> providers,
+            final boolean vanityPaths,
+            final String[] mappings,
+            final File dataDirectory) {
+        final List<ResourceProviderHandler> handlers = new ArrayList<ResourceProviderHandler>();
+        long id = 0;
+        for (final Map.Entry<String, ResourceProvider<?>> entry : providers.entrySet()) {
+            handlers.add(createHandler(entry.getValue(), "benchmark.provider." + id, ++id, entry.getKey()));
+        }
+        final ResourceProviderTracker tracker = Mockito.mock(ResourceProviderTracker.class);
+        Mockito.when(tracker.getResourceProviderStorage()).thenReturn(new ResourceProviderStorage(handlers));
+
+        final Bundle systemBundle = Mockito.mock(Bundle.class);
+        Mockito.when(systemBundle.getState()).thenReturn(Bundle.ACTIVE);
+        final Bundle bundle = Mockito.mock(Bundle.class);
+        final BundleContext bundleContext = Mockito.mock(BundleContext.class);
+        Mockito.when(bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION)).thenReturn(systemBundle);
+        Mockito.when(bundleContext.getBundle()).thenReturn(bundle);
+        Mockito.when(bundle.getBundleContext()).thenReturn(bundleContext);
+        Mockito.when(bundleContext.getDataFile(Mockito.anyString())).thenAnswer(new Answer<File>() {
+
+            @Override
+            public File answer(final InvocationOnMock invocation) throws Throwable {
+                return new File(dataDirectory, (String) invocation.getArguments()[0]);
+            }
+        });
+
+        activator.resourceAccessSecurityTracker = new ResourceAccessSecurityTracker();
+        activator.resourceProviderTracker = tracker;
+        activator.changeListenerWhiteboard = Mockito.mock(ResourceChangeListenerWhiteboard.class);
+        activator.activate(bundleContext, new Config(vanityPaths, mappings));
+
+        final ArgumentCaptor<ServiceFactory> serviceCaptor = ArgumentCaptor.forClass(ServiceFactory.class);
+        Mockito.verify(bundleContext, Mockito.atLeastOnce()).registerService(
+                Mockito.eq(ResourceResolverFactory.class), serviceCaptor.capture(), Mockito.any(Dictionary.class));
+        final ResourceResolverFactoryImpl factoryImpl = (ResourceResolverFactoryImpl)
+                serviceCaptor.getValue().getService(bundle, null);
+        this.factory = factoryImpl;
+        this.commonFactory = getCommonFactory(factoryImpl);
+    }
+
+    private static CommonResourceResolverFactoryImpl getCommonFactory(final ResourceResolverFactoryImpl factoryImpl) {
+        try {
+            final Field field = ResourceResolverFactoryImpl.class.getDeclaredField("commonFactory");
+            field.setAccessible(true);
+            return (CommonResourceResolverFactoryImpl) field.get(factoryImpl);
+        } catch (final Exception e) {
+            throw new IllegalStateException("Unable to get common resource resolver factory", e);
+        }
+    }
+
+    private static ResourceProviderHandler createHandler(final ResourceProvider<?> rp,
+            final String pid,
+            final long ranking,
+            final String path) {
+        final ServiceReference ref = Mockito.mock(ServiceReference.class);
+        final BundleContext bc = Mockito.mock(BundleContext.class);
+        Mockito.when(bc.getService(Mockito.eq(ref))).thenReturn(rp);
+        Mockito.when(ref.getProperty(Mockito.eq(Constants.SERVICE_ID))).thenReturn(ranking);
+        Mockito.when(ref.getProperty(Mockito.eq(Constants.SERVICE_PID))).thenReturn(pid);
+        Mockito.when(ref.getProperty(Mockito.eq(Constants.SERVICE_RANKING))).thenReturn(ranking);
+        Mockito.when(ref.getProperty(Mockito.eq(ResourceProvider.PROPERTY_ROOT))).thenReturn(path);
+        Mockito.when(ref.getProperty(Mockito.eq(ResourceProvider.PROPERTY_NAME))).thenReturn(pid);
+        final ResourceProviderHandler handler = new ResourceProviderHandler(bc, new ResourceProviderInfo(ref));
+        handler.activate();
+        return handler;
+    }
+
+    public ResourceResolverFactory getResourceResolverFactory() {
+        return this.factory;
+    }
+
+    public MapEntriesHandler getMapEntries() {
+        return this.commonFactory.getMapEntries();
+    }
+
+    /**
+     * Returns <code>true</code> once the map entries are initialized.
+     */
+    public boolean isMapEntriesActive() {
+        return this.commonFactory.getMapEntries() instanceof MapEntries;
+    }
+
+    public void dispose() {
+        this.activator.deactivate();
+    }
+
+    /**
+     * The factory configuration. Properties which do not exist in older
+     * releases are implemented without <code>@Override</code>, so the fixture
+     * compiles when comparing against these releases.
+     */
+    private static final class Config implements ResourceResolverFactoryConfig {
+
+        private final boolean vanityPaths;
+
+        private final String[] mappings;
+
+        Config(final boolean vanityPaths, final String[] mappings) {
+            this.vanityPaths = vanityPaths;
+            this.mappings = mappings;
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return ResourceResolverFactoryConfig.class;
+        }
+
+        @Override
+        public String[] resource_resolver_virtual() {
+            return new String[] {"/:/"};
+        }
+
+        @Override
+        public String[] resource_resolver_vanitypath_whitelist() {
+            return null;
+        }
+
+        @Override
+        public boolean resource_resolver_vanitypath_maxEntries_startup() {
+            return true;
+        }
+
+        @Override
+        public int resource_resolver_vanitypath_maxEntries() {
+            return -1;
+        }
+
+        @Override
+        public int resource_resolver_vanitypath_bloomfilter_maxBytes() {
+            return 1024000;
+        }
+
+        @Override
+        public String[] resource_resolver_vanitypath_blacklist() {
+            return null;
+        }
+
+        @Override
+        public boolean resource_resolver_vanity_precedence() {
+            return false;
+        }
+
+        public boolean resource_resolver_mapping_snapshot() {
+            return false;
+        }
+
+        @Override
+        public String[] resource_resolver_searchpath() {
+            return new String[] {"/apps", "/libs"};
+        }
+
+        @Override
+        public String[] resource_resolver_required_providers() {
+            return new String[0];
+        }
+
+        @Override
+        public String[] resource_resolver_required_providernames() {
+            return new String[0];
+        }
+
+        @Override
+        public boolean resource_resolver_providerhandling_paranoid() {
+            return false;
+        }
+
+        @Override
+        public boolean resource_resolver_optimize_alias_resolution() {
+            return true;
+        }
+
+        @Override
+        public String[] resource_resolver_mapping() {
+            return this.mappings;
+        }
+
+        @Override
+        public String[] resource_resolver_map_observation() {
+            return new String[] {"/"};
+        }
+
+        @Override
+        public String resource_resolver_map_location() {
+            return MapEntries.DEFAULT_MAP_ROOT;
+        }
+
+        @Override
+        public boolean resource_resolver_manglenamespaces() {
+            return true;
+        }
+
+        @Override
+        public boolean resource_resolver_log_closing() {
+            return false;
+        }
+
+        public int resource_resolver_lookup_cache_size() {
+            return 0;
+        }
+
+        public int resource_resolver_observation_queue_size() {
+            return 0;
+        }
+
+        public String resource_resolver_observation_queue_overflow() {
+            return "BLOCK";
+        }
+
+        @Override
+        public boolean resource_resolver_enable_vanitypath() {
+            return this.vanityPaths;
+        }
+
+        @Override
+        public int resource_resolver_default_vanity_redirect_status() {
+            return 302;
+        }
+
+        @Override
+        public boolean resource_resolver_allowDirect() {
+            return true;
+        }
+    }
+}
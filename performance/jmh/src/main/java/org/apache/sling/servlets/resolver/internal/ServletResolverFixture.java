@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.sling.servlets.resolver.internal;
+
+import java.lang.reflect.Field;
+import java.util.Dictionary;
+
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.commons.testing.osgi.MockBundle;
+import org.apache.sling.commons.testing.osgi.MockBundleContext;
+import org.apache.sling.commons.testing.osgi.MockComponentContext;
+import org.osgi.framework.ServiceRegistration;
+
+/**
+ * Sets up the servlet resolver outside of an OSGi framework.
+ * This class is in the package of the implementation as it needs to
+ * call the protected activation methods.
+ */
+public class ServletResolverFixture {
+
+    private final SlingServletResolver servletResolver = new SlingServletResolver();
+
+    /**
+     * Create and activate the servlet resolver.
+     * @param factory The resource resolver factory used to read the scripts
+     * @param cacheSize The size of the resolution cache
+     */
+    public ServletResolverFixture(final ResourceResolverFactory factory, final int cacheSize) throws LoginException {
+        try {
+            final Field factoryField = SlingServletResolver.class.getDeclaredField("resourceResolverFactory");
+            factoryField.setAccessible(true);
+            factoryField.set(this.servletResolver, factory);
+        } catch (final Exception e) {
+            throw new IllegalStateException("Unable to set resource resolver factory", e);
+        }
+
+        final MockBundleContext bundleContext = new MockBundleContext(new MockBundle(1L)) {
+
+            @Override
+            @SuppressWarnings("rawtypes")
+            public ServiceRegistration registerService(final String s, final Object o, final Dictionary dictionary) {
+                return null;
+            }
+
+            @Override
+            @SuppressWarnings("rawtypes")
+            public ServiceRegistration registerService(final String[] strings, final Object o, final Dictionary dictionary) {
+                return null;
+            }
+        };
+        final MockComponentContext componentContext = new MockComponentContext(bundleContext);
+        componentContext.setProperty(SlingServletResolver.PROP_CACHE_SIZE, cacheSize);
+        this.servletResolver.activate(componentContext);
+    }
+
+    public SlingServletResolver getServletResolver() {
+        return this.servletResolver;
+    }
+
+    public void dispose() {
+        this.servletResolver.deactivate(null);
+    }
+}
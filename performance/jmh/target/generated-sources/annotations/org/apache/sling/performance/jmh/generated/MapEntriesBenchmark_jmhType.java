@@ -0,0 +1,4 @@
+package org.apache.sling.performance.jmh.generated;
+public class MapEntriesBenchmark_jmhType extends MapEntriesBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.sling.performance.jmh.generated;
+public class RequestPathInfoBenchmark_jmhType extends RequestPathInfoBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.sling.performance.jmh.generated;
+public class ResourceResolverBenchmark_Content_jmhType extends ResourceResolverBenchmark_Content_jmhType_B3 {
+}
+
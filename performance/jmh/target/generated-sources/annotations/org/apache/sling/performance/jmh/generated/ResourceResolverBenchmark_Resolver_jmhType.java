@@ -0,0 +1,4 @@
+package org.apache.sling.performance.jmh.generated;
+public class ResourceResolverBenchmark_Resolver_jmhType extends ResourceResolverBenchmark_Resolver_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.sling.performance.jmh.generated;
+public class ResourceResolverBenchmark_jmhType extends ResourceResolverBenchmark_jmhType_B3 {
+}
+
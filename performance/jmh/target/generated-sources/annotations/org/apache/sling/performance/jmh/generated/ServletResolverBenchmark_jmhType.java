@@ -0,0 +1,4 @@
+package org.apache.sling.performance.jmh.generated;
+public class ServletResolverBenchmark_jmhType extends ServletResolverBenchmark_jmhType_B3 {
+}
+
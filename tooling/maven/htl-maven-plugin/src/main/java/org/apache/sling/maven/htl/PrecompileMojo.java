@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.apache.sling.maven.htl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.sling.scripting.sightly.compiler.CompilationResult;
+import org.apache.sling.scripting.sightly.compiler.CompilationUnit;
+import org.apache.sling.scripting.sightly.compiler.CompilerMessage;
+import org.apache.sling.scripting.sightly.compiler.SightlyCompiler;
+import org.apache.sling.scripting.sightly.java.compiler.ClassInfo;
+import org.apache.sling.scripting.sightly.java.compiler.JavaClassBackendCompiler;
+import org.apache.sling.scripting.sightly.java.compiler.JavaEscapeUtils;
+import org.codehaus.plexus.util.Scanner;
+import org.codehaus.plexus.util.StringUtils;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * This goal compiles HTL scripts to Java classes which are packaged into the project's bundle. The Apache Sling Scripting HTL Engine
+ * uses these classes instead of compiling the scripts at runtime if its "Use Precompiled Templates" option is enabled and if the
+ * scripts did not change after the build.
+ */
+@Mojo(
+        name = "precompile",
+        defaultPhase = LifecyclePhase.GENERATE_SOURCES,
+        threadSafe = true
+)
+public class PrecompileMojo extends AbstractMojo {
+
+    /**
+     * The location of the index of precompiled templates inside the bundle; needs to match the location the HTL engine expects.
+     */
+    public static final String TEMPLATES_INDEX = "META-INF/sling-htl/templates.properties";
+
+    private static final String DEFAULT_INCLUDES = "**/*.html";
+    private static final String DEFAULT_EXCLUDES = "";
+
+    @Component
+    private BuildContext buildContext;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    protected MavenProject project;
+
+    /**
+     * Defines the root folder where this Mojo expects to find the HTL scripts to precompile. The paths of the scripts relative to this
+     * folder have to match the paths under which the scripts are available in the resource tree (e.g. a {@code jcr_root} folder).
+     */
+    @Parameter(property = "sourceDirectory", defaultValue = "${project.build.sourceDirectory}")
+    private File sourceDirectory;
+
+    /**
+     * List of files to include. Specified as fileset patterns which are relative to the input directory whose contents will be scanned
+     * (see the sourceDirectory configuration option).
+     */
+    @Parameter
+    private String[] includes;
+
+    /**
+     * List of files to exclude. Specified as fileset patterns which are relative to the input directory whose contents will be scanned
+     * (see the sourceDirectory configuration option).
+     */
+    @Parameter
+    private String[] excludes;
+
+    /**
+     * The package under which the Java classes are generated. The package should not be exported by the project's bundle.
+     */
+    @Parameter(property = "htl.packageName", defaultValue = "${project.groupId}.htl.impl")
+    private String packageName;
+
+    /**
+     * The folder where the generated Java classes are written to; it is added to the project's compile source roots.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/htl")
+    private File generatedSourcesDirectory;
+
+    /**
+     * The folder where the index of the precompiled templates is written to; it is added to the project's resources.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generated-resources/htl")
+    private File generatedResourcesDirectory;
+
+    /**
+     * If set to "true" the precompilation will be skipped.
+     */
+    @Parameter(property = "htl.skip", defaultValue = "false")
+    private boolean skip;
+
+    private String processedIncludes = null;
+    private String processedExcludes = null;
+    private List<File> processedFiles = Collections.emptyList();
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping precompilation.");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+
+        if (!sourceDirectory.isAbsolute()) {
+            sourceDirectory = new File(project.getBasedir(), sourceDirectory.getPath());
+        }
+        if (!sourceDirectory.exists()) {
+            getLog().info("Source directory does not exist, skipping.");
+            return;
+        }
+        if (!sourceDirectory.isDirectory()) {
+            throw new MojoExecutionException(
+                    String.format("Configured sourceDirectory={%s} is not a directory.", sourceDirectory.getAbsolutePath()));
+        }
+
+        processedIncludes = includes == null ? DEFAULT_INCLUDES : join(includes);
+        processedExcludes = excludes == null ? DEFAULT_EXCLUDES : join(excludes);
+        Scanner scanner = buildContext.newScanner(sourceDirectory, true);
+        scanner.setExcludes(new String[] { processedExcludes } );
+        scanner.setIncludes(new String[] { processedIncludes } );
+        scanner.scan();
+
+        String[] includedFiles = scanner.getIncludedFiles();
+        processedFiles = new ArrayList<>(includedFiles.length);
+        SightlyCompiler compiler = new SightlyCompiler();
+        Properties index = new Properties();
+        boolean hasErrors = false;
+        for (String includedFile : includedFiles) {
+            File script = new File(sourceDirectory, includedFile);
+            processedFiles.add(script);
+            String scriptName = "/" + includedFile.replace(File.separatorChar, '/');
+            try {
+                String source = FileUtils.readFileToString(script, StandardCharsets.UTF_8);
+                JavaClassBackendCompiler backendCompiler = new JavaClassBackendCompiler();
+                CompilationResult result = compiler.compile(getCompilationUnit(scriptName, source), backendCompiler);
+                buildContext.removeMessages(script);
+                for (CompilerMessage message : result.getWarnings()) {
+                    buildContext.addMessage(script, message.getLine(), message.getColumn(), message.getMessage(),
+                            BuildContext.SEVERITY_WARNING, null);
+                }
+                if (result.getErrors().size() > 0) {
+                    for (CompilerMessage message : result.getErrors()) {
+                        String messageString = message.getMessage().replaceAll(System.lineSeparator(), "");
+                        buildContext.addMessage(script, message.getLine(), message.getColumn(), messageString,
+                                BuildContext.SEVERITY_ERROR, null);
+                    }
+                    hasErrors = true;
+                    continue;
+                }
+                TemplateClassInfo classInfo = new TemplateClassInfo(packageName, scriptName);
+                File javaFile = new File(generatedSourcesDirectory,
+                        classInfo.getFullyQualifiedClassName().replace('.', File.separatorChar) + ".java");
+                FileUtils.writeStringToFile(javaFile, backendCompiler.build(classInfo), StandardCharsets.UTF_8);
+                buildContext.refresh(javaFile);
+                index.setProperty(scriptName, classInfo.getFullyQualifiedClassName() + "," + checksum(source));
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Cannot precompile script {%s}.", script.getAbsolutePath()), e);
+            }
+        }
+        if (hasErrors) {
+            throw new MojoFailureException("Please check the reported syntax errors.");
+        }
+
+        File indexFile = new File(generatedResourcesDirectory, TEMPLATES_INDEX);
+        OutputStream os = null;
+        try {
+            indexFile.getParentFile().mkdirs();
+            os = new FileOutputStream(indexFile);
+            index.store(os, "Precompiled HTL templates");
+            buildContext.refresh(indexFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("Cannot write the templates index {%s}.", indexFile.getAbsolutePath()), e);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+
+        project.addCompileSourceRoot(generatedSourcesDirectory.getAbsolutePath());
+        Resource resource = new Resource();
+        resource.setDirectory(generatedResourcesDirectory.getAbsolutePath());
+        project.addResource(resource);
+
+        getLog().info("Precompiled " + processedFiles.size() + " files in " + ( System.currentTimeMillis() - start ) + " milliseconds");
+    }
+
+    public List<File> getProcessedFiles() {
+        return processedFiles;
+    }
+
+    /**
+     * Calculates the checksum identifying the source of a template, the same way as the HTL engine does.
+     *
+     * @param source the source of the template
+     * @return the hex encoded SHA-256 digest of the UTF-8 encoded source
+     */
+    static String checksum(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private String join(String[] array) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int index = 0; index < array.length; index++) {
+            stringBuilder.append(StringUtils.trim(array[index]));
+            if (index < array.length - 1) {
+                stringBuilder.append(',');
+            }
+        }
+        return stringBuilder.toString();
+    }
+
+    private CompilationUnit getCompilationUnit(final String scriptName, String source) {
+        final Reader reader = new StringReader(source);
+        return new CompilationUnit() {
+            public String getScriptName() {
+                return scriptName;
+            }
+
+            public Reader getScriptReader() {
+                return reader;
+            }
+        };
+    }
+
+    // visible for testing only
+    void setBuildContext(BuildContext buildContext) {
+        this.buildContext = buildContext;
+    }
+
+    static class TemplateClassInfo implements ClassInfo {
+
+        private final String packageName;
+        private final String simpleClassName;
+
+        TemplateClassInfo(String basePackage, String scriptName) {
+            int lastSlashIndex = scriptName.lastIndexOf('/');
+            String folder = JavaEscapeUtils.makeJavaPackage(scriptName.substring(0, lastSlashIndex));
+            this.packageName = folder.isEmpty() ? basePackage : basePackage + "." + folder;
+            this.simpleClassName = JavaEscapeUtils.makeJavaIdentifier(scriptName.substring(lastSlashIndex + 1));
+        }
+
+        @Override
+        public String getSimpleClassName() {
+            return simpleClassName;
+        }
+
+        @Override
+        public String getPackageName() {
+            return packageName;
+        }
+
+        @Override
+        public String getFullyQualifiedClassName() {
+            return packageName + "." + simpleClassName;
+        }
+    }
+}
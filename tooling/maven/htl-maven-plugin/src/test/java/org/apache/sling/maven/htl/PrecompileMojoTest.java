@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.apache.sling.maven.htl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.testing.MojoRule;
+import org.apache.maven.plugin.testing.SilentLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrecompileMojoTest {
+
+    public static final String SCRIPT_HTML = "src/main/resources/apps/projects/script.html";
+    public static final String TEST_PROJECT = "test-project";
+    public static final String PRECOMPILE_POM = "precompile.pom.xml";
+
+    @Rule
+    public MojoRule mojoRule = new MojoRule() {
+        @Override
+        protected void before() throws Throwable {
+            super.before();
+            /**
+             * Make sure the base directory is initialised properly for this test
+             */
+            System.setProperty("basedir", new File("src" + File.separator + "test" + File.separator + "resources" + File
+                    .separator + TEST_PROJECT).getAbsolutePath());
+        }
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPrecompile() throws Exception {
+        File baseDir = new File(System.getProperty("basedir"));
+        File generatedSources = temporaryFolder.newFolder("generated-sources");
+        File generatedResources = temporaryFolder.newFolder("generated-resources");
+        PrecompileMojo precompileMojo = getMojo(baseDir, PRECOMPILE_POM);
+        mojoRule.setVariableValueToObject(precompileMojo, "generatedSourcesDirectory", generatedSources);
+        mojoRule.setVariableValueToObject(precompileMojo, "generatedResourcesDirectory", generatedResources);
+        precompileMojo.execute();
+
+        assertEquals("Expected 1 file to process.", 1, precompileMojo.getProcessedFiles().size());
+        File javaFile = new File(generatedSources, "org/apache/sling/htl/impl/apps/projects/script_html.java");
+        assertTrue("Expected the generated class for script.html.", javaFile.isFile());
+        String javaSource = FileUtils.readFileToString(javaFile, StandardCharsets.UTF_8);
+        assertTrue(javaSource.contains("package org.apache.sling.htl.impl.apps.projects;"));
+        assertTrue(javaSource.contains("public final class script_html extends RenderUnit"));
+
+        Properties index = new Properties();
+        InputStream is = new FileInputStream(new File(generatedResources, PrecompileMojo.TEMPLATES_INDEX));
+        try {
+            index.load(is);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        String source = FileUtils.readFileToString(new File(baseDir, SCRIPT_HTML), StandardCharsets.UTF_8);
+        assertEquals(1, index.size());
+        assertEquals("org.apache.sling.htl.impl.apps.projects.script_html," + PrecompileMojo.checksum(source),
+                index.getProperty("/apps/projects/script.html"));
+    }
+
+    private PrecompileMojo getMojo(File baseDir, String pomFile) throws Exception {
+        SilentLog log = new SilentLog();
+        DefaultBuildContext buildContext = new DefaultBuildContext();
+
+        File pom = new File(baseDir, pomFile);
+        PrecompileMojo precompileMojo = new PrecompileMojo();
+        mojoRule.configureMojo(precompileMojo, mojoRule.extractPluginConfiguration("htl-maven-plugin", pom));
+        MavenProject mavenProject = new ProjectStub(pom);
+        mojoRule.setVariableValueToObject(precompileMojo, "project", mavenProject);
+        precompileMojo.setLog(log);
+        buildContext.enableLogging(log);
+        precompileMojo.setBuildContext(buildContext);
+        return precompileMojo;
+    }
+}